@@ -160,6 +160,30 @@ public abstract class AnimationEngine {
      * Sets the current document time.
      */
     public float setCurrentTime(float t) {
+        moveDocumentBeginTime(t);
+        return tick(t, true);
+    }
+
+    /**
+     * Advances the document time to the given time, as the regular
+     * ticks of the engine do.  Unlike {@link #setCurrentTime(float)},
+     * which seeks the document as for a hyperlink and so updates every
+     * animation, only the animations whose value changed are updated.
+     * Times before the current document time are seeked to.
+     */
+    public float advanceTo(float t) {
+        if (t < timedDocumentRoot.getCurrentTime()) {
+            return setCurrentTime(t);
+        }
+        moveDocumentBeginTime(t);
+        return tick(t, false);
+    }
+
+    /**
+     * Moves the document begin time so that the current time is
+     * <code>t</code>.
+     */
+    protected void moveDocumentBeginTime(float t) {
         boolean p = pauseTime != 0;
         unpause();
         Calendar begin = timedDocumentRoot.getDocumentBeginTime();
@@ -169,7 +193,6 @@ public abstract class AnimationEngine {
         if (p) {
             pause();
         }
-        return tick(t, true);
     }
 
     /**
@@ -202,6 +202,9 @@ public abstract class AbstractElement
      * Creates the attribute list.
      */
     protected NamedNodeMap createAttributes() {
+        if (ownerDocument.getCompactAttributes()) {
+            return new ExtendedCompactNamedNodeMap();
+        }
         return new ExtendedNamedNodeHashMap();
     }
 
@@ -216,6 +219,11 @@ public abstract class AbstractElement
         if (attributes == null) {
             attributes = createAttributes();
         }
+        if (attributes instanceof ExtendedCompactNamedNodeMap) {
+            ((ExtendedCompactNamedNodeMap)attributes).
+                setUnspecifiedAttribute(nsURI, name, value);
+            return;
+        }
         ((ExtendedNamedNodeHashMap)attributes).
             setUnspecifiedAttribute(nsURI, name, value);
     }
@@ -346,4 +354,67 @@ public abstract class AbstractElement
             return n;
         }
     }
+
+    /**
+     * A compact implementation of the {@link NamedNodeMap} which resets
+     * the removed attributes to their default value.
+     */
+    protected class ExtendedCompactNamedNodeMap extends CompactNamedNodeMap {
+
+        /**
+         * Creates a new ExtendedCompactNamedNodeMap object.
+         */
+        public ExtendedCompactNamedNodeMap() {
+        }
+
+        /**
+         * Adds an unspecified attribute to the map.
+         *
+         * @param nsURI The attribute namespace URI.
+         * @param name The attribute's qualified name.
+         * @param value The attribute's default value.
+         */
+        public void setUnspecifiedAttribute( String nsURI, String name,
+                                             String value ) {
+            Attr attr = getOwnerDocument().createAttributeNS( nsURI, name );
+            attr.setValue( value );
+            ( (AbstractAttr)attr ).setSpecified( false );
+            setNamedItemNS( attr );
+        }
+
+        /**
+         * <b>DOM</b>: Implements {@link NamedNodeMap#removeNamedItemNS(String,String)}.
+         */
+        public Node removeNamedItemNS( String namespaceURI, String localName )
+                throws DOMException {
+            if ( isReadonly() ) {
+                throw createDOMException
+                        ( DOMException.NO_MODIFICATION_ALLOWED_ERR,
+                                "readonly.node.map",
+                                new Object[]{} );
+            }
+            if ( localName == null ) {
+                throw createDOMException( DOMException.NOT_FOUND_ERR,
+                        "attribute.missing",
+                        new Object[]{""} );
+            }
+            AbstractAttr n = (AbstractAttr)remove( namespaceURI, localName );
+            if ( n == null ) {
+                throw createDOMException( DOMException.NOT_FOUND_ERR,
+                        "attribute.missing",
+                        new Object[]{localName} );
+            }
+            n.setOwnerElement( null );
+            String prefix = n.getPrefix();
+
+            // Reset the attribute to its default value
+            if ( !resetAttribute( namespaceURI, prefix, localName ) ) {
+                // Mutation event
+                fireDOMAttrModifiedEvent( n.getNodeName(), n,
+                        n.getNodeValue(), "",
+                        MutationEvent.REMOVAL );
+            }
+            return n;
+        }
+    }
 }
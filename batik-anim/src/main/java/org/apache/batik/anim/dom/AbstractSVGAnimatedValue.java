@@ -53,9 +53,9 @@ public abstract class AbstractSVGAnimatedValue
     protected boolean hasAnimVal;
 
     /**
-     * Listener list.
+     * Listener list, created when the first listener is added.
      */
-    protected LinkedList listeners = new LinkedList();
+    protected LinkedList listeners;
 
     /**
      * Creates a new AbstractSVGAnimatedValue.
@@ -89,6 +89,13 @@ public abstract class AbstractSVGAnimatedValue
         return hasAnimVal || element.hasAttributeNS(namespaceURI, localName);
     }
 
+    /**
+     * Returns whether this value currently has an animated value.
+     */
+    public boolean isAnimated() {
+        return hasAnimVal;
+    }
+
     /**
      * Updates the animated value with the given {@link AnimatableValue}.
      */
@@ -98,16 +105,24 @@ public abstract class AbstractSVGAnimatedValue
      * Adds a listener for changes to the animated value.
      */
     public void addAnimatedAttributeListener(AnimatedAttributeListener aal) {
-        if (!listeners.contains(aal)) {
-            listeners.add(aal);
+        if (aal == null) {
+            return;
         }
+        if (listeners == null) {
+            listeners = new LinkedList();
+        } else if (listeners.contains(aal)) {
+            return;
+        }
+        listeners.add(aal);
     }
 
     /**
      * Removes a listener for changes to the animated value.
      */
     public void removeAnimatedAttributeListener(AnimatedAttributeListener aal) {
-        listeners.remove(aal);
+        if (listeners != null) {
+            listeners.remove(aal);
+        }
     }
 
     /**
@@ -124,6 +139,9 @@ public abstract class AbstractSVGAnimatedValue
      * Fires the listeners for the animated value.
      */
     protected void fireAnimatedAttributeListeners() {
+        if (listeners == null) {
+            return;
+        }
         for (Object listener1 : listeners) {
             AnimatedAttributeListener listener =
                     (AnimatedAttributeListener) listener1;
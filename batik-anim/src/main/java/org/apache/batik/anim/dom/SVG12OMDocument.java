@@ -58,6 +58,17 @@ public class SVG12OMDocument extends SVGOMDocument {
         return new SVG12OMDocument();
     }
 
+    /**
+     * Sets whether this document is only loaded to be rendered.  The
+     * sXBL processing relies on the mutation events, so SVG 1.2
+     * documents only store their attributes in a compact form.
+     */
+    public void setRenderOnly(boolean b) {
+        if (b) {
+            compactAttributes = true;
+        }
+    }
+
     // CSSNavigableDocument ///////////////////////////////////////////
 
     /**
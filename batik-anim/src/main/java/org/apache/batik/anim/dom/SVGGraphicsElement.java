@@ -287,8 +287,11 @@ public abstract class SVGGraphicsElement
                 motionTransform.setToTranslation(p.getX(), p.getY());
                 motionTransform.rotate(p.getAngle());
             }
-            SVGOMDocument d = (SVGOMDocument) ownerDocument;
-            d.getAnimatedAttributeListener().otherAnimationChanged(this, type);
+            AnimatedAttributeListener l =
+                ((SVGOMDocument) ownerDocument).getAnimatedAttributeListener();
+            if (l != null) {
+                l.otherAnimationChanged(this, type);
+            }
         } else {
             super.updateOtherValue(type, val);
         }
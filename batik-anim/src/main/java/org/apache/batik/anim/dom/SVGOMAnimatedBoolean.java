@@ -89,11 +89,11 @@ public class SVGOMAnimatedBoolean
      * Updates the base value from the attribute.
      */
     protected void update() {
-        Attr attr = element.getAttributeNodeNS(namespaceURI, localName);
-        if (attr == null) {
+        if (!element.hasAttributeNS(namespaceURI, localName)) {
             baseVal = defaultValue;
         } else {
-            baseVal = attr.getValue().equals("true");
+            baseVal = element.getAttributeNS(namespaceURI, localName).equals
+                ("true");
         }
         valid = true;
     }
@@ -232,12 +232,11 @@ public class SVGOMAnimatedMarkerOrientValue extends AbstractSVGAnimatedValue {
          */
         protected void revalidate() {
             if (!valid) {
-                Attr attr = element.getAttributeNodeNS(namespaceURI, localName);
-                if (attr == null) {
+                if (!element.hasAttributeNS(namespaceURI, localName)) {
                     setUnitType(SVGAngle.SVG_ANGLETYPE_UNSPECIFIED);
                     value = 0;
                 } else {
-                    parse(attr.getValue());
+                    parse(element.getAttributeNS(namespaceURI, localName));
                 }
                 valid = true;
             }
@@ -41,6 +41,8 @@ import org.apache.batik.dom.svg.SVGPathSegItem;
 
 import org.apache.batik.parser.ParseException;
 import org.apache.batik.parser.PathArrayProducer;
+import org.apache.batik.parser.PathHandler;
+import org.apache.batik.parser.PathParser;
 
 import org.w3c.dom.Attr;
 import org.w3c.dom.DOMException;
@@ -61,6 +63,16 @@ public class SVGOMAnimatedPathData
     extends AbstractSVGAnimatedValue
     implements SVGAnimatedPathData {
 
+    /**
+     * Empty path commands.
+     */
+    protected static final short[] EMPTY_COMMANDS = new short[0];
+
+    /**
+     * Empty path parameters.
+     */
+    protected static final float[] EMPTY_PARAMETERS = new float[0];
+
     /**
      * Whether the list is changing.
      */
@@ -91,6 +103,33 @@ public class SVGOMAnimatedPathData
      */
     protected String defaultValue;
 
+    /**
+     * Whether the parsed path data reflects the current attribute value.
+     */
+    protected boolean pathDataValid;
+
+    /**
+     * Whether the attribute is missing.
+     */
+    protected boolean pathDataMissing;
+
+    /**
+     * Whether the attribute is malformed.
+     */
+    protected boolean pathDataMalformed;
+
+    /**
+     * The path commands parsed from the attribute value.  This array and
+     * {@link #pathParameters} are shared by the base path segment lists
+     * and the bridge, so that the attribute is parsed only once.
+     */
+    protected short[] pathCommands;
+
+    /**
+     * The path parameters parsed from the attribute value.
+     */
+    protected float[] pathParameters;
+
     /**
      * Creates a new SVGOMAnimatedPathData.
      * @param elt The associated element.
@@ -174,33 +213,99 @@ public class SVGOMAnimatedPathData
      */
     public void check() {
         if (!hasAnimVal) {
-            if (pathSegs == null) {
-                pathSegs = new BaseSVGPathSegList();
-            }
-            pathSegs.revalidate();
-            if (pathSegs.missing) {
+            revalidatePathData();
+            if (pathDataMissing) {
                 throw new LiveAttributeException
                     (element, localName,
                      LiveAttributeException.ERR_ATTRIBUTE_MISSING, null);
             }
-            if (pathSegs.malformed) {
+            if (pathDataMalformed) {
                 throw new LiveAttributeException
                     (element, localName,
                      LiveAttributeException.ERR_ATTRIBUTE_MALFORMED,
-                     pathSegs.getValueAsString());
+                     getPathDataString());
             }
         }
     }
 
+    /**
+     * Uses the given {@link PathHandler} to handle the segments of the
+     * animated path data.  When the attribute is not animated, the segments
+     * are replayed from the parsed attribute value, without creating the
+     * {@link SVGPathSeg} objects of the path segment list.
+     */
+    public void handleAnimatedPathData(PathHandler h) {
+        if (hasAnimVal) {
+            SVGAnimatedPathDataSupport.handlePathSegList
+                (getAnimatedPathSegList(), h);
+        } else {
+            revalidatePathData();
+            SVGAnimatedPathDataSupport.handlePathData
+                (pathCommands, pathParameters, h);
+        }
+    }
+
+    /**
+     * Returns the value of the attribute, or the default value if it is
+     * not specified.
+     */
+    protected String getPathDataString() {
+        if (!element.hasAttributeNS(namespaceURI, localName)) {
+            return defaultValue;
+        }
+        return element.getAttributeNS(namespaceURI, localName);
+    }
+
+    /**
+     * Parses the attribute value into {@link #pathCommands} and
+     * {@link #pathParameters}, if needed.  A missing or malformed value
+     * gives empty arrays.
+     */
+    protected void revalidatePathData() {
+        if (pathDataValid) {
+            return;
+        }
+
+        pathDataValid = true;
+        pathDataMissing = false;
+        pathDataMalformed = false;
+        pathCommands = EMPTY_COMMANDS;
+        pathParameters = EMPTY_PARAMETERS;
+
+        String s = getPathDataString();
+        if (s == null) {
+            pathDataMissing = true;
+            return;
+        }
+        try {
+            PathParser pp = new PathParser();
+            PathArrayProducer pap = new PathArrayProducer();
+            pp.setPathHandler(pap);
+            pp.parse(s);
+            pathCommands = pap.getPathCommands();
+            pathParameters = pap.getPathParameters();
+        } catch (ParseException e) {
+            pathDataMalformed = true;
+        }
+    }
+
+    /**
+     * Marks the parsed path data as out of date.
+     */
+    protected void invalidatePathData() {
+        pathDataValid = false;
+        pathCommands = null;
+        pathParameters = null;
+    }
+
     /**
      * Returns the base value of the attribute as an {@link AnimatableValue}.
      */
     public AnimatableValue getUnderlyingValue(AnimationTarget target) {
-        SVGPathSegList psl = getPathSegList();
-        PathArrayProducer pp = new PathArrayProducer();
-        SVGAnimatedPathDataSupport.handlePathSegList(psl, pp);
-        return new AnimatablePathDataValue(target, pp.getPathCommands(),
-                                           pp.getPathParameters());
+        revalidatePathData();
+        return new AnimatablePathDataValue(target,
+                                           (short[]) pathCommands.clone(),
+                                           (float[]) pathParameters.clone());
     }
 
     /**
@@ -225,6 +330,7 @@ public class SVGOMAnimatedPathData
      * Called when an Attr node has been added.
      */
     public void attrAdded(Attr node, String newv) {
+        invalidatePathData();
         if (!changing) {
             if (pathSegs != null) {
                 pathSegs.invalidate();
@@ -243,6 +349,7 @@ public class SVGOMAnimatedPathData
      * Called when an Attr node has been modified.
      */
     public void attrModified(Attr node, String oldv, String newv) {
+        invalidatePathData();
         if (!changing) {
             if (pathSegs != null) {
                 pathSegs.invalidate();
@@ -261,6 +368,7 @@ public class SVGOMAnimatedPathData
      * Called when an Attr node has been removed.
      */
     public void attrRemoved(Attr node, String oldv) {
+        invalidatePathData();
         if (!changing) {
             if (pathSegs != null) {
                 pathSegs.invalidate();
@@ -310,11 +418,10 @@ public class SVGOMAnimatedPathData
          * Returns the value of the DOM attribute containing the path data.
          */
         protected String getValueAsString() {
-            Attr attr = element.getAttributeNodeNS(namespaceURI, localName);
-            if (attr == null) {
+            if (!element.hasAttributeNS(namespaceURI, localName)) {
                 return defaultValue;
             }
-            return attr.getValue();
+            return element.getAttributeNS(namespaceURI, localName);
         }
 
         /**
@@ -361,24 +468,26 @@ public class SVGOMAnimatedPathData
             missing = false;
             malformed = false;
 
-            String s = getValueAsString();
-            if (s == null) {
+            revalidatePathData();
+            if (pathDataMissing) {
                 missing = true;
                 return;
             }
-            try {
-                ListBuilder builder = new ListBuilder(this);
-
-                doParse(s, builder);
-
-                if (builder.getList() != null) {
-                    clear(itemList);
-                }
-                itemList = builder.getList();
-            } catch (ParseException e) {
+            if (pathDataMalformed) {
                 itemList = new ArrayList(1);
                 malformed = true;
+                return;
             }
+            ListBuilder builder = new ListBuilder(this);
+
+            SVGAnimatedPathDataSupport.handlePathData
+                (pathCommands, pathParameters,
+                 new PathSegListBuilder(builder));
+
+            if (builder.getList() != null) {
+                clear(itemList);
+            }
+            itemList = builder.getList();
         }
     }
 
@@ -419,11 +528,10 @@ public class SVGOMAnimatedPathData
          * Returns the value of the DOM attribute containing the path data.
          */
         protected String getValueAsString() throws SVGException {
-            Attr attr = element.getAttributeNodeNS(namespaceURI, localName);
-            if (attr == null) {
+            if (!element.hasAttributeNS(namespaceURI, localName)) {
                 return defaultValue;
             }
-            return attr.getValue();
+            return element.getAttributeNS(namespaceURI, localName);
         }
 
         /**
@@ -450,24 +558,26 @@ public class SVGOMAnimatedPathData
             missing = false;
             malformed = false;
 
-            String s = getValueAsString();
-            if (s == null) {
+            revalidatePathData();
+            if (pathDataMissing) {
                 missing = true;
                 return;
             }
-            try {
-                ListBuilder builder = new ListBuilder(this);
-
-                doParse(s, builder);
-
-                if (builder.getList() != null) {
-                    clear(itemList);
-                }
-                itemList = builder.getList();
-            } catch (ParseException e) {
+            if (pathDataMalformed) {
                 itemList = new ArrayList(1);
                 malformed = true;
+                return;
+            }
+            ListBuilder builder = new ListBuilder(this);
+
+            SVGAnimatedPathDataSupport.handlePathData
+                (pathCommands, pathParameters,
+                 new NormalizedPathSegListBuilder(builder));
+
+            if (builder.getList() != null) {
+                clear(itemList);
             }
+            itemList = builder.getList();
         }
     }
 
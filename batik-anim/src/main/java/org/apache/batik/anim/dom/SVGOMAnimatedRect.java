@@ -199,9 +199,9 @@ public class SVGOMAnimatedRect
                 return;
             }
 
-            Attr attr = element.getAttributeNodeNS(namespaceURI, localName);
-
-            final String s = attr == null ? defaultValue : attr.getValue();
+            final String s = element.hasAttributeNS(namespaceURI, localName)
+                ? element.getAttributeNS(namespaceURI, localName)
+                : defaultValue;
             final float[] numbers = new float[4];
             NumberListParser p = new NumberListParser();
             p.setNumberListHandler(new DefaultNumberListHandler() {
@@ -231,11 +231,10 @@ public class SVGOMAnimatedTransformList
          * Returns the value of the DOM attribute containing the transform list.
          */
         protected String getValueAsString() {
-            Attr attr = element.getAttributeNodeNS(namespaceURI, localName);
-            if (attr == null) {
+            if (!element.hasAttributeNS(namespaceURI, localName)) {
                 return defaultValue;
             }
-            return attr.getValue();
+            return element.getAttributeNS(namespaceURI, localName);
         }
 
         /**
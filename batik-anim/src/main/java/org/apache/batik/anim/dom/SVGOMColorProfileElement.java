@@ -22,7 +22,6 @@ import org.apache.batik.dom.AbstractDocument;
 import org.apache.batik.dom.util.XLinkSupport;
 import org.apache.batik.dom.util.XMLSupport;
 
-import org.w3c.dom.Attr;
 import org.w3c.dom.DOMException;
 import org.w3c.dom.Node;
 import org.w3c.dom.svg.SVGColorProfileElement;
@@ -130,11 +129,10 @@ public class SVGOMColorProfileElement
      * SVGColorProfileElement#getRenderingIntent()}.
      */
     public short getRenderingIntent() {
-        Attr attr = getAttributeNodeNS(null, SVG_RENDERING_INTENT_ATTRIBUTE);
-        if (attr == null) {
+        if (!hasAttributeNS(null, SVG_RENDERING_INTENT_ATTRIBUTE)) {
             return RENDERING_INTENT_AUTO;
         }
-        String val = attr.getValue();
+        String val = getAttributeNS(null, SVG_RENDERING_INTENT_ATTRIBUTE);
         switch (val.length()) {
         case 4:
             if (val.equals(SVG_AUTO_VALUE)) {
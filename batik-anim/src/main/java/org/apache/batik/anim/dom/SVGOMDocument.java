@@ -484,10 +484,11 @@ public class SVGOMDocument
     }
 
     /**
-     * Returns the {@link AnimatedAttributeListener} for the document.
+     * Returns the {@link AnimatedAttributeListener} for the document,
+     * or null if the document is render-only.
      */
     protected AnimatedAttributeListener getAnimatedAttributeListener() {
-        return mainAnimatedAttributeListener;
+        return renderOnly ? null : mainAnimatedAttributeListener;
     }
 
     /**
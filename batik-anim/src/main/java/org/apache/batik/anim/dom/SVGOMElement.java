@@ -145,9 +145,8 @@ public abstract class SVGOMElement
      */
     public String getId() {
         if (((SVGOMDocument) ownerDocument).isSVG12) {
-            Attr a = getAttributeNodeNS(XML_NAMESPACE_URI, SVG_ID_ATTRIBUTE);
-            if (a != null) {
-                return a.getNodeValue();
+            if (hasAttributeNS(XML_NAMESPACE_URI, SVG_ID_ATTRIBUTE)) {
+                return getAttributeNS(XML_NAMESPACE_URI, SVG_ID_ATTRIBUTE);
             }
         }
         return getAttributeNS(null, SVG_ID_ATTRIBUTE);
@@ -285,12 +284,12 @@ public abstract class SVGOMElement
             return base;
         }
         Element e = (Element) node;
-        Attr attr = e.getAttributeNodeNS(XML_NAMESPACE_URI, XML_BASE_ATTRIBUTE);
-        if (attr != null) {
+        if (e.hasAttributeNS(XML_NAMESPACE_URI, XML_BASE_ATTRIBUTE)) {
+            String b = e.getAttributeNS(XML_NAMESPACE_URI, XML_BASE_ATTRIBUTE);
             if (base == null) {
-                base = attr.getNodeValue();
+                base = b;
             } else {
-                base = new ParsedURL(base, attr.getNodeValue()).toString();
+                base = new ParsedURL(base, b).toString();
             }
         }
         return base;
@@ -0,0 +1,73 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.anim.dom;
+
+import java.io.IOException;
+
+import org.apache.batik.dom.util.XMLScannerDocumentBuilder;
+
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+/**
+ * This class contains methods for creating SVGDocument instances
+ * from an URI, using an {@link org.apache.batik.xml.XMLScanner}
+ * instead of a SAX parser.  The validating documents are still
+ * parsed with SAX.
+ *
+ * @version $Id$
+ */
+public class XMLScannerSVGDocumentFactory extends SAXSVGDocumentFactory {
+
+    /**
+     * The builder of the documents.
+     */
+    protected XMLScannerDocumentBuilder builder;
+
+    /**
+     * Creates a new XMLScannerSVGDocumentFactory object.
+     */
+    public XMLScannerSVGDocumentFactory() {
+        super(null);
+    }
+
+    /**
+     * Creates a new XMLScannerSVGDocumentFactory object.
+     * @param dd Whether a document descriptor must be generated.
+     */
+    public XMLScannerSVGDocumentFactory(boolean dd) {
+        super(null, dd);
+    }
+
+    /**
+     * Creates a Document.
+     * @param is  The document input source.
+     * @exception IOException if an error occured while reading the document.
+     */
+    protected Document createDocument(InputSource is)
+        throws IOException {
+        if (isValidating) {
+            return super.createDocument(is);
+        }
+        if (builder == null) {
+            builder = new XMLScannerDocumentBuilder(this);
+        }
+        return builder.createDocument(is);
+    }
+}
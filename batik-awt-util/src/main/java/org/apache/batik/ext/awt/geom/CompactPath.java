@@ -0,0 +1,474 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.ext.awt.geom;
+
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.FlatteningPathIterator;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+/**
+ * An immutable path stored as an array of segment types and an array of
+ * float coordinates, meant for shapes that do not change once built.
+ * The bounds are computed once, and the elliptical arcs of an
+ * {@link ExtendedShape} are kept for {@link #getExtendedPathIterator()}
+ * only when the extended segments differ from the plain ones.
+ *
+ * <p>The outline computed by {@link #createStrokedShape(Stroke)} can
+ * optionally be kept, so that painters recreated with an equal stroke
+ * do not stroke the path again.</p>
+ *
+ * @version $Id$
+ */
+public class CompactPath implements ExtendedShape {
+
+    /**
+     * The segment type used to store {@link ExtendedPathIterator#SEG_ARCTO}.
+     */
+    protected static final byte ARCTO = 5;
+
+    /**
+     * The number of coordinates of each segment type, indexed by type.
+     */
+    protected static final int[] COORD_COUNTS = { 2, 2, 4, 6, 0, 7 };
+
+    /**
+     * The winding rule.
+     */
+    protected int windingRule;
+
+    /**
+     * The segment types, as <code>PathIterator.SEG_*</code> constants.
+     */
+    protected byte[] types;
+
+    /**
+     * The segment coordinates.
+     */
+    protected float[] coords;
+
+    /**
+     * The extended segment types, which may include {@link #ARCTO}.
+     */
+    protected byte[] extTypes;
+
+    /**
+     * The extended segment coordinates.
+     */
+    protected float[] extCoords;
+
+    /**
+     * The bounds of the control points.
+     */
+    protected float minX, minY, maxX, maxY;
+
+    /**
+     * Whether the stroked outline is kept.
+     */
+    protected boolean cacheStrokedShape;
+
+    /**
+     * The stroke of the cached outline.
+     */
+    protected Stroke stroke;
+
+    /**
+     * The cached outline.
+     */
+    protected Shape strokedShape;
+
+    /**
+     * Creates a new CompactPath with the same segments as the given shape.
+     */
+    public CompactPath(Shape s) {
+        this(s, false);
+    }
+
+    /**
+     * Creates a new CompactPath with the same segments as the given shape.
+     * @param s The shape to copy.
+     * @param cacheStrokedShape Whether to keep the last stroked outline.
+     */
+    public CompactPath(Shape s, boolean cacheStrokedShape) {
+        this.cacheStrokedShape = cacheStrokedShape;
+
+        PathIterator pi = s.getPathIterator(null);
+        windingRule = pi.getWindingRule();
+        Builder b = new Builder();
+        float[] vals = new float[6];
+        while (!pi.isDone()) {
+            int type = pi.currentSegment(vals);
+            b.add(type, vals, COORD_COUNTS[type]);
+            pi.next();
+        }
+        types = b.getTypes();
+        coords = b.getCoords();
+
+        extTypes = types;
+        extCoords = coords;
+        if (s instanceof ExtendedShape) {
+            ExtendedPathIterator epi =
+                ((ExtendedShape) s).getExtendedPathIterator();
+            b = new Builder();
+            vals = new float[7];
+            while (!epi.isDone()) {
+                int type = epi.currentSegment(vals);
+                if (type == ExtendedPathIterator.SEG_ARCTO) {
+                    type = ARCTO;
+                }
+                b.add(type, vals, COORD_COUNTS[type]);
+                epi.next();
+            }
+            byte[] et = b.getTypes();
+            float[] ec = b.getCoords();
+            if (!Arrays.equals(et, types) || !Arrays.equals(ec, coords)) {
+                extTypes = et;
+                extCoords = ec;
+            }
+        }
+
+        if (coords.length > 0) {
+            minX = maxX = coords[0];
+            minY = maxY = coords[1];
+            for (int i = 2; i < coords.length; i += 2) {
+                float x = coords[i];
+                float y = coords[i + 1];
+                if (x < minX) minX = x;
+                else if (x > maxX) maxX = x;
+                if (y < minY) minY = y;
+                else if (y > maxY) maxY = y;
+            }
+        }
+    }
+
+    /**
+     * Returns the winding rule of this path.
+     */
+    public int getWindingRule() {
+        return windingRule;
+    }
+
+    /**
+     * Returns the outline of this path drawn with the given stroke.  The
+     * last outline is kept when this path was created with stroked shape
+     * caching, and returned again for an equal stroke.
+     */
+    public synchronized Shape createStrokedShape(Stroke s) {
+        if (!cacheStrokedShape) {
+            return s.createStrokedShape(this);
+        }
+        if (strokedShape == null || !s.equals(stroke)) {
+            strokedShape = s.createStrokedShape(this);
+            stroke = s;
+        }
+        return strokedShape;
+    }
+
+    // Shape ////////////////////////////////////////////////////////////////
+
+    /**
+     * Implements {@link Shape#getBounds()}.
+     */
+    public Rectangle getBounds() {
+        return getBounds2D().getBounds();
+    }
+
+    /**
+     * Implements {@link Shape#getBounds2D()}.  Like {@link GeneralPath},
+     * the bounds include the control points.
+     */
+    public Rectangle2D getBounds2D() {
+        return new Rectangle2D.Float(minX, minY, maxX - minX, maxY - minY);
+    }
+
+    /**
+     * Implements {@link Shape#contains(double,double)}.
+     */
+    public boolean contains(double x, double y) {
+        if (types.length < 2
+                || x < minX || x > maxX || y < minY || y > maxY) {
+            return false;
+        }
+        return Path2D.contains(getPathIterator(null), x, y);
+    }
+
+    /**
+     * Implements {@link Shape#contains(Point2D)}.
+     */
+    public boolean contains(Point2D p) {
+        return contains(p.getX(), p.getY());
+    }
+
+    /**
+     * Implements {@link Shape#contains(double,double,double,double)}.
+     */
+    public boolean contains(double x, double y, double w, double h) {
+        if (x < minX || y < minY || x + w > maxX || y + h > maxY) {
+            return false;
+        }
+        return Path2D.contains(getPathIterator(null), x, y, w, h);
+    }
+
+    /**
+     * Implements {@link Shape#contains(Rectangle2D)}.
+     */
+    public boolean contains(Rectangle2D r) {
+        return contains(r.getX(), r.getY(), r.getWidth(), r.getHeight());
+    }
+
+    /**
+     * Implements {@link Shape#intersects(double,double,double,double)}.
+     */
+    public boolean intersects(double x, double y, double w, double h) {
+        if (x + w < minX || y + h < minY || x > maxX || y > maxY) {
+            return false;
+        }
+        return Path2D.intersects(getPathIterator(null), x, y, w, h);
+    }
+
+    /**
+     * Implements {@link Shape#intersects(Rectangle2D)}.
+     */
+    public boolean intersects(Rectangle2D r) {
+        return intersects(r.getX(), r.getY(), r.getWidth(), r.getHeight());
+    }
+
+    /**
+     * Implements {@link Shape#getPathIterator(AffineTransform)}.
+     */
+    public PathIterator getPathIterator(AffineTransform at) {
+        if (at != null && at.isIdentity()) {
+            at = null;
+        }
+        return new CompactPathIterator(at);
+    }
+
+    /**
+     * Implements {@link Shape#getPathIterator(AffineTransform,double)}.
+     */
+    public PathIterator getPathIterator(AffineTransform at, double flatness) {
+        return new FlatteningPathIterator(getPathIterator(at), flatness);
+    }
+
+    /**
+     * Returns a new {@link GeneralPath} holding the segments of this path
+     * transformed by the given transform.
+     */
+    public Shape createTransformedShape(AffineTransform at) {
+        GeneralPath gp = new GeneralPath(windingRule, types.length);
+        gp.append(getPathIterator(at), false);
+        return gp;
+    }
+
+    // ExtendedShape ////////////////////////////////////////////////////////
+
+    /**
+     * Implements {@link ExtendedShape#getExtendedPathIterator()}.
+     */
+    public ExtendedPathIterator getExtendedPathIterator() {
+        return new CompactExtendedPathIterator();
+    }
+
+    /**
+     * The iterator over the plain segments of the path.
+     */
+    protected class CompactPathIterator implements PathIterator {
+
+        /**
+         * The transform to apply, or null.
+         */
+        protected AffineTransform transform;
+
+        /**
+         * The index of the current segment.
+         */
+        protected int segment;
+
+        /**
+         * The index of the first coordinate of the current segment.
+         */
+        protected int coord;
+
+        /**
+         * Creates a new CompactPathIterator.
+         */
+        public CompactPathIterator(AffineTransform at) {
+            transform = at;
+        }
+
+        public int getWindingRule() {
+            return windingRule;
+        }
+
+        public boolean isDone() {
+            return segment >= types.length;
+        }
+
+        public void next() {
+            coord += COORD_COUNTS[types[segment++]];
+        }
+
+        public int currentSegment(float[] c) {
+            int type = types[segment];
+            int n = COORD_COUNTS[type];
+            if (n > 0) {
+                if (transform == null) {
+                    System.arraycopy(coords, coord, c, 0, n);
+                } else {
+                    transform.transform(coords, coord, c, 0, n / 2);
+                }
+            }
+            return type;
+        }
+
+        public int currentSegment(double[] c) {
+            int type = types[segment];
+            int n = COORD_COUNTS[type];
+            if (n > 0) {
+                if (transform == null) {
+                    for (int i = 0; i < n; i++) {
+                        c[i] = coords[coord + i];
+                    }
+                } else {
+                    transform.transform(coords, coord, c, 0, n / 2);
+                }
+            }
+            return type;
+        }
+    }
+
+    /**
+     * The iterator over the extended segments of the path.
+     */
+    protected class CompactExtendedPathIterator
+            implements ExtendedPathIterator {
+
+        /**
+         * The index of the current segment.
+         */
+        protected int segment;
+
+        /**
+         * The index of the first coordinate of the current segment.
+         */
+        protected int coord;
+
+        public int getWindingRule() {
+            return windingRule;
+        }
+
+        public boolean isDone() {
+            return segment >= extTypes.length;
+        }
+
+        public void next() {
+            coord += COORD_COUNTS[extTypes[segment++]];
+        }
+
+        public int currentSegment() {
+            int type = extTypes[segment];
+            return type == ARCTO ? SEG_ARCTO : type;
+        }
+
+        public int currentSegment(float[] c) {
+            int type = extTypes[segment];
+            System.arraycopy(extCoords, coord, c, 0, COORD_COUNTS[type]);
+            return type == ARCTO ? SEG_ARCTO : type;
+        }
+
+        public int currentSegment(double[] c) {
+            int type = extTypes[segment];
+            int n = COORD_COUNTS[type];
+            for (int i = 0; i < n; i++) {
+                c[i] = extCoords[coord + i];
+            }
+            return type == ARCTO ? SEG_ARCTO : type;
+        }
+    }
+
+    /**
+     * Accumulates segments into growing arrays.
+     */
+    protected static class Builder {
+
+        /**
+         * The segment types.
+         */
+        protected byte[] types = new byte[16];
+
+        /**
+         * The coordinates.
+         */
+        protected float[] coords = new float[32];
+
+        /**
+         * The number of segments.
+         */
+        protected int numTypes;
+
+        /**
+         * The number of coordinates.
+         */
+        protected int numCoords;
+
+        /**
+         * Adds a segment.
+         */
+        public void add(int type, float[] vals, int n) {
+            if (numTypes == types.length) {
+                byte[] t = new byte[numTypes * 2];
+                System.arraycopy(types, 0, t, 0, numTypes);
+                types = t;
+            }
+            types[numTypes++] = (byte) type;
+            if (numCoords + n > coords.length) {
+                float[] c = new float[(numCoords + n) * 2];
+                System.arraycopy(coords, 0, c, 0, numCoords);
+                coords = c;
+            }
+            System.arraycopy(vals, 0, coords, numCoords, n);
+            numCoords += n;
+        }
+
+        /**
+         * Returns the segment types, trimmed to size.
+         */
+        public byte[] getTypes() {
+            byte[] t = new byte[numTypes];
+            System.arraycopy(types, 0, t, 0, numTypes);
+            return t;
+        }
+
+        /**
+         * Returns the coordinates, trimmed to size.
+         */
+        public float[] getCoords() {
+            float[] c = new float[numCoords];
+            System.arraycopy(coords, 0, c, 0, numCoords);
+            return c;
+        }
+    }
+}
@@ -49,6 +49,7 @@ import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
 
 import org.apache.batik.ext.awt.RenderingHintsKeyExt;
+import org.apache.batik.ext.awt.image.renderable.AbstractRable;
 import org.apache.batik.ext.awt.image.renderable.PaintRable;
 import org.apache.batik.ext.awt.image.rendered.AffineRed;
 import org.apache.batik.ext.awt.image.rendered.Any2LsRGBRed;
@@ -445,8 +446,15 @@ public class GraphicsUtil {
         // Get our sources image...
         // System.out.println("UnOpt: " + filter);
         AffineTransform at = g2d.getTransform();
-        RenderedImage ri = filter.createRendering
-            (new RenderContext(at, g2d.getClip(), g2d.getRenderingHints()));
+        RenderContext rc = new RenderContext
+            (at, g2d.getClip(), g2d.getRenderingHints());
+        RenderedImage ri;
+        if (filter instanceof AbstractRable)
+            // Reuse the rendering of the previous paint if nothing
+            // changed since.
+            ri = ((AbstractRable)filter).createCachedRendering(rc);
+        else
+            ri = filter.createRendering(rc);
 
         if (ri == null)
             return;
@@ -436,6 +436,7 @@ public class SVGComposite
 
             final int norm = (1<<24)/255;
             final int pt5  = (1<<23);
+            int outP;
 
             int srcP, dstInP, dstM;
 
@@ -445,16 +446,25 @@ public class SVGComposite
                     srcP   = srcPixels  [srcSp++];
                     dstInP = dstInPixels[dstInSp++];
 
-                    dstM = (255-(srcP>>>24))*norm;
-                    dstOutPixels[dstOutSp++] =
-                        (((     srcP & 0xFF000000) +
-                          (((((dstInP>>>24)     )*dstM+pt5)&0xFF000000)     ))|
-                         ((     srcP & 0x00FF0000) +
-                          (((((dstInP>> 16)&0xFF)*dstM+pt5)&0xFF000000)>>> 8))|
-                         ((     srcP & 0x0000FF00) +
-                          (((((dstInP>>  8)&0xFF)*dstM+pt5)&0xFF000000)>>>16))|
-                         ((     srcP & 0x000000FF) +
-                          (((((dstInP     )&0xFF)*dstM+pt5)         )>>>24)));
+                    // An opaque source hides the destination and a
+                    // transparent one leaves it unchanged.
+                    if ((srcP>>>24) == 255) {
+                        outP = srcP;
+                    } else if (srcP == 0) {
+                        outP = dstInP;
+                    } else {
+                        dstM = (255-(srcP>>>24))*norm;
+                        outP =
+                            (((     srcP & 0xFF000000) +
+                              (((((dstInP>>>24)     )*dstM+pt5)&0xFF000000)     ))|
+                             ((     srcP & 0x00FF0000) +
+                              (((((dstInP>> 16)&0xFF)*dstM+pt5)&0xFF000000)>>> 8))|
+                             ((     srcP & 0x0000FF00) +
+                              (((((dstInP>>  8)&0xFF)*dstM+pt5)&0xFF000000)>>>16))|
+                             ((     srcP & 0x000000FF) +
+                              (((((dstInP     )&0xFF)*dstM+pt5)         )>>>24)));
+                    }
+                    dstOutPixels[dstOutSp++] = outP;
                 }
                 srcSp    += srcAdjust;
                 dstInSp  += dstInAdjust;
@@ -481,6 +491,7 @@ public class SVGComposite
 
             final int norm = (1<<24)/255;
             final int pt5  = (1<<23);
+            int outP;
 
             int srcP, dstInP, dstM;
 
@@ -490,14 +501,21 @@ public class SVGComposite
                     srcP   = srcPixels  [srcSp++];
                     dstInP = dstInPixels[dstInSp++];
 
-                    dstM = (255-(srcP>>>24))*norm;
-                    dstOutPixels[dstOutSp++] =
-                        (((     srcP & 0x00FF0000) +
-                          (((((dstInP>> 16)&0xFF)*dstM+pt5)&0xFF000000)>>> 8))|
-                         ((     srcP & 0x0000FF00) +
-                          (((((dstInP>>  8)&0xFF)*dstM+pt5)&0xFF000000)>>>16))|
-                         ((     srcP & 0x000000FF) +
-                          (((((dstInP     )&0xFF)*dstM+pt5)         )>>>24)));
+                    if ((srcP>>>24) == 255) {
+                        outP = srcP & 0x00FFFFFF;
+                    } else if (srcP == 0) {
+                        outP = dstInP & 0x00FFFFFF;
+                    } else {
+                        dstM = (255-(srcP>>>24))*norm;
+                        outP =
+                            (((     srcP & 0x00FF0000) +
+                              (((((dstInP>> 16)&0xFF)*dstM+pt5)&0xFF000000)>>> 8))|
+                             ((     srcP & 0x0000FF00) +
+                              (((((dstInP>>  8)&0xFF)*dstM+pt5)&0xFF000000)>>>16))|
+                             ((     srcP & 0x000000FF) +
+                              (((((dstInP     )&0xFF)*dstM+pt5)         )>>>24)));
+                    }
+                    dstOutPixels[dstOutSp++] = outP;
                 }
                 srcSp    += srcAdjust;
                 dstInSp  += dstInAdjust;
@@ -548,6 +566,7 @@ public class SVGComposite
 
             final int norm = (1<<24)/255;
             final int pt5  = (1<<23);
+            int outP;
 
             int srcP, srcM, dstP, dstM;
 
@@ -557,18 +576,25 @@ public class SVGComposite
                     srcP   = srcPixels  [srcSp++];
                     dstP = dstInPixels[dstInSp++];
 
-                    srcM = (    (srcP>>>24))*norm;
-                    dstM = (255-(srcP>>>24))*norm;
-
-                    dstOutPixels[dstOutSp++] =
-                        ((((( srcP&0xFF000000)      +
-                            ((dstP>>>24)     )*dstM + pt5)&0xFF000000)     ) |
-                         (((((srcP>> 16)&0xFF)*srcM +
-                            ((dstP>> 16)&0xFF)*dstM + pt5)&0xFF000000)>>> 8) |
-                         (((((srcP>>  8)&0xFF)*srcM +
-                            ((dstP>>  8)&0xFF)*dstM + pt5)&0xFF000000)>>>16) |
-                         (((((srcP     )&0xFF)*srcM +
-                            ((dstP     )&0xFF)*dstM + pt5)           )>>>24));
+                    if ((srcP>>>24) == 255) {
+                        outP = srcP;
+                    } else if ((srcP>>>24) == 0) {
+                        outP = dstP;
+                    } else {
+                        srcM = (    (srcP>>>24))*norm;
+                        dstM = (255-(srcP>>>24))*norm;
+
+                        outP =
+                            ((((( srcP&0xFF000000)      +
+                                ((dstP>>>24)     )*dstM + pt5)&0xFF000000)     ) |
+                             (((((srcP>> 16)&0xFF)*srcM +
+                                ((dstP>> 16)&0xFF)*dstM + pt5)&0xFF000000)>>> 8) |
+                             (((((srcP>>  8)&0xFF)*srcM +
+                                ((dstP>>  8)&0xFF)*dstM + pt5)&0xFF000000)>>>16) |
+                             (((((srcP     )&0xFF)*srcM +
+                                ((dstP     )&0xFF)*dstM + pt5)           )>>>24));
+                    }
+                    dstOutPixels[dstOutSp++] = outP;
                 }
                 srcSp    += srcAdjust;
                 dstInSp  += dstInAdjust;
@@ -629,19 +655,29 @@ public class SVGComposite
 
             final int norm = (1<<24)/255;
             final int pt5  = (1<<23);
+            int outP;
 
-            int srcP, srcM;
+            int srcP, srcM, dstA;
 
             for (int y = 0; y<height; y++) {
                 final int end = dstOutSp+width;
                 while (dstOutSp<end) {
-                    srcM = (dstInPixels[dstInSp++]>>>24)*norm;
+                    dstA = dstInPixels[dstInSp++]>>>24;
                     srcP = srcPixels   [srcSp++];
-                    dstOutPixels[dstOutSp++] =
-                        ((((((srcP>>>24)     )*srcM + pt5)&0xFF000000)     ) |
-                         (((((srcP>> 16)&0xFF)*srcM + pt5)&0xFF000000)>>> 8) |
-                         (((((srcP>>  8)&0xFF)*srcM + pt5)&0xFF000000)>>>16) |
-                         (((((srcP     )&0xFF)*srcM + pt5)           )>>>24));
+
+                    if (dstA == 255) {
+                        outP = srcP;
+                    } else if (dstA == 0) {
+                        outP = 0;
+                    } else {
+                        srcM = dstA*norm;
+                        outP =
+                            ((((((srcP>>>24)     )*srcM + pt5)&0xFF000000)     ) |
+                             (((((srcP>> 16)&0xFF)*srcM + pt5)&0xFF000000)>>> 8) |
+                             (((((srcP>>  8)&0xFF)*srcM + pt5)&0xFF000000)>>>16) |
+                             (((((srcP     )&0xFF)*srcM + pt5)           )>>>24));
+                    }
+                    dstOutPixels[dstOutSp++] = outP;
                 }
                 srcSp    += srcAdjust;
                 dstInSp  += dstInAdjust;
@@ -702,19 +738,29 @@ public class SVGComposite
 
             final int norm = (1<<24)/255;
             final int pt5  = (1<<23);
+            int outP;
 
-            int srcP, srcM;
+            int srcP, srcM, dstA;
 
             for (int y = 0; y<height; y++) {
                 final int end = dstOutSp+width;
                 while (dstOutSp<end) {
-                    srcM = (255-(dstInPixels[dstInSp++]>>>24))*norm;
+                    dstA = dstInPixels[dstInSp++]>>>24;
                     srcP = srcPixels   [srcSp++];
-                    dstOutPixels[dstOutSp++] =
-                        ((((((srcP>>>24)     )*srcM + pt5)&0xFF000000)     ) |
-                         (((((srcP>> 16)&0xFF)*srcM + pt5)&0xFF000000)>>> 8) |
-                         (((((srcP>>  8)&0xFF)*srcM + pt5)&0xFF000000)>>>16) |
-                         (((((srcP     )&0xFF)*srcM + pt5)           )>>>24));
+
+                    if (dstA == 255) {
+                        outP = 0;
+                    } else if (dstA == 0) {
+                        outP = srcP;
+                    } else {
+                        srcM = (255-dstA)*norm;
+                        outP =
+                            ((((((srcP>>>24)     )*srcM + pt5)&0xFF000000)     ) |
+                             (((((srcP>> 16)&0xFF)*srcM + pt5)&0xFF000000)>>> 8) |
+                             (((((srcP>>  8)&0xFF)*srcM + pt5)&0xFF000000)>>>16) |
+                             (((((srcP     )&0xFF)*srcM + pt5)           )>>>24));
+                    }
+                    dstOutPixels[dstOutSp++] = outP;
                 }
                 srcSp    += srcAdjust;
                 dstInSp  += dstInAdjust;
@@ -778,6 +824,7 @@ public class SVGComposite
 
             final int norm = (1<<24)/255;
             final int pt5  = (1<<23);
+            int outP;
 
             int srcP, srcM, dstP, dstM;
 
@@ -787,17 +834,24 @@ public class SVGComposite
                     srcP = srcPixels  [srcSp++];
                     dstP = dstInPixels[dstInSp++];
 
-                    srcM = (     dstP>>>24) *norm;
-                    dstM = (255-(srcP>>>24))*norm;
-
-                    dstOutPixels[dstOutSp++] =
-                        ((dstP&0xFF000000)                                   |
-                         (((((srcP>> 16)&0xFF)*srcM +
-                            ((dstP>> 16)&0xFF)*dstM + pt5)&0xFF000000)>>> 8) |
-                         (((((srcP>>  8)&0xFF)*srcM +
-                            ((dstP>>  8)&0xFF)*dstM + pt5)&0xFF000000)>>>16) |
-                         (((((srcP     )&0xFF)*srcM +
-                            ((dstP     )&0xFF)*dstM + pt5)           )>>>24));
+                    if (srcP == 0) {
+                        outP = dstP;
+                    } else if (dstP == 0) {
+                        outP = 0;
+                    } else {
+                        srcM = (     dstP>>>24) *norm;
+                        dstM = (255-(srcP>>>24))*norm;
+
+                        outP =
+                            ((dstP&0xFF000000)                                   |
+                             (((((srcP>> 16)&0xFF)*srcM +
+                                ((dstP>> 16)&0xFF)*dstM + pt5)&0xFF000000)>>> 8) |
+                             (((((srcP>>  8)&0xFF)*srcM +
+                                ((dstP>>  8)&0xFF)*dstM + pt5)&0xFF000000)>>>16) |
+                             (((((srcP     )&0xFF)*srcM +
+                                ((dstP     )&0xFF)*dstM + pt5)           )>>>24));
+                    }
+                    dstOutPixels[dstOutSp++] = outP;
                 }
                 srcSp    += srcAdjust;
                 dstInSp  += dstInAdjust;
@@ -865,6 +919,7 @@ public class SVGComposite
 
             final int norm = (1<<24)/255;
             final int pt5  = (1<<23);
+            int outP;
 
             int srcP, srcM, dstP, dstM;
 
@@ -874,18 +929,25 @@ public class SVGComposite
                     srcP = srcPixels  [srcSp++];
                     dstP = dstInPixels[dstInSp++];
 
-                    srcM = (255-(dstP>>>24))*norm;
-                    dstM = (255-(srcP>>>24))*norm;
-
-                    dstOutPixels[dstOutSp++] =
-                        ((((((srcP>>>24)     )*srcM +
-                            ((dstP>>>24)     )*dstM + pt5)&0xFF000000)     ) |
-                         (((((srcP>> 16)&0xFF)*srcM +
-                            ((dstP>> 16)&0xFF)*dstM + pt5)&0xFF000000)>>> 8) |
-                         (((((srcP>>  8)&0xFF)*srcM +
-                            ((dstP>>  8)&0xFF)*dstM + pt5)&0xFF000000)>>>16) |
-                         (((((srcP     )&0xFF)*srcM +
-                            ((dstP     )&0xFF)*dstM + pt5)           )>>>24));
+                    if (srcP == 0) {
+                        outP = dstP;
+                    } else if (dstP == 0) {
+                        outP = srcP;
+                    } else {
+                        srcM = (255-(dstP>>>24))*norm;
+                        dstM = (255-(srcP>>>24))*norm;
+
+                        outP =
+                            ((((((srcP>>>24)     )*srcM +
+                                ((dstP>>>24)     )*dstM + pt5)&0xFF000000)     ) |
+                             (((((srcP>> 16)&0xFF)*srcM +
+                                ((dstP>> 16)&0xFF)*dstM + pt5)&0xFF000000)>>> 8) |
+                             (((((srcP>>  8)&0xFF)*srcM +
+                                ((dstP>>  8)&0xFF)*dstM + pt5)&0xFF000000)>>>16) |
+                             (((((srcP     )&0xFF)*srcM +
+                                ((dstP     )&0xFF)*dstM + pt5)           )>>>24));
+                    }
+                    dstOutPixels[dstOutSp++] = outP;
                 }
                 srcSp    += srcAdjust;
                 dstInSp  += dstInAdjust;
@@ -1144,6 +1206,7 @@ public class SVGComposite
 
             final int norm = (1<<24)/255;
             final int pt5  = (1<<23);
+            int outP;
 
             int srcP, srcA, srcR, srcG, srcB, srcM;
             int dstP, dstA, dstR, dstG, dstB, dstM;
@@ -1154,26 +1217,34 @@ public class SVGComposite
                     srcP = srcPixels  [srcSp++];
                     dstP = dstInPixels[dstInSp++];
 
-                    srcA = (srcP>>>24);
-                    dstA = (dstP>>>24);
-                    srcR = (srcP>> 16)&0xFF;
-                    dstR = (dstP>> 16)&0xFF;
-                    srcG = (srcP>>  8)&0xFF;
-                    dstG = (dstP>>  8)&0xFF;
-                    srcB = (srcP     )&0xFF;
-                    dstB = (dstP     )&0xFF;
-
-                    srcM = 255-dstA;
-                    dstM = 255-srcA;
-
-                    dstOutPixels[dstOutSp++] =
-                        (((((srcR*srcM + dstR*dstM + srcR*dstR)
-                            *norm + pt5)&0xFF000000)>>> 8) |
-                         ((((srcG*srcM + dstG*dstM + srcG*dstG)
-                            *norm + pt5)&0xFF000000)>>>16) |
-                         ((((srcB*srcM + dstB*dstM + srcB*dstB)
-                            *norm + pt5)           )>>>24) |
-                         ((srcA + dstA - ((srcA*dstA*norm + pt5)>>>24))<<24));
+                    // Blending with a transparent pixel gives the other one.
+                    if (srcP == 0) {
+                        outP = dstP;
+                    } else if (dstP == 0) {
+                        outP = srcP;
+                    } else {
+                        srcA = (srcP>>>24);
+                        dstA = (dstP>>>24);
+                        srcR = (srcP>> 16)&0xFF;
+                        dstR = (dstP>> 16)&0xFF;
+                        srcG = (srcP>>  8)&0xFF;
+                        dstG = (dstP>>  8)&0xFF;
+                        srcB = (srcP     )&0xFF;
+                        dstB = (dstP     )&0xFF;
+
+                        srcM = 255-dstA;
+                        dstM = 255-srcA;
+
+                        outP =
+                            (((((srcR*srcM + dstR*dstM + srcR*dstR)
+                                *norm + pt5)&0xFF000000)>>> 8) |
+                             ((((srcG*srcM + dstG*dstM + srcG*dstG)
+                                *norm + pt5)&0xFF000000)>>>16) |
+                             ((((srcB*srcM + dstB*dstM + srcB*dstB)
+                                *norm + pt5)           )>>>24) |
+                             ((srcA + dstA - ((srcA*dstA*norm + pt5)>>>24))<<24));
+                    }
+                    dstOutPixels[dstOutSp++] = outP;
                 }
                 srcSp    += srcAdjust;
                 dstInSp  += dstInAdjust;
@@ -1251,6 +1322,7 @@ public class SVGComposite
 
             final int norm = (1<<24)/255;
             final int pt5  = (1<<23);
+            int outP;
 
             int srcP, srcA, srcR, srcG, srcB;
             int dstP, dstA, dstR, dstG, dstB;
@@ -1261,20 +1333,28 @@ public class SVGComposite
                     srcP = srcPixels  [srcSp++];
                     dstP = dstInPixels[dstInSp++];
 
-                    srcA = (srcP>>>24);
-                    dstA = (dstP>>>24);
-                    srcR = (srcP>> 16)&0xFF;
-                    dstR = (dstP>> 16)&0xFF;
-                    srcG = (srcP>>  8)&0xFF;
-                    dstG = (dstP>>  8)&0xFF;
-                    srcB = (srcP     )&0xFF;
-                    dstB = (dstP     )&0xFF;
-
-                    dstOutPixels[dstOutSp++] =
-                        (((srcR + dstR - ((srcR*dstR*norm + pt5)>>>24))<<16)|
-                         ((srcG + dstG - ((srcG*dstG*norm + pt5)>>>24))<< 8)|
-                         ((srcB + dstB - ((srcB*dstB*norm + pt5)>>>24))    )|
-                         ((srcA + dstA - ((srcA*dstA*norm + pt5)>>>24))<<24));
+                    // Blending with a transparent pixel gives the other one.
+                    if (srcP == 0) {
+                        outP = dstP;
+                    } else if (dstP == 0) {
+                        outP = srcP;
+                    } else {
+                        srcA = (srcP>>>24);
+                        dstA = (dstP>>>24);
+                        srcR = (srcP>> 16)&0xFF;
+                        dstR = (dstP>> 16)&0xFF;
+                        srcG = (srcP>>  8)&0xFF;
+                        dstG = (dstP>>  8)&0xFF;
+                        srcB = (srcP     )&0xFF;
+                        dstB = (dstP     )&0xFF;
+
+                        outP =
+                            (((srcR + dstR - ((srcR*dstR*norm + pt5)>>>24))<<16)|
+                             ((srcG + dstG - ((srcG*dstG*norm + pt5)>>>24))<< 8)|
+                             ((srcB + dstB - ((srcB*dstB*norm + pt5)>>>24))    )|
+                             ((srcA + dstA - ((srcA*dstA*norm + pt5)>>>24))<<24));
+                    }
+                    dstOutPixels[dstOutSp++] = outP;
                 }
                 srcSp    += srcAdjust;
                 dstInSp  += dstInAdjust;
@@ -1356,6 +1436,7 @@ public class SVGComposite
 
             final int norm = (1<<24)/255;
             final int pt5  = (1<<23);
+            int outP;
 
             int srcP, srcM;
             int dstP, dstM, dstA, dstR, dstG, dstB;
@@ -1368,38 +1449,46 @@ public class SVGComposite
                     srcP = srcPixels  [srcSp++];
                     dstP = dstInPixels[dstInSp++];
 
-                    srcV = (srcP>>>24);
-                    dstV = (dstP>>>24);
-                    srcM = (255-dstV)*norm;
-                    dstM = (255-srcV)*norm;
-                    dstA = (srcV + dstV - ((srcV*dstV*norm + pt5)>>>24));
-
-                    srcV = (srcP>> 16)&0xFF;
-                    dstV = (dstP>> 16)&0xFF;
-                    dstR = ((srcM*srcV + pt5)>>>24) + dstV;
-                    tmp  = ((dstM*dstV + pt5)>>>24) + srcV;
-                    if (dstR > tmp) dstR = tmp;
-
-                    srcV = (srcP>>  8)&0xFF;
-                    dstV = (dstP>>  8)&0xFF;
-                    dstG = ((srcM*srcV + pt5)>>>24) + dstV;
-                    tmp  = ((dstM*dstV + pt5)>>>24) + srcV;
-                    if (dstG > tmp) dstG = tmp;
-
-
-                    srcV = (srcP     )&0xFF;
-                    dstV = (dstP     )&0xFF;
-                    dstB = ((srcM*srcV + pt5)>>>24) + dstV;
-                    tmp  = ((dstM*dstV + pt5)>>>24) + srcV;
-                    if (dstB > tmp) dstB = tmp;
-
-                    dstA &= 0xFF; // trim to 8 bit
-                    dstR &= 0xFF;
-                    dstG &= 0xFF;
-                    dstB &= 0xFF;
-
-                    dstOutPixels[dstOutSp++] =
-                        ((dstA<<24) | (dstR<<16) | (dstG<< 8) | dstB);
+                    // Blending with a transparent pixel gives the other one.
+                    if (srcP == 0) {
+                        outP = dstP;
+                    } else if (dstP == 0) {
+                        outP = srcP;
+                    } else {
+                        srcV = (srcP>>>24);
+                        dstV = (dstP>>>24);
+                        srcM = (255-dstV)*norm;
+                        dstM = (255-srcV)*norm;
+                        dstA = (srcV + dstV - ((srcV*dstV*norm + pt5)>>>24));
+
+                        srcV = (srcP>> 16)&0xFF;
+                        dstV = (dstP>> 16)&0xFF;
+                        dstR = ((srcM*srcV + pt5)>>>24) + dstV;
+                        tmp  = ((dstM*dstV + pt5)>>>24) + srcV;
+                        if (dstR > tmp) dstR = tmp;
+
+                        srcV = (srcP>>  8)&0xFF;
+                        dstV = (dstP>>  8)&0xFF;
+                        dstG = ((srcM*srcV + pt5)>>>24) + dstV;
+                        tmp  = ((dstM*dstV + pt5)>>>24) + srcV;
+                        if (dstG > tmp) dstG = tmp;
+
+
+                        srcV = (srcP     )&0xFF;
+                        dstV = (dstP     )&0xFF;
+                        dstB = ((srcM*srcV + pt5)>>>24) + dstV;
+                        tmp  = ((dstM*dstV + pt5)>>>24) + srcV;
+                        if (dstB > tmp) dstB = tmp;
+
+                        dstA &= 0xFF; // trim to 8 bit
+                        dstR &= 0xFF;
+                        dstG &= 0xFF;
+                        dstB &= 0xFF;
+
+                        outP =
+                            ((dstA<<24) | (dstR<<16) | (dstG<< 8) | dstB);
+                    }
+                    dstOutPixels[dstOutSp++] = outP;
                 }
                 srcSp    += srcAdjust;
                 dstInSp  += dstInAdjust;
@@ -1481,6 +1570,7 @@ public class SVGComposite
 
             final int norm = (1<<24)/255;
             final int pt5  = (1<<23);
+            int outP;
 
             int srcP, srcM;
             int dstP, dstM, dstA, dstR, dstG, dstB;
@@ -1493,38 +1583,46 @@ public class SVGComposite
                     srcP = srcPixels  [srcSp++];
                     dstP = dstInPixels[dstInSp++];
 
-                    srcV = (srcP>>>24);
-                    dstV = (dstP>>>24);
-                    srcM = (255-dstV)*norm;
-                    dstM = (255-srcV)*norm;
-                    dstA = (srcV + dstV - ((srcV*dstV*norm + pt5)>>>24));
-
-                    srcV = (srcP>> 16)&0xFF;
-                    dstV = (dstP>> 16)&0xFF;
-                    dstR = ((srcM*srcV + pt5)>>>24) + dstV;
-                    tmp  = ((dstM*dstV + pt5)>>>24) + srcV;
-                    if (dstR < tmp) dstR = tmp;
-
-                    srcV = (srcP>>  8)&0xFF;
-                    dstV = (dstP>>  8)&0xFF;
-                    dstG = ((srcM*srcV + pt5)>>>24) + dstV;
-                    tmp  = ((dstM*dstV + pt5)>>>24) + srcV;
-                    if (dstG < tmp) dstG = tmp;
-
-
-                    srcV = (srcP     )&0xFF;
-                    dstV = (dstP     )&0xFF;
-                    dstB = ((srcM*srcV + pt5)>>>24) + dstV;
-                    tmp  = ((dstM*dstV + pt5)>>>24) + srcV;
-                    if (dstB < tmp) dstB = tmp;
-
-                    dstA &= 0xFF; // trim to 8 bit
-                    dstR &= 0xFF;
-                    dstG &= 0xFF;
-                    dstB &= 0xFF;
-
-                    dstOutPixels[dstOutSp++] =
-                        ((dstA<<24) | (dstR<<16) | (dstG<< 8) | dstB);
+                    // Blending with a transparent pixel gives the other one.
+                    if (srcP == 0) {
+                        outP = dstP;
+                    } else if (dstP == 0) {
+                        outP = srcP;
+                    } else {
+                        srcV = (srcP>>>24);
+                        dstV = (dstP>>>24);
+                        srcM = (255-dstV)*norm;
+                        dstM = (255-srcV)*norm;
+                        dstA = (srcV + dstV - ((srcV*dstV*norm + pt5)>>>24));
+
+                        srcV = (srcP>> 16)&0xFF;
+                        dstV = (dstP>> 16)&0xFF;
+                        dstR = ((srcM*srcV + pt5)>>>24) + dstV;
+                        tmp  = ((dstM*dstV + pt5)>>>24) + srcV;
+                        if (dstR < tmp) dstR = tmp;
+
+                        srcV = (srcP>>  8)&0xFF;
+                        dstV = (dstP>>  8)&0xFF;
+                        dstG = ((srcM*srcV + pt5)>>>24) + dstV;
+                        tmp  = ((dstM*dstV + pt5)>>>24) + srcV;
+                        if (dstG < tmp) dstG = tmp;
+
+
+                        srcV = (srcP     )&0xFF;
+                        dstV = (dstP     )&0xFF;
+                        dstB = ((srcM*srcV + pt5)>>>24) + dstV;
+                        tmp  = ((dstM*dstV + pt5)>>>24) + srcV;
+                        if (dstB < tmp) dstB = tmp;
+
+                        dstA &= 0xFF; // trim to 8 bit
+                        dstR &= 0xFF;
+                        dstG &= 0xFF;
+                        dstB &= 0xFF;
+
+                        outP =
+                            ((dstA<<24) | (dstR<<16) | (dstG<< 8) | dstB);
+                    }
+                    dstOutPixels[dstOutSp++] = outP;
                 }
                 srcSp    += srcAdjust;
                 dstInSp  += dstInAdjust;
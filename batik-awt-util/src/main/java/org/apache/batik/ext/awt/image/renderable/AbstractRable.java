@@ -26,17 +26,25 @@ import java.awt.geom.Rectangle2D;
 import java.awt.image.RenderedImage;
 import java.awt.image.renderable.RenderContext;
 import java.awt.image.renderable.RenderableImage;
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.batik.ext.awt.RenderingHintsKeyExt;
+import org.apache.batik.ext.awt.image.GraphicsUtil;
 import org.apache.batik.ext.awt.image.PadMode;
+import org.apache.batik.ext.awt.image.rendered.AffineRed;
 import org.apache.batik.ext.awt.image.rendered.CachableRed;
 import org.apache.batik.ext.awt.image.rendered.PadRed;
 import org.apache.batik.ext.awt.image.rendered.RenderedImageCachableRed;
+import org.apache.batik.ext.awt.image.rendered.TileCacheRed;
+import org.apache.batik.ext.awt.image.rendered.TranslateRed;
 
 /**
  * This is an abstract base class that takes care of most of the
@@ -53,6 +61,25 @@ public abstract class AbstractRable implements Filter {
     protected Map    props = new HashMap();
     protected long   stamp = 0;
 
+    /**
+     * The largest area, in device pixels, for which
+     * createCachedRendering renders the whole filter region rather
+     * than only the area of interest it was asked for, so that the
+     * cached rendering serves any later area of interest.
+     */
+    public static final long MAX_FULL_RENDERING_AREA = 2048 * 2048;
+
+    /**
+     * The source of the time stamps.  It is shared by all the
+     * renderables so that a later change always gets a larger stamp.
+     */
+    private static final AtomicLong timeStamps = new AtomicLong();
+
+    /**
+     * The rendering last returned by createCachedRendering.
+     */
+    private volatile CachedRendering cachedRendering;
+
     /**
      * void constructor. The subclass must call one of the
      * flavors of init before the object becomes usable.
@@ -106,11 +133,19 @@ public abstract class AbstractRable implements Filter {
     }
 
     /**
-     * Increments the time stamp.  This should be called when ever
+     * Returns a new time stamp, larger than all the ones returned
+     * before.
+     */
+    public static long newTimeStamp() {
+        return timeStamps.incrementAndGet();
+    }
+
+    /**
+     * Updates the time stamp.  This should be called when ever
      * the image changes in such a way that cached output should be
      * discarded.
      */
-    public final void touch() { stamp++; }
+    public final void touch() { stamp = newTimeStamp(); }
 
       /**
        * Returns the current modification timestamp on this Renderable
@@ -307,6 +342,159 @@ public abstract class AbstractRable implements Filter {
     }
 
 
+    /**
+     * Returns a stamp that changes whenever this renderable or one of
+     * the renderables it is computed from changes, or -1 if that can
+     * not be told, in which case its renderings are never reused.
+     */
+    public long getRenderingStamp() {
+        if (isDynamic())
+            return -1;
+
+        long ret = getTimeStamp();
+        Iterator i = srcs.iterator();
+        while (i.hasNext()) {
+            Object src = i.next();
+            if (!(src instanceof AbstractRable))
+                return -1;
+            long s = ((AbstractRable)src).getRenderingStamp();
+            if (s < 0)
+                return -1;
+            if (s > ret)
+                ret = s;
+        }
+        return ret;
+    }
+
+    /**
+     * Returns a rendering for <code>rc</code>, reusing the one
+     * returned by the previous call when the transform and the
+     * rendering hints are the same, the area of interest is covered
+     * and the rendering stamp did not change.  The renderings this
+     * returns cache their tiles, so repeated paints of an unchanged
+     * filter do not compute it again.
+     */
+    public RenderedImage createCachedRendering(RenderContext rc) {
+        long renderingStamp = getRenderingStamp();
+        if (renderingStamp < 0) {
+            cachedRendering = null;
+            return createRendering(rc);
+        }
+
+        AffineTransform at = rc.getTransform();
+        RenderingHints hints = rc.getRenderingHints();
+        Shape aoi = rc.getAreaOfInterest();
+        Rectangle2D aoiBounds = (aoi == null) ? null : aoi.getBounds2D();
+        // Renderings may add hints to the context, so keep a copy of
+        // the hints as they are now.
+        RenderingHints keyHints = CachedRendering.getKeyHints(hints);
+
+        CachedRendering cr = cachedRendering;
+        if ((cr != null) &&
+            cr.matches(renderingStamp, at, keyHints, aoiBounds)) {
+            RenderedImage ret = (RenderedImage)cr.rendering.get();
+            if (ret != null)
+                return ret;
+        }
+
+        Rectangle2D bounds = getBounds2D();
+        Rectangle devBounds = at.createTransformedShape(bounds).getBounds();
+        if ((long)devBounds.width*devBounds.height <= MAX_FULL_RENDERING_AREA) {
+            // Render the whole filter region, which any later area
+            // of interest falls in.
+            aoi = bounds;
+            aoiBounds = null;
+        } else if (aoi == null) {
+            aoi = bounds;
+        }
+
+        RenderedImage ri = createRendering
+            (new RenderContext((AffineTransform)at.clone(), aoi, hints));
+        if (ri == null) {
+            cachedRendering = null;
+            return null;
+        }
+
+        ri = cacheTiles(GraphicsUtil.wrap(ri), hints);
+        cachedRendering = new CachedRendering
+            (renderingStamp, at, keyHints, aoiBounds, ri);
+        return ri;
+    }
+
+    /**
+     * Returns <code>cr</code> with its tiles cached.  The affine and
+     * translate operations at its top are kept on top of the cached
+     * tiles, since GraphicsUtil.drawImage applies them when drawing
+     * rather than computing them.
+     */
+    private static CachableRed cacheTiles(CachableRed cr,
+                                          RenderingHints hints) {
+        if (cr instanceof AffineRed) {
+            AffineRed ar = (AffineRed)cr;
+            return new AffineRed(cacheTiles(ar.getSource(), hints),
+                                 ar.getTransform(), hints);
+        }
+        if (cr instanceof TranslateRed) {
+            TranslateRed tr = (TranslateRed)cr;
+            return new TranslateRed(cacheTiles(tr.getSource(), hints),
+                                    tr.getMinX(), tr.getMinY());
+        }
+        return new TileCacheRed(cr);
+    }
+
+    /**
+     * A rendering returned by createCachedRendering, with what it was
+     * rendered for.
+     */
+    private static class CachedRendering {
+
+        final long stamp;
+        final AffineTransform transform;
+        final RenderingHints hints;
+
+        /**
+         * The area of interest the rendering covers, or null if it
+         * covers the whole renderable.
+         */
+        final Rectangle2D aoi;
+
+        final Reference rendering;
+
+        CachedRendering(long stamp, AffineTransform at, RenderingHints hints,
+                        Rectangle2D aoi, RenderedImage rendering) {
+            this.stamp = stamp;
+            this.transform = (AffineTransform)at.clone();
+            this.hints = hints;
+            this.aoi = aoi;
+            this.rendering = new SoftReference(rendering);
+        }
+
+        boolean matches(long stamp, AffineTransform at, RenderingHints hints,
+                        Rectangle2D aoi) {
+            if ((stamp != this.stamp) || !transform.equals(at))
+                return false;
+            if ((this.aoi != null) &&
+                ((aoi == null) || !this.aoi.contains(aoi)))
+                return false;
+            return (hints == null)
+                ? (this.hints == null) : hints.equals(this.hints);
+        }
+
+        /**
+         * Returns a copy of the hints without the ones that only tell
+         * about the area and the destination being drawn, which change
+         * from paint to paint.
+         */
+        static RenderingHints getKeyHints(RenderingHints hints) {
+            if (hints == null)
+                return null;
+            RenderingHints ret = (RenderingHints)hints.clone();
+            ret.remove(RenderingHintsKeyExt.KEY_AREA_OF_INTEREST);
+            ret.remove(RenderingHintsKeyExt.KEY_BUFFERED_IMAGE);
+            return ret;
+        }
+    }
+
     /* left for subclass:
        public RenderedImage createRendering(RenderContext rc);
     */
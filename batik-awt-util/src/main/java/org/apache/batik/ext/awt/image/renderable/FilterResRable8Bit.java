@@ -382,8 +382,14 @@ public class FilterResRable8Bit extends AbstractRable
 
         // Using fixed resolution image since we need an image larger
         // than this.
-        RenderedImage resRed   = getResRed(hints);
-        float         resScale = getResScale();
+        // The cached rendering and its scale are shared by the threads
+        // rendering this filter, so they are read together.
+        RenderedImage resRed;
+        float         resScale;
+        synchronized (this) {
+            resRed   = getResRed(hints);
+            resScale = getResScale();
+        }
 
         AffineTransform residualAT;
         residualAT = new AffineTransform(usr2dev.getScaleX()/resScale,
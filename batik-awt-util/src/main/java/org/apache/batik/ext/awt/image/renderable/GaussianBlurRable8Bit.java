@@ -26,6 +26,7 @@ import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.RenderedImage;
 import java.awt.image.renderable.RenderContext;
+import java.util.concurrent.Executor;
 
 import org.apache.batik.ext.awt.image.PadMode;
 import org.apache.batik.ext.awt.image.rendered.AffineRed;
@@ -53,6 +54,16 @@ public class GaussianBlurRable8Bit
      */
     private double stdDeviationY;
 
+    /**
+     * The executor the blur is computed on, null to use the default one.
+     */
+    private Executor executor;
+
+    /**
+     * The executor used by the instances without one of their own.
+     */
+    private static volatile Executor defaultExecutor;
+
     public GaussianBlurRable8Bit(Filter src,
                                  double stdevX, double stdevY) {
         super(src, null);
@@ -99,6 +110,46 @@ public class GaussianBlurRable8Bit
         return stdDeviationY;
     }
 
+    /**
+     * Sets the executor the blur of this filter is computed on.  When
+     * set the blur passes are split in strips computed concurrently,
+     * giving the same result as the single threaded computation.
+     * @param executor the executor to use, or null to use the default
+     *        executor.
+     */
+    public void setExecutor(Executor executor){
+        touch();
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the executor the blur is computed on, that is the one set
+     * on this filter or the default executor.  Returns null when the
+     * blur is computed on the rendering thread.
+     */
+    public Executor getExecutor(){
+        if (executor != null)
+            return executor;
+        return defaultExecutor;
+    }
+
+    /**
+     * Sets the executor used by the blur filters that have no executor
+     * of their own, null (the default) computes the blur on the
+     * rendering thread.
+     */
+    public static void setDefaultExecutor(Executor executor){
+        defaultExecutor = executor;
+    }
+
+    /**
+     * Returns the executor used by the blur filters that have no
+     * executor of their own.
+     */
+    public static Executor getDefaultExecutor(){
+        return defaultExecutor;
+    }
+
     /**
      * Sets the source of the blur operation
      */
@@ -273,7 +324,7 @@ public class GaussianBlurRable8Bit
             cr = new PadRed(cr, devRect, PadMode.ZERO_PAD, rh);
         }
 
-        cr = new GaussianBlurRed8Bit(cr, sdx, sdy, rh);
+        cr = new GaussianBlurRed8Bit(cr, sdx, sdy, rh, getExecutor());
 
         if ((resAt != null) && (!resAt.isIdentity()))
             cr = new AffineRed(cr, resAt, rh);
@@ -27,9 +27,11 @@ import java.awt.image.SampleModel;
 import java.awt.image.WritableRaster;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import org.apache.batik.ext.awt.image.GraphicsUtil;
 import org.apache.batik.util.HaltingThread;
+import org.apache.batik.util.ParallelTasks;
 
 /**
  * This is an abstract base class that takes care of most of the
@@ -46,6 +48,17 @@ public abstract class AbstractTiledRed
 
     private TileStore tiles;
 
+    /**
+     * The executor the missing tiles are computed on, null to use the
+     * default one.
+     */
+    private Executor executor;
+
+    /**
+     * The executor used by the instances without one of their own.
+     */
+    private static volatile Executor defaultExecutor;
+
     private static int defaultTileSize = 128;
     public static int getDefaultTileSize() { return defaultTileSize; }
 
@@ -293,8 +306,53 @@ public abstract class AbstractTiledRed
         return TileCache.getTileMap(this);
     }
 
+    /**
+     * Sets the executor the tiles of this image are computed on.  When
+     * set, the tiles missing from a requested region are computed
+     * concurrently, one task per tile, instead of in blocks on the
+     * calling thread.
+     * @param executor the executor to use, or null to use the default
+     *        executor.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the executor the tiles are computed on, that is the one
+     * set on this image or the default executor.  Returns null when
+     * the tiles are computed on the calling thread.
+     */
+    public Executor getExecutor() {
+        if (executor != null)
+            return executor;
+        return defaultExecutor;
+    }
+
+    /**
+     * Sets the executor used by the images that have no executor of
+     * their own, null (the default) computes the tiles on the calling
+     * thread.
+     */
+    public static void setDefaultExecutor(Executor executor) {
+        defaultExecutor = executor;
+    }
+
+    /**
+     * Returns the executor used by the images that have no executor of
+     * their own.
+     */
+    public static Executor getDefaultExecutor() {
+        return defaultExecutor;
+    }
+
     public WritableRaster copyData(WritableRaster wr) {
-        copyToRasterByBlocks(wr);
+        if (getExecutor() != null)
+            // copyToRaster works tile by tile, so the missing tiles can
+            // be computed concurrently.
+            copyToRaster(wr);
+        else
+            copyToRasterByBlocks(wr);
         return wr;
     }
 
@@ -501,6 +559,9 @@ public abstract class AbstractTiledRed
         if (tx1 >= minTileX+numXTiles) tx1 = minTileX+numXTiles-1;
         if (ty1 >= minTileY+numYTiles) ty1 = minTileY+numYTiles-1;
 
+        if ((tx1 < tx0) || (ty1 < ty0))
+            return;
+
         final boolean is_INT_PACK =
             GraphicsUtil.is_INT_PACK_Data(getSampleModel(), false);
 
@@ -522,6 +583,12 @@ public abstract class AbstractTiledRed
                     GraphicsUtil.copyData_FALLBACK(r, wr);
             }
 
+        Executor executor = getExecutor();
+        if (executor != null) {
+            computeTiles(executor, tx0, ty0, xtiles, got, wr, is_INT_PACK);
+            return;
+        }
+
         // Run through and pick up the ones we need to compute...
         for (int y=ty0; y<=ty1; y++)
             for (int x=tx0; x<=tx1; x++) {
@@ -535,6 +602,53 @@ public abstract class AbstractTiledRed
             }
     }
 
+    /**
+     * Computes the tiles of a block that are not in <code>got</code>
+     * on <code>executor</code>, one task per tile, then copies them
+     * into wr.  The tile store makes sure that a tile requested
+     * meanwhile by another thread is only computed once.
+     * @param executor The executor to compute the tiles on.
+     * @param tx0 The x index of the first tile of the block.
+     * @param ty0 The y index of the first tile of the block.
+     * @param xtiles The number of tiles in a row of the block.
+     * @param got The tiles of the block already copied into wr, row by row.
+     * @param wr Raster to fill with image data.
+     * @param is_INT_PACK true if wr can be filled with copyData_INT_PACK.
+     */
+    protected void computeTiles(Executor executor,
+                                int tx0, int ty0, int xtiles,
+                                boolean [] got, WritableRaster wr,
+                                boolean is_INT_PACK) {
+        int [] missing = new int[got.length];
+        int n = 0;
+        for (int i=0; i<got.length; i++)
+            if (!got[i]) missing[n++] = i;
+
+        final Raster [] computed = new Raster[got.length];
+        Runnable [] tasks = new Runnable[n];
+        for (int i=0; i<n; i++) {
+            final int idx = missing[i];
+            final int x   = tx0 + idx%xtiles;
+            final int y   = ty0 + idx/xtiles;
+            tasks[i] = new Runnable() {
+                    public void run() {
+                        computed[idx] = getTile(x, y);
+                    }
+                };
+        }
+        ParallelTasks.run(executor, tasks);
+
+        // The copies are made on the calling thread, since neighbouring
+        // tiles may share data elements of wr.
+        for (int i=0; i<n; i++) {
+            Raster r = computed[missing[i]];
+            if (is_INT_PACK)
+                GraphicsUtil.copyData_INT_PACK(r, wr);
+            else
+                GraphicsUtil.copyData_FALLBACK(r, wr);
+        }
+    }
+
     protected void drawBlock( TileBlock block, WritableRaster wr ) {
         TileBlock [] blocks = block.getBestSplit();
         if ( blocks == null ) {
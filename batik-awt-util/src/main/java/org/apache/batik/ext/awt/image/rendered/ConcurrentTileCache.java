@@ -0,0 +1,278 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.ext.awt.image.rendered;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.batik.util.DoublyLinkedList;
+
+/**
+ * A lock striped LRU cache of tiles with a budget expressed in bytes.
+ *
+ * The members are spread over several shards, each with its own lock
+ * and LRU list, so concurrent renderings rarely contend on the same
+ * lock.  The budget is shared by all the shards: when it is exceeded
+ * the shards give up their least recently used member in turn, so
+ * the eviction order is only approximately LRU.  Each instance is an
+ * independent partition (for example one per document or per tenant)
+ * which can be installed for the current thread with
+ * {@link TileCache#setCache}.
+ *
+ * Hit, miss and eviction counters are kept and exposed through the
+ * {@link ConcurrentTileCacheMBean} interface so the cache can be
+ * registered with a JMX MBeanServer.
+ *
+ * @version $Id$
+ */
+public class ConcurrentTileCache extends LRUCache
+    implements ConcurrentTileCacheMBean {
+
+    /**
+     * The default number of shards.
+     */
+    public static final int DEFAULT_SHARD_COUNT = 16;
+
+    /**
+     * A node of the LRU lists that remembers the size of its member.
+     */
+    protected class SizedNode extends LRUNode {
+        protected long size;
+    }
+
+    /**
+     * One stripe of the cache.
+     */
+    protected static class Shard {
+        protected DoublyLinkedList used = new DoublyLinkedList();
+        protected long bytes;
+    }
+
+    protected Shard[] shards;
+    protected volatile long maxBytes;
+
+    /**
+     * The number of bytes used by the members of all the shards.
+     */
+    protected AtomicLong usedBytes = new AtomicLong();
+
+    /**
+     * The index of the next shard to evict a member from.
+     */
+    protected AtomicInteger evictionHand = new AtomicInteger();
+
+    protected AtomicLong hits      = new AtomicLong();
+    protected AtomicLong misses    = new AtomicLong();
+    protected AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a new cache with the default number of shards.
+     * @param maxBytes the maximum number of bytes of tile data to keep.
+     */
+    public ConcurrentTileCache(long maxBytes) {
+        this(maxBytes, DEFAULT_SHARD_COUNT);
+    }
+
+    /**
+     * Creates a new cache.
+     * @param maxBytes the maximum number of bytes of tile data to keep.
+     * @param shardCount the number of shards, rounded up to a power of two.
+     */
+    public ConcurrentTileCache(long maxBytes, int shardCount) {
+        super(1);
+        int n = 1;
+        while (n < shardCount) n <<= 1;
+        shards = new Shard[n];
+        for (int i = 0; i < n; i++)
+            shards[i] = new Shard();
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the number of bytes used by the pixels of a member.
+     * Members that are not tiles count as one default tile.
+     */
+    protected static long sizeOf(LRUObj obj) {
+        if (obj instanceof TileLRUMember) {
+            long sz = ((TileLRUMember)obj).getRasterSize();
+            if (sz > 0)
+                return sz;
+        }
+        int ts = AbstractTiledRed.getDefaultTileSize();
+        return 4L * ts * ts;
+    }
+
+    protected Shard getShard(LRUObj obj) {
+        int h = System.identityHashCode(obj);
+        h ^= (h >>> 16);
+        h ^= (h >>> 7);
+        return shards[h & (shards.length - 1)];
+    }
+
+    /**
+     * Removes least recently used members until the cache fits in its
+     * budget.  The shards are visited in turn, starting after the last
+     * one evicted from.  The only member of <code>keep</code>, the
+     * shard of the most recent member, is always kept.  No shard lock
+     * may be held by the caller.
+     */
+    protected void evict(Shard keep) {
+        int failed = 0;
+        while ((usedBytes.get() > maxBytes) && (failed < shards.length)) {
+            Shard shard = shards[evictionHand.getAndIncrement()
+                                 & (shards.length - 1)];
+            int min = (shard == keep) ? 1 : 0;
+            synchronized (shard) {
+                if (shard.used.getSize() > min) {
+                    SizedNode nde = (SizedNode)shard.used.getTail();
+                    shard.used.remove(nde);
+                    shard.bytes -= nde.size;
+                    usedBytes.addAndGet(-nde.size);
+                    nde.setObj(null);
+                    evictions.incrementAndGet();
+                    failed = 0;
+                } else {
+                    failed++;
+                }
+            }
+        }
+    }
+
+    public void add(LRUObj obj) {
+        Shard shard = getShard(obj);
+        synchronized (shard) {
+            LRUNode nde = obj.lruGet();
+
+            // already linked in...
+            if (nde != null) {
+                shard.used.touch(nde);
+                return;
+            }
+
+            SizedNode snde = new SizedNode();
+            snde.size = sizeOf(obj);
+            snde.setObj(obj);
+            shard.used.add(snde);
+            shard.bytes += snde.size;
+            usedBytes.addAndGet(snde.size);
+        }
+        evict(shard);
+    }
+
+    public void remove(LRUObj obj) {
+        Shard shard = getShard(obj);
+        synchronized (shard) {
+            SizedNode nde = (SizedNode)obj.lruGet();
+            if (nde == null) return;
+            shard.used.remove(nde);
+            shard.bytes -= nde.size;
+            usedBytes.addAndGet(-nde.size);
+            nde.setObj(null);
+        }
+    }
+
+    public void touch(LRUObj obj) {
+        Shard shard = getShard(obj);
+        synchronized (shard) {
+            LRUNode nde = obj.lruGet();
+            if (nde == null) return;
+            shard.used.touch(nde);
+        }
+    }
+
+    public void flush() {
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                while (shard.used.getSize() > 0) {
+                    LRUNode nde = (LRUNode)shard.used.pop();
+                    nde.setObj(null);
+                }
+                usedBytes.addAndGet(-shard.bytes);
+                shard.bytes = 0;
+            }
+        }
+    }
+
+    /**
+     * Sets the budget to <code>newSz</code> tiles of the default tile size.
+     */
+    public void setSize(int newSz) {
+        int ts = AbstractTiledRed.getDefaultTileSize();
+        setMaxBytes(4L * ts * ts * newSz);
+    }
+
+    public int getUsed() {
+        return getTileCount();
+    }
+
+    public void hit() {
+        hits.incrementAndGet();
+    }
+
+    public void miss() {
+        misses.incrementAndGet();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        evict(null);
+    }
+
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    public int getTileCount() {
+        int ret = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                ret += shard.used.getSize();
+            }
+        }
+        return ret;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public void resetStatistics() {
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+    }
+
+    protected void print() {
+        System.out.println("In Use: " + getTileCount() +
+                           " Bytes: " + getUsedBytes() +
+                           " Max: "   + getMaxBytes());
+    }
+}
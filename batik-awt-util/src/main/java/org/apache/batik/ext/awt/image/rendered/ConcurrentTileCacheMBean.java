@@ -0,0 +1,73 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.ext.awt.image.rendered;
+
+/**
+ * Management interface of the {@link ConcurrentTileCache}, so a cache
+ * can be registered as a standard JMX MBean.
+ *
+ * @version $Id$
+ */
+public interface ConcurrentTileCacheMBean {
+
+    /**
+     * Returns the maximum number of bytes of tile data kept in the cache.
+     */
+    long getMaxBytes();
+
+    /**
+     * Sets the maximum number of bytes of tile data kept in the cache.
+     */
+    void setMaxBytes(long maxBytes);
+
+    /**
+     * Returns the number of bytes of tile data currently in the cache.
+     */
+    long getUsedBytes();
+
+    /**
+     * Returns the number of tiles currently in the cache.
+     */
+    int getTileCount();
+
+    /**
+     * Returns the number of tile requests served from the cache.
+     */
+    long getHitCount();
+
+    /**
+     * Returns the number of tile requests that had to compute the tile.
+     */
+    long getMissCount();
+
+    /**
+     * Returns the number of tiles dropped to stay within the budget.
+     */
+    long getEvictionCount();
+
+    /**
+     * Resets the hit, miss and eviction counters.
+     */
+    void resetStatistics();
+
+    /**
+     * Drops all the tiles from the cache.
+     */
+    void flush();
+}
@@ -0,0 +1,109 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.ext.awt.image.rendered;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A tile cache that forwards everything to another cache and counts the
+ * hits and misses of the tile stores using it.
+ *
+ * It can be installed for the current thread with
+ * {@link TileCache#setCache} to count the tiles computed by one
+ * rendering, while the tiles are kept in the shared cache.  Only the
+ * tile stores created while it is installed are counted.
+ *
+ * @version $Id$
+ */
+public class CountingTileCache extends LRUCache {
+
+    protected LRUCache cache;
+
+    protected AtomicLong hits   = new AtomicLong();
+    protected AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates a new cache.
+     * @param cache the cache the tiles are kept in.
+     */
+    public CountingTileCache(LRUCache cache) {
+        super(1);
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the cache the tiles are kept in.
+     */
+    public LRUCache getCache() {
+        return cache;
+    }
+
+    public int getUsed() {
+        return cache.getUsed();
+    }
+
+    public void setSize(int newSz) {
+        cache.setSize(newSz);
+    }
+
+    public void flush() {
+        cache.flush();
+    }
+
+    public void remove(LRUObj obj) {
+        cache.remove(obj);
+    }
+
+    public void touch(LRUObj obj) {
+        cache.touch(obj);
+    }
+
+    public void add(LRUObj obj) {
+        cache.add(obj);
+    }
+
+    public void hit() {
+        hits.incrementAndGet();
+        cache.hit();
+    }
+
+    public void miss() {
+        misses.incrementAndGet();
+        cache.miss();
+    }
+
+    /**
+     * Returns the number of tiles found in the cache.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of tiles that were not in the cache and had
+     * to be computed.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    protected void print() {
+        cache.print();
+    }
+}
@@ -31,8 +31,10 @@ import java.awt.image.Raster;
 import java.awt.image.SampleModel;
 import java.awt.image.SinglePixelPackedSampleModel;
 import java.awt.image.WritableRaster;
+import java.util.concurrent.Executor;
 
 import org.apache.batik.ext.awt.image.GraphicsUtil;
+import org.apache.batik.util.ParallelTasks;
 
 /**
  * This implementation of RenderableImage will render its input
@@ -48,6 +50,13 @@ public class GaussianBlurRed8Bit extends AbstractRed {
     RenderingHints hints;
     ConvolveOp [] convOp = new ConvolveOp [2];
     int dX, dY;
+    Executor executor;
+
+    /**
+     * The smallest number of rows (or columns) given to a strip when
+     * the blur is computed on an executor.
+     */
+    static final int MIN_STRIP_SIZE = 32;
 
     /**
      * Construct a blurred version of <code>src</code>, by blurring with a
@@ -73,11 +82,32 @@ public class GaussianBlurRed8Bit extends AbstractRed {
     public GaussianBlurRed8Bit(CachableRed src,
                                double stdDevX, double stdDevY,
                                RenderingHints rh) {
+        this(src, stdDevX, stdDevY, rh, null);
+    }
+
+    /**
+     * Construct a blurred version of <code>src</code>, by blurring with a
+     * gaussian kernel with standard Deviation of <code>stdDev</code> pixels.
+     * Each pass of the blur is split in strips of rows (or columns)
+     * which are computed concurrently on <code>executor</code>; the
+     * result is identical to the one computed on a single thread.
+     * @param src The source image to blur
+     * @param stdDevX The Standard Deviation of the Gaussian kernel in X
+     * @param stdDevY The Standard Deviation of the Gaussian kernel in Y
+     * @param rh     Rendering hints.
+     * @param executor The executor used to compute the strips, if null
+     *        the blur is computed on the calling thread.
+     */
+    public GaussianBlurRed8Bit(CachableRed src,
+                               double stdDevX, double stdDevY,
+                               RenderingHints rh,
+                               Executor executor) {
         super(); // Remember to call super.init()
 
-        this.stdDevX = stdDevX;
-        this.stdDevY = stdDevY;
-        this.hints   = rh;
+        this.stdDevX  = stdDevX;
+        this.stdDevY  = stdDevY;
+        this.hints    = rh;
+        this.executor = executor;
 
         xinset = surroundPixels(stdDevX, rh);
         yinset = surroundPixels(stdDevY, rh);
@@ -247,13 +277,18 @@ public class GaussianBlurRed8Bit extends AbstractRed {
         } else if (convOp[0] != null) {
             tmpR2 = getColorModel().createCompatibleWritableRaster
                 (r.width, r.height);
-            tmpR2 = convOp[0].filter(tmpR1, tmpR2);
+            if (executor == null)
+                tmpR2 = convOp[0].filter(tmpR1, tmpR2);
+            else
+                convolveStrips(convOp[0], tmpR1, tmpR2, true);
             skipX = convOp[0].getKernel().getXOrigin();
 
             // Swap them...
             WritableRaster tmp = tmpR1;
             tmpR1 = tmpR2;
             tmpR2 = tmp;
+        } else if (executor != null) {
+            skipX = boxFilterStrips(tmpR1, 0, r.height, true);
         } else {
             if ((dX&0x01) == 0){
                 tmpR1 = boxFilterH(tmpR1, tmpR1, 0,    0,   dX,   dX/2);
@@ -275,7 +310,13 @@ public class GaussianBlurRed8Bit extends AbstractRed {
                 tmpR2 = getColorModel().createCompatibleWritableRaster
                     (r.width, r.height);
             }
-            tmpR2 = convOp[1].filter(tmpR1, tmpR2);
+            if (executor == null)
+                tmpR2 = convOp[1].filter(tmpR1, tmpR2);
+            else
+                convolveStrips(convOp[1], tmpR1, tmpR2, false);
+        } else if (executor != null) {
+            boxFilterStrips(tmpR1, skipX, r.width-skipX, false);
+            tmpR2 = tmpR1;
         } else {
             if ((dY&0x01) == 0){
                 tmpR1 = boxFilterV(tmpR1, tmpR1, skipX, 0,    dY,   dY/2);
@@ -304,6 +345,109 @@ public class GaussianBlurRed8Bit extends AbstractRed {
         return wr;
     }
 
+    /**
+     * Returns the number of strips <code>len</code> rows (or columns)
+     * are split into.
+     */
+    static int stripCount(int len) {
+        int n = len/MIN_STRIP_SIZE;
+        int max = 4*Runtime.getRuntime().availableProcessors();
+        if (n > max) n = max;
+        return (n < 1) ? 1 : n;
+    }
+
+    /**
+     * Returns the child of <code>wr</code> holding the rows (or columns)
+     * <code>start</code> to <code>end</code> of strip <code>i</code> of
+     * <code>n</code>.
+     */
+    static WritableRaster getStrip(WritableRaster wr, int start, int end,
+                                   int i, int n, boolean rows) {
+        int s = start + (int)(((long)(end-start)*i)/n);
+        int e = start + (int)(((long)(end-start)*(i+1))/n);
+        if (rows)
+            return wr.createWritableChild
+                (wr.getMinX(), wr.getMinY()+s, wr.getWidth(), e-s,
+                 0, 0, null);
+        return wr.createWritableChild
+            (wr.getMinX()+s, wr.getMinY(), e-s, wr.getHeight(),
+             0, 0, null);
+    }
+
+    /**
+     * Applies <code>op</code> to strips of full rows (for a horizontal
+     * kernel) or full columns (for a vertical kernel) of
+     * <code>src</code> on the executor.  Since every strip spans the
+     * whole kernel direction the result matches a single filter call.
+     */
+    private void convolveStrips(final ConvolveOp op,
+                                WritableRaster src, WritableRaster dst,
+                                boolean rows) {
+        int len = rows ? src.getHeight() : src.getWidth();
+        int n = stripCount(len);
+        Runnable [] tasks = new Runnable[n];
+        for (int i=0; i<n; i++) {
+            final WritableRaster s = getStrip(src, 0, len, i, n, rows);
+            final WritableRaster d = getStrip(dst, 0, len, i, n, rows);
+            tasks[i] = new Runnable() {
+                    public void run() {
+                        op.filter(s, d);
+                    }
+                };
+        }
+        ParallelTasks.run(executor, tasks);
+    }
+
+    /**
+     * Applies the three box filter passes in place to strips of the
+     * rows (or columns) <code>start</code> to <code>end</code> of
+     * <code>wr</code> on the executor.  The rows (columns) are
+     * independent so each strip runs all its passes without waiting
+     * for the others.
+     * @return the number of junk columns left on each side by the
+     *         horizontal passes.
+     */
+    private int boxFilterStrips(WritableRaster wr, int start, int end,
+                                final boolean rows) {
+        final int d = rows ? dX : dY;
+        if (end > start) {
+            int n = stripCount(end-start);
+            Runnable [] tasks = new Runnable[n];
+            for (int i=0; i<n; i++) {
+                final WritableRaster s = getStrip(wr, start, end, i, n, rows);
+                tasks[i] = new Runnable() {
+                        public void run() {
+                            if (rows) {
+                                if ((d&0x01) == 0){
+                                    boxFilterH(s, s, 0,     0, d,   d/2);
+                                    boxFilterH(s, s, d/2,   0, d,   d/2-1);
+                                    boxFilterH(s, s, d-1,   0, d+1, d/2);
+                                } else {
+                                    boxFilterH(s, s, 0,     0, d, d/2);
+                                    boxFilterH(s, s, d/2,   0, d, d/2);
+                                    boxFilterH(s, s, d-2,   0, d, d/2);
+                                }
+                            } else {
+                                if ((d&0x01) == 0){
+                                    boxFilterV(s, s, 0, 0,    d,   d/2);
+                                    boxFilterV(s, s, 0, d/2,  d,   d/2-1);
+                                    boxFilterV(s, s, 0, d-1,  d+1, d/2);
+                                } else {
+                                    boxFilterV(s, s, 0, 0,    d, d/2);
+                                    boxFilterV(s, s, 0, d/2,  d, d/2);
+                                    boxFilterV(s, s, 0, d-2,  d, d/2);
+                                }
+                            }
+                        }
+                    };
+            }
+            ParallelTasks.run(executor, tasks);
+        }
+        if ((d&0x01) == 0)
+            return d-1 + d/2;
+        return d-2 + d/2;
+    }
+
     private WritableRaster boxFilterH(Raster src, WritableRaster dest,
                                       int skipX, int skipY,
                                       int boxSz, int loc) {
@@ -147,6 +147,21 @@ public class LRUCache {
                 }
         }
 
+        /**
+         * Called by the tile stores when a requested object was found
+         * in the cache.  This implementation does nothing, it allows
+         * caches to keep statistics.
+         */
+        public void hit() { }
+
+        /**
+         * Called by the tile stores when a requested object was not
+         * found in the cache and had to be computed.  This
+         * implementation does nothing, it allows caches to keep
+         * statistics.
+         */
+        public void miss() { }
+
         protected synchronized void print() {
                 System.out.println("In Use: " + used.getSize() +
                                                    " Free: " + free.getSize());
@@ -0,0 +1,80 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.ext.awt.image.rendered;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Keeps track of the tiles of a tile store that are being computed,
+ * so that a tile requested by several threads at once is computed by
+ * only one of them while the others wait for it.
+ *
+ * @version $Id$
+ */
+class PendingTiles {
+
+    /**
+     * The keys of the tiles being computed, mapped to a latch released
+     * once the tile is stored.
+     */
+    private final ConcurrentMap latches = new ConcurrentHashMap();
+
+    /**
+     * Claims the computation of a tile.  If no other thread is
+     * computing the tile the caller becomes its owner and must call
+     * {@link #release} once the tile is stored.  Otherwise this waits
+     * until the owner releases the tile, then returns false so the
+     * caller looks the tile up again.
+     * @param key the key of the tile.
+     * @return true if the caller must compute the tile.
+     */
+    public boolean claim(Object key) {
+        CountDownLatch latch = new CountDownLatch(1);
+        CountDownLatch running
+            = (CountDownLatch)latches.putIfAbsent(key, latch);
+        if (running == null)
+            return true;
+
+        boolean interrupted = false;
+        while (true) {
+            try {
+                running.await();
+                break;
+            } catch (InterruptedException ie) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        return false;
+    }
+
+    /**
+     * Releases a tile claimed with {@link #claim}, waking up the
+     * threads waiting for it.
+     * @param key the key of the tile.
+     */
+    public void release(Object key) {
+        CountDownLatch latch = (CountDownLatch)latches.remove(key);
+        if (latch != null)
+            latch.countDown();
+    }
+}
@@ -21,26 +21,73 @@ package org.apache.batik.ext.awt.image.rendered;
 import java.awt.image.RenderedImage;
 
 /**
+ * Gives access to the tile caches used by the tile stores.
+ *
+ * By default all the tile stores share one {@link ConcurrentTileCache}.
+ * A different cache (a partition) can be installed for the current
+ * thread with {@link #setCache}, for example to give each document or
+ * each tenant its own budget and statistics.  The tile stores created
+ * while it is installed will use it.
  *
  * @version $Id$
  */
 public class TileCache {
-        private static LRUCache cache = new LRUCache(50);
+        private static ConcurrentTileCache cache = new ConcurrentTileCache
+            (50L * 4 * AbstractTiledRed.getDefaultTileSize()
+                    * AbstractTiledRed.getDefaultTileSize());
+
+        private static ThreadLocal threadCache = new ThreadLocal();
 
+        /**
+         * Sets the size of the default cache, in tiles of the default
+         * tile size.
+         */
         public static void setSize(int sz) { cache.setSize(sz); }
 
+        /**
+         * Returns the cache shared by default by all the tile stores.
+         */
+        public static ConcurrentTileCache getDefaultCache() { return cache; }
+
+        /**
+         * Returns the cache used by the tile stores created by the
+         * current thread.
+         */
+        public static LRUCache getCache() {
+                LRUCache ret = (LRUCache)threadCache.get();
+                if (ret == null)
+                        return cache;
+                return ret;
+        }
+
+        /**
+         * Sets the cache used by the tile stores created by the current
+         * thread.
+         * @param c the cache to use, or null to use the default cache.
+         * @return the cache previously set for the current thread, or null.
+         */
+        public static LRUCache setCache(LRUCache c) {
+                LRUCache ret = (LRUCache)threadCache.get();
+                if (c == null)
+                        threadCache.remove();
+                else
+                        threadCache.set(c);
+                return ret;
+        }
+
         public static TileStore getTileGrid(int minTileX, int minTileY,
                                        int xSz, int ySz, TileGenerator src) {
-                return new TileGrid(minTileX, minTileY, xSz, ySz, src, cache);
+                return new TileGrid(minTileX, minTileY, xSz, ySz, src,
+                                    getCache());
         }
 
         public static TileStore getTileGrid(RenderedImage img,
                                             TileGenerator src) {
                 return new TileGrid(img.getMinTileX(),  img.getMinTileY(),
                             img.getNumXTiles(), img.getNumYTiles(),
-                            src, cache);
+                            src, getCache());
         }
         public static TileStore getTileMap(TileGenerator src) {
-                return new TileMap(src, cache);
+                return new TileMap(src, getCache());
         }
 }
@@ -18,6 +18,7 @@
  */
 package org.apache.batik.ext.awt.image.rendered;
 
+import  java.awt.Point;
 import  java.awt.image.Raster;
 
 import org.apache.batik.util.HaltingThread;
@@ -39,6 +40,9 @@ public class TileGrid implements TileStore {
     private TileGenerator source = null;
     private LRUCache      cache = null;
 
+    // The tiles being computed.
+    private PendingTiles  pending = new PendingTiles();
+
     public TileGrid(int minTileX, int minTileY,
                     int xSz, int ySz,
                     TileGenerator source,
@@ -59,30 +63,32 @@ public class TileGrid implements TileStore {
         if ((x<0) || (x>=xSz)) return;
         if ((y<0) || (y>=ySz)) return;
 
-        TileLRUMember [] row = rasters[y];
         TileLRUMember item;
-        if (ras == null) {
-            // Clearing entry.
-            if (row == null) return;
-            item = row[x];
-            if (item == null) return;
-
-            row[x] = null;
-            cache.remove(item);
-            return;
-        }
+        synchronized (this) {
+            TileLRUMember [] row = rasters[y];
+            if (ras == null) {
+                // Clearing entry.
+                if (row == null) return;
+                item = row[x];
+                if (item == null) return;
+
+                row[x] = null;
+                cache.remove(item);
+                return;
+            }
 
-        if (row != null) {
-            item = row[x];
-            if (item == null) {
+            if (row != null) {
+                item = row[x];
+                if (item == null) {
+                    item = new TileLRUMember();
+                    row[x] = item;
+                }
+            } else {
+                row = new TileLRUMember[xSz];
                 item = new TileLRUMember();
                 row[x] = item;
+                rasters[y] = row;
             }
-        } else {
-            row = new TileLRUMember[xSz];
-            item = new TileLRUMember();
-            row[x] = item;
-            rasters[y] = row;
         }
         item.setRaster(ras);
 
@@ -107,8 +113,10 @@ public class TileGrid implements TileStore {
         if (item == null)
             return null;
         Raster ret = item.retrieveRaster();
-        if (ret != null)
+        if (ret != null) {
+            cache.hit();
             cache.add(item);
+        }
         return ret;
     }
 
@@ -122,37 +130,54 @@ public class TileGrid implements TileStore {
                                       (y+minTileY) + ")");
         if (COUNT) synchronized (TileGrid.class) { requests++; }
 
-        Raster       ras  = null;
-        TileLRUMember [] row  = rasters[y];
-        TileLRUMember    item = null;
-        if (row != null) {
-            item = row[x];
-            if (item != null)
-                ras = item.retrieveRaster();
-            else {
-                item = new TileLRUMember();
-                row[x] = item;
+        Raster        ras   = null;
+        TileLRUMember item  = null;
+        Point         pt    = new Point(x, y);
+        boolean       owner = false;
+        while (true) {
+            synchronized (this) {
+                TileLRUMember [] row = rasters[y];
+                if (row == null) {
+                    row = new TileLRUMember[xSz];
+                    rasters[y] = row;
+                }
+                item = row[x];
+                if (item == null) {
+                    item = new TileLRUMember();
+                    row[x] = item;
+                }
             }
-        } else {
-            row = new TileLRUMember[xSz];
-            rasters[y] = row;
-            item = new TileLRUMember();
-            row[x] = item;
+            ras = item.retrieveRaster();
+            if ((ras != null) || owner)
+                break;
+            // Only one thread computes a missing tile, the others
+            // wait for it and look it up again.  The owner looks it up
+            // again too, in case it was stored just before the claim.
+            owner = pending.claim(pt);
         }
 
         if (ras == null) {
-            if (DEBUG) System.out.println("Generating: ("+(x+minTileX)+", "+
-                                          (y+minTileY) + ")");
-            if (COUNT) synchronized (TileGrid.class) { misses++; }
-            ras = source.genTile(x+minTileX, y+minTileY);
-
-            // In all likelyhood the contents of this tile is junk!
-            // So don't cache it (returning is probably fine since it
-            // won't come back to haunt us...
-            if (HaltingThread.hasBeenHalted())
-                return ras;
-
-            item.setRaster(ras);
+            try {
+                if (DEBUG) System.out.println("Generating: ("+(x+minTileX)+", "+
+                                              (y+minTileY) + ")");
+                if (COUNT) synchronized (TileGrid.class) { misses++; }
+                cache.miss();
+                ras = source.genTile(x+minTileX, y+minTileY);
+
+                // In all likelyhood the contents of this tile is junk!
+                // So don't cache it (returning is probably fine since it
+                // won't come back to haunt us...
+                if (HaltingThread.hasBeenHalted())
+                    return ras;
+
+                item.setRaster(ras);
+            } finally {
+                pending.release(pt);
+            }
+        } else {
+            if (owner)
+                pending.release(pt);
+            cache.hit();
         }
 
         // Update the item's position in the cache..
@@ -18,7 +18,9 @@
  */
 package org.apache.batik.ext.awt.image.rendered;
 
+import  java.awt.image.DataBuffer;
 import  java.awt.image.Raster;
+import  java.awt.image.SampleModel;
 import  java.lang.ref.Reference;
 import  java.lang.ref.SoftReference;
 
@@ -70,6 +72,20 @@ public class TileLRUMember implements LRUCache.LRUObj {
             return hRaster;
         }
 
+        /**
+         * Returns the number of bytes used by the pixels of the hard
+         * referenced raster, or 0 if there is none.
+         */
+        public long getRasterSize() {
+            Raster ras = hRaster;
+            if (ras == null) return 0;
+
+            SampleModel sm = ras.getSampleModel();
+            int bits = DataBuffer.getDataTypeSize(sm.getDataType());
+            return ((long)ras.getWidth() * ras.getHeight() *
+                    sm.getNumDataElements() * bits) / 8;
+        }
+
         public LRUCache.LRUNode lruGet()         { return myNode; }
         public void lruSet(LRUCache.LRUNode nde) { myNode = nde; }
         public void lruRemove()                  {
@@ -21,7 +21,8 @@ package org.apache.batik.ext.awt.image.rendered;
 import java.awt.Point;
 import java.awt.image.Raster;
 import java.lang.ref.SoftReference;
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.batik.util.CleanerThread;
 import org.apache.batik.util.HaltingThread;
@@ -34,7 +35,12 @@ public class TileMap implements TileStore {
     private static final boolean DEBUG = false;
     private static final boolean COUNT = false;
 
-    private HashMap rasters=new HashMap();
+    // Entries are also removed by the CleanerThread, and tiles may be
+    // requested by several rendering threads.
+    private Map rasters=new ConcurrentHashMap();
+
+    // The tiles being computed.
+    private PendingTiles pending = new PendingTiles();
 
     static class TileMapLRUMember extends TileLRUMember {
         public Point   pt;
@@ -106,8 +112,10 @@ public class TileMap implements TileStore {
 
         TileMapLRUMember item = (TileMapLRUMember)o;
         Raster ret = item.retrieveRaster();
-        if (ret != null)
+        if (ret != null) {
+            cache.hit();
             cache.add(item);
+        }
         return ret;
     }
 
@@ -118,31 +126,49 @@ public class TileMap implements TileStore {
 
         Raster       ras  = null;
         Point pt = new Point(x, y);
-        Object o = rasters.get(pt);
         TileMapLRUMember item = null;
-        if (o != null) {
-            item = (TileMapLRUMember)o;
-            ras = item.retrieveRaster();
+        boolean owner = false;
+        while (true) {
+            Object o = rasters.get(pt);
+            if (o != null) {
+                item = (TileMapLRUMember)o;
+                ras = item.retrieveRaster();
+            }
+            if ((ras != null) || owner)
+                break;
+            // Only one thread computes a missing tile, the others
+            // wait for it and look it up again.  The owner looks it up
+            // again too, in case it was stored just before the claim.
+            owner = pending.claim(pt);
         }
 
         if (ras == null) {
-            if (DEBUG) System.out.println("Generating: ("+(x)+", "+
-                                          (y) + ")");
-            if (COUNT) synchronized (TileMap.class) { misses++; }
-            ras = source.genTile(x, y);
-
-            // In all likelyhood the contents of this tile is junk!
-            // So don't cache it (returning is probably fine since it
-            // shouldn't come back to haunt us...)
-            if (HaltingThread.hasBeenHalted())
-                return ras;
-
-            if (item != null)
-                item.setRaster(ras);
-            else  {
-                item = new TileMapLRUMember(this, pt, ras);
-                rasters.put(pt, item);
+            try {
+                if (DEBUG) System.out.println("Generating: ("+(x)+", "+
+                                              (y) + ")");
+                if (COUNT) synchronized (TileMap.class) { misses++; }
+                cache.miss();
+                ras = source.genTile(x, y);
+
+                // In all likelyhood the contents of this tile is junk!
+                // So don't cache it (returning is probably fine since it
+                // shouldn't come back to haunt us...)
+                if (HaltingThread.hasBeenHalted())
+                    return ras;
+
+                if (item != null)
+                    item.setRaster(ras);
+                else  {
+                    item = new TileMapLRUMember(this, pt, ras);
+                    rasters.put(pt, item);
+                }
+            } finally {
+                pending.release(pt);
             }
+        } else {
+            if (owner)
+                pending.release(pt);
+            cache.hit();
         }
 
         // Update the item's position in the cache..
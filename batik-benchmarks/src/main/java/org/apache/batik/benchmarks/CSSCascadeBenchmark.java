@@ -0,0 +1,108 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.batik.anim.dom.SVGOMDocument;
+import org.apache.batik.bridge.BridgeContext;
+import org.apache.batik.bridge.UserAgentAdapter;
+import org.apache.batik.css.engine.CSSEngine;
+import org.apache.batik.css.engine.CSSStylableElement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+/**
+ * Measures the <code>CSSEngine</code> cascade: every property of every
+ * element of a freshly parsed sample is computed.
+ *
+ * The document is parsed before each invocation.  The measured time
+ * includes the creation of the CSS engine the way the GVT builder does
+ * it (with the parsing of the style sheets) and the cascade, but not
+ * the XML parsing.
+ *
+ * @version $Id$
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CSSCascadeBenchmark {
+
+    @Param({ "anne.svg", "mapWaadt.svg", "batikFX.svg" })
+    public String sample;
+
+    protected SVGOMDocument document;
+
+    /**
+     * A bridge context that only sets up the CSS engine of a document.
+     */
+    protected static class CascadeContext extends BridgeContext {
+        public CascadeContext() {
+            super(new UserAgentAdapter());
+        }
+        public void initialize(Document doc) {
+            setDocument(doc);
+            initializeDocument(doc);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setUp() throws IOException {
+        document = (SVGOMDocument)Samples.parse(sample);
+    }
+
+    @Benchmark
+    public void cascade(Blackhole bh) {
+        new CascadeContext().initialize(document);
+        CSSEngine eng = document.getCSSEngine();
+        int n = eng.getNumberOfProperties();
+        computeStyles(eng, document.getDocumentElement(), n, bh);
+    }
+
+    protected static void computeStyles(CSSEngine eng, Node node, int n,
+                                        Blackhole bh) {
+        if (node instanceof CSSStylableElement) {
+            CSSStylableElement elt = (CSSStylableElement)node;
+            for (int i = 0; i < n; i++) {
+                bh.consume(eng.getComputedStyle(elt, null, i));
+            }
+        }
+        for (Node c = node.getFirstChild(); c != null;
+             c = c.getNextSibling()) {
+            computeStyles(eng, c, n, bh);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.benchmarks;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderContext;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.batik.ext.awt.image.DistantLight;
+import org.apache.batik.ext.awt.image.GraphicsUtil;
+import org.apache.batik.ext.awt.image.SpotLight;
+import org.apache.batik.ext.awt.image.renderable.DiffuseLightingRable8Bit;
+import org.apache.batik.ext.awt.image.renderable.Filter;
+import org.apache.batik.ext.awt.image.renderable.GaussianBlurRable8Bit;
+import org.apache.batik.ext.awt.image.renderable.MorphologyRable8Bit;
+import org.apache.batik.ext.awt.image.renderable.RedRable;
+import org.apache.batik.ext.awt.image.renderable.SpecularLightingRable8Bit;
+import org.apache.batik.ext.awt.image.renderable.TurbulenceRable8Bit;
+import org.apache.batik.ext.awt.image.rendered.TileCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the filter primitives that dominate the rendering of
+ * filtered documents: Gaussian blur, diffuse and specular lighting,
+ * turbulence and morphology.
+ *
+ * Each invocation creates a new rendering of the filter and computes
+ * all of its pixels, the tile cache is flushed so no tile computed by
+ * a previous invocation is reused.
+ *
+ * @version $Id$
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FilterBenchmark {
+
+    @Param({ "512" })
+    public int size;
+
+    @Param({ "blur", "blurSmall", "diffuse", "specular",
+             "turbulence", "fractalNoise", "erode", "dilate" })
+    public String filter;
+
+    protected Filter chain;
+    protected RenderContext rc;
+
+    @Setup
+    public void setUp() {
+        Rectangle2D bounds = new Rectangle2D.Double(0, 0, size, size);
+        Filter src = new RedRable(GraphicsUtil.wrap(createSource(size)));
+
+        if ("blur".equals(filter)) {
+            chain = new GaussianBlurRable8Bit(src, 8, 8);
+        } else if ("blurSmall".equals(filter)) {
+            chain = new GaussianBlurRable8Bit(src, 1.5, 1.5);
+        } else if ("diffuse".equals(filter)) {
+            chain = new DiffuseLightingRable8Bit
+                (src, bounds, new DistantLight(45, 45, Color.white),
+                 1, 5, null);
+        } else if ("specular".equals(filter)) {
+            chain = new SpecularLightingRable8Bit
+                (src, bounds,
+                 new SpotLight(0, 0, size, size/2.0, size/2.0, 0,
+                               1, 60, Color.white),
+                 1, 20, 5, null);
+        } else if ("turbulence".equals(filter)) {
+            chain = new TurbulenceRable8Bit(bounds, 0, 4, 0.05, 0.05,
+                                            false, false);
+        } else if ("fractalNoise".equals(filter)) {
+            chain = new TurbulenceRable8Bit(bounds, 0, 4, 0.05, 0.05,
+                                            false, true);
+        } else if ("erode".equals(filter)) {
+            chain = new MorphologyRable8Bit(src, 4, 4, false);
+        } else if ("dilate".equals(filter)) {
+            chain = new MorphologyRable8Bit(src, 4, 4, true);
+        } else {
+            throw new IllegalArgumentException("Unknown filter: " + filter);
+        }
+
+        RenderingHints rh = new RenderingHints(null);
+        rc = new RenderContext(new AffineTransform(), bounds, rh);
+    }
+
+    /**
+     * Returns an image with gradients and hard edges so the filters
+     * have both smooth and sharp content to work on.
+     */
+    protected static BufferedImage createSource(int size) {
+        BufferedImage bi = new BufferedImage
+            (size, size, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = bi.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                           RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setPaint(new GradientPaint(0, 0, Color.red,
+                                     size, size, Color.blue));
+        g.fillRect(0, 0, size, size);
+        g.setPaint(new Color(255, 255, 0, 160));
+        for (int i = 0; i < 8; i++) {
+            double d = size/8.0;
+            g.fill(new Ellipse2D.Double(i*d, (i%3)*d, 2*d, 2*d));
+        }
+        g.dispose();
+        return bi;
+    }
+
+    @Benchmark
+    public Raster render() {
+        TileCache.getCache().flush();
+        RenderedImage ri = chain.createRendering(rc);
+        return ri.getData();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.benchmarks;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.batik.bridge.BridgeContext;
+import org.apache.batik.ext.awt.image.codec.png.PNGEncodeParam;
+import org.apache.batik.ext.awt.image.codec.png.PNGImageEncoder;
+import org.apache.batik.gvt.GraphicsNode;
+import org.apache.batik.gvt.renderer.StaticRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the encoding of a rendered sample by the
+ * <code>PNGImageEncoder</code>.  The encoded bytes are counted and
+ * discarded.
+ *
+ * @version $Id$
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PNGEncoderBenchmark {
+
+    @Param({ "anne.svg", "mapWaadt.svg", "batikFX.svg" })
+    public String sample;
+
+    protected BufferedImage image;
+
+    /**
+     * An output stream that only counts the bytes written to it.
+     */
+    protected static class CountingOutputStream extends OutputStream {
+        protected long count;
+        public void write(int b) {
+            count++;
+        }
+        public void write(byte [] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        BridgeContext ctx = Samples.createBridgeContext();
+        GraphicsNode root = Samples.build(ctx, Samples.parse(sample));
+        int [] size = Samples.getSize(ctx);
+        StaticRenderer renderer = new StaticRenderer();
+        renderer.setTree(root);
+        renderer.updateOffScreen(size[0], size[1]);
+        renderer.clearOffScreen();
+        renderer.repaint(new Rectangle(0, 0, size[0], size[1]));
+        image = renderer.getOffScreen();
+        renderer.dispose();
+        ctx.dispose();
+    }
+
+    @Benchmark
+    public long encode() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        PNGImageEncoder encoder = new PNGImageEncoder
+            (out, PNGEncodeParam.getDefaultEncodeParam(image));
+        encoder.encode(image);
+        return out.count;
+    }
+}
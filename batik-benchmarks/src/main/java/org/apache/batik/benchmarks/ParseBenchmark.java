@@ -0,0 +1,77 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
+import org.apache.batik.anim.dom.XMLScannerSVGDocumentFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+/**
+ * Measures the parsing of the samples into an SVG DOM with the
+ * <code>SAXSVGDocumentFactory</code> and with the
+ * <code>XMLScannerSVGDocumentFactory</code>.
+ *
+ * @version $Id$
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({ "anne.svg", "mapWaadt.svg", "batikFX.svg" })
+    public String sample;
+
+    protected String uri;
+    protected SAXSVGDocumentFactory factory;
+    protected SAXSVGDocumentFactory scannerFactory;
+
+    @Setup
+    public void setUp() throws IOException {
+        uri = Samples.getURI(sample);
+        factory = Samples.createFactory();
+        scannerFactory = new XMLScannerSVGDocumentFactory();
+    }
+
+    @Benchmark
+    public Document parse() throws IOException {
+        return factory.createDocument(uri);
+    }
+
+    @Benchmark
+    public Document parseScanner() throws IOException {
+        return scannerFactory.createDocument(uri);
+    }
+}
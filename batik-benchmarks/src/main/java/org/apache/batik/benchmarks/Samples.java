@@ -0,0 +1,109 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.benchmarks;
+
+import java.awt.geom.Dimension2D;
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
+import org.apache.batik.bridge.BridgeContext;
+import org.apache.batik.bridge.GVTBuilder;
+import org.apache.batik.bridge.UserAgentAdapter;
+import org.apache.batik.gvt.GraphicsNode;
+import org.apache.batik.util.XMLResourceDescriptor;
+import org.w3c.dom.Document;
+
+/**
+ * Gives access to the documents of the <code>samples</code> directory
+ * used as inputs by the benchmarks.
+ *
+ * The directory is taken from the <code>batik.samples</code> system
+ * property and defaults to <code>samples</code>, so the benchmarks are
+ * meant to be run from the root of the source tree.
+ *
+ * @version $Id$
+ */
+public final class Samples {
+
+    /**
+     * The system property giving the samples directory.
+     */
+    public static final String SAMPLES_PROPERTY = "batik.samples";
+
+    /**
+     * Do not authorize creation of instances of that class.
+     */
+    private Samples() {
+    }
+
+    /**
+     * Returns the URI of the sample <code>name</code>.
+     */
+    public static String getURI(String name) throws IOException {
+        File dir = new File(System.getProperty(SAMPLES_PROPERTY, "samples"));
+        File f = new File(dir, name);
+        if (!f.isFile())
+            throw new IOException("Sample not found: " + f.getAbsolutePath() +
+                                  " (set -D" + SAMPLES_PROPERTY + ")");
+        return f.toURI().toString();
+    }
+
+    /**
+     * Returns a new document factory using the default XML parser.
+     */
+    public static SAXSVGDocumentFactory createFactory() {
+        return new SAXSVGDocumentFactory
+            (XMLResourceDescriptor.getXMLParserClassName());
+    }
+
+    /**
+     * Parses the sample <code>name</code>.
+     */
+    public static Document parse(String name) throws IOException {
+        return createFactory().createDocument(getURI(name));
+    }
+
+    /**
+     * Returns a new static bridge context.
+     */
+    public static BridgeContext createBridgeContext() {
+        BridgeContext ctx = new BridgeContext(new UserAgentAdapter());
+        ctx.setDynamicState(BridgeContext.STATIC);
+        return ctx;
+    }
+
+    /**
+     * Builds the GVT tree of <code>doc</code> with <code>ctx</code>.
+     */
+    public static GraphicsNode build(BridgeContext ctx, Document doc) {
+        return new GVTBuilder().build(ctx, doc);
+    }
+
+    /**
+     * Returns the size of the document built with <code>ctx</code>,
+     * rounded to whole pixels.
+     */
+    public static int [] getSize(BridgeContext ctx) {
+        Dimension2D d = ctx.getDocumentSize();
+        int w = (int)Math.ceil(d.getWidth());
+        int h = (int)Math.ceil(d.getHeight());
+        return new int [] { (w > 0) ? w : 400, (h > 0) ? h : 400 };
+    }
+}
@@ -0,0 +1,92 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.benchmarks;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.batik.bridge.BridgeContext;
+import org.apache.batik.ext.awt.image.rendered.TileCache;
+import org.apache.batik.gvt.GraphicsNode;
+import org.apache.batik.gvt.renderer.StaticRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the painting of a GVT tree by a <code>StaticRenderer</code>.
+ *
+ * The tree is built once, each invocation gives it again to the
+ * renderer and flushes the tile cache, so the whole image is painted
+ * from the tree.
+ *
+ * @version $Id$
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StaticRendererBenchmark {
+
+    @Param({ "anne.svg", "mapWaadt.svg", "batikFX.svg" })
+    public String sample;
+
+    protected BridgeContext ctx;
+    protected GraphicsNode root;
+    protected StaticRenderer renderer;
+    protected Rectangle area;
+
+    @Setup
+    public void setUp() throws IOException {
+        ctx = Samples.createBridgeContext();
+        root = Samples.build(ctx, Samples.parse(sample));
+        int [] size = Samples.getSize(ctx);
+        area = new Rectangle(0, 0, size[0], size[1]);
+        renderer = new StaticRenderer();
+        renderer.updateOffScreen(size[0], size[1]);
+    }
+
+    @TearDown
+    public void tearDown() {
+        renderer.dispose();
+        ctx.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paint() {
+        TileCache.getCache().flush();
+        renderer.setTree(root);
+        renderer.clearOffScreen();
+        renderer.repaint(area);
+        return renderer.getOffScreen();
+    }
+}
@@ -374,6 +374,10 @@ public class BridgeContext implements ErrorConstants, CSSContext {
      */
     protected void initializeDocument(Document document) {
         SVGOMDocument doc = (SVGOMDocument)document;
+        if (doc.isRenderOnly()) {
+            // No listener is registered on render-only documents.
+            dynamicStatus = STATIC;
+        }
         CSSEngine eng = doc.getCSSEngine();
         if (eng == null) {
             SVGDOMImplementation impl;
@@ -25,6 +25,7 @@ import java.util.HashMap;
 import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
 import org.apache.batik.dom.svg.SVGDocumentFactory;
 import org.apache.batik.dom.util.DocumentDescriptor;
+import org.apache.batik.dom.util.SAXDocumentFactory;
 import org.apache.batik.util.CleanerThread;
 
 import org.w3c.dom.Document;
@@ -137,6 +138,16 @@ public class DocumentLoader {
         return state.getDocument();
     }
 
+    /**
+     * Sets whether the documents stored in local files are read through
+     * memory mappings instead of URL connections.
+     */
+    public void setMappedFileInput(boolean b) {
+        if (documentFactory instanceof SAXDocumentFactory) {
+            ((SAXDocumentFactory)documentFactory).setMappedFileInput(b);
+        }
+    }
+
     /**
      * Returns the userAgent used by this DocumentLoader
      */
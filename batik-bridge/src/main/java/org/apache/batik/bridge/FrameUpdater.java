@@ -0,0 +1,242 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.bridge;
+
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.batik.gvt.GraphicsNode;
+import org.apache.batik.gvt.RootGraphicsNode;
+import org.apache.batik.gvt.UpdateTracker;
+import org.apache.batik.gvt.renderer.ConcreteImageRendererFactory;
+import org.apache.batik.gvt.renderer.ImageRenderer;
+
+/**
+ * This class renders successive frames of a dynamic document without
+ * an <code>UpdateManager</code>, and so without its update thread or
+ * any Swing component.
+ *
+ * Each call to {@link #setCurrentTime(float)} advances the animation
+ * engine, then only the areas of the GVT tree that changed since the
+ * previous frame are repainted, in place, in the offscreen buffer of
+ * the renderer.  The document must be built with a dynamic bridge
+ * context and its 'SVGLoad' event dispatched (which starts the
+ * animation engine), as done by the transcoders when
+ * <code>KEY_EXECUTE_ONLOAD</code> is set.  Like the update thread of
+ * an <code>UpdateManager</code>, the caller must be the only thread
+ * accessing the document.
+ *
+ * @version $Id$
+ */
+public class FrameUpdater {
+
+    /**
+     * The bridge context.
+     */
+    protected BridgeContext bridgeContext;
+
+    /**
+     * The GraphicsNode whose updates are tracked.
+     */
+    protected GraphicsNode graphicsNode;
+
+    /**
+     * The renderer holding the frame buffer.
+     */
+    protected ImageRenderer renderer;
+
+    /**
+     * The repaint manager.
+     */
+    protected RepaintManager repaintManager;
+
+    /**
+     * The update tracker.
+     */
+    protected UpdateTracker updateTracker;
+
+    /**
+     * The size of the frame buffer.
+     */
+    protected int width, height;
+
+    /**
+     * Creates a new frame updater rendering through a new dynamic
+     * image renderer.
+     * @param ctx The dynamic bridge context of the document.
+     * @param gn GraphicsNode whose updates are to be tracked.
+     */
+    public FrameUpdater(BridgeContext ctx, GraphicsNode gn) {
+        this(ctx, gn,
+             new ConcreteImageRendererFactory().createDynamicImageRenderer());
+    }
+
+    /**
+     * Creates a new frame updater.
+     * @param ctx The dynamic bridge context of the document.
+     * @param gn GraphicsNode whose updates are to be tracked.
+     * @param r The renderer to paint the frames with, usually a
+     *        dynamic renderer which does not cache the rendering.
+     */
+    public FrameUpdater(BridgeContext ctx, GraphicsNode gn, ImageRenderer r) {
+        if (!ctx.isDynamic()) {
+            throw new IllegalArgumentException
+                ("The bridge context is not dynamic");
+        }
+        bridgeContext = ctx;
+        graphicsNode = gn;
+        renderer = r;
+        renderer.setTree(gn);
+        repaintManager = new RepaintManager(r);
+
+        updateTracker = new UpdateTracker();
+        RootGraphicsNode root = gn.getRoot();
+        if (root != null) {
+            root.addTreeGraphicsNodeChangeListener(updateTracker);
+        }
+    }
+
+    /**
+     * Returns the bridge context.
+     */
+    public BridgeContext getBridgeContext() {
+        return bridgeContext;
+    }
+
+    /**
+     * Returns the renderer holding the frame buffer.
+     */
+    public ImageRenderer getRenderer() {
+        return renderer;
+    }
+
+    /**
+     * Returns the GVT update tracker.
+     */
+    public UpdateTracker getUpdateTracker() {
+        return updateTracker;
+    }
+
+    /**
+     * Sets the user to device transform and the size of the frames,
+     * and paints the whole frame.
+     * @param u2d The user to device transform.
+     * @param width The frame width.
+     * @param height The frame height.
+     * @return the area repainted, in device space.
+     */
+    public Collection setupRenderer(AffineTransform u2d,
+                                    int width,
+                                    int height) {
+        this.width = width;
+        this.height = height;
+        repaintManager.setupRenderer(u2d, false, null, width, height);
+        updateTracker.clear();
+        return repaintAll();
+    }
+
+    /**
+     * Paints the whole frame again.
+     * @return the area repainted, in device space.
+     */
+    public Collection repaintAll() {
+        AffineTransform at = renderer.getTransform();
+        Shape aoi = new Rectangle(0, 0, width, height);
+        try {
+            aoi = at.createInverse().createTransformedShape(aoi);
+        } catch (NoninvertibleTransformException ex) {
+            return Collections.EMPTY_LIST;
+        }
+        List l = new ArrayList(1);
+        l.add(aoi);
+        return updateRendering(l);
+    }
+
+    /**
+     * Advances the animation engine to the given document time and
+     * repaints the areas that changed.  Frames are best generated in
+     * increasing time order: going back in time seeks the whole
+     * document, which updates every animation.
+     * @param t The document time, in seconds.
+     * @return the areas repainted, in device space, an empty
+     *         collection if the frame did not change.
+     */
+    public Collection setCurrentTime(float t) {
+        bridgeContext.getAnimationEngine().advanceTo(t);
+        return update();
+    }
+
+    /**
+     * Repaints the areas that changed since the previous frame, for
+     * instance after a modification of the document.
+     * @return the areas repainted, in device space, an empty
+     *         collection if the frame did not change.
+     */
+    public Collection update() {
+        if (!updateTracker.hasChanged()) {
+            return Collections.EMPTY_LIST;
+        }
+        List dirtyAreas = updateTracker.getDirtyAreas();
+        updateTracker.clear();
+        if (dirtyAreas == null) {
+            return Collections.EMPTY_LIST;
+        }
+        return updateRendering(dirtyAreas);
+    }
+
+    /**
+     * Returns the current frame.  The same image is updated by the
+     * next frames.
+     */
+    public BufferedImage getOffScreen() {
+        return repaintManager.getOffScreen();
+    }
+
+    /**
+     * Stops tracking the updates of the GVT tree and releases the
+     * renderer.
+     */
+    public void dispose() {
+        RootGraphicsNode root = graphicsNode.getRoot();
+        if (root != null) {
+            root.removeTreeGraphicsNodeChangeListener(updateTracker);
+        }
+        renderer.dispose();
+    }
+
+    /**
+     * Repaints the given areas.
+     * @param areas The areas to repaint, in user space.
+     */
+    protected Collection updateRendering(List areas) {
+        try {
+            return repaintManager.updateRendering(areas);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return Collections.EMPTY_LIST;
+        }
+    }
+}
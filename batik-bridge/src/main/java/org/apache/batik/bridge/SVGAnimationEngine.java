@@ -417,6 +417,22 @@ public class SVGAnimationEngine extends AnimationEngine {
         }
     }
 
+    /**
+     * Advances the document time to the given time.
+     */
+    public float advanceTo(float t) {
+        if (started) {
+            float ret = super.advanceTo(t);
+            if (animationTickRunnable != null) {
+                animationTickRunnable.resume();
+            }
+            return ret;
+        } else {
+            initialStartTime = t;
+            return 0;
+        }
+    }
+
     /**
      * Creates a new returns a new TimedDocumentRoot object for the document.
      */
@@ -27,14 +27,13 @@ import org.apache.batik.anim.dom.SVGOMAnimatedPathData;
 import org.apache.batik.anim.dom.SVGOMPathElement;
 import org.apache.batik.css.engine.SVGCSSEngine;
 import org.apache.batik.dom.svg.LiveAttributeException;
-import org.apache.batik.dom.svg.SVGAnimatedPathDataSupport;
 import org.apache.batik.dom.svg.SVGPathContext;
+import org.apache.batik.ext.awt.geom.CompactPath;
 import org.apache.batik.ext.awt.geom.PathLength;
 import org.apache.batik.gvt.ShapeNode;
 import org.apache.batik.parser.AWTPathProducer;
 
 import org.w3c.dom.Element;
-import org.w3c.dom.svg.SVGPathSegList;
 
 /**
  * Bridge class for the &lt;path&gt; element.
@@ -83,17 +82,25 @@ public class SVGPathElementBridge extends SVGDecoratedShapeElementBridge
 
         SVGOMPathElement pe = (SVGOMPathElement) e;
         AWTPathProducer app = new AWTPathProducer();
+        boolean animated = true;
         try {
             // 'd' attribute - required
             SVGOMAnimatedPathData _d = pe.getAnimatedPathData();
             _d.check();
-            SVGPathSegList p = _d.getAnimatedPathSegList();
             app.setWindingRule(CSSUtilities.convertFillRule(e));
-            SVGAnimatedPathDataSupport.handlePathSegList(p, app);
+            _d.handleAnimatedPathData(app);
+            animated = _d.isAnimated();
         } catch (LiveAttributeException ex) {
             throw new BridgeException(ctx, ex);
         } finally {
-            shapeNode.setShape(app.getShape());
+            Shape s = app.getShape();
+            if (s != null && !animated) {
+                // The path is rebuilt on any change, so it can be stored
+                // in the compact form. Dynamic documents keep the stroked
+                // outline for the painters recreated on style changes.
+                s = new CompactPath(s, ctx.isDynamic());
+            }
+            shapeNode.setShape(s);
         }
     }
 
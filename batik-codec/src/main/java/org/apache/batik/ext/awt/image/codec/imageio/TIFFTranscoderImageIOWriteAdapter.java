@@ -44,7 +44,7 @@ import org.apache.batik.transcoder.image.TIFFTranscoder;
  * @version $Id$
  */
 public class TIFFTranscoderImageIOWriteAdapter 
-    implements TIFFTranscoder.WriteAdapter {
+    implements TIFFTranscoder.StreamingWriteAdapter {
 
     /**
      * @throws TranscoderException 
@@ -52,6 +52,16 @@ public class TIFFTranscoderImageIOWriteAdapter
      */
     public void writeImage(TIFFTranscoder transcoder, BufferedImage img,
             TranscoderOutput output) throws TranscoderException {
+        writeRenderedImage(transcoder, img, output);
+    }
+
+    /**
+     * The image is converted and written one row of tiles at a time.
+     * @throws TranscoderException 
+     * @see org.apache.batik.transcoder.image.TIFFTranscoder.StreamingWriteAdapter#writeRenderedImage(TIFFTranscoder, java.awt.image.RenderedImage, org.apache.batik.transcoder.TranscoderOutput)
+     */
+    public void writeRenderedImage(TIFFTranscoder transcoder, RenderedImage img,
+            TranscoderOutput output) throws TranscoderException {
 
         TranscodingHints hints = transcoder.getTranscodingHints();
 
@@ -81,8 +91,10 @@ public class TIFFTranscoderImageIOWriteAdapter
 
         try {
             OutputStream ostream = output.getOutputStream();
+            // The converted image has the tiles of img, the whole
+            // image for a BufferedImage.
             int w = img.getWidth();
-            int h = img.getHeight();
+            int h = img.getTileHeight();
             SinglePixelPackedSampleModel sppsm;
             sppsm = (SinglePixelPackedSampleModel)img.getSampleModel();
             int bands = sppsm.getNumBands();
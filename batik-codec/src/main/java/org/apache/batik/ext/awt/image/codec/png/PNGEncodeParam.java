@@ -28,6 +28,8 @@ import java.awt.image.SampleModel;
 import java.util.Date;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
 
 /**
  * An instance of <code>ImageEncodeParam</code> for encoding images in
@@ -587,6 +589,103 @@ public abstract class PNGEncodeParam implements ImageEncodeParam {
         return useInterlacing;
     }
 
+    // IDAT chunk encoding
+
+    private int compressionLevel = Deflater.BEST_COMPRESSION;
+
+    /**
+     * Sets the zlib compression level of the image data, from 0 (no
+     * compression) to 9 (best compression).  The default is 9; low
+     * levels trade a larger file for a much faster encoding.
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        if ((compressionLevel < Deflater.NO_COMPRESSION) ||
+            (compressionLevel > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException();
+        }
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Returns the zlib compression level of the image data.
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    private int filter = -1;
+
+    /**
+     * Sets the filter type applied to every row by the default
+     * <code>filterRow</code> implementation, instead of trying the
+     * five filter types on each row and keeping the best one.  Using
+     * a single filter (typically <code>PNG_FILTER_SUB</code> or
+     * <code>PNG_FILTER_UP</code>) makes the filtering several times
+     * faster at the cost of a slightly larger file.
+     *
+     * @param filter one of the <code>PNG_FILTER_*</code> constants.
+     */
+    public void setFilter(int filter) {
+        if ((filter < PNG_FILTER_NONE) || (filter > PNG_FILTER_PAETH)) {
+            throw new IllegalArgumentException();
+        }
+        this.filter = filter;
+    }
+
+    /**
+     * Returns the filter type applied to every row.
+     *
+     * @exception IllegalStateException if the filter type is not set.
+     */
+    public int getFilter() {
+        if (filter == -1) {
+            throw new IllegalStateException();
+        }
+        return filter;
+    }
+
+    /**
+     * Suppresses the setting of the filter type, each row is then
+     * filtered with the filter type giving the best result.
+     */
+    public void unsetFilter() {
+        filter = -1;
+    }
+
+    /**
+     * Returns true if a filter type is set for all the rows.
+     */
+    public boolean isFilterSet() {
+        return filter != -1;
+    }
+
+    private transient Executor executor = null;
+
+    /**
+     * Sets the executor used to encode a non interlaced image in
+     * parallel.  The rows are split in bands which are filtered and
+     * compressed concurrently, then joined into a single zlib stream.
+     * When set, the <code>filterRow</code> method may be called from
+     * several threads at once.  Images split in several rows of
+     * tiles are encoded one row of tiles at a time on the calling
+     * thread instead, to keep their memory use low.  This setting is
+     * not serialized.
+     *
+     * @param executor the executor to use, or null to encode the
+     *        image on the calling thread.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the executor used to encode the image in parallel, or
+     * null if the image is encoded on the calling thread.
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
     // bKGD chunk - delegate to subclasses
 
     // In JAI 1.0, 'backgroundSet' was private.  The JDK 1.2 compiler
@@ -1336,7 +1435,9 @@ public abstract class PNGEncodeParam implements ImageEncodeParam {
      * encoding with each of the filter types, and computes the sum of
      * absolute values of the differences between the raw bytes of the
      * current row and the predicted values.  The index of the filter
-     * producing the smallest result is returned.
+     * producing the smallest result is returned.  If a filter type
+     * was set with <code>setFilter</code> only that filter is
+     * applied.
      *
      * <p> As an example, to perform only 'sub' filtering, this method
      * could be implemented (non-optimally) as follows:
@@ -1379,6 +1480,12 @@ public abstract class PNGEncodeParam implements ImageEncodeParam {
                          int bytesPerRow,
                          int bytesPerPixel) {
 
+        if (filter != -1) {
+            applyFilter(filter, currRow, prevRow, scratchRows[filter],
+                        bytesPerRow, bytesPerPixel);
+            return filter;
+        }
+
         int [] badness = {0, 0, 0, 0, 0};
         int curr, left, up, upleft, diff;
         int pa, pb, pc;
@@ -1502,4 +1609,56 @@ public abstract class PNGEncodeParam implements ImageEncodeParam {
 
         return filterType;
     }
+
+    /**
+     * Applies the filter <code>filterType</code> to
+     * <code>currRow</code> and stores the result in
+     * <code>filteredRow</code>.
+     */
+    private static void applyFilter(int filterType,
+                                    byte[] currRow,
+                                    byte[] prevRow,
+                                    byte[] filteredRow,
+                                    int bytesPerRow,
+                                    int bytesPerPixel) {
+        int end = bytesPerRow + bytesPerPixel;
+        switch (filterType) {
+        case PNG_FILTER_NONE:
+            System.arraycopy(currRow, bytesPerPixel,
+                             filteredRow, bytesPerPixel,
+                             bytesPerRow);
+            break;
+
+        case PNG_FILTER_SUB:
+            for (int i = bytesPerPixel; i < end; i++) {
+                filteredRow[i] = (byte)(currRow[i] -
+                                        currRow[i - bytesPerPixel]);
+            }
+            break;
+
+        case PNG_FILTER_UP:
+            for (int i = bytesPerPixel; i < end; i++) {
+                filteredRow[i] = (byte)(currRow[i] - prevRow[i]);
+            }
+            break;
+
+        case PNG_FILTER_AVERAGE:
+            for (int i = bytesPerPixel; i < end; i++) {
+                int left = currRow[i - bytesPerPixel] & 0xff;
+                int up   = prevRow[i] & 0xff;
+                filteredRow[i] = (byte)(currRow[i] - ((left + up) >> 1));
+            }
+            break;
+
+        case PNG_FILTER_PAETH:
+            for (int i = bytesPerPixel; i < end; i++) {
+                int left   = currRow[i - bytesPerPixel] & 0xff;
+                int up     = prevRow[i] & 0xff;
+                int upleft = prevRow[i - bytesPerPixel] & 0xff;
+                filteredRow[i] =
+                    (byte)(currRow[i] - paethPredictor(left, up, upleft));
+            }
+            break;
+        }
+    }
 }
@@ -19,6 +19,7 @@
 package org.apache.batik.ext.awt.image.codec.png;
 
 import org.apache.batik.ext.awt.image.codec.util.ImageEncoderImpl;
+import org.apache.batik.util.ParallelTasks;
 
 import java.awt.Rectangle;
 import java.awt.image.ColorModel;
@@ -32,10 +33,14 @@ import java.io.DataOutputStream;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.TimeZone;
+import java.util.concurrent.Executor;
+import java.util.zip.Adler32;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 
@@ -328,31 +333,19 @@ public class PNGImageEncoder extends ImageEncoderImpl {
         cs.close();
     }
 
-    private byte[] prevRow = null;
-    private byte[] currRow = null;
-
-    private byte[][] filteredRows = null;
-
     private static int clamp(int val, int maxValue) {
         return (val > maxValue) ? maxValue : val;
     }
 
-    private void encodePass(OutputStream os, Raster ras,
-                            int xOffset,     int yOffset,
-                            int xSkip,       int ySkip)
-        throws IOException {
-        int minX   = ras.getMinX();
-        int minY   = ras.getMinY();
-        int width  = ras.getWidth();
-        int height = ras.getHeight();
-
-        xOffset *= numBands;
-        xSkip   *= numBands;
-
+    /**
+     * Returns the number of bytes of a row of an interlacing pass, or
+     * of the whole image when <code>xSkip</code> is 1.
+     */
+    private int getBytesPerRow(int width, int xOffset, int xSkip) {
         int samplesPerByte = 8/bitDepth;
-
         int numSamples = width*numBands;
-        int[] samples = new int[numSamples];
+        xOffset *= numBands;
+        xSkip   *= numBands;
 
         int pixels = (numSamples - xOffset + xSkip - 1)/xSkip;
         int bytesPerRow = pixels*numBands;
@@ -361,74 +354,103 @@ public class PNGImageEncoder extends ImageEncoderImpl {
         } else if (bitDepth == 16) {
             bytesPerRow *= 2;
         }
+        return bytesPerRow;
+    }
 
-        if (bytesPerRow == 0) {
-            return;
-        }
-
-        currRow = new byte[bytesPerRow + bpp];
-        prevRow = new byte[bytesPerRow + bpp];
+    /**
+     * Packs the samples of a row of <code>ras</code> into
+     * <code>currRow</code>, starting at index <code>bpp</code>.
+     * This method only reads the state of the encoder so it can be
+     * called from several threads at once.
+     */
+    private void packRow(Raster ras, int row, int[] samples, byte[] currRow,
+                         int xOffset, int xSkip) {
+        int minX   = ras.getMinX();
+        int width  = ras.getWidth();
 
-        filteredRows = new byte[5][bytesPerRow + bpp];
+        xOffset *= numBands;
+        xSkip   *= numBands;
 
+        int samplesPerByte = 8/bitDepth;
+        int numSamples = width*numBands;
         int maxValue = (1 << bitDepth) - 1;
 
-        for (int row = minY + yOffset; row < minY + height; row += ySkip) {
-            ras.getPixels(minX, row, width, 1, samples);
+        ras.getPixels(minX, row, width, 1, samples);
 
-            if (compressGray) {
-                int shift = 8 - bitDepth;
-                for (int i = 0; i < width; i++) {
-                    samples[i] >>= shift;
-                }
+        if (compressGray) {
+            int shift = 8 - bitDepth;
+            for (int i = 0; i < width; i++) {
+                samples[i] >>= shift;
             }
+        }
 
-            int count = bpp; // leave first 'bpp' bytes zero
-            int pos = 0;
-            int tmp = 0;
+        int count = bpp; // leave first 'bpp' bytes zero
+        int pos = 0;
+        int tmp = 0;
 
-            switch (bitDepth) {
-            case 1: case 2: case 4:
-                // Image can only have a single band
+        switch (bitDepth) {
+        case 1: case 2: case 4:
+            // Image can only have a single band
 
-                int mask = samplesPerByte - 1;
-                for (int s = xOffset; s < numSamples; s += xSkip) {
-                    int val = clamp(samples[s] >> bitShift, maxValue);
-                    tmp = (tmp << bitDepth) | val;
+            int mask = samplesPerByte - 1;
+            for (int s = xOffset; s < numSamples; s += xSkip) {
+                int val = clamp(samples[s] >> bitShift, maxValue);
+                tmp = (tmp << bitDepth) | val;
 
-                    if (pos++  == mask) {
-                        currRow[count++] = (byte)tmp;
-                        tmp = 0;
-                        pos = 0;
-                    }
-                }
-
-                // Left shift the last byte
-                if (pos != 0) {
-                    tmp <<= (samplesPerByte - pos)*bitDepth;
+                if (pos++  == mask) {
                     currRow[count++] = (byte)tmp;
+                    tmp = 0;
+                    pos = 0;
                 }
-                break;
+            }
 
-            case 8:
-                for (int s = xOffset; s < numSamples; s += xSkip) {
-                    for (int b = 0; b < numBands; b++) {
-                        currRow[count++] =
-                            (byte)clamp(samples[s + b] >> bitShift, maxValue);
-                    }
-                }
-                break;
+            // Left shift the last byte
+            if (pos != 0) {
+                tmp <<= (samplesPerByte - pos)*bitDepth;
+                currRow[count++] = (byte)tmp;
+            }
+            break;
 
-            case 16:
-                for (int s = xOffset; s < numSamples; s += xSkip) {
-                    for (int b = 0; b < numBands; b++) {
-                        int val = clamp(samples[s + b] >> bitShift, maxValue);
-                        currRow[count++] = (byte)(val >> 8);
-                        currRow[count++] = (byte)(val & 0xff);
-                    }
+        case 8:
+            for (int s = xOffset; s < numSamples; s += xSkip) {
+                for (int b = 0; b < numBands; b++) {
+                    currRow[count++] =
+                        (byte)clamp(samples[s + b] >> bitShift, maxValue);
                 }
-                break;
             }
+            break;
+
+        case 16:
+            for (int s = xOffset; s < numSamples; s += xSkip) {
+                for (int b = 0; b < numBands; b++) {
+                    int val = clamp(samples[s + b] >> bitShift, maxValue);
+                    currRow[count++] = (byte)(val >> 8);
+                    currRow[count++] = (byte)(val & 0xff);
+                }
+            }
+            break;
+        }
+    }
+
+    private void encodePass(OutputStream os, Raster ras,
+                            int xOffset,     int yOffset,
+                            int xSkip,       int ySkip)
+        throws IOException {
+        int minY   = ras.getMinY();
+        int height = ras.getHeight();
+
+        int bytesPerRow = getBytesPerRow(ras.getWidth(), xOffset, xSkip);
+        if (bytesPerRow == 0) {
+            return;
+        }
+
+        int[] samples = new int[ras.getWidth()*numBands];
+        byte[] currRow = new byte[bytesPerRow + bpp];
+        byte[] prevRow = new byte[bytesPerRow + bpp];
+        byte[][] filteredRows = new byte[5][bytesPerRow + bpp];
+
+        for (int row = minY + yOffset; row < minY + height; row += ySkip) {
+            packRow(ras, row, samples, currRow, xOffset, xSkip);
 
             // Perform filtering
             int filterType = param.filterRow(currRow, prevRow,
@@ -445,11 +467,221 @@ public class PNGImageEncoder extends ImageEncoderImpl {
         }
     }
 
-    private void writeIDAT() throws IOException {
-        IDATOutputStream ios = new IDATOutputStream(dataOutput, 8192);
-        DeflaterOutputStream dos =
-            new DeflaterOutputStream(ios, new Deflater(9));
+    /**
+     * The minimum number of bytes of filtered data in a band of a
+     * parallel encoding.
+     */
+    private static final int MIN_BAND_SIZE = 128 * 1024;
 
+    /**
+     * The size of the deflate window, the amount of data of the
+     * previous band used as the dictionary of a band.
+     */
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    /**
+     * <code>Deflater.deflate(byte[], int, int, int)</code>, which is
+     * needed to end a band on a byte boundary with a sync flush and is
+     * only available from Java 7.
+     */
+    private static final Method DEFLATE_FLUSH;
+    private static final Integer SYNC_FLUSH;
+    static {
+        Method m = null;
+        Integer flush = null;
+        try {
+            m = Deflater.class.getMethod("deflate", new Class[] {
+                byte[].class, Integer.TYPE, Integer.TYPE, Integer.TYPE });
+            flush = (Integer)Deflater.class.getField("SYNC_FLUSH").get(null);
+        } catch (Exception e) {
+            m = null;
+        }
+        DEFLATE_FLUSH = m;
+        SYNC_FLUSH = flush;
+    }
+
+    /**
+     * Filters and compresses the rows of the image in bands,
+     * in the manner of pigz.  Each band is filtered on its own, using
+     * the last row of the previous band as its previous row, then
+     * deflated as a raw deflate stream primed with the end of the
+     * previous band as dictionary and ended with a sync flush.  The
+     * compressed bands are then concatenated into a single zlib
+     * stream.
+     *
+     * @return false if the image is too small to be split or the
+     *         runtime can not sync flush a deflate stream, in which
+     *         case nothing is written.
+     */
+    private boolean encodeBands(OutputStream os, Executor executor)
+        throws IOException {
+        final int bytesPerRow = getBytesPerRow(image.getWidth(), 0, 1);
+        int height = image.getHeight();
+        if ((DEFLATE_FLUSH == null) || (bytesPerRow == 0)) {
+            return false;
+        }
+
+        final int rowsPerBand = Math.max(1, MIN_BAND_SIZE/(bytesPerRow + 1));
+        int numBands = (height + rowsPerBand - 1)/rowsPerBand;
+        if (numBands < 2) {
+            return false;
+        }
+
+        final Raster ras = getRows(image.getMinY(), height);
+
+        // Filter the bands.
+        final byte[][] filtered = new byte[numBands][];
+        Runnable[] tasks = new Runnable[numBands];
+        for (int i = 0; i < numBands; i++) {
+            final int band = i;
+            tasks[i] = new Runnable() {
+                    public void run() {
+                        filtered[band] = filterBand(ras, band*rowsPerBand,
+                                                    rowsPerBand, bytesPerRow);
+                    }
+                };
+        }
+        ParallelTasks.run(executor, tasks);
+
+        // Compress the bands, each one needs the filtered data of the
+        // previous one as dictionary.
+        final byte[][] compressed = new byte[numBands][];
+        final int level = param.getCompressionLevel();
+        for (int i = 0; i < numBands; i++) {
+            final int band = i;
+            final boolean last = (i == numBands - 1);
+            tasks[i] = new Runnable() {
+                    public void run() {
+                        byte[] dict = (band == 0) ? null : filtered[band - 1];
+                        compressed[band] = deflateBand(filtered[band], dict,
+                                                       level, last);
+                    }
+                };
+        }
+        ParallelTasks.run(executor, tasks);
+
+        // zlib header, see RFC 1950.
+        int flevel;
+        if (level < 2) {
+            flevel = 0;
+        } else if (level < 6) {
+            flevel = 1;
+        } else if (level == 6) {
+            flevel = 2;
+        } else {
+            flevel = 3;
+        }
+        int header = (0x78 << 8) | (flevel << 6);
+        header += 31 - (header % 31);
+        os.write(header >> 8);
+        os.write(header & 0xff);
+
+        Adler32 adler = new Adler32();
+        for (int i = 0; i < numBands; i++) {
+            adler.update(filtered[i]);
+            os.write(compressed[i]);
+            filtered[i] = null;
+            compressed[i] = null;
+        }
+
+        int checksum = (int)adler.getValue();
+        os.write(checksum >>> 24);
+        os.write((checksum >> 16) & 0xff);
+        os.write((checksum >> 8) & 0xff);
+        os.write(checksum & 0xff);
+        return true;
+    }
+
+    /**
+     * Returns the filtered data, filter type bytes included, of
+     * <code>numRows</code> rows of <code>ras</code> starting at
+     * <code>firstRow</code> rows from the top.
+     */
+    private byte[] filterBand(Raster ras, int firstRow, int numRows,
+                              int bytesPerRow) {
+        int minY = ras.getMinY();
+        numRows = Math.min(numRows, ras.getHeight() - firstRow);
+
+        int[] samples = new int[ras.getWidth()*numBands];
+        byte[] currRow = new byte[bytesPerRow + bpp];
+        byte[] prevRow = new byte[bytesPerRow + bpp];
+        byte[][] filteredRows = new byte[5][bytesPerRow + bpp];
+        byte[] out = new byte[numRows*(bytesPerRow + 1)];
+
+        if (firstRow > 0) {
+            packRow(ras, minY + firstRow - 1, samples, prevRow, 0, 1);
+        }
+
+        int pos = 0;
+        for (int row = minY + firstRow;
+             row < minY + firstRow + numRows; row++) {
+            packRow(ras, row, samples, currRow, 0, 1);
+
+            int filterType = param.filterRow(currRow, prevRow,
+                                             filteredRows,
+                                             bytesPerRow, bpp);
+
+            out[pos++] = (byte)filterType;
+            System.arraycopy(filteredRows[filterType], bpp,
+                             out, pos, bytesPerRow);
+            pos += bytesPerRow;
+
+            byte[] swap = currRow;
+            currRow = prevRow;
+            prevRow = swap;
+        }
+        return out;
+    }
+
+    /**
+     * Compresses <code>data</code> as a raw deflate stream.  The
+     * stream is ended with a sync flush, or finished if
+     * <code>last</code> is true.
+     */
+    private static byte[] deflateBand(byte[] data, byte[] dict,
+                                      int level, boolean last) {
+        Deflater deflater = new Deflater(level, true);
+        ByteArrayOutputStream out =
+            new ByteArrayOutputStream(data.length/2 + 64);
+        byte[] buf = new byte[16384];
+        try {
+            if (dict != null) {
+                int len = Math.min(dict.length, DICTIONARY_SIZE);
+                deflater.setDictionary(dict, dict.length - len, len);
+            }
+            deflater.setInput(data);
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    int n = deflater.deflate(buf);
+                    out.write(buf, 0, n);
+                }
+            } else {
+                Object[] args = { buf, new Integer(0),
+                                  new Integer(buf.length), SYNC_FLUSH };
+                int n;
+                do {
+                    n = ((Integer)DEFLATE_FLUSH.invoke(deflater, args))
+                        .intValue();
+                    out.write(buf, 0, n);
+                } while (n == buf.length);
+            }
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e.getMessage());
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException(e.getTargetException().getMessage());
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns the raster of <code>numRows</code> rows of the image
+     * starting at row <code>minY</code>, without the alpha band when
+     * it is skipped.
+     */
+    private Raster getRows(int minY, int numRows) {
         // Future work - don't convert entire image to a Raster It
         // might seem that you could just call image.getData() but
         // 'BufferedImage.subImage' doesn't appear to set the Width
@@ -458,9 +690,9 @@ public class PNGImageEncoder extends ImageEncoderImpl {
         // This solves that problem by bounding the raster to the
         // image's bounds...
         Raster ras = image.getData(new Rectangle(image.getMinX(),
-                                                 image.getMinY(),
+                                                 minY,
                                                  image.getWidth(),
-                                                 image.getHeight()));
+                                                 numRows));
         // System.out.println("Image: [" +
         //                    image.getMinY()  + ", " +
         //                    image.getMinX()  + ", " +
@@ -478,13 +710,76 @@ public class PNGImageEncoder extends ImageEncoderImpl {
             for (int i = 0; i < numBands; i++) {
                 bandList[i] = i;
             }
-            ras = ras.createChild(0, 0,
+            ras = ras.createChild(ras.getMinX(), ras.getMinY(),
                                   ras.getWidth(), ras.getHeight(),
-                                  0, 0,
+                                  ras.getMinX(), ras.getMinY(),
                                   bandList);
         }
+        return ras;
+    }
+
+    /**
+     * Filters the rows of a non interlaced image, fetching them one
+     * row of tiles at a time so an image computed on demand (for
+     * example rendered in bands) is never held in memory as a whole.
+     */
+    private void encodeStrips(OutputStream os) throws IOException {
+        int bytesPerRow = getBytesPerRow(image.getWidth(), 0, 1);
+        if (bytesPerRow == 0) {
+            return;
+        }
+
+        int[] samples = new int[image.getWidth()*numBands];
+        byte[] currRow = new byte[bytesPerRow + bpp];
+        byte[] prevRow = new byte[bytesPerRow + bpp];
+        byte[][] filteredRows = new byte[5][bytesPerRow + bpp];
+
+        int th = image.getTileHeight();
+        int ty = image.getTileGridYOffset();
+        int maxY = image.getMinY() + image.getHeight();
+        int y = image.getMinY();
+        while (y < maxY) {
+            int next = y + th - (((y - ty) % th) + th) % th;
+            Raster ras = getRows(y, Math.min(next, maxY) - y);
+
+            for (int row = y; row < y + ras.getHeight(); row++) {
+                packRow(ras, row, samples, currRow, 0, 1);
+
+                int filterType = param.filterRow(currRow, prevRow,
+                                                 filteredRows,
+                                                 bytesPerRow, bpp);
+
+                os.write(filterType);
+                os.write(filteredRows[filterType], bpp, bytesPerRow);
+
+                byte[] swap = currRow;
+                currRow = prevRow;
+                prevRow = swap;
+            }
+            y += ras.getHeight();
+        }
+    }
+
+    private void writeIDAT() throws IOException {
+        IDATOutputStream ios = new IDATOutputStream(dataOutput, 8192);
+
+        // The parallel encoding works on the whole raster, an image
+        // split in several rows of tiles is rather streamed.
+        Executor executor = param.getExecutor();
+        if (!interlace && (executor != null) &&
+            (image.getNumYTiles() == 1) &&
+            encodeBands(ios, executor)) {
+            ios.flush();
+            ios.close();
+            return;
+        }
+
+        Deflater deflater = new Deflater(param.getCompressionLevel());
+        DeflaterOutputStream dos = new DeflaterOutputStream(ios, deflater);
 
         if (interlace) {
+            Raster ras = getRows(image.getMinY(), image.getHeight());
+
             // Interlacing pass 1
             encodePass(dos, ras, 0, 0, 8, 8);
             // Interlacing pass 2
@@ -500,11 +795,12 @@ public class PNGImageEncoder extends ImageEncoderImpl {
             // Interlacing pass 7
             encodePass(dos, ras, 0, 1, 1, 2);
         } else {
-            encodePass(dos, ras, 0, 0, 1, 1);
+            encodeStrips(dos);
         }
 
         dos.finish();
         dos.close();
+        deflater.end();
         ios.flush();
         ios.close();
     }
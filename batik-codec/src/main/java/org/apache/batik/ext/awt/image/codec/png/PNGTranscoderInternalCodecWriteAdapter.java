@@ -19,8 +19,11 @@
 package org.apache.batik.ext.awt.image.codec.png;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
 
 import org.apache.batik.ext.awt.image.rendered.IndexImage;
 import org.apache.batik.transcoder.TranscoderException;
@@ -35,7 +38,7 @@ import org.apache.batik.transcoder.image.PNGTranscoder;
  * @version $Id$
  */
 public class PNGTranscoderInternalCodecWriteAdapter implements
-        PNGTranscoder.WriteAdapter {
+        PNGTranscoder.StreamingWriteAdapter {
 
     /**
      * @throws TranscoderException
@@ -53,6 +56,36 @@ public class PNGTranscoderInternalCodecWriteAdapter implements
                 img = IndexImage.getIndexedImage(img,1<<n);
         }
 
+        encode(transcoder, img, output);
+    }
+
+    /**
+     * Writes the image row of tiles by row of tiles, unless it has to
+     * be reduced to indexed colors, which needs the whole image.
+     * @see org.apache.batik.transcoder.image.PNGTranscoder.StreamingWriteAdapter#writeRenderedImage(org.apache.batik.transcoder.image.PNGTranscoder, java.awt.image.RenderedImage, org.apache.batik.transcoder.TranscoderOutput)
+     */
+    public void writeRenderedImage(PNGTranscoder transcoder, RenderedImage img,
+            TranscoderOutput output) throws TranscoderException {
+        TranscodingHints hints = transcoder.getTranscodingHints();
+
+        if (hints.containsKey(PNGTranscoder.KEY_INDEXED)) {
+            int n = (Integer) hints.get(PNGTranscoder.KEY_INDEXED);
+            if (n==1||n==2||n==4||n==8) {
+                BufferedImage bi = transcoder.createImage(img.getWidth(),
+                                                          img.getHeight());
+                img.copyData(bi.getRaster());
+                writeImage(transcoder, bi, output);
+                return;
+            }
+        }
+
+        encode(transcoder, img, output);
+    }
+
+    private void encode(PNGTranscoder transcoder, RenderedImage img,
+            TranscoderOutput output) throws TranscoderException {
+        TranscodingHints hints = transcoder.getTranscodingHints();
+
         PNGEncodeParam params = PNGEncodeParam.getDefaultEncodeParam(img);
         if (params instanceof PNGEncodeParam.RGB) {
             ((PNGEncodeParam.RGB)params).setBackgroundRGB
@@ -81,6 +114,22 @@ public class PNGTranscoderInternalCodecWriteAdapter implements
         int numPix      = (int)((1000/PixSzMM)+0.5);
         params.setPhysicalDimension(numPix, numPix, 1); // 1 means 'pix/meter'
 
+        // The fast mode only provides the defaults of the filter and
+        // compression level keys.
+        if (Boolean.TRUE.equals(hints.get(PNGTranscoder.KEY_FAST_ENCODING))) {
+            params.setFilter(PNGEncodeParam.PNG_FILTER_SUB);
+            params.setCompressionLevel(Deflater.BEST_SPEED);
+        }
+        if (hints.containsKey(PNGTranscoder.KEY_FILTER)) {
+            params.setFilter((Integer) hints.get(PNGTranscoder.KEY_FILTER));
+        }
+        if (hints.containsKey(PNGTranscoder.KEY_COMPRESSION_LEVEL)) {
+            params.setCompressionLevel
+                ((Integer) hints.get(PNGTranscoder.KEY_COMPRESSION_LEVEL));
+        }
+        params.setExecutor
+            ((Executor) hints.get(PNGTranscoder.KEY_ENCODING_EXECUTOR));
+
         try {
             OutputStream ostream = output.getOutputStream();
             PNGImageEncoder pngEncoder = new PNGImageEncoder(ostream, params);
@@ -0,0 +1,41 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.css.engine;
+
+import org.w3c.dom.NamedNodeMap;
+
+/**
+ * This interface must be implemented by the attribute maps which can
+ * give the names and values of their attributes without creating the
+ * attribute nodes.
+ *
+ * @version $Id$
+ */
+public interface AttributeValues extends NamedNodeMap {
+
+    /**
+     * Returns the qualified name of the attribute at the given index.
+     */
+    String getNodeName(int index);
+
+    /**
+     * Returns the value of the attribute at the given index.
+     */
+    String getNodeValue(int index);
+}
@@ -27,7 +27,12 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
+import org.apache.batik.css.engine.sac.AbstractCombinatorCondition;
+import org.apache.batik.css.engine.sac.AbstractDescendantSelector;
+import org.apache.batik.css.engine.sac.AbstractSiblingSelector;
 import org.apache.batik.css.engine.sac.CSSConditionFactory;
+import org.apache.batik.css.engine.sac.CSSConditionalSelector;
+import org.apache.batik.css.engine.sac.CSSPseudoClassCondition;
 import org.apache.batik.css.engine.sac.CSSSelectorFactory;
 import org.apache.batik.css.engine.sac.ExtendedSelector;
 import org.apache.batik.css.engine.value.ComputedValue;
@@ -40,10 +45,12 @@ import org.apache.batik.util.CSSConstants;
 import org.apache.batik.util.ParsedURL;
 
 import org.w3c.css.sac.CSSException;
+import org.w3c.css.sac.Condition;
 import org.w3c.css.sac.DocumentHandler;
 import org.w3c.css.sac.InputSource;
 import org.w3c.css.sac.LexicalUnit;
 import org.w3c.css.sac.SACMediaList;
+import org.w3c.css.sac.Selector;
 import org.w3c.css.sac.SelectorList;
 import org.w3c.dom.Attr;
 import org.w3c.dom.DOMException;
@@ -333,6 +340,22 @@ public abstract class CSSEngine {
      */
     protected Set selectorAttributes;
 
+    /**
+     * The number of preceding siblings looked at to share a style.
+     */
+    public static final int STYLE_SHARING_CANDIDATES = 8;
+
+    /**
+     * The names of the attributes which must be equal for two elements
+     * to share their style, or null if not yet computed.
+     */
+    protected Set styleSharingAttributes;
+
+    /**
+     * Whether elements can share their style at all.
+     */
+    protected boolean styleSharingEnabled;
+
     /**
      * Used to fire a change event for all the properties.
      */
@@ -609,6 +632,7 @@ public abstract class CSSEngine {
      */
     public void setUserAgentStyleSheet(StyleSheet ss) {
         userAgentStyleSheet = ss;
+        styleSharingAttributes = null;
     }
 
     /**
@@ -616,6 +640,7 @@ public abstract class CSSEngine {
      */
     public void setUserStyleSheet(StyleSheet ss) {
         userStyleSheet = ss;
+        styleSharingAttributes = null;
     }
 
     /**
@@ -757,12 +782,12 @@ public abstract class CSSEngine {
                 NamedNodeMap attrs = elt.getAttributes();
                 int len = attrs.getLength();
                 for (int i = 0; i < len; i++) {
-                    Node attr = attrs.item(i);
-                    String an = attr.getNodeName();
+                    String an = getAttributeName(attrs, i);
                     if (nonCSSPresentationalHints.contains(an)) {
+                        String av = getAttributeValue(attrs, i);
                         try {
                             LexicalUnit lu;
-                            lu = parser.parsePropertyValue(attr.getNodeValue());
+                            lu = parser.parsePropertyValue(av);
                             ph.property(an, lu, false);
                         } catch (Exception e) {
                             String m = e.getMessage();
@@ -771,7 +796,7 @@ public abstract class CSSEngine {
                                         documentURI.toString());
                             String s = Messages.formatMessage
                                 ("property.syntax.error.at",
-                                 new Object[] { u, an, attr.getNodeValue(), m});
+                                 new Object[] { u, an, av, m});
                             DOMException de = new DOMException(DOMException.SYNTAX_ERR, s);
                             if (userAgent == null) throw de;
                             userAgent.displayError(de);
@@ -864,7 +889,12 @@ public abstract class CSSEngine {
                                   int propidx) {
         StyleMap sm = elt.getComputedStyleMap(pseudo);
         if (sm == null) {
-            sm = getCascadedStyleMap(elt, pseudo);
+            if (pseudo == null) {
+                sm = getSharedStyleMap(elt);
+            }
+            if (sm == null) {
+                sm = getCascadedStyleMap(elt, pseudo);
+            }
             elt.setComputedStyleMap(pseudo, sm);
         }
 
@@ -906,6 +936,240 @@ public abstract class CSSEngine {
         return result;
     }
 
+    /**
+     * Returns the style map of a preceding sibling of the given element
+     * which has the same cascade, or null.  The computed values of the
+     * siblings only depend on their cascade and their common parent, so
+     * the map, including the values computed later, can be shared.
+     * Since the maps of a dynamic document are updated in place, the
+     * styles are only shared in static documents.
+     */
+    protected StyleMap getSharedStyleMap(CSSStylableElement elt) {
+        if (styleSharingAttributes == null) {
+            initializeStyleSharing();
+        }
+        if (!styleSharingEnabled ||
+            !isStyleSharingCandidate(elt) ||
+            elt.getXMLId().length() != 0 ||
+            hasOverrideStyle(elt)) {
+            return null;
+        }
+        Node n = elt;
+        int i = 0;
+        while (i < STYLE_SHARING_CANDIDATES &&
+               (n = getCSSPreviousSibling(n)) != null) {
+            if (n.getNodeType() != Node.ELEMENT_NODE)
+                continue;
+            i++;
+            if (!(n instanceof CSSStylableElement))
+                continue;
+            CSSStylableElement sib = (CSSStylableElement)n;
+            StyleMap sm = sib.getComputedStyleMap(null);
+            if (sm != null && canShareStyle(elt, sib)) {
+                return sm;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Tells whether the given element may share its style with one of
+     * its siblings.  Subclasses can exclude the elements whose computed
+     * values do not only depend on their cascade and parent.
+     */
+    protected boolean isStyleSharingCandidate(CSSStylableElement elt) {
+        return true;
+    }
+
+    /**
+     * Tells whether the given element has a non empty override style.
+     */
+    protected boolean hasOverrideStyle(CSSStylableElement elt) {
+        StyleDeclarationProvider p =
+            elt.getOverrideStyleDeclarationProvider();
+        if (p == null)
+            return false;
+        StyleDeclaration sd = p.getStyleDeclaration();
+        return sd != null && sd.size() != 0;
+    }
+
+    /**
+     * Tells whether the given sibling elements have the same cascade.
+     */
+    protected boolean canShareStyle(CSSStylableElement elt,
+                                    CSSStylableElement sib) {
+        if (elt.getClass() != sib.getClass() ||
+            !elt.getNodeName().equals(sib.getNodeName()) ||
+            !equals(elt.getNamespaceURI(), sib.getNamespaceURI()) ||
+            sib.getXMLId().length() != 0 ||
+            !elt.getCSSClass().equals(sib.getCSSClass()) ||
+            hasOverrideStyle(sib)) {
+            return false;
+        }
+        NamedNodeMap attrs = elt.getAttributes();
+        NamedNodeMap sattrs = sib.getAttributes();
+        int count = 0;
+        int len = attrs.getLength();
+        int slen = sattrs.getLength();
+        outer: for (int i = 0; i < len; i++) {
+            String an = getAttributeName(attrs, i);
+            if (!isStyleSharingAttribute(an))
+                continue;
+            count++;
+            for (int j = 0; j < slen; j++) {
+                if (an.equals(getAttributeName(sattrs, j))) {
+                    if (getAttributeValue(attrs, i).equals
+                        (getAttributeValue(sattrs, j))) {
+                        continue outer;
+                    }
+                    return false;
+                }
+            }
+            return false;
+        }
+        for (int i = 0; i < slen; i++) {
+            if (isStyleSharingAttribute(getAttributeName(sattrs, i))) {
+                count--;
+            }
+        }
+        return count == 0;
+    }
+
+    /**
+     * Returns the qualified name of an attribute, without creating its
+     * node when the map allows it.
+     */
+    protected static String getAttributeName(NamedNodeMap attrs, int i) {
+        if (attrs instanceof AttributeValues) {
+            return ((AttributeValues)attrs).getNodeName(i);
+        }
+        return attrs.item(i).getNodeName();
+    }
+
+    /**
+     * Returns the value of an attribute, without creating its node when
+     * the map allows it.
+     */
+    protected static String getAttributeValue(NamedNodeMap attrs, int i) {
+        if (attrs instanceof AttributeValues) {
+            return ((AttributeValues)attrs).getNodeValue(i);
+        }
+        return attrs.item(i).getNodeValue();
+    }
+
+    /**
+     * Tells whether the attribute of the given name can change the
+     * cascade of an element.
+     */
+    protected boolean isStyleSharingAttribute(String name) {
+        return styleSharingAttributes.contains(name) ||
+            name.startsWith("xml:");
+    }
+
+    /**
+     * Computes the attributes which can change the cascade of an
+     * element, and whether the style sheets allow style sharing.
+     */
+    protected void initializeStyleSharing() {
+        Set attrs = new HashSet();
+        boolean enabled = !cssContext.isDynamic();
+        if (nonCSSPresentationalHints != null) {
+            attrs.addAll(nonCSSPresentationalHints);
+        }
+        if (styleLocalName != null) {
+            attrs.add(styleLocalName);
+        }
+        attrs.add("lang");
+        if (userAgentStyleSheet != null) {
+            findSelectorAttributes(attrs, userAgentStyleSheet);
+            enabled &= !hasPositionalSelectors(userAgentStyleSheet);
+        }
+        if (userStyleSheet != null) {
+            findSelectorAttributes(attrs, userStyleSheet);
+            enabled &= !hasPositionalSelectors(userStyleSheet);
+        }
+        for (Object snode : getStyleSheetNodes()) {
+            StyleSheet ss = ((CSSStyleSheetNode) snode).getCSSStyleSheet();
+            if (ss != null) {
+                findSelectorAttributes(attrs, ss);
+                enabled &= !hasPositionalSelectors(ss);
+            }
+        }
+        styleSharingEnabled = enabled;
+        styleSharingAttributes = attrs;
+    }
+
+    /**
+     * Tells whether the given style sheet has selectors depending on
+     * the position of the elements among their siblings.
+     */
+    protected boolean hasPositionalSelectors(StyleSheet ss) {
+        int len = ss.getSize();
+        for (int i = 0; i < len; i++) {
+            Rule r = ss.getRule(i);
+            switch (r.getType()) {
+            case StyleRule.TYPE:
+                SelectorList sl = ((StyleRule)r).getSelectorList();
+                int slen = sl.getLength();
+                for (int j = 0; j < slen; j++) {
+                    if (isPositional(sl.item(j))) {
+                        return true;
+                    }
+                }
+                break;
+
+            case MediaRule.TYPE:
+            case ImportRule.TYPE:
+                if (hasPositionalSelectors((MediaRule)r)) {
+                    return true;
+                }
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tells whether the given selector depends on the position of the
+     * elements among their siblings.
+     */
+    protected static boolean isPositional(Selector s) {
+        if (s instanceof AbstractSiblingSelector) {
+            return true;
+        }
+        if (s instanceof AbstractDescendantSelector) {
+            AbstractDescendantSelector ds = (AbstractDescendantSelector)s;
+            return isPositional(ds.getAncestorSelector()) ||
+                isPositional(ds.getSimpleSelector());
+        }
+        if (s instanceof CSSConditionalSelector) {
+            CSSConditionalSelector cs = (CSSConditionalSelector)s;
+            return isPositional(cs.getSimpleSelector()) ||
+                isPositional(cs.getCondition());
+        }
+        return false;
+    }
+
+    /**
+     * Tells whether the given condition depends on the position of the
+     * elements among their siblings.
+     */
+    protected static boolean isPositional(Condition c) {
+        if (c instanceof CSSPseudoClassCondition) {
+            return true;
+        }
+        if (c instanceof AbstractCombinatorCondition) {
+            AbstractCombinatorCondition cc = (AbstractCombinatorCondition)c;
+            return isPositional(cc.getFirstCondition()) ||
+                isPositional(cc.getSecondCondition());
+        }
+        return false;
+    }
+
+    private static boolean equals(String s1, String s2) {
+        return (s1 == null) ? (s2 == null) : s1.equals(s2);
+    }
+
     /**
      * Returns the document CSSStyleSheetNodes in a list. This list is
      * updated as the document is modified.
@@ -1299,25 +1563,20 @@ public abstract class CSSEngine {
 
     /**
      * Adds the rules matching the element/pseudo-element of given style
-     * sheet to the list.
+     * sheet to the list.  Only the selectors the rule index of the
+     * sheet gives as candidates for the element are evaluated.
      */
     protected void addMatchingRules(List rules,
                                     StyleSheet ss,
                                     Element elt,
                                     String pseudo) {
-        int len = ss.getSize();
-        for (int i = 0; i < len; i++) {
-            Rule r = ss.getRule(i);
+        RuleIndex.Entry[] entries = ss.getRuleIndex().getCandidates(elt);
+        for (RuleIndex.Entry e : entries) {
+            Rule r = e.rule;
             switch (r.getType()) {
             case StyleRule.TYPE:
-                StyleRule style = (StyleRule)r;
-                SelectorList sl = style.getSelectorList();
-                int slen = sl.getLength();
-                for (int j = 0; j < slen; j++) {
-                    ExtendedSelector s = (ExtendedSelector)sl.item(j);
-                    if (s.match(elt, pseudo)) {
-                        rules.add(style);
-                    }
+                if (e.selector.match(elt, pseudo)) {
+                    rules.add(r);
                 }
                 break;
 
@@ -2356,6 +2615,7 @@ public abstract class CSSEngine {
         if (hasStyleSheetNode(n)) {
             // Invalidate all the CSSStylableElements in the document.
             styleSheetNodes = null;
+            styleSharingAttributes = null;
             invalidateProperties(document.getDocumentElement(),
                                  null, null, true);
         } else if (n instanceof CSSStylableElement) {
@@ -2396,6 +2656,7 @@ public abstract class CSSEngine {
             // Invalidate all the CSSStylableElements in the document.
             styleSheetRemoved = false;
             styleSheetNodes = null;
+            styleSharingAttributes = null;
             invalidateProperties(document.getDocumentElement(),
                                  null, null, true);
         } else if (removedStylableElementSibling != null) {
@@ -2418,6 +2679,7 @@ public abstract class CSSEngine {
         if (getCSSParentNode(n) instanceof CSSStyleSheetNode) {
             // Invalidate all the CSSStylableElements in the document.
             styleSheetNodes = null;
+            styleSharingAttributes = null;
             invalidateProperties(document.getDocumentElement(),
                                  null, null, true);
         }
@@ -0,0 +1,329 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.css.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.batik.css.engine.sac.AbstractDescendantSelector;
+import org.apache.batik.css.engine.sac.AbstractSiblingSelector;
+import org.apache.batik.css.engine.sac.CSSAndCondition;
+import org.apache.batik.css.engine.sac.CSSClassCondition;
+import org.apache.batik.css.engine.sac.CSSConditionalSelector;
+import org.apache.batik.css.engine.sac.CSSElementSelector;
+import org.apache.batik.css.engine.sac.CSSIdCondition;
+import org.apache.batik.css.engine.sac.ExtendedSelector;
+import org.w3c.css.sac.Condition;
+import org.w3c.css.sac.Selector;
+import org.w3c.css.sac.SelectorList;
+import org.w3c.dom.Element;
+
+/**
+ * This class indexes the rules of a style sheet by the rightmost simple
+ * selector of their selectors, so that only the selectors which can
+ * match an element have to be evaluated.
+ *
+ * A selector is put in the bucket of the id, or else of a class, or
+ * else of the element name its rightmost simple selector requires, and
+ * in the universal bucket if it requires none of them.  The media and
+ * import rules are kept in the universal bucket.  The candidates of an
+ * element are returned in the order of the style sheet, so that the
+ * matching rules are found in the same order as by a linear scan.
+ *
+ * @version $Id$
+ */
+public class RuleIndex {
+
+    /**
+     * An empty array of entries.
+     */
+    protected static final Entry[] EMPTY_ENTRIES = new Entry[0];
+
+    /**
+     * Compares the entries by position in the style sheet.
+     */
+    protected static final Comparator ENTRY_ORDER = new Comparator() {
+            public int compare(Object o1, Object o2) {
+                int p1 = ((Entry)o1).position;
+                int p2 = ((Entry)o2).position;
+                return (p1 < p2) ? -1 : ((p1 == p2) ? 0 : 1);
+            }
+        };
+
+    /**
+     * The selectors requiring an id, by id.
+     */
+    protected Map idEntries = new HashMap();
+
+    /**
+     * The selectors requiring a class, by class.
+     */
+    protected Map classEntries = new HashMap();
+
+    /**
+     * The selectors requiring an element name, by name.
+     */
+    protected Map elementEntries = new HashMap();
+
+    /**
+     * The selectors requiring none of the above, and the media rules.
+     */
+    protected Entry[] universalEntries;
+
+    /**
+     * Creates the index of the rules of the given style sheet.
+     */
+    public RuleIndex(StyleSheet ss) {
+        List universal = new ArrayList();
+        int position = 0;
+        int len = ss.getSize();
+        for (int i = 0; i < len; i++) {
+            Rule r = ss.getRule(i);
+            switch (r.getType()) {
+            case StyleRule.TYPE:
+                SelectorList sl = ((StyleRule)r).getSelectorList();
+                int slen = sl.getLength();
+                for (int j = 0; j < slen; j++) {
+                    ExtendedSelector s = (ExtendedSelector)sl.item(j);
+                    Entry e = new Entry(position++, r, s);
+                    Selector simple = getRightmostSelector(s);
+                    String key = getConditionKey(simple, true);
+                    if (key != null) {
+                        add(idEntries, key, e);
+                        continue;
+                    }
+                    key = getConditionKey(simple, false);
+                    if (key != null) {
+                        add(classEntries, key, e);
+                        continue;
+                    }
+                    key = getElementName(simple);
+                    if (key != null) {
+                        add(elementEntries, key, e);
+                        continue;
+                    }
+                    universal.add(e);
+                }
+                break;
+
+            case MediaRule.TYPE:
+            case ImportRule.TYPE:
+                universal.add(new Entry(position++, r, null));
+                break;
+            }
+        }
+        universalEntries = (Entry[])universal.toArray(EMPTY_ENTRIES);
+        toArrays(idEntries);
+        toArrays(classEntries);
+        toArrays(elementEntries);
+    }
+
+    /**
+     * Returns the entries whose selectors can match the given element,
+     * in the order of the style sheet.
+     */
+    public Entry[] getCandidates(Element elt) {
+        Entry[] result = universalEntries;
+        result = merge(result,
+                       (Entry[])elementEntries.get(getElementName(elt)));
+
+        if (!(elt instanceof CSSStylableElement))
+            return result;
+        CSSStylableElement se = (CSSStylableElement)elt;
+        if (!idEntries.isEmpty()) {
+            result = merge(result, (Entry[])idEntries.get(se.getXMLId()));
+        }
+        if (!classEntries.isEmpty()) {
+            String cls = se.getCSSClass();
+            int clen = cls.length();
+            int start = -1;
+            List seen = null;
+            for (int i = 0; i <= clen; i++) {
+                if (i < clen && !Character.isSpaceChar(cls.charAt(i))) {
+                    if (start == -1)
+                        start = i;
+                    continue;
+                }
+                if (start == -1)
+                    continue;
+                String c = cls.substring(start, i);
+                start = -1;
+                Entry[] entries = (Entry[])classEntries.get(c);
+                if (entries == null)
+                    continue;
+                // A class present twice must not give its rules twice.
+                if (seen == null) {
+                    seen = new ArrayList(4);
+                } else if (seen.contains(c)) {
+                    continue;
+                }
+                seen.add(c);
+                result = merge(result, entries);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the name an element is matched with by the element
+     * selectors.
+     */
+    protected static String getElementName(Element e) {
+        return (e.getPrefix() == null) ? e.getNodeName() : e.getLocalName();
+    }
+
+    /**
+     * Returns the simple selector the element itself must match.
+     */
+    protected static Selector getRightmostSelector(Selector s) {
+        for (;;) {
+            if (s instanceof AbstractDescendantSelector) {
+                s = ((AbstractDescendantSelector)s).getSimpleSelector();
+            } else if (s instanceof AbstractSiblingSelector) {
+                s = ((AbstractSiblingSelector)s).getSiblingSelector();
+            } else {
+                return s;
+            }
+        }
+    }
+
+    /**
+     * Returns the id (or class) required by the given simple selector,
+     * or null.
+     */
+    protected static String getConditionKey(Selector s, boolean id) {
+        if (!(s instanceof CSSConditionalSelector))
+            return null;
+        CSSConditionalSelector cs = (CSSConditionalSelector)s;
+        String key = getConditionKey(cs.getCondition(), id);
+        if (key != null)
+            return key;
+        return getConditionKey(cs.getSimpleSelector(), id);
+    }
+
+    /**
+     * Returns the id (or class) required by the given condition, or null.
+     */
+    protected static String getConditionKey(Condition c, boolean id) {
+        if (c instanceof CSSAndCondition) {
+            CSSAndCondition ac = (CSSAndCondition)c;
+            String key = getConditionKey(ac.getFirstCondition(), id);
+            if (key != null)
+                return key;
+            return getConditionKey(ac.getSecondCondition(), id);
+        }
+        if (id) {
+            if (c instanceof CSSIdCondition)
+                return ((CSSIdCondition)c).getValue();
+        } else {
+            if (c instanceof CSSClassCondition)
+                return ((CSSClassCondition)c).getValue();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the element name required by the given simple selector,
+     * or null.
+     */
+    protected static String getElementName(Selector s) {
+        if (s instanceof CSSConditionalSelector) {
+            return getElementName
+                (((CSSConditionalSelector)s).getSimpleSelector());
+        }
+        if (s instanceof CSSElementSelector) {
+            return ((CSSElementSelector)s).getLocalName();
+        }
+        return null;
+    }
+
+    /**
+     * Adds an entry to the list of the given key.
+     */
+    protected static void add(Map m, String key, Entry e) {
+        List l = (List)m.get(key);
+        if (l == null) {
+            l = new ArrayList(2);
+            m.put(key, l);
+        }
+        l.add(e);
+    }
+
+    /**
+     * Replaces the lists of the given map by arrays.
+     */
+    protected static void toArrays(Map m) {
+        for (Object o : m.entrySet()) {
+            Map.Entry me = (Map.Entry)o;
+            List l = (List)me.getValue();
+            me.setValue(l.toArray(EMPTY_ENTRIES));
+        }
+    }
+
+    /**
+     * Merges two arrays of entries sorted by position.
+     */
+    protected static Entry[] merge(Entry[] a, Entry[] b) {
+        if (b == null || b.length == 0)
+            return a;
+        if (a.length == 0)
+            return b;
+        Entry[] result = new Entry[a.length + b.length];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        if (a[a.length - 1].position > b[0].position) {
+            Arrays.sort(result, ENTRY_ORDER);
+        }
+        return result;
+    }
+
+    /**
+     * A selector of a style rule, or a media rule.
+     */
+    public static class Entry {
+
+        /**
+         * The position of the entry in the style sheet.
+         */
+        public final int position;
+
+        /**
+         * The style or media rule.
+         */
+        public final Rule rule;
+
+        /**
+         * The selector, null for a media rule.
+         */
+        public final ExtendedSelector selector;
+
+        /**
+         * Creates a new Entry.
+         */
+        public Entry(int position, Rule rule, ExtendedSelector selector) {
+            this.position = position;
+            this.rule = rule;
+            this.selector = selector;
+        }
+    }
+}
@@ -76,6 +76,7 @@ import org.apache.batik.css.engine.value.svg.WritingModeManager;
 import org.apache.batik.css.parser.ExtendedParser;
 import org.apache.batik.util.CSSConstants;
 import org.apache.batik.util.ParsedURL;
+import org.apache.batik.util.SVGConstants;
 
 import org.w3c.dom.Document;
 
@@ -165,6 +166,22 @@ public class SVGCSSEngine extends CSSEngine {
     }
 
 
+    /**
+     * Tells whether the given element may share its style with one of
+     * its siblings.  The <code>svg</code> and <code>symbol</code>
+     * elements establish a viewport, so they are never shared.
+     */
+    protected boolean isStyleSharingCandidate(CSSStylableElement elt) {
+        if (SVGConstants.SVG_NAMESPACE_URI.equals(elt.getNamespaceURI())) {
+            String ln = elt.getLocalName();
+            if (SVGConstants.SVG_SVG_TAG.equals(ln) ||
+                SVGConstants.SVG_SYMBOL_TAG.equals(ln)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Merges the given arrays.
      */
@@ -58,6 +58,11 @@ public class StyleSheet {
      */
     protected String title;
 
+    /**
+     * The index of the rules, built on demand.
+     */
+    protected RuleIndex ruleIndex;
+
     /**
      * Sets the media to use to compute the styles.
      */
@@ -128,12 +133,25 @@ public class StyleSheet {
         return rules[i];
     }
 
+    /**
+     * Returns the index of the rules of this style-sheet.
+     */
+    public RuleIndex getRuleIndex() {
+        RuleIndex ri = ruleIndex;
+        if (ri == null) {
+            ri = new RuleIndex(this);
+            ruleIndex = ri;
+        }
+        return ri;
+    }
+
     /**
      * Clears the content.
      */
     public void clear() {
         size = 0;
         rules = new Rule[10];
+        ruleIndex = null;
     }
 
     /**
@@ -146,6 +164,7 @@ public class StyleSheet {
             rules = t;
         }
         rules[size++] = r;
+        ruleIndex = null;
     }
 
     /**
@@ -166,6 +166,17 @@ public abstract class AbstractDocument
      */
     protected boolean strictErrorChecking = true;
 
+    /**
+     * Whether the elements of this document store their attributes in
+     * a compact form.
+     */
+    protected boolean compactAttributes;
+
+    /**
+     * Whether this document is only loaded to be rendered.
+     */
+    protected boolean renderOnly;
+
     /**
      * The DOMConfiguration object for this document.
      */
@@ -245,10 +256,11 @@ public abstract class AbstractDocument
     }
 
     /**
-     * Tests whether the event dispatching must be done.
+     * Tests whether the event dispatching must be done.  It never is
+     * for render-only documents.
      */
     public boolean getEventsEnabled() {
-        return eventsEnabled;
+        return eventsEnabled && !renderOnly;
     }
 
     /**
@@ -820,6 +832,8 @@ public abstract class AbstractDocument
         ad.xmlStandalone = xmlStandalone;
         ad.documentURI = documentURI;
         ad.strictErrorChecking = strictErrorChecking;
+        ad.compactAttributes = compactAttributes;
+        ad.renderOnly = renderOnly;
         // XXX clone DocumentConfiguration?
         return n;
     }
@@ -930,6 +944,47 @@ public abstract class AbstractDocument
         strictErrorChecking = b;
     }
 
+    /**
+     * Tests whether the elements of this document store their attributes
+     * in a compact form.
+     */
+    public boolean getCompactAttributes() {
+        return compactAttributes;
+    }
+
+    /**
+     * Sets whether the elements of this document store their attributes
+     * in a compact form.  The attribute values are then kept as strings,
+     * and the <code>Attr</code> nodes are only created when they are
+     * requested through the DOM.  This only applies to the elements
+     * which have no attributes yet.
+     */
+    public void setCompactAttributes(boolean b) {
+        compactAttributes = b;
+    }
+
+    /**
+     * Tests whether this document is only loaded to be rendered.
+     */
+    public boolean isRenderOnly() {
+        return renderOnly;
+    }
+
+    /**
+     * Sets whether this document is only loaded to be rendered.  The
+     * mutation events are then never dispatched, the elements store
+     * their attributes in a compact form and the documents are always
+     * processed as static ones.  The document can still be modified,
+     * but such changes are not reflected by an already built rendering
+     * tree.
+     */
+    public void setRenderOnly(boolean b) {
+        renderOnly = b;
+        if (b) {
+            compactAttributes = true;
+        }
+    }
+
     /**
      * <b>DOM</b>: Implements {@link org.w3c.dom.Document#getDocumentURI()}.
      */
@@ -20,8 +20,10 @@ package org.apache.batik.dom;
 
 import java.io.Serializable;
 
+import org.apache.batik.css.engine.AttributeValues;
 import org.apache.batik.dom.events.DOMMutationEvent;
 import org.apache.batik.dom.util.DOMUtilities;
+import org.apache.batik.dom.util.XMLSupport;
 import org.apache.batik.util.XMLConstants;
 
 import org.w3c.dom.Attr;
@@ -113,6 +115,10 @@ public abstract class AbstractElement
      * <b>DOM</b>: Implements {@link org.w3c.dom.Element#hasAttribute(String)}.
      */
     public boolean hasAttribute( String name ) {
+        if ( attributes instanceof CompactNamedNodeMap ) {
+            return ( (CompactNamedNodeMap)attributes ).indexOf( null, name )
+                != -1;
+        }
         return attributes != null && attributes.getNamedItem( name ) != null;
     }
 
@@ -123,6 +129,10 @@ public abstract class AbstractElement
         if ( attributes == null ) {
           return "";
         }
+        if ( attributes instanceof CompactNamedNodeMap ) {
+            String v = ( (CompactNamedNodeMap)attributes ).getValue( null, name );
+            return ( v == null ) ? "" : v;
+        }
         Attr attr = (Attr)attributes.getNamedItem( name );
         return ( attr == null ) ? "" : attr.getValue();
     }
@@ -222,6 +232,11 @@ public abstract class AbstractElement
         if ( namespaceURI != null && namespaceURI.length() == 0 ) {
             namespaceURI = null;
         }
+        if ( attributes instanceof CompactNamedNodeMap ) {
+            return ( (CompactNamedNodeMap)attributes ).indexOf( namespaceURI,
+                                                                localName )
+                != -1;
+        }
         return attributes != null &&
                 attributes.getNamedItemNS( namespaceURI, localName ) != null;
     }
@@ -237,6 +252,11 @@ public abstract class AbstractElement
         if ( namespaceURI != null && namespaceURI.length() == 0 ) {
             namespaceURI = null;
         }
+        if ( attributes instanceof CompactNamedNodeMap ) {
+            String v = ( (CompactNamedNodeMap)attributes ).getValue
+                ( namespaceURI, localName );
+            return ( v == null ) ? "" : v;
+        }
         Attr attr = (Attr)attributes.getNamedItemNS( namespaceURI, localName );
         return ( attr == null ) ? "" : attr.getValue();
     }
@@ -255,6 +275,12 @@ public abstract class AbstractElement
         if (namespaceURI != null && namespaceURI.length() == 0) {
             namespaceURI = null;
         }
+        if (attributes instanceof CompactNamedNodeMap) {
+            ((CompactNamedNodeMap)attributes).setValue(namespaceURI,
+                                                       qualifiedName,
+                                                       value);
+            return;
+        }
         Attr attr = getAttributeNodeNS(namespaceURI, qualifiedName);
         if (attr == null) {
             attr = getOwnerDocument().createAttributeNS(namespaceURI,
@@ -494,6 +520,9 @@ public abstract class AbstractElement
      * Creates the attribute list.
      */
     protected NamedNodeMap createAttributes() {
+        if (ownerDocument.getCompactAttributes()) {
+            return new CompactNamedNodeMap();
+        }
         return new NamedNodeHashMap();
     }
 
@@ -508,6 +537,10 @@ public abstract class AbstractElement
         if (attributes != null) {
             NamedNodeMap map = attributes;
             for (int i = map.getLength() - 1; i >= 0; i--) {
+                if (map instanceof CompactNamedNodeMap &&
+                    ((CompactNamedNodeMap)map).copyValue(i, ae)) {
+                    continue;
+                }
                 AbstractAttr aa = (AbstractAttr)map.item(i);
                 if (aa.getSpecified()) {
                     Attr attr = (Attr)aa.deepExport(aa.cloneNode(false), d);
@@ -533,6 +566,10 @@ public abstract class AbstractElement
         if (attributes != null) {
             NamedNodeMap map = attributes;
             for (int i = map.getLength() - 1; i >= 0; i--) {
+                if (map instanceof CompactNamedNodeMap &&
+                    ((CompactNamedNodeMap)map).copyValue(i, ae)) {
+                    continue;
+                }
                 AbstractAttr aa = (AbstractAttr)map.item(i);
                 if (aa.getSpecified()) {
                     Attr attr = (Attr)aa.deepExport(aa.cloneNode(false), d);
@@ -557,6 +594,10 @@ public abstract class AbstractElement
         if (attributes != null) {
             NamedNodeMap map = attributes;
             for (int i = map.getLength() - 1; i >= 0; i--) {
+                if (map instanceof CompactNamedNodeMap &&
+                    ((CompactNamedNodeMap)map).copyValue(i, ae)) {
+                    continue;
+                }
                 AbstractAttr aa = (AbstractAttr)map.item(i).cloneNode(true);
                 if (aa instanceof AbstractAttrNS) {
                     ae.setAttributeNodeNS(aa);
@@ -578,6 +619,10 @@ public abstract class AbstractElement
         if (attributes != null) {
             NamedNodeMap map = attributes;
             for (int i = map.getLength() - 1; i >= 0; i--) {
+                if (map instanceof CompactNamedNodeMap &&
+                    ((CompactNamedNodeMap)map).copyValue(i, ae)) {
+                    continue;
+                }
                 AbstractAttr aa = (AbstractAttr)map.item(i).cloneNode(true);
                 if (aa instanceof AbstractAttrNS) {
                     ae.setAttributeNodeNS(aa);
@@ -1047,6 +1092,440 @@ public abstract class AbstractElement
         }
     }
 
+    /**
+     * A compact implementation of the {@link org.w3c.dom.NamedNodeMap}.
+     * The attributes are stored in a flat array of namespace URI,
+     * qualified name and value triples.  The value of an attribute is
+     * kept as a string until its <code>Attr</code> node is requested
+     * through the DOM; the node then replaces the string.
+     *
+     * <br>This Map is not Thread-safe, concurrent updates or reading while updating may give
+     * unexpected results.
+     */
+    public class CompactNamedNodeMap
+            implements AttributeValues, Serializable {
+
+        /**
+         * The initial capacity, in attributes.
+         */
+        protected static final int INITIAL_CAPACITY = 4;
+
+        /**
+         * The namespace URI, the qualified name and the value (a
+         * string or an {@link AbstractAttr}) of each attribute.
+         */
+        protected Object[] data;
+
+        /**
+         * The number of attributes.
+         */
+        protected int count;
+
+        /**
+         * Creates a new CompactNamedNodeMap object.
+         */
+        public CompactNamedNodeMap() {
+        }
+
+        /**
+         * <b>DOM</b>: Implements {@link org.w3c.dom.NamedNodeMap#getNamedItem(String)}.
+         */
+        public Node getNamedItem( String name ) {
+            if ( name == null ) {
+                return null;
+            }
+            int i = indexOf( null, name );
+            return ( i == -1 ) ? null : getAttr( i );
+        }
+
+        /**
+         * <b>DOM</b>: Implements {@link org.w3c.dom.NamedNodeMap#setNamedItem(Node)}.
+         */
+        public Node setNamedItem( Node arg ) throws DOMException {
+            if ( arg == null ) {
+                return null;
+            }
+            checkNode( arg );
+
+            return setNamedItem( null, arg.getNodeName(), arg );
+        }
+
+        /**
+         * <b>DOM</b>: Implements {@link org.w3c.dom.NamedNodeMap#removeNamedItem(String)}.
+         */
+        public Node removeNamedItem( String name ) throws DOMException {
+            return removeNamedItemNS( null, name );
+        }
+
+        /**
+         * <b>DOM</b>: Implements {@link org.w3c.dom.NamedNodeMap#item(int)}.
+         */
+        public Node item( int index ) {
+            if ( index < 0 || index >= count ) {
+                return null;
+            }
+            return getAttr( index );
+        }
+
+        /**
+         * <b>DOM</b>: Implements {@link org.w3c.dom.NamedNodeMap#getLength()}.
+         */
+        public int getLength() {
+            return count;
+        }
+
+        /**
+         * <b>DOM</b>: Implements {@link
+         * org.w3c.dom.NamedNodeMap#getNamedItemNS(String,String)}.
+         */
+        public Node getNamedItemNS( String namespaceURI, String localName ) {
+            if ( namespaceURI != null && namespaceURI.length() == 0 ) {
+                namespaceURI = null;
+            }
+            int i = indexOf( namespaceURI, localName );
+            return ( i == -1 ) ? null : getAttr( i );
+        }
+
+        /**
+         * <b>DOM</b>: Implements {@link org.w3c.dom.NamedNodeMap#setNamedItemNS(Node)}.
+         */
+        public Node setNamedItemNS( Node arg ) throws DOMException {
+            if ( arg == null ) {
+                return null;
+            }
+            String nsURI = arg.getNamespaceURI();
+            return setNamedItem( nsURI,
+                    ( nsURI == null )
+                            ? arg.getNodeName()
+                            : arg.getLocalName(), arg );
+        }
+
+        /**
+         * <b>DOM</b>: Implements {@link org.w3c.dom.NamedNodeMap#removeNamedItemNS(String,String)}.
+         */
+        public Node removeNamedItemNS( String namespaceURI, String localName )
+                throws DOMException {
+            if ( isReadonly() ) {
+                throw createDOMException
+                        ( DOMException.NO_MODIFICATION_ALLOWED_ERR,
+                                "readonly.node.map",
+                                new Object[]{} );
+            }
+            if ( localName == null ) {
+                throw createDOMException( DOMException.NOT_FOUND_ERR,
+                        "attribute.missing",
+                        new Object[]{""} );
+            }
+            if ( namespaceURI != null && namespaceURI.length() == 0 ) {
+                namespaceURI = null;
+            }
+            AbstractAttr n = (AbstractAttr)remove( namespaceURI, localName );
+            if ( n == null ) {
+                throw createDOMException( DOMException.NOT_FOUND_ERR,
+                        "attribute.missing",
+                        new Object[]{localName} );
+            }
+            n.setOwnerElement( null );
+
+            // Mutation event
+            fireDOMAttrModifiedEvent( n.getNodeName(), n, n.getNodeValue(), "",
+                    MutationEvent.REMOVAL );
+            return n;
+        }
+
+        /**
+         * Returns the qualified name of the attribute at the given index.
+         */
+        public String getNodeName( int index ) {
+            return (String)data[ index * 3 + 1 ];
+        }
+
+        /**
+         * Returns the value of the attribute at the given index.
+         */
+        public String getNodeValue( int index ) {
+            Object v = data[ index * 3 + 2 ];
+            if ( v instanceof String ) {
+                return (String)v;
+            }
+            return ( (Node)v ).getNodeValue();
+        }
+
+        /**
+         * Returns the value of an attribute, or null if it is not in
+         * the map.
+         * @param ns The namespace URI, or null.
+         * @param ln The local name, or the qualified name when
+         *           <code>ns</code> is null.
+         */
+        public String getValue( String ns, String ln ) {
+            int i = indexOf( ns, ln );
+            return ( i == -1 ) ? null : getNodeValue( i );
+        }
+
+        /**
+         * Sets the value of an attribute, adding it to the map if it is
+         * not present.  No <code>Attr</code> node is created for a new
+         * attribute unless mutation events have to be dispatched.
+         */
+        public void setValue( String ns, String qname, String value )
+                throws DOMException {
+            if ( isReadonly() ) {
+                throw createDOMException
+                        ( DOMException.NO_MODIFICATION_ALLOWED_ERR,
+                                "readonly.node.map",
+                                new Object[]{} );
+            }
+            if ( value == null ) {
+                value = "";
+            }
+            checkName( ns, qname );
+            int i = indexOf( ns, ( ns == null )
+                             ? qname
+                             : DOMUtilities.getLocalName( qname ) );
+            if ( i == -1 ) {
+                i = count;
+                add( ( ns == null ) ? null : ns.intern(), qname.intern(),
+                     value );
+                fireDOMAttrModifiedEvent( qname, getEventAttr( i ), "", value,
+                        MutationEvent.ADDITION );
+                return;
+            }
+            int j = i * 3 + 2;
+            Object v = data[ j ];
+            if ( v instanceof String ) {
+                data[ j ] = value;
+                fireDOMAttrModifiedEvent( getNodeName( i ), getEventAttr( i ),
+                        (String)v, value, MutationEvent.MODIFICATION );
+            } else {
+                ( (Attr)v ).setValue( value );
+            }
+        }
+
+        /**
+         * Copies the attribute at the given index to the given element,
+         * if it has no node yet.
+         * @return true if the attribute was copied.
+         */
+        public boolean copyValue( int index, AbstractElement e ) {
+            int j = index * 3;
+            Object v = data[ j + 2 ];
+            if ( !( v instanceof String ) ) {
+                return false;
+            }
+            e.setAttributeNS( (String)data[ j ], (String)data[ j + 1 ],
+                              (String)v );
+            return true;
+        }
+
+        /**
+         * Adds a node to the map.
+         */
+        public Node setNamedItem( String ns, String name, Node arg )
+                throws DOMException {
+
+            if ( ns != null && ns.length() == 0 ) {
+                ns = null;
+            }
+            ( (AbstractAttr)arg ).setOwnerElement( AbstractElement.this );
+            AbstractAttr result = null;
+            int i = indexOf( ns, name );
+            if ( i == -1 ) {
+                add( ns, arg.getNodeName(), arg );
+            } else {
+                result = getAttr( i );
+                int j = i * 3;
+                data[ j ] = ns;
+                data[ j + 1 ] = arg.getNodeName();
+                data[ j + 2 ] = arg;
+            }
+
+            if ( result != null ) {
+                result.setOwnerElement( null );
+                fireDOMAttrModifiedEvent( name,
+                        result,
+                        result.getNodeValue(),
+                        "",
+                        MutationEvent.REMOVAL );
+            }
+            fireDOMAttrModifiedEvent( name,
+                    (Attr)arg,
+                    "",
+                    arg.getNodeValue(),
+                    MutationEvent.ADDITION );
+            return result;
+        }
+
+        /**
+         * Checks the validity of a node to add.
+         */
+        protected void checkNode( Node arg ) {
+            if ( isReadonly() ) {
+                throw createDOMException
+                        ( DOMException.NO_MODIFICATION_ALLOWED_ERR,
+                                "readonly.node.map",
+                                new Object[]{} );
+            }
+            if ( getOwnerDocument() != arg.getOwnerDocument() ) {
+                throw createDOMException( DOMException.WRONG_DOCUMENT_ERR,
+                        "node.from.wrong.document",
+                        new Object[]{(int) arg.getNodeType(),
+                                arg.getNodeName()} );
+            }
+            if ( arg.getNodeType() == ATTRIBUTE_NODE &&
+                    ( (Attr)arg ).getOwnerElement() != null ) {
+                throw createDOMException( DOMException.WRONG_DOCUMENT_ERR,
+                        "inuse.attribute",
+                        new Object[]{arg.getNodeName()} );
+            }
+        }
+
+        /**
+         * Checks the validity of the name of an attribute stored as a
+         * string, like the owner document does when it creates the
+         * attribute nodes.
+         */
+        protected void checkName( String ns, String qname ) {
+            if ( !ownerDocument.getStrictErrorChecking() ) {
+                return;
+            }
+            if ( !DOMUtilities.isValidName( qname ) ) {
+                throw createDOMException( DOMException.INVALID_CHARACTER_ERR,
+                        "xml.name",
+                        new Object[]{qname} );
+            }
+            if ( ns == null ) {
+                return;
+            }
+            String prefix = DOMUtilities.getPrefix( qname );
+            if ( prefix != null
+                    ? ( "xml".equals( prefix ) &&
+                        !XMLSupport.XML_NAMESPACE_URI.equals( ns ) ) ||
+                      ( "xmlns".equals( prefix ) &&
+                        !XMLSupport.XMLNS_NAMESPACE_URI.equals( ns ) )
+                    : "xmlns".equals( qname ) &&
+                      !XMLSupport.XMLNS_NAMESPACE_URI.equals( ns ) ) {
+                throw createDOMException( DOMException.NAMESPACE_ERR,
+                        "namespace.uri",
+                        new Object[]{(int) ATTRIBUTE_NODE, qname, ns} );
+            }
+        }
+
+        /**
+         * Returns the index of the given attribute, or -1.
+         * @param ns The namespace URI, or null.
+         * @param ln The local name, or the qualified name when
+         *           <code>ns</code> is null.
+         */
+        protected int indexOf( String ns, String ln ) {
+            for ( int i = 0, j = 0; i < count; i++, j += 3 ) {
+                String n = (String)data[ j ];
+                String qn = (String)data[ j + 1 ];
+                if ( ns == null ) {
+                    if ( n == null && qn.equals( ln ) ) {
+                        return i;
+                    }
+                } else if ( ns.equals( n ) && qn.endsWith( ln ) ) {
+                    // The local name is the part after the prefix.
+                    int p = qn.length() - ln.length();
+                    if ( p == 0
+                            ? ln.indexOf( ':' ) == -1
+                            : qn.indexOf( ':' ) == p - 1 ) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the node of the attribute at the given index, creating
+         * it if needed.
+         */
+        protected AbstractAttr getAttr( int index ) {
+            int j = index * 3;
+            Object v = data[ j + 2 ];
+            if ( v instanceof String ) {
+                AbstractAttr a = createAttr( (String)data[ j ],
+                                             (String)data[ j + 1 ],
+                                             (String)v );
+                a.setOwnerElement( AbstractElement.this );
+                data[ j + 2 ] = a;
+                return a;
+            }
+            return (AbstractAttr)v;
+        }
+
+        /**
+         * Returns the node to pass to the mutation event handlers for
+         * the attribute at the given index.  When no event is
+         * dispatched, the handlers get a detached copy of the attribute
+         * and the map keeps the string value.
+         */
+        protected Attr getEventAttr( int index ) {
+            int j = index * 3;
+            Object v = data[ j + 2 ];
+            if ( !( v instanceof String ) ) {
+                return (Attr)v;
+            }
+            if ( getCurrentDocument().getEventsEnabled() ) {
+                return getAttr( index );
+            }
+            return createAttr( (String)data[ j ], (String)data[ j + 1 ],
+                               (String)v );
+        }
+
+        /**
+         * Creates an attribute node.
+         */
+        protected AbstractAttr createAttr( String ns, String qname,
+                                           String value ) {
+            AbstractAttr a =
+                (AbstractAttr)getOwnerDocument().createAttributeNS( ns, qname );
+            a.setValue( value );
+            return a;
+        }
+
+        /**
+         * Appends an attribute to the map.
+         */
+        protected void add( String ns, String qname, Object value ) {
+            int j = count * 3;
+            if ( data == null ) {
+                data = new Object[ INITIAL_CAPACITY * 3 ];
+            } else if ( j == data.length ) {
+                Object[] t = new Object[ j * 2 ];
+                System.arraycopy( data, 0, t, 0, j );
+                data = t;
+            }
+            data[ j ] = ns;
+            data[ j + 1 ] = qname;
+            data[ j + 2 ] = value;
+            count++;
+        }
+
+        /**
+         * Removes an attribute from the map.
+         *
+         * @return the node of the attribute or null.
+         */
+        protected Node remove( String ns, String ln ) {
+            int i = indexOf( ns, ln );
+            if ( i == -1 ) {
+                return null;
+            }
+            AbstractAttr result = getAttr( i );
+            int j = i * 3;
+            count--;
+            System.arraycopy( data, j + 3, data, j, count * 3 - j );
+            j = count * 3;
+            data[ j ] = null;
+            data[ j + 1 ] = null;
+            data[ j + 2 ] = null;
+            return result;
+        }
+    }
+
     /**
      * To manage collisions in the attributes map.
      * Implements a linked list of <code>Node</code>-objects.
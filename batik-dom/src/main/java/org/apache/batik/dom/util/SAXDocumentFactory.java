@@ -48,7 +48,9 @@ import org.xml.sax.ext.LexicalHandler;
 import org.xml.sax.helpers.DefaultHandler;
 import org.xml.sax.helpers.XMLReaderFactory;
 
+import org.apache.batik.dom.AbstractDocument;
 import org.apache.batik.util.HaltingThread;
+import org.apache.batik.util.ParsedURL;
 import org.apache.batik.util.XMLConstants;
 
 /**
@@ -145,6 +147,22 @@ public class SAXDocumentFactory
      */
     protected boolean isStandalone;
 
+    /**
+     * Whether the created documents store their attributes in a compact
+     * form.
+     */
+    protected boolean compactAttributes;
+
+    /**
+     * Whether the created documents are only loaded to be rendered.
+     */
+    protected boolean renderOnly;
+
+    /**
+     * Whether the local files are read through memory mappings.
+     */
+    protected boolean mappedFileInput;
+
     /**
      * XML version of the document just parsed.
      */
@@ -246,7 +264,7 @@ public class SAXDocumentFactory
      */
     public Document createDocument(String ns, String root, String uri)
         throws IOException {
-        return createDocument(ns, root, uri, new InputSource(uri));
+        return createDocument(ns, root, uri, createInputSource(uri));
     }
 
     /**
@@ -256,7 +274,18 @@ public class SAXDocumentFactory
      */
     public Document createDocument(String uri)
         throws IOException {
-        return createDocument(new InputSource(uri));
+        return createDocument(createInputSource(uri));
+    }
+
+    /**
+     * Creates the input source of the document with the given URI.
+     */
+    protected InputSource createInputSource(String uri) throws IOException {
+        InputSource is = new InputSource(uri);
+        if (mappedFileInput) {
+            is.setByteStream(new ParsedURL(uri).openMappedStream(null));
+        }
+        return is;
     }
 
     /**
@@ -504,6 +533,55 @@ public class SAXDocumentFactory
         return isValidating;
     }
 
+    /**
+     * Sets whether the created documents store their attributes in a
+     * compact form.
+     * @see org.apache.batik.dom.AbstractDocument#setCompactAttributes(boolean)
+     */
+    public void setCompactAttributes(boolean b) {
+        compactAttributes = b;
+    }
+
+    /**
+     * Returns whether the created documents store their attributes in a
+     * compact form.
+     */
+    public boolean getCompactAttributes() {
+        return compactAttributes;
+    }
+
+    /**
+     * Sets whether the created documents are only loaded to be rendered.
+     * @see org.apache.batik.dom.AbstractDocument#setRenderOnly(boolean)
+     */
+    public void setRenderOnly(boolean b) {
+        renderOnly = b;
+    }
+
+    /**
+     * Returns whether the created documents are only loaded to be
+     * rendered.
+     */
+    public boolean isRenderOnly() {
+        return renderOnly;
+    }
+
+    /**
+     * Sets whether the documents read from local file URIs are read
+     * through memory mappings instead of URL connections.
+     */
+    public void setMappedFileInput(boolean b) {
+        mappedFileInput = b;
+    }
+
+    /**
+     * Returns whether the documents read from local file URIs are read
+     * through memory mappings.
+     */
+    public boolean isMappedFileInput() {
+        return mappedFileInput;
+    }
+
     /**
      * Sets a custom error handler.
      */
@@ -639,6 +717,7 @@ public class SAXDocumentFactory
         if (currentNode == null) {
             implementation = getDOMImplementation(version);
             document = implementation.createDocument(nsURI, rawName, doctype);
+            initializeDocument(document);
             Iterator i = preInfo.iterator();
             currentNode = e = document.getDocumentElement();
             while (i.hasNext()) {
@@ -677,6 +756,21 @@ public class SAXDocumentFactory
         }
     }
 
+    /**
+     * Applies the options of this factory to a newly created document.
+     */
+    protected void initializeDocument(Document doc) {
+        if (doc instanceof AbstractDocument) {
+            AbstractDocument ad = (AbstractDocument)doc;
+            if (compactAttributes) {
+                ad.setCompactAttributes(true);
+            }
+            if (renderOnly) {
+                ad.setRenderOnly(true);
+            }
+        }
+    }
+
     /**
      * <b>SAX</b>: Implements {@link
      * org.xml.sax.ContentHandler#endElement(String,String,String)}.
@@ -0,0 +1,1496 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.dom.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.Set;
+
+import org.apache.batik.i18n.Localizable;
+import org.apache.batik.i18n.LocalizableSupport;
+import org.apache.batik.util.HaltingThread;
+import org.apache.batik.util.ParsedURL;
+import org.apache.batik.util.XMLConstants;
+import org.apache.batik.util.io.NormalizingReader;
+import org.apache.batik.util.io.StreamNormalizingReader;
+import org.apache.batik.xml.LexicalUnits;
+import org.apache.batik.xml.XMLException;
+import org.apache.batik.xml.XMLScanner;
+import org.apache.batik.xml.XMLStreamNormalizingReader;
+import org.apache.batik.xml.XMLUtilities;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.DocumentType;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+/**
+ * This class builds the documents of a {@link SAXDocumentFactory}
+ * directly from the lexical units returned by an {@link XMLScanner},
+ * without going through a SAX parser.
+ *
+ * The element and attribute names are shared through a name table kept
+ * from one document to the next, and the text and attribute values are
+ * created straight from the scanner buffer.  Like the SAX parser set up
+ * by the factory, the builder does not read the external DTD subset nor
+ * the external entities: only the general entity and attribute list
+ * declarations of the internal subset are taken into account.
+ * Validation is not supported.
+ *
+ * @version $Id$
+ */
+public class XMLScannerDocumentBuilder implements Localizable {
+
+    /**
+     * The error messages bundle class name.
+     */
+    protected static final String RESOURCES =
+        "org.apache.batik.dom.resources.Messages";
+
+    /**
+     * The maximum number of entity expansions in a document.
+     */
+    protected static final int MAX_ENTITY_EXPANSIONS = 64000;
+
+    /**
+     * The replacement text of the predefined entities.
+     */
+    protected static final Map PREDEFINED_ENTITIES = new HashMap();
+    static {
+        PREDEFINED_ENTITIES.put("lt", "<");
+        PREDEFINED_ENTITIES.put("gt", ">");
+        PREDEFINED_ENTITIES.put("amp", "&");
+        PREDEFINED_ENTITIES.put("apos", "'");
+        PREDEFINED_ENTITIES.put("quot", "\"");
+    }
+
+    /**
+     * The value given to the entities which are declared but not read.
+     */
+    protected static final Object EXTERNAL_ENTITY = new Object();
+
+    /**
+     * The localizable support for the error messages.
+     */
+    protected LocalizableSupport localizableSupport =
+        new LocalizableSupport(RESOURCES, getClass().getClassLoader());
+
+    /**
+     * The factory the documents are built for.
+     */
+    protected SAXDocumentFactory factory;
+
+    /**
+     * The names encountered so far.
+     */
+    protected NameTable nameTable = new NameTable();
+
+    /**
+     * The prefixes of the qualified names encountered so far.
+     */
+    protected Map prefixes = new HashMap();
+
+    /**
+     * The scanner of the document, or of the entity being expanded.
+     */
+    protected XMLScanner scanner;
+
+    /**
+     * The document being built.
+     */
+    protected Document document;
+
+    /**
+     * The node the content is currently appended to.
+     */
+    protected Node currentNode;
+
+    /**
+     * The document type of the document being built.
+     */
+    protected DocumentType doctype;
+
+    /**
+     * The nodes encountered before the document element.
+     */
+    protected List preInfo;
+
+    /**
+     * The start of the pending text in the scanner buffer, or -1.
+     */
+    protected int textStart = -1;
+
+    /**
+     * The end of the pending text in the scanner buffer.
+     */
+    protected int textEnd;
+
+    /**
+     * The pending text which could not be kept in the scanner buffer.
+     */
+    protected StringBuffer text = new StringBuffer();
+
+    /**
+     * The buffer used to build the attribute values with references.
+     */
+    protected StringBuffer attributeText = new StringBuffer();
+
+    /**
+     * The names of the attributes of the current start tag.
+     */
+    protected String[] attributeNames = new String[16];
+
+    /**
+     * The values of the attributes of the current start tag.
+     */
+    protected String[] attributeValues = new String[16];
+
+    /**
+     * The namespace URIs of the attributes of the current start tag.
+     */
+    protected String[] attributeURIs = new String[16];
+
+    /**
+     * The number of attributes of the current start tag.
+     */
+    protected int attributeCount;
+
+    /**
+     * The general entities declared in the internal subset.
+     */
+    protected Map entities;
+
+    /**
+     * The attribute declarations of the internal subset, as lists of
+     * AttributeDeclaration indexed by element name.
+     */
+    protected Map attributeLists;
+
+    /**
+     * The names of the entities being expanded.
+     */
+    protected Set expandedEntities;
+
+    /**
+     * The number of entity expansions in the document.
+     */
+    protected int entityExpansions;
+
+    /**
+     * Whether some declarations may not have been read, because of an
+     * external subset or of a parameter entity reference.
+     */
+    protected boolean incompleteDeclarations;
+
+    /**
+     * Whether the remaining declarations of the internal subset must be
+     * ignored, after a parameter entity reference.
+     */
+    protected boolean skipDeclarations;
+
+    /**
+     * Creates a new XMLScannerDocumentBuilder.
+     * @param f The factory to build the documents for.
+     */
+    public XMLScannerDocumentBuilder(SAXDocumentFactory f) {
+        factory = f;
+    }
+
+    /**
+     * Implements {@link org.apache.batik.i18n.Localizable#setLocale(Locale)}.
+     */
+    public void setLocale(Locale l) {
+        localizableSupport.setLocale(l);
+    }
+
+    /**
+     * Implements {@link org.apache.batik.i18n.Localizable#getLocale()}.
+     */
+    public Locale getLocale() {
+        return localizableSupport.getLocale();
+    }
+
+    /**
+     * Implements {@link
+     * org.apache.batik.i18n.Localizable#formatMessage(String,Object[])}.
+     */
+    public String formatMessage(String key, Object[] args)
+        throws MissingResourceException {
+        return localizableSupport.formatMessage(key, args);
+    }
+
+    /**
+     * Creates a Document.  The state of the factory is updated like it
+     * is after a SAX parsing.
+     * @param is The document input source.
+     * @exception IOException if an error occured while reading the document.
+     */
+    public Document createDocument(InputSource is) throws IOException {
+        NormalizingReader r = createReader(is);
+        try {
+            factory.namespaces = new HashTableStack();
+            factory.namespaces.put("xml", XMLSupport.XML_NAMESPACE_URI);
+            factory.namespaces.put("xmlns", XMLSupport.XMLNS_NAMESPACE_URI);
+            factory.namespaces.put("", null);
+            factory.isStandalone = false;
+            factory.xmlVersion = XMLConstants.XML_VERSION_10;
+            factory.documentDescriptor = factory.createDocumentDescriptor
+                ? new DocumentDescriptor()
+                : null;
+            preInfo = new LinkedList();
+
+            scanner = new XMLScanner(r);
+            parse(next(), false);
+            if (document == null) {
+                throw createException("xml.root.missing", null);
+            }
+            if (currentNode != document) {
+                throw createException("xml.eof", null);
+            }
+            return document;
+        } catch (XMLException e) {
+            Exception ex = e.getException();
+            if (ex instanceof IOException) {
+                throw (IOException)ex;
+            }
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            r.close();
+            scanner = null;
+            document = null;
+            currentNode = null;
+            doctype = null;
+            preInfo = null;
+            textStart = -1;
+            text.setLength(0);
+            entities = null;
+            attributeLists = null;
+            expandedEntities = null;
+            entityExpansions = 0;
+            incompleteDeclarations = false;
+            skipDeclarations = false;
+        }
+    }
+
+    /**
+     * Creates the reader of the given input source.
+     */
+    protected NormalizingReader createReader(InputSource is)
+        throws IOException {
+        Reader cs = is.getCharacterStream();
+        if (cs != null) {
+            return new StreamNormalizingReader(cs);
+        }
+        InputStream in = is.getByteStream();
+        if (in == null) {
+            in = new ParsedURL(is.getSystemId()).openStream();
+        }
+        String enc = is.getEncoding();
+        if (enc != null) {
+            return new StreamNormalizingReader(in, enc);
+        }
+        return new XMLStreamNormalizingReader(in, null);
+    }
+
+    /**
+     * Advances to the next lexical unit.  The scanner buffer is kept
+     * while it holds some pending text.
+     */
+    protected int next() {
+        if (textStart == -1) {
+            scanner.clearBuffer();
+        }
+        return scanner.next();
+    }
+
+    /**
+     * Parses the lexical units of the current scanner, starting with
+     * the given one, until the end of the input.
+     * @param type The type of the current lexical unit.
+     * @param entity Whether the input is the replacement text of an
+     *        entity.
+     */
+    protected void parse(int type, boolean entity) throws IOException {
+        for (;;) {
+            switch (type) {
+            case LexicalUnits.EOF:
+                if (entity) {
+                    moveText();
+                } else {
+                    flushText();
+                }
+                return;
+
+            case LexicalUnits.S:
+                break;
+
+            case LexicalUnits.CHARACTER_DATA:
+                checkCharacterData();
+                if (textStart == -1 && text.length() == 0) {
+                    textStart = scanner.getStart();
+                    textEnd = scanner.getEnd();
+                } else {
+                    moveText();
+                    text.append(scanner.getBuffer(), scanner.getStart(),
+                                scanner.getEnd() - scanner.getStart());
+                }
+                break;
+
+            case LexicalUnits.CHARACTER_REFERENCE:
+                moveText();
+                text.appendCodePoint(getCharacterReference());
+                break;
+
+            case LexicalUnits.ENTITY_REFERENCE:
+                moveText();
+                expandEntity(getEntityName());
+                break;
+
+            case LexicalUnits.START_TAG:
+                flushText();
+                parseStartTag();
+                break;
+
+            case LexicalUnits.END_TAG:
+                flushText();
+                parseEndTag();
+                break;
+
+            case LexicalUnits.COMMENT: {
+                flushText();
+                int start = scanner.getStart() + 4;
+                String s = new String(scanner.getBuffer(), start,
+                                      scanner.getEnd() - 3 - start);
+                if (currentNode == null) {
+                    preInfo.add(new SAXDocumentFactory.CommentInfo(s));
+                } else {
+                    currentNode.appendChild(document.createComment(s));
+                }
+                break;
+            }
+
+            case LexicalUnits.PI_START:
+                flushText();
+                parseProcessingInstruction(true);
+                break;
+
+            case LexicalUnits.CDATA_START: {
+                flushText();
+                if (next() != LexicalUnits.CHARACTER_DATA) {
+                    throw createException("xml.cdata", null);
+                }
+                int start = scanner.getStart();
+                String s = new String(scanner.getBuffer(), start,
+                                      scanner.getEnd() - 3 - start);
+                next();
+                currentNode.appendChild(document.createCDATASection(s));
+                break;
+            }
+
+            case LexicalUnits.XML_DECL_START:
+                parseXMLDeclaration();
+                break;
+
+            case LexicalUnits.DOCTYPE_START:
+                if (currentNode != null || doctype != null) {
+                    throw createException("xml.doctype.misplaced", null);
+                }
+                parseDoctype();
+                break;
+
+            default:
+                throw createException("xml.markup", null);
+            }
+            type = next();
+        }
+    }
+
+    /**
+     * Checks that the current CHARACTER_DATA lexical unit does not
+     * contain the end of a CDATA section.
+     */
+    protected void checkCharacterData() {
+        char[] buf = scanner.getBuffer();
+        int end = scanner.getEnd();
+        for (int i = scanner.getStart() + 2; i < end; i++) {
+            if (buf[i] == '>' && buf[i - 1] == ']' && buf[i - 2] == ']') {
+                throw createException("xml.cdata.end", null);
+            }
+        }
+    }
+
+    /**
+     * Parses a start tag.  The current lexical unit is START_TAG.
+     */
+    protected void parseStartTag() throws IOException {
+        if (HaltingThread.hasBeenHalted()) {
+            throw new InterruptedIOException();
+        }
+        if (currentNode == document && document != null) {
+            throw createException("xml.root.duplicate", null);
+        }
+
+        int start = scanner.getStart() + 1;
+        String name = nameTable.get(scanner.getBuffer(), start,
+                                    scanner.getEnd() - start);
+
+        // Attributes reading
+        attributeCount = 0;
+        int type;
+        loop: for (;;) {
+            switch (type = next()) {
+            case LexicalUnits.S:
+                break;
+            case LexicalUnits.NAME:
+                parseAttribute();
+                break;
+            case LexicalUnits.END_CHAR:
+            case LexicalUnits.EMPTY_ELEMENT_END:
+                break loop;
+            default:
+                throw createException("xml.start.tag",
+                                      new Object[] { name });
+            }
+        }
+        if (attributeLists != null) {
+            applyAttributeDeclarations(name);
+        }
+
+        // Namespaces resolution
+        HashTableStack namespaces = factory.namespaces;
+        namespaces.push();
+        String version = null;
+        for (int i = 0; i < attributeCount; i++) {
+            String aname = attributeNames[i];
+            int slen = aname.length();
+            if (slen < 5)
+                continue;
+            if (aname.equals("version")) {
+                version = attributeValues[i];
+                continue;
+            }
+            if (!aname.startsWith("xmlns"))
+                continue;
+            String ns = attributeValues[i];
+            if (ns.length() == 0)
+                ns = null;
+            if (slen == 5) {
+                namespaces.put("", ns);
+            } else if (aname.charAt(5) == ':') {
+                namespaces.put(aname.substring(6), ns);
+            }
+        }
+
+        // Element creation
+        String nsp = getPrefix(name);
+        String nsURI = namespaces.get(nsp);
+        if (nsURI == null && nsp.length() != 0) {
+            throw createException("xml.element.prefix",
+                                  new Object[] { nsp, name });
+        }
+        Element e;
+        if (currentNode == null) {
+            factory.implementation = factory.getDOMImplementation(version);
+            document = factory.implementation.createDocument
+                (nsURI, name, doctype);
+            factory.initializeDocument(document);
+            e = document.getDocumentElement();
+            Iterator it = preInfo.iterator();
+            while (it.hasNext()) {
+                SAXDocumentFactory.PreInfo pi =
+                    (SAXDocumentFactory.PreInfo)it.next();
+                document.insertBefore(pi.createNode(document), e);
+            }
+            preInfo = null;
+        } else {
+            e = document.createElementNS(nsURI, name);
+            currentNode.appendChild(e);
+        }
+        currentNode = e;
+
+        // Storage of the line number.
+        if (factory.documentDescriptor != null) {
+            factory.documentDescriptor.setLocation(e, scanner.getLine(),
+                                                   scanner.getColumn());
+        }
+
+        // Attributes creation
+        for (int i = 0; i < attributeCount; i++) {
+            String aname = attributeNames[i];
+            if (aname.equals("xmlns")) {
+                attributeURIs[i] = null;
+                e.setAttributeNS(XMLSupport.XMLNS_NAMESPACE_URI,
+                                 aname,
+                                 attributeValues[i]);
+            } else {
+                String p = getPrefix(aname);
+                nsURI = null;
+                if (p != aname && p.length() != 0) {
+                    nsURI = namespaces.get(p);
+                    if (nsURI == null) {
+                        throw createException
+                            ("xml.attribute.prefix", new Object[] { p, aname });
+                    }
+                }
+                attributeURIs[i] = nsURI;
+                if (nsURI != null) {
+                    checkAttributeNS(name, i);
+                }
+                e.setAttributeNS(nsURI, aname, attributeValues[i]);
+            }
+            attributeValues[i] = null;
+        }
+
+        if (type == LexicalUnits.EMPTY_ELEMENT_END) {
+            currentNode = e.getParentNode();
+            namespaces.pop();
+        }
+    }
+
+    /**
+     * Parses an attribute of a start tag.  The current lexical unit is
+     * the attribute NAME.
+     */
+    protected void parseAttribute() throws IOException {
+        int start = scanner.getStart();
+        String name = nameTable.get(scanner.getBuffer(), start,
+                                    scanner.getEnd() - start);
+        int type = next();
+        if (type == LexicalUnits.S) {
+            type = next();
+        }
+        if (type != LexicalUnits.EQ) {
+            throw createException("xml.attribute.eq",
+                                  new Object[] { name });
+        }
+        type = next();
+        if (type == LexicalUnits.S) {
+            type = next();
+        }
+        String value = parseAttributeValue(type);
+
+        for (int i = 0; i < attributeCount; i++) {
+            if (attributeNames[i] == name) {
+                throw createException("xml.attribute.duplicate",
+                                      new Object[] { name });
+            }
+        }
+        addAttribute(name, value);
+    }
+
+    /**
+     * Checks that the prefixed attribute at the given index does not
+     * have the namespace URI and local name of a preceding one.  The
+     * namespace URIs of the prefixed attributes must have been stored
+     * in attributeURIs for this attribute and the preceding ones.
+     * @param element The name of the element.
+     * @param idx The index of the attribute.
+     */
+    protected void checkAttributeNS(String element, int idx) {
+        String name = attributeNames[idx];
+        String uri = attributeURIs[idx];
+        int lstart = name.indexOf(':') + 1;
+        int llen = name.length() - lstart;
+        for (int i = 0; i < idx; i++) {
+            String n = attributeNames[i];
+            int start = n.indexOf(':') + 1;
+            if (uri.equals(attributeURIs[i]) &&
+                n.length() - start == llen &&
+                n.regionMatches(start, name, lstart, llen)) {
+                throw createException
+                    ("xml.attribute.duplicate.ns",
+                     new Object[] { element, name.substring(lstart), uri });
+            }
+        }
+    }
+
+    /**
+     * Adds an attribute to the ones of the current start tag.
+     */
+    protected void addAttribute(String name, String value) {
+        if (attributeCount == attributeNames.length) {
+            String[] t = new String[attributeCount * 2];
+            System.arraycopy(attributeNames, 0, t, 0, attributeCount);
+            attributeNames = t;
+            t = new String[attributeCount * 2];
+            System.arraycopy(attributeValues, 0, t, 0, attributeCount);
+            attributeValues = t;
+            t = new String[attributeCount * 2];
+            System.arraycopy(attributeURIs, 0, t, 0, attributeCount);
+            attributeURIs = t;
+        }
+        attributeNames[attributeCount] = name;
+        attributeValues[attributeCount++] = value;
+    }
+
+    /**
+     * Parses a normalized attribute value.
+     * @param type The type of the current lexical unit, which must be
+     *        STRING or FIRST_ATTRIBUTE_FRAGMENT.
+     */
+    protected String parseAttributeValue(int type) {
+        char[] buf = scanner.getBuffer();
+        int start = scanner.getStart() + 1;
+        switch (type) {
+        case LexicalUnits.STRING: {
+            int end = scanner.getEnd() - 1;
+            for (int i = start; i < end; i++) {
+                switch (buf[i]) {
+                case '\t':
+                case '\n':
+                case '\r':
+                    buf[i] = ' ';
+                }
+            }
+            return new String(buf, start, end - start);
+        }
+
+        case LexicalUnits.FIRST_ATTRIBUTE_FRAGMENT: {
+            StringBuffer sb = attributeText;
+            sb.setLength(0);
+            appendAttributeText(sb, buf, start, scanner.getEnd());
+            for (;;) {
+                switch (next()) {
+                case LexicalUnits.ATTRIBUTE_FRAGMENT:
+                    appendAttributeText(sb, scanner.getBuffer(),
+                                        scanner.getStart(),
+                                        scanner.getEnd());
+                    break;
+                case LexicalUnits.LAST_ATTRIBUTE_FRAGMENT:
+                    appendAttributeText(sb, scanner.getBuffer(),
+                                        scanner.getStart(),
+                                        scanner.getEnd() - 1);
+                    return sb.toString();
+                case LexicalUnits.CHARACTER_REFERENCE:
+                    sb.appendCodePoint(getCharacterReference());
+                    break;
+                case LexicalUnits.ENTITY_REFERENCE:
+                    appendAttributeEntity(sb, getEntityName());
+                    break;
+                default:
+                    throw createException("xml.attribute.value", null);
+                }
+            }
+        }
+
+        default:
+            throw createException("xml.attribute.value.expected", null);
+        }
+    }
+
+    /**
+     * Appends some literal attribute value characters, replacing the
+     * white spaces by space characters.
+     */
+    protected void appendAttributeText(StringBuffer sb, char[] buf,
+                                       int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = buf[i];
+            switch (c) {
+            case '\t':
+            case '\n':
+            case '\r':
+                c = ' ';
+            }
+            sb.append(c);
+        }
+    }
+
+    /**
+     * Appends the replacement text of an entity referenced from an
+     * attribute value.
+     */
+    protected void appendAttributeEntity(StringBuffer sb, String name) {
+        String s = (String)PREDEFINED_ENTITIES.get(name);
+        if (s != null) {
+            sb.append(s);
+            return;
+        }
+        Object v = (entities == null) ? null : entities.get(name);
+        if (v == null) {
+            checkUndeclaredEntity(name);
+            return;
+        }
+        if (v == EXTERNAL_ENTITY) {
+            throw createException("xml.entity.external",
+                                  new Object[] { name });
+        }
+        startEntityExpansion(name);
+        s = (String)v;
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            switch (c) {
+            case '<':
+                throw createException("xml.entity.lt",
+                                      new Object[] { name });
+            case '&':
+                int j = s.indexOf(';', i);
+                if (j == -1) {
+                    throw createException("xml.entity.reference",
+                                          new Object[] { name });
+                }
+                if (s.charAt(i + 1) == '#') {
+                    sb.appendCodePoint(parseCharacterReference(s, i + 2, j));
+                } else {
+                    appendAttributeEntity(sb, s.substring(i + 1, j));
+                }
+                i = j;
+                break;
+            case '\t':
+            case '\n':
+            case '\r':
+                sb.append(' ');
+                break;
+            default:
+                sb.append(c);
+            }
+        }
+        expandedEntities.remove(name);
+    }
+
+    /**
+     * Expands an entity referenced from the content of an element.
+     */
+    protected void expandEntity(String name) throws IOException {
+        String s = (String)PREDEFINED_ENTITIES.get(name);
+        if (s != null) {
+            text.append(s);
+            return;
+        }
+        Object v = (entities == null) ? null : entities.get(name);
+        if (v == null) {
+            checkUndeclaredEntity(name);
+            return;
+        }
+        if (v == EXTERNAL_ENTITY) {
+            // External entities are skipped.
+            return;
+        }
+        startEntityExpansion(name);
+        s = (String)v;
+        if (s.indexOf('<') == -1 && s.indexOf('&') == -1) {
+            text.append(s);
+        } else {
+            // The replacement text is parsed as content.
+            XMLScanner sc = scanner;
+            Node n = currentNode;
+            scanner = new XMLScanner(s);
+            scanner.setContext(XMLScanner.CONTENT_CONTEXT);
+            scanner.setDepth(1);
+            try {
+                parse(next(), true);
+            } finally {
+                scanner = sc;
+            }
+            if (currentNode != n) {
+                throw createException("xml.entity.content",
+                                      new Object[] { name });
+            }
+        }
+        expandedEntities.remove(name);
+    }
+
+    /**
+     * Records the expansion of an entity.
+     */
+    protected void startEntityExpansion(String name) {
+        if (++entityExpansions > MAX_ENTITY_EXPANSIONS) {
+            throw createException("xml.entity.expansions", null);
+        }
+        if (expandedEntities == null) {
+            expandedEntities = new HashSet();
+        }
+        if (!expandedEntities.add(name)) {
+            throw createException("xml.entity.recursive",
+                                  new Object[] { name });
+        }
+    }
+
+    /**
+     * Signals a reference to an undeclared entity, unless it could be
+     * declared in the parts of the DTD which are not read.
+     */
+    protected void checkUndeclaredEntity(String name) {
+        if (!incompleteDeclarations) {
+            throw createException("xml.entity.undeclared",
+                                  new Object[] { name });
+        }
+    }
+
+    /**
+     * Returns the name of the current ENTITY_REFERENCE lexical unit.
+     */
+    protected String getEntityName() {
+        int start = scanner.getStart() + 1;
+        return nameTable.get(scanner.getBuffer(), start,
+                             scanner.getEnd() - 1 - start);
+    }
+
+    /**
+     * Returns the code point of the current CHARACTER_REFERENCE lexical
+     * unit.
+     */
+    protected int getCharacterReference() {
+        int start = scanner.getStart();
+        String s = new String(scanner.getBuffer(), start,
+                              scanner.getEnd() - start);
+        return parseCharacterReference(s, 2, s.length() - 1);
+    }
+
+    /**
+     * Parses a character reference.
+     * @param s The string holding the reference.
+     * @param start The offset of the first character after '&amp;#'.
+     * @param end The offset of the final ';'.
+     */
+    protected int parseCharacterReference(String s, int start, int end) {
+        int c = 0;
+        try {
+            if (start < end && s.charAt(start) == 'x') {
+                c = Integer.parseInt(s.substring(start + 1, end), 16);
+            } else {
+                c = Integer.parseInt(s.substring(start, end));
+            }
+        } catch (NumberFormatException e) {
+            c = -1;
+        }
+        boolean valid = (c > 0xffff)
+            ? c <= 0x10ffff
+            : c > 0 && XMLUtilities.isXMLCharacter(c);
+        if (!valid) {
+            throw createException
+                ("xml.character.reference",
+                 new Object[] { s.substring(start - 2, end + 1) });
+        }
+        return c;
+    }
+
+    /**
+     * Parses an end tag.  The current lexical unit is END_TAG.
+     */
+    protected void parseEndTag() throws IOException {
+        int start = scanner.getStart() + 2;
+        String name = nameTable.get(scanner.getBuffer(), start,
+                                    scanner.getEnd() - start);
+        if (currentNode == null || currentNode == document ||
+            !currentNode.getNodeName().equals(name)) {
+            throw createException("xml.end.tag", new Object[] { name });
+        }
+        int type = next();
+        if (type == LexicalUnits.S) {
+            type = next();
+        }
+        if (type != LexicalUnits.END_CHAR) {
+            throw createException("xml.end.tag.malformed",
+                                  new Object[] { name });
+        }
+        currentNode = currentNode.getParentNode();
+        factory.namespaces.pop();
+    }
+
+    /**
+     * Parses a processing instruction.  The current lexical unit is
+     * PI_START.
+     * @param create Whether the processing instruction node must be
+     *        created.
+     */
+    protected void parseProcessingInstruction(boolean create)
+        throws IOException {
+        int start = scanner.getStart() + 2;
+        String target = nameTable.get(scanner.getBuffer(), start,
+                                      scanner.getEnd() - start);
+        String data = "";
+        int type = next();
+        if (type == LexicalUnits.S) {
+            type = next();
+        }
+        if (type == LexicalUnits.PI_DATA) {
+            start = scanner.getStart();
+            data = new String(scanner.getBuffer(), start,
+                              scanner.getEnd() - 2 - start);
+            type = next();
+        }
+        if (type != LexicalUnits.PI_END) {
+            throw createException("xml.pi", null);
+        }
+        if (!create) {
+            return;
+        }
+        if (currentNode == null) {
+            preInfo.add(new SAXDocumentFactory.ProcessingInstructionInfo
+                        (target, data));
+        } else {
+            currentNode.appendChild
+                (document.createProcessingInstruction(target, data));
+        }
+    }
+
+    /**
+     * Parses the XML declaration.  The current lexical unit is
+     * XML_DECL_START.
+     */
+    protected void parseXMLDeclaration() {
+        int id = 0;
+        for (;;) {
+            int type = next();
+            switch (type) {
+            case LexicalUnits.S:
+            case LexicalUnits.EQ:
+                break;
+            case LexicalUnits.VERSION_IDENTIFIER:
+            case LexicalUnits.ENCODING_IDENTIFIER:
+            case LexicalUnits.STANDALONE_IDENTIFIER:
+                id = type;
+                break;
+            case LexicalUnits.STRING:
+                String s = getString();
+                if (id == LexicalUnits.VERSION_IDENTIFIER) {
+                    factory.xmlVersion = s;
+                } else if (id == LexicalUnits.STANDALONE_IDENTIFIER) {
+                    factory.isStandalone = s.equals("yes");
+                }
+                break;
+            case LexicalUnits.PI_END:
+                return;
+            default:
+                throw createException("xml.declaration", null);
+            }
+        }
+    }
+
+    /**
+     * Parses the document type declaration.  The current lexical unit
+     * is DOCTYPE_START.
+     */
+    protected void parseDoctype() throws IOException {
+        String name = null;
+        String publicId = null;
+        String systemId = null;
+        int id = 0;
+        for (;;) {
+            int type = next();
+            switch (type) {
+            case LexicalUnits.S:
+                break;
+            case LexicalUnits.NAME:
+                int start = scanner.getStart();
+                name = nameTable.get(scanner.getBuffer(), start,
+                                     scanner.getEnd() - start);
+                break;
+            case LexicalUnits.PUBLIC_IDENTIFIER:
+            case LexicalUnits.SYSTEM_IDENTIFIER:
+                id = type;
+                break;
+            case LexicalUnits.STRING:
+                if (id == LexicalUnits.PUBLIC_IDENTIFIER &&
+                    publicId == null) {
+                    publicId = getString();
+                } else {
+                    systemId = getString();
+                }
+                break;
+            case LexicalUnits.LSQUARE_BRACKET:
+                parseInternalSubset();
+                break;
+            case LexicalUnits.END_CHAR:
+                doctype = factory.implementation.createDocumentType
+                    (name, publicId, systemId);
+                if (systemId != null) {
+                    incompleteDeclarations = true;
+                }
+                return;
+            default:
+                throw createException("xml.doctype", null);
+            }
+        }
+    }
+
+    /**
+     * Parses the internal subset of the document type declaration.
+     * The current lexical unit is LSQUARE_BRACKET.
+     */
+    protected void parseInternalSubset() throws IOException {
+        for (;;) {
+            switch (next()) {
+            case LexicalUnits.S:
+            case LexicalUnits.COMMENT:
+                break;
+            case LexicalUnits.RSQUARE_BRACKET:
+                return;
+            case LexicalUnits.PI_START:
+                parseProcessingInstruction(false);
+                scanner.setContext(XMLScanner.DTD_DECLARATIONS_CONTEXT);
+                break;
+            case LexicalUnits.PARAMETER_ENTITY_REFERENCE:
+                // The parameter entities are not expanded, so the
+                // following declarations must not be processed.
+                incompleteDeclarations = true;
+                skipDeclarations = true;
+                break;
+            case LexicalUnits.ENTITY_START:
+                parseEntityDeclaration();
+                break;
+            case LexicalUnits.ATTLIST_START:
+                parseAttributeListDeclaration();
+                break;
+            case LexicalUnits.ELEMENT_DECLARATION_START:
+            case LexicalUnits.NOTATION_START:
+                int type;
+                do {
+                    type = next();
+                    if (type == LexicalUnits.EOF) {
+                        throw createException("xml.eof", null);
+                    }
+                } while (type != LexicalUnits.END_CHAR);
+                break;
+            default:
+                throw createException("xml.internal.subset", null);
+            }
+        }
+    }
+
+    /**
+     * Parses an entity declaration.  The current lexical unit is
+     * ENTITY_START.
+     */
+    protected void parseEntityDeclaration() {
+        boolean parameter = false;
+        String name = null;
+        Object value = null;
+        for (;;) {
+            int type = next();
+            switch (type) {
+            case LexicalUnits.S:
+            case LexicalUnits.NDATA_IDENTIFIER:
+                break;
+            case LexicalUnits.PERCENT:
+                parameter = true;
+                break;
+            case LexicalUnits.NAME:
+                if (name == null) {
+                    int start = scanner.getStart();
+                    name = nameTable.get(scanner.getBuffer(), start,
+                                         scanner.getEnd() - start);
+                }
+                break;
+            case LexicalUnits.PUBLIC_IDENTIFIER:
+            case LexicalUnits.SYSTEM_IDENTIFIER:
+                value = EXTERNAL_ENTITY;
+                break;
+            case LexicalUnits.STRING:
+                if (value == null) {
+                    value = getString();
+                }
+                break;
+            case LexicalUnits.FIRST_ATTRIBUTE_FRAGMENT:
+                String s = parseEntityValue();
+                if (value == null) {
+                    value = s;
+                }
+                break;
+            case LexicalUnits.END_CHAR:
+                if (!parameter && !skipDeclarations && name != null) {
+                    if (entities == null) {
+                        entities = new HashMap();
+                    }
+                    if (!entities.containsKey(name)) {
+                        entities.put(name, value);
+                    }
+                }
+                return;
+            default:
+                throw createException("xml.entity.declaration", null);
+            }
+        }
+    }
+
+    /**
+     * Parses an entity value containing references.  The current lexical
+     * unit is FIRST_ATTRIBUTE_FRAGMENT.  The character references are
+     * replaced, the entity references are kept as is.
+     */
+    protected String parseEntityValue() {
+        StringBuffer sb = new StringBuffer();
+        int start = scanner.getStart() + 1;
+        sb.append(scanner.getBuffer(), start, scanner.getEnd() - start);
+        for (;;) {
+            int type = next();
+            char[] buf = scanner.getBuffer();
+            start = scanner.getStart();
+            int end = scanner.getEnd();
+            switch (type) {
+            case LexicalUnits.FIRST_ATTRIBUTE_FRAGMENT:
+            case LexicalUnits.ENTITY_REFERENCE:
+                sb.append(buf, start, end - start);
+                break;
+            case LexicalUnits.CHARACTER_REFERENCE:
+                sb.appendCodePoint(getCharacterReference());
+                break;
+            case LexicalUnits.STRING:
+                sb.append(buf, start, end - 1 - start);
+                return sb.toString();
+            default:
+                throw createException("xml.entity.value", null);
+            }
+        }
+    }
+
+    /**
+     * Parses an attribute list declaration.  The current lexical unit is
+     * ATTLIST_START.
+     */
+    protected void parseAttributeListDeclaration() {
+        String element = null;
+        String attribute = null;
+        boolean cdata = true;
+        boolean group = false;
+        for (;;) {
+            int type = next();
+            String value = null;
+            switch (type) {
+            case LexicalUnits.S:
+            case LexicalUnits.FIXED_IDENTIFIER:
+            case LexicalUnits.NMTOKEN:
+            case LexicalUnits.PIPE:
+                continue;
+            case LexicalUnits.NAME:
+                if (!group) {
+                    int start = scanner.getStart();
+                    String n = nameTable.get(scanner.getBuffer(), start,
+                                             scanner.getEnd() - start);
+                    if (element == null) {
+                        element = n;
+                    } else {
+                        attribute = n;
+                        cdata = true;
+                    }
+                }
+                continue;
+            case LexicalUnits.CDATA_IDENTIFIER:
+                cdata = true;
+                continue;
+            case LexicalUnits.ID_IDENTIFIER:
+            case LexicalUnits.IDREF_IDENTIFIER:
+            case LexicalUnits.IDREFS_IDENTIFIER:
+            case LexicalUnits.NMTOKEN_IDENTIFIER:
+            case LexicalUnits.NMTOKENS_IDENTIFIER:
+            case LexicalUnits.ENTITY_IDENTIFIER:
+            case LexicalUnits.ENTITIES_IDENTIFIER:
+            case LexicalUnits.NOTATION_IDENTIFIER:
+                cdata = false;
+                continue;
+            case LexicalUnits.LEFT_BRACE:
+                group = true;
+                cdata = false;
+                continue;
+            case LexicalUnits.RIGHT_BRACE:
+                group = false;
+                continue;
+            case LexicalUnits.PARAMETER_ENTITY_REFERENCE:
+                incompleteDeclarations = true;
+                skipDeclarations = true;
+                continue;
+            case LexicalUnits.REQUIRED_IDENTIFIER:
+            case LexicalUnits.IMPLIED_IDENTIFIER:
+                break;
+            case LexicalUnits.STRING:
+            case LexicalUnits.FIRST_ATTRIBUTE_FRAGMENT:
+                value = parseAttributeValue(type);
+                break;
+            case LexicalUnits.END_CHAR:
+                return;
+            default:
+                throw createException("xml.attlist", null);
+            }
+            if (element == null || attribute == null || skipDeclarations) {
+                continue;
+            }
+            if (attributeLists == null) {
+                attributeLists = new HashMap();
+            }
+            List l = (List)attributeLists.get(element);
+            if (l == null) {
+                l = new ArrayList(4);
+                attributeLists.put(element, l);
+            }
+            if (getAttributeDeclaration(l, attribute) == null) {
+                if (value != null && !cdata) {
+                    value = collapseSpaces(value);
+                }
+                l.add(new AttributeDeclaration(attribute, value, cdata));
+            }
+            attribute = null;
+        }
+    }
+
+    /**
+     * Applies the attribute list declarations to the attributes of the
+     * current start tag: the missing attributes with a default value are
+     * added and the values of the non-CDATA attributes are normalized.
+     */
+    protected void applyAttributeDeclarations(String element) {
+        List l = (List)attributeLists.get(element);
+        if (l == null) {
+            return;
+        }
+        Iterator it = l.iterator();
+        loop: while (it.hasNext()) {
+            AttributeDeclaration ad = (AttributeDeclaration)it.next();
+            for (int i = 0; i < attributeCount; i++) {
+                if (attributeNames[i] == ad.name) {
+                    if (!ad.cdata) {
+                        attributeValues[i] = collapseSpaces(attributeValues[i]);
+                    }
+                    continue loop;
+                }
+            }
+            if (ad.value != null) {
+                addAttribute(ad.name, ad.value);
+            }
+        }
+    }
+
+    /**
+     * Returns the declaration of the given attribute in the given list,
+     * or null.
+     */
+    protected AttributeDeclaration getAttributeDeclaration(List l,
+                                                           String name) {
+        Iterator it = l.iterator();
+        while (it.hasNext()) {
+            AttributeDeclaration ad = (AttributeDeclaration)it.next();
+            if (ad.name == name) {
+                return ad;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes the leading and trailing spaces of the given string, and
+     * replaces the other sequences of spaces by a single space.
+     */
+    protected static String collapseSpaces(String s) {
+        StringBuffer sb = new StringBuffer(s.length());
+        boolean space = false;
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (c == ' ') {
+                space = sb.length() > 0;
+            } else {
+                if (space) {
+                    sb.append(' ');
+                    space = false;
+                }
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the content of the current STRING lexical unit, without
+     * the delimiters.
+     */
+    protected String getString() {
+        int start = scanner.getStart() + 1;
+        return new String(scanner.getBuffer(), start,
+                          scanner.getEnd() - 1 - start);
+    }
+
+    /**
+     * Returns the prefix of the given qualified name, or an empty string.
+     */
+    protected String getPrefix(String qname) {
+        int idx = qname.indexOf(':');
+        if (idx == -1 || idx == qname.length() - 1) {
+            return "";
+        }
+        String p = (String)prefixes.get(qname);
+        if (p == null) {
+            p = qname.substring(0, idx).intern();
+            prefixes.put(qname, p);
+        }
+        return p;
+    }
+
+    /**
+     * Moves the pending text of the scanner buffer to the text buffer.
+     */
+    protected void moveText() {
+        if (textStart != -1) {
+            text.append(scanner.getBuffer(), textStart, textEnd - textStart);
+            textStart = -1;
+        }
+    }
+
+    /**
+     * Appends the pending text to the current node.
+     */
+    protected void flushText() {
+        String s;
+        if (textStart != -1) {
+            s = new String(scanner.getBuffer(), textStart,
+                           textEnd - textStart);
+            textStart = -1;
+        } else if (text.length() != 0) {
+            s = text.toString();
+            text.setLength(0);
+        } else {
+            return;
+        }
+        currentNode.appendChild(document.createTextNode(s));
+    }
+
+    /**
+     * Creates an XMLException located at the current position.
+     * @param key The key of the message in the resources.
+     * @param args The arguments of the message, or null.
+     */
+    protected XMLException createException(String key, Object[] args) {
+        String m = formatMessage(key, args);
+        return new XMLException
+            (formatMessage("xml.location",
+                           new Object[] { m, scanner.getLine() }));
+    }
+
+    /**
+     * To store an attribute declaration.
+     */
+    protected static class AttributeDeclaration {
+
+        /**
+         * The attribute name.
+         */
+        public String name;
+
+        /**
+         * The default value, or null.
+         */
+        public String value;
+
+        /**
+         * Whether the attribute is of the CDATA type.
+         */
+        public boolean cdata;
+
+        /**
+         * Creates a new AttributeDeclaration.
+         */
+        public AttributeDeclaration(String name, String value, boolean cdata) {
+            this.name = name;
+            this.value = value;
+            this.cdata = cdata;
+        }
+    }
+
+    /**
+     * A table of interned names, looked up from character arrays.
+     */
+    protected static class NameTable {
+
+        /**
+         * The maximum number of names in a table.
+         */
+        protected static final int MAXIMUM_SIZE = 4096;
+
+        /**
+         * The names.
+         */
+        protected String[] names = new String[256];
+
+        /**
+         * The hash codes of the names.
+         */
+        protected int[] hashes = new int[256];
+
+        /**
+         * The number of names.
+         */
+        protected int size;
+
+        /**
+         * Returns the interned name made of the given characters.
+         */
+        public String get(char[] buf, int start, int len) {
+            int h = 0;
+            int end = start + len;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + buf[i];
+            }
+            int mask = names.length - 1;
+            int i = h & mask;
+            for (String s; (s = names[i]) != null; i = (i + 1) & mask) {
+                if (hashes[i] == h && s.length() == len) {
+                    int j = 0;
+                    while (j < len && s.charAt(j) == buf[start + j]) {
+                        j++;
+                    }
+                    if (j == len) {
+                        return s;
+                    }
+                }
+            }
+            String s = new String(buf, start, len).intern();
+            if (size < MAXIMUM_SIZE) {
+                names[i] = s;
+                hashes[i] = h;
+                if (++size * 4 > names.length * 3) {
+                    rehash();
+                }
+            }
+            return s;
+        }
+
+        /**
+         * Doubles the capacity of the table.
+         */
+        protected void rehash() {
+            String[] oldNames = names;
+            int[] oldHashes = hashes;
+            names = new String[oldNames.length * 2];
+            hashes = new int[oldNames.length * 2];
+            int mask = names.length - 1;
+            for (int i = 0; i < oldNames.length; i++) {
+                if (oldNames[i] != null) {
+                    int j = oldHashes[i] & mask;
+                    while (names[j] != null) {
+                        j = (j + 1) & mask;
+                    }
+                    names[j] = oldNames[i];
+                    hashes[j] = oldHashes[i];
+                }
+            }
+        }
+    }
+}
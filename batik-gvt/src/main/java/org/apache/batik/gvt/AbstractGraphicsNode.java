@@ -27,6 +27,7 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.lang.ref.WeakReference;
 import java.util.Iterator;
 import java.util.List;
@@ -35,6 +36,8 @@ import java.util.Map;
 import javax.swing.event.EventListenerList;
 
 import org.apache.batik.ext.awt.RenderingHintsKeyExt;
+import org.apache.batik.ext.awt.image.GraphicsUtil;
+import org.apache.batik.ext.awt.image.renderable.AbstractRable;
 import org.apache.batik.ext.awt.image.renderable.ClipRable;
 import org.apache.batik.ext.awt.image.renderable.Filter;
 import org.apache.batik.gvt.event.GraphicsNodeChangeEvent;
@@ -132,6 +135,17 @@ public abstract class AbstractGraphicsNode implements GraphicsNode {
      */
     protected WeakReference weakRef;
 
+    /**
+     * Whether this node is painted from a rasterized layer.
+     */
+    protected boolean layerCacheEnabled;
+
+    /**
+     * The time stamp of the last change to this node or to one of its
+     * descendants.
+     */
+    protected volatile long changeStamp;
+
     /**
      * Internal Cache: node bounds
      */
@@ -443,6 +457,21 @@ public abstract class AbstractGraphicsNode implements GraphicsNode {
         Rectangle2D bounds = getBounds();
         if (bounds == null) return;
 
+        if (layerCacheEnabled && paintLayer(g2d)) {
+            return;
+        }
+        paintNode(g2d, bounds, composite);
+    }
+
+    /**
+     * Paints this node, with the given composite instead of its own.
+     *
+     * @param g2d the Graphics2D to use
+     * @param bounds the bounds of this node
+     * @param composite the composite to paint with, or null
+     */
+    private void paintNode(Graphics2D g2d, Rectangle2D bounds,
+                           Composite composite) {
         // Set up graphic context. It is important to setup the
         // transform first, because the clip is defined in this node's
         // user space.
@@ -569,6 +598,99 @@ public abstract class AbstractGraphicsNode implements GraphicsNode {
         }
     }
 
+    /**
+     * Sets whether this node is painted from a rasterized layer, kept in
+     * the {@link LayerCache} of its tree.  The layer is rendered for a
+     * given device scale and rotation, and is reused as long as only the
+     * device translation changes by whole pixels.  It is dropped when
+     * this node or one of its descendants changes.  This suits static
+     * subtrees which are costly to paint.
+     */
+    public void setLayerCacheEnabled(boolean b) {
+        layerCacheEnabled = b;
+        RootGraphicsNode rgn = getRoot();
+        if (rgn != null) {
+            if (b) {
+                // Starts tracking the changes of the tree.
+                rgn.getLayerCache();
+            } else {
+                rgn.removeLayer(this);
+            }
+        }
+    }
+
+    /**
+     * Returns whether this node is painted from a rasterized layer.
+     */
+    public boolean isLayerCacheEnabled() {
+        return layerCacheEnabled;
+    }
+
+    /**
+     * Paints this node from its layer, rendering the layer first if
+     * needed.  Returns false if the node must be painted directly.
+     *
+     * @param g2d the Graphics2D to use
+     */
+    protected boolean paintLayer(Graphics2D g2d) {
+        RootGraphicsNode rgn = getRoot();
+        if (rgn == null) {
+            return false;
+        }
+        Rectangle2D ub = getTransformedBounds(IDENTITY);
+        Shape clip = g2d.getClip();
+        if (ub == null
+            || clip != null && !clip.getBounds2D().intersects(ub)) {
+            // Nothing to paint.
+            return true;
+        }
+        LayerCache cache = rgn.getLayerCache();
+        AffineTransform at = g2d.getTransform();
+        LayerCache.Layer layer = cache.get(this);
+        if (layer == null || !layer.matches(at)) {
+            int generation = cache.getGeneration();
+            Rectangle2D db = getTransformedBounds(at);
+            if (db == null) {
+                return false;
+            }
+            // One more pixel on each side for antialiasing.
+            int x0 = (int) Math.floor(db.getMinX()) - 1;
+            int y0 = (int) Math.floor(db.getMinY()) - 1;
+            long w = (long) Math.ceil(db.getMaxX()) + 1 - x0;
+            long h = (long) Math.ceil(db.getMaxY()) + 1 - y0;
+            if (w <= 0 || h <= 0 || 4 * w * h > cache.getBudget() / 4) {
+                // Too large to be worth keeping.
+                return false;
+            }
+            BufferedImage img = new BufferedImage
+                ((int) w, (int) h, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D lg = GraphicsUtil.createGraphics
+                (img, g2d.getRenderingHints());
+            AffineTransform lt = AffineTransform.getTranslateInstance(-x0, -y0);
+            lt.concatenate(at);
+            lg.setTransform(lt);
+            paintNode(lg, getBounds(), null);
+            lg.dispose();
+            if (HaltingThread.hasBeenHalted()) {
+                return true;
+            }
+            layer = new LayerCache.Layer(img, at, x0, y0);
+            cache.put(this, layer, generation);
+        }
+
+        AffineTransform defaultTransform = g2d.getTransform();
+        Composite defaultComposite = g2d.getComposite();
+        g2d.setTransform(AffineTransform.getTranslateInstance
+                         (layer.getX(at), layer.getY(at)));
+        if (composite != null) {
+            g2d.setComposite(composite);
+        }
+        g2d.drawImage(layer.getImage(), 0, 0, null);
+        g2d.setTransform(defaultTransform);
+        g2d.setComposite(defaultComposite);
+        return true;
+    }
+
     /**
      * DEBUG: Trace filter chain
      */
@@ -630,6 +752,24 @@ public abstract class AbstractGraphicsNode implements GraphicsNode {
         return false;
     }
 
+    /**
+     * Returns the time stamp of the last change to this node or to one
+     * of its descendants, taken from {@link AbstractRable#newTimeStamp()}.
+     */
+    public long getChangeStamp() {
+        return changeStamp;
+    }
+
+    /**
+     * Takes a new change stamp for this node and its ancestors.
+     */
+    protected void touchChangeStamp() {
+        long s = AbstractRable.newTimeStamp();
+        for (AbstractGraphicsNode n = this; n != null; n = n.parent) {
+            n.changeStamp = s;
+        }
+    }
+
     //
     // Event support methods
     //
@@ -657,6 +797,8 @@ public abstract class AbstractGraphicsNode implements GraphicsNode {
 
     public void fireGraphicsNodeChangeStarted
         (GraphicsNodeChangeEvent changeStartedEvent) {
+        touchChangeStamp();
+
         // If we had per node listeners we would fire them here...
 
         RootGraphicsNode rootGN = getRoot();
@@ -678,6 +820,7 @@ public abstract class AbstractGraphicsNode implements GraphicsNode {
             changeCompletedEvent = new GraphicsNodeChangeEvent
                 (this, GraphicsNodeChangeEvent.CHANGE_COMPLETED);
         }
+        touchChangeStamp();
 
         // If we had per node listeners we would fire them here...
 
@@ -721,6 +864,11 @@ public abstract class AbstractGraphicsNode implements GraphicsNode {
      * @param newRoot the new root node of this node
      */
     protected void setRoot(RootGraphicsNode newRoot) {
+        if (root != null && root != newRoot) {
+            // The layer could become stale while this node is out of
+            // the tree.
+            root.removeLayer(this);
+        }
         this.root = newRoot;
     }
 
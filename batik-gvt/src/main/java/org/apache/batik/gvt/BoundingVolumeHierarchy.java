@@ -0,0 +1,262 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.gvt;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+/**
+ * An immutable bounding volume hierarchy over the bounds of the
+ * children of a {@link CompositeGraphicsNode}.  It answers which
+ * children may intersect a rectangle or contain a point, in children
+ * order, without visiting the children whose bounds are out of reach.
+ * Children with null bounds are never returned.
+ *
+ * @version $Id$
+ */
+final class BoundingVolumeHierarchy {
+
+    /**
+     * The maximum number of children in a leaf.
+     */
+    static final int LEAF_SIZE = 8;
+
+    /**
+     * The children bounds, as minX, minY, maxX, maxY.
+     */
+    private final double[] itemBounds;
+
+    /**
+     * The indexes of the bounded children, in leaf order.
+     */
+    private final int[] items;
+
+    /**
+     * The node bounds, as minX, minY, maxX, maxY.
+     */
+    private double[] nodeBounds;
+
+    /**
+     * The nodes, as first child node (or -1 for leaves), start item and
+     * end item.  The second child node follows the first one.
+     */
+    private int[] nodes;
+
+    /**
+     * The number of nodes.
+     */
+    private int nodeCount;
+
+    /**
+     * The depth of the tree.
+     */
+    private int depth;
+
+    /**
+     * Creates a new hierarchy.
+     * @param bounds The children bounds, in the parent's user space.
+     * @param count The number of children.
+     */
+    BoundingVolumeHierarchy(Rectangle2D[] bounds, int count) {
+        itemBounds = new double[count * 4];
+        int[] it = new int[count];
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            Rectangle2D r = bounds[i];
+            if (r == null) {
+                continue;
+            }
+            double x0 = r.getMinX();
+            double y0 = r.getMinY();
+            double x1 = r.getMaxX();
+            double y1 = r.getMaxY();
+            // Leave room for the rounding errors of the transforms the
+            // children apply before testing their own bounds.
+            double eps = (Math.abs(x0) + Math.abs(y0)
+                          + Math.abs(x1) + Math.abs(y1)) * 1e-9;
+            itemBounds[i * 4]     = x0 - eps;
+            itemBounds[i * 4 + 1] = y0 - eps;
+            itemBounds[i * 4 + 2] = x1 + eps;
+            itemBounds[i * 4 + 3] = y1 + eps;
+            it[n++] = i;
+        }
+        items = n == count ? it : Arrays.copyOf(it, n);
+
+        int capacity = 2 * (n / (LEAF_SIZE / 2) + 1);
+        nodeBounds = new double[capacity * 4];
+        nodes = new int[capacity * 3];
+        if (n > 0) {
+            newNode();
+            build(0, 0, n, 1);
+        }
+    }
+
+    /**
+     * Returns the indexes of the children whose bounds intersect the
+     * given rectangle, in increasing order.
+     */
+    int[] intersecting(double x0, double y0, double x1, double y1) {
+        return query(x0, y0, x1, y1);
+    }
+
+    /**
+     * Returns the indexes of the children whose bounds contain the given
+     * point, in increasing order.
+     */
+    int[] containing(double x, double y) {
+        return query(x, y, x, y);
+    }
+
+    /**
+     * Collects the children whose bounds intersect a closed rectangle.
+     */
+    private int[] query(double x0, double y0, double x1, double y1) {
+        if (nodeCount == 0) {
+            return new int[0];
+        }
+        int[] result = new int[16];
+        int n = 0;
+        int[] stack = new int[depth + 1];
+        int sp = 0;
+        stack[sp++] = 0;
+        while (sp > 0) {
+            int node = stack[--sp];
+            int b = node * 4;
+            if (nodeBounds[b] > x1 || nodeBounds[b + 1] > y1
+                || nodeBounds[b + 2] < x0 || nodeBounds[b + 3] < y0) {
+                continue;
+            }
+            int first = nodes[node * 3];
+            if (first >= 0) {
+                stack[sp++] = first + 1;
+                stack[sp++] = first;
+                continue;
+            }
+            int end = nodes[node * 3 + 2];
+            for (int i = nodes[node * 3 + 1]; i < end; i++) {
+                int item = items[i];
+                int ib = item * 4;
+                if (itemBounds[ib] > x1 || itemBounds[ib + 1] > y1
+                    || itemBounds[ib + 2] < x0 || itemBounds[ib + 3] < y0) {
+                    continue;
+                }
+                if (n == result.length) {
+                    result = Arrays.copyOf(result, n * 2);
+                }
+                result[n++] = item;
+            }
+        }
+        Arrays.sort(result, 0, n);
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+
+    /**
+     * Allocates a node and returns its index.
+     */
+    private int newNode() {
+        if (nodeCount * 3 == nodes.length) {
+            nodes = Arrays.copyOf(nodes, nodes.length * 2);
+            nodeBounds = Arrays.copyOf(nodeBounds, nodeBounds.length * 2);
+        }
+        return nodeCount++;
+    }
+
+    /**
+     * Builds the given node over the items in [start, end).
+     */
+    private void build(int node, int start, int end, int level) {
+        if (level > depth) {
+            depth = level;
+        }
+        double x0 = Double.POSITIVE_INFINITY;
+        double y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY;
+        double y1 = Double.NEGATIVE_INFINITY;
+        for (int i = start; i < end; i++) {
+            int ib = items[i] * 4;
+            x0 = Math.min(x0, itemBounds[ib]);
+            y0 = Math.min(y0, itemBounds[ib + 1]);
+            x1 = Math.max(x1, itemBounds[ib + 2]);
+            y1 = Math.max(y1, itemBounds[ib + 3]);
+        }
+        int b = node * 4;
+        nodeBounds[b]     = x0;
+        nodeBounds[b + 1] = y0;
+        nodeBounds[b + 2] = x1;
+        nodeBounds[b + 3] = y1;
+        nodes[node * 3 + 1] = start;
+        nodes[node * 3 + 2] = end;
+        if (end - start <= LEAF_SIZE) {
+            nodes[node * 3] = -1;
+            return;
+        }
+
+        // Split at the median of the centers along the longest side.
+        int axis = (x1 - x0) >= (y1 - y0) ? 0 : 1;
+        int mid = (start + end) >>> 1;
+        select(start, end - 1, mid, axis);
+
+        int first = newNode();
+        newNode();
+        nodes[node * 3] = first;
+        build(first, start, mid, level + 1);
+        build(first + 1, mid, end, level + 1);
+    }
+
+    /**
+     * Returns twice the center of an item along an axis.
+     */
+    private double center(int item, int axis) {
+        int ib = item * 4 + axis;
+        return itemBounds[ib] + itemBounds[ib + 2];
+    }
+
+    /**
+     * Partially sorts items[lo..hi] so that the k-th item is in place.
+     */
+    private void select(int lo, int hi, int k, int axis) {
+        while (hi > lo) {
+            double pivot = center(items[(lo + hi) >>> 1], axis);
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (center(items[i], axis) < pivot) {
+                    i++;
+                }
+                while (center(items[j], axis) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int t = items[i];
+                    items[i] = items[j];
+                    items[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+}
@@ -67,6 +67,7 @@ public class CanvasGraphicsNode extends CompositeGraphicsNode {
      */
     public void setBackgroundPaint(Paint newBackgroundPaint) {
         this.backgroundPaint = newBackgroundPaint;
+        touchChangeStamp();
     }
 
     /**
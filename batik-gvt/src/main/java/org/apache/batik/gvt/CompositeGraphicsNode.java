@@ -25,6 +25,7 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.GeneralPath;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
@@ -48,6 +49,12 @@ public class CompositeGraphicsNode extends AbstractGraphicsNode
     public static final Rectangle2D VIEWPORT  = new Rectangle();
     public static final Rectangle2D NULL_RECT = new Rectangle();
 
+    /**
+     * The number of children from which painting and hit testing go
+     * through a spatial index of the children bounds.
+     */
+    public static final int SPATIAL_INDEX_THRESHOLD = 64;
+
     /**
      * The children of this composite graphics node.
      */
@@ -90,6 +97,33 @@ public class CompositeGraphicsNode extends AbstractGraphicsNode
      */
     private Shape outline;
 
+    /**
+     * Whether the children may be indexed by their bounds.
+     */
+    protected boolean spatialIndexEnabled = true;
+
+    /**
+     * Internal Cache: the index of the children painted bounds.
+     */
+    private volatile BoundingVolumeHierarchy boundsIndex;
+
+    /**
+     * Internal Cache: the index of the children sensitive bounds.
+     */
+    private volatile BoundingVolumeHierarchy sensitiveBoundsIndex;
+
+    /**
+     * The number of spatial queries since the geometry last changed.
+     * The indexes are only built when a query is repeated, so that
+     * documents changing at every frame keep the plain linear scans.
+     */
+    private volatile int spatialQueries;
+
+    /**
+     * Incremented each time the geometry cache is invalidated.
+     */
+    private volatile int geometryStamp;
+
     /**
      * Constructs a new empty <code>CompositeGraphicsNode</code>.
      */
@@ -135,6 +169,25 @@ public class CompositeGraphicsNode extends AbstractGraphicsNode
         // fireGraphicsNodeChangeCompleted();
     }
 
+    /**
+     * Sets whether painting and hit testing may go through a spatial
+     * index of the children bounds when this node has at least
+     * {@link #SPATIAL_INDEX_THRESHOLD} children.
+     */
+    public void setSpatialIndexEnabled(boolean b) {
+        spatialIndexEnabled = b;
+        boundsIndex = null;
+        sensitiveBoundsIndex = null;
+    }
+
+    /**
+     * Returns whether painting and hit testing may go through a spatial
+     * index of the children bounds.
+     */
+    public boolean isSpatialIndexEnabled() {
+        return spatialIndexEnabled;
+    }
+
 
     //
     // Drawing methods
@@ -153,6 +206,27 @@ public class CompositeGraphicsNode extends AbstractGraphicsNode
         // Thread.currentThread() is potentially expensive, so reuse my instance in hasBeenHalted()
         Thread currentThread = Thread.currentThread();
 
+        // Only paint the children which may intersect the clip.
+        Shape clip = g2d.getClip();
+        BoundingVolumeHierarchy index =
+            clip == null ? null : getSpatialIndex(false);
+        if (index != null) {
+            Rectangle2D cb = clip.getBounds2D();
+            int[] hits = index.intersecting(cb.getMinX(), cb.getMinY(),
+                                            cb.getMaxX(), cb.getMaxY());
+            for (int hit : hits) {
+                if (HaltingThread.hasBeenHalted( currentThread ))
+                    return;
+
+                GraphicsNode node = hit < count ? children[hit] : null;
+                if (node == null) {
+                    continue;
+                }
+                node.paint(g2d);
+            }
+            return;
+        }
+
         // Paint children
         for (int i=0; i < count; ++i) {
             if (HaltingThread.hasBeenHalted( currentThread ))
@@ -187,6 +261,51 @@ public class CompositeGraphicsNode extends AbstractGraphicsNode
         primitiveBounds = null;
         sensitiveBounds = null;
         outline = null;
+        boundsIndex = null;
+        sensitiveBoundsIndex = null;
+        spatialQueries = 0;
+        geometryStamp++;
+    }
+
+    /**
+     * Returns the index of the children painted or sensitive bounds, or
+     * null if the children should be scanned linearly.
+     */
+    private BoundingVolumeHierarchy getSpatialIndex(boolean sensitive) {
+        if (!spatialIndexEnabled || count < SPATIAL_INDEX_THRESHOLD) {
+            return null;
+        }
+        BoundingVolumeHierarchy index =
+            sensitive ? sensitiveBoundsIndex : boundsIndex;
+        if (index != null) {
+            return index;
+        }
+        if (spatialQueries++ < 1) {
+            return null;
+        }
+
+        int stamp = geometryStamp;
+        int n = count;
+        GraphicsNode[] nodes = children;
+        Rectangle2D[] bounds = new Rectangle2D[n];
+        for (int i = 0; i < n; i++) {
+            bounds[i] = sensitive
+                ? nodes[i].getTransformedSensitiveBounds(IDENTITY)
+                : nodes[i].getTransformedBounds(IDENTITY);
+        }
+        if (HaltingThread.hasBeenHalted()) {
+            // Some bounds may be missing.
+            return null;
+        }
+        index = new BoundingVolumeHierarchy(bounds, n);
+        if (stamp == geometryStamp) {
+            if (sensitive) {
+                sensitiveBoundsIndex = index;
+            } else {
+                boundsIndex = index;
+            }
+        }
+        return index;
     }
 
     /**
@@ -462,7 +581,10 @@ public class CompositeGraphicsNode extends AbstractGraphicsNode
         if (count > 0 && bounds != null && bounds.contains(p)) {
             Point2D pt = null;
             Point2D cp = null; // Propagated to children
-            for (int i=0; i < count; ++i) {
+            int[] hits = getSensitiveChildrenAt(p);
+            int n = hits == null ? count : hits.length;
+            for (int j=0; j < n; ++j) {
+                int i = hits == null ? j : hits[j];
                 AffineTransform t = children[i].getInverseTransform();
                 if(t != null){
                     pt = t.transform(p, pt);
@@ -492,7 +614,10 @@ public class CompositeGraphicsNode extends AbstractGraphicsNode
             // Go backward because the children are in rendering order
             Point2D pt = null;
             Point2D cp = null; // Propagated to children
-            for (int i=count-1; i >= 0; --i) {
+            int[] hits = getSensitiveChildrenAt(p);
+            int n = hits == null ? count : hits.length;
+            for (int j=n-1; j >= 0; --j) {
+                int i = hits == null ? j : hits[j];
                 AffineTransform t = children[i].getInverseTransform();
                 if(t != null){
                     pt = t.transform(p, pt);
@@ -510,6 +635,23 @@ public class CompositeGraphicsNode extends AbstractGraphicsNode
         return null;
     }
 
+    /**
+     * Returns the increasing indexes of the children whose sensitive
+     * bounds may contain p, or null if all the children must be tested.
+     */
+    private int[] getSensitiveChildrenAt(Point2D p) {
+        BoundingVolumeHierarchy index = getSpatialIndex(true);
+        if (index == null) {
+            return null;
+        }
+        int[] hits = index.containing(p.getX(), p.getY());
+        int n = hits.length;
+        while (n > 0 && hits[n - 1] >= count) {
+            n--;
+        }
+        return n == hits.length ? hits : Arrays.copyOf(hits, n);
+    }
+
     /**
      * Returns the outline of this node.
      */
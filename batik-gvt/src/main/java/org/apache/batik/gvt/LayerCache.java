@@ -0,0 +1,281 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.gvt;
+
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.apache.batik.gvt.event.GraphicsNodeChangeEvent;
+import org.apache.batik.gvt.event.GraphicsNodeChangeListener;
+
+/**
+ * The rasterized layers of the graphics nodes of a GVT tree which have
+ * their layer cache enabled (see
+ * {@link AbstractGraphicsNode#setLayerCacheEnabled(boolean)}).  The
+ * layers share a memory budget, and the least recently used ones are
+ * evicted when it is exceeded.  The cache listens to the changes of the
+ * tree, and drops the layers of the changed nodes and of their
+ * ancestors.
+ *
+ * @version $Id$
+ */
+public class LayerCache implements GraphicsNodeChangeListener {
+
+    /**
+     * The default memory budget, in bytes.
+     */
+    public static final long DEFAULT_BUDGET = 32L * 1024 * 1024;
+
+    /**
+     * The layers, in least recently used first order.
+     */
+    protected LinkedHashMap layers = new LinkedHashMap(16, 0.75f, true);
+
+    /**
+     * The memory budget, in bytes.
+     */
+    protected long budget;
+
+    /**
+     * The memory used by the layers, in bytes.
+     */
+    protected long size;
+
+    /**
+     * Incremented each time a change may have made layers invalid.
+     */
+    protected int generation;
+
+    /**
+     * Creates a new LayerCache with the default budget.
+     */
+    public LayerCache() {
+        this(DEFAULT_BUDGET);
+    }
+
+    /**
+     * Creates a new LayerCache.
+     * @param budget The memory budget, in bytes.
+     */
+    public LayerCache(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Returns the memory budget, in bytes.
+     */
+    public synchronized long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Sets the memory budget, in bytes, evicting layers if needed.
+     */
+    public synchronized void setBudget(long budget) {
+        this.budget = budget;
+        evict();
+    }
+
+    /**
+     * Returns the memory used by the layers, in bytes.
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the current generation.  Layers rendered while the
+     * generation changed must not be stored.
+     */
+    public synchronized int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns the layer of the given node, or null.
+     */
+    public synchronized Layer get(GraphicsNode node) {
+        return (Layer) layers.get(node);
+    }
+
+    /**
+     * Stores the layer of the given node, unless the tree changed since
+     * the given generation.
+     */
+    public synchronized void put(GraphicsNode node, Layer layer,
+                                 int generation) {
+        if (generation != this.generation) {
+            return;
+        }
+        Layer old = (Layer) layers.put(node, layer);
+        if (old != null) {
+            size -= old.getSize();
+        }
+        size += layer.getSize();
+        evict();
+    }
+
+    /**
+     * Removes the layer of the given node.
+     */
+    public synchronized void remove(GraphicsNode node) {
+        generation++;
+        Layer old = (Layer) layers.remove(node);
+        if (old != null) {
+            size -= old.getSize();
+        }
+    }
+
+    /**
+     * Removes all the layers.
+     */
+    public synchronized void clear() {
+        generation++;
+        layers.clear();
+        size = 0;
+    }
+
+    /**
+     * Evicts the least recently used layers until the budget is met.
+     */
+    protected void evict() {
+        Iterator it = layers.values().iterator();
+        while (size > budget && it.hasNext()) {
+            Layer l = (Layer) it.next();
+            size -= l.getSize();
+            it.remove();
+        }
+    }
+
+    /**
+     * Removes the layers of the given node and of its ancestors.
+     */
+    protected synchronized void invalidate(GraphicsNode node) {
+        generation++;
+        if (layers.isEmpty()) {
+            return;
+        }
+        for (GraphicsNode n = node; n != null; n = n.getParent()) {
+            Layer old = (Layer) layers.remove(n);
+            if (old != null) {
+                size -= old.getSize();
+            }
+        }
+    }
+
+    // GraphicsNodeChangeListener ////////////////////////////////////////////
+
+    /**
+     * Invoked when a change has started on a graphics node.
+     */
+    public void changeStarted(GraphicsNodeChangeEvent gnce) {
+        invalidate(gnce.getGraphicsNode());
+    }
+
+    /**
+     * Invoked when a change on a graphics node has completed.
+     */
+    public void changeCompleted(GraphicsNodeChangeEvent gnce) {
+        invalidate(gnce.getGraphicsNode());
+    }
+
+    /**
+     * A node rasterized in device space.
+     */
+    public static class Layer {
+
+        /**
+         * The pixels, premultiplied.
+         */
+        protected BufferedImage image;
+
+        /**
+         * The device transform the node was rendered with.
+         */
+        protected AffineTransform transform;
+
+        /**
+         * The device position of the image.
+         */
+        protected int x, y;
+
+        /**
+         * Creates a new Layer.
+         */
+        public Layer(BufferedImage image, AffineTransform transform,
+                     int x, int y) {
+            this.image = image;
+            this.transform = transform;
+            this.x = x;
+            this.y = y;
+        }
+
+        /**
+         * Returns the pixels of this layer.
+         */
+        public BufferedImage getImage() {
+            return image;
+        }
+
+        /**
+         * Returns the memory used by this layer, in bytes.
+         */
+        public long getSize() {
+            return 4L * image.getWidth() * image.getHeight();
+        }
+
+        /**
+         * Whether this layer can be drawn for the given device transform,
+         * that is, if it has the same scale and rotation and only differs
+         * by a whole number of pixels in translation.
+         */
+        public boolean matches(AffineTransform at) {
+            if (at.getScaleX() != transform.getScaleX()
+                || at.getShearY() != transform.getShearY()
+                || at.getShearX() != transform.getShearX()
+                || at.getScaleY() != transform.getScaleY()) {
+                return false;
+            }
+            double dx = at.getTranslateX() - transform.getTranslateX();
+            double dy = at.getTranslateY() - transform.getTranslateY();
+            return Math.abs(dx - Math.rint(dx)) < 1e-6
+                && Math.abs(dy - Math.rint(dy)) < 1e-6;
+        }
+
+        /**
+         * Returns the device x position of this layer for a matching
+         * transform.
+         */
+        public int getX(AffineTransform at) {
+            return x + (int) Math.rint(at.getTranslateX()
+                                       - transform.getTranslateX());
+        }
+
+        /**
+         * Returns the device y position of this layer for a matching
+         * transform.
+         */
+        public int getY(AffineTransform at) {
+            return y + (int) Math.rint(at.getTranslateY()
+                                       - transform.getTranslateY());
+        }
+    }
+}
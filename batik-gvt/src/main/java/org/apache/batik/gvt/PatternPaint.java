@@ -26,6 +26,7 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.ColorModel;
 import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
 
 import org.apache.batik.ext.awt.image.PadMode;
 import org.apache.batik.ext.awt.image.renderable.Filter;
@@ -150,12 +151,15 @@ public class PatternPaint implements Paint {
 
     /**
      * Creates and returns a context used to generate the pattern.
+     * The last context is shared with the next callers so this is
+     * synchronized to allow painting from several threads.
      */
-    public PaintContext createContext(ColorModel      cm,
-                                      Rectangle       deviceBounds,
-                                      Rectangle2D     userBounds,
-                                      AffineTransform xform,
-                                      RenderingHints  hints) {
+    public synchronized PaintContext createContext
+        (ColorModel      cm,
+         Rectangle       deviceBounds,
+         Rectangle2D     userBounds,
+         AffineTransform xform,
+         RenderingHints  hints) {
         // Concatenate the patternTransform to xform
         if (patternTransform != null) {
             xform = new AffineTransform(xform);
@@ -171,13 +175,14 @@ public class PatternPaint implements Paint {
             lastContext.getUsr2Dev().getMatrix(q);
             if ((p[0] == q[0]) && (p[1] == q[1]) &&
                 (p[2] == q[2]) && (p[3] == q[3])) {
-                if ((p[4] == q[4]) && (p[5] == q[5]))
-                    return lastContext;
-                else
-                    return new PatternPaintContextWrapper
+                // The context is shared so give each caller its own
+                // wrapper (and so its own raster).  The shift is
+                // negative when the tiles are not painted top to
+                // bottom, so it is rounded with floor.
+                return new PatternPaintContextWrapper
                         (lastContext,
-                         (int)(q[4]-p[4]+0.5),
-                         (int)(q[5]-p[5]+0.5));
+                         (int)Math.floor(q[4]-p[4]+0.5),
+                         (int)Math.floor(q[5]-p[5]+0.5));
             }
         }
         // System.out.println("CreateContext Called: " + this);
@@ -201,6 +206,7 @@ public class PatternPaint implements Paint {
     static class PatternPaintContextWrapper implements PaintContext {
         PatternPaintContext ppc;
         int xShift, yShift;
+        WritableRaster raster;
         PatternPaintContextWrapper(PatternPaintContext ppc,
                             int xShift, int yShift) {
             this.ppc = ppc;
@@ -208,13 +214,21 @@ public class PatternPaint implements Paint {
             this.yShift = yShift;
         }
 
-        public void dispose(){ }
+        public void dispose(){
+            raster = null;
+        }
 
         public ColorModel getColorModel(){
             return ppc.getColorModel();
         }
         public Raster getRaster(int x, int y, int width, int height){
-            return ppc.getRaster(x+xShift, y+yShift, width, height);
+            if ((raster == null)             ||
+                (raster.getWidth() < width)  ||
+                (raster.getHeight() < height)) {
+                raster = ppc.getColorModel().createCompatibleWritableRaster
+                    (width, height);
+            }
+            return ppc.fillRaster(raster, x+xShift, y+yShift, width, height);
         }
     }
 }
@@ -161,6 +161,16 @@ public class PatternPaintContext implements PaintContext {
             raster = rasterCM.createCompatibleWritableRaster(width, height);
         }
 
+        return fillRaster(raster, x, y, width, height);
+    }
+
+    /**
+     * Fills <code>raster</code> with the pattern for the given device
+     * area.  The tile image is shared so several threads may call this
+     * at once as long as each one provides its own raster.
+     */
+    Raster fillRaster(WritableRaster raster,
+                      int x, int y, int width, int height) {
         WritableRaster wr
             = raster.createWritableChild(0, 0, width, height, x, y, null);
 
@@ -50,6 +50,7 @@ public class ProxyGraphicsNode extends AbstractGraphicsNode {
      */
     public void setSource(GraphicsNode source) {
         this.source = source;
+        touchChangeStamp();
     }
 
     /**
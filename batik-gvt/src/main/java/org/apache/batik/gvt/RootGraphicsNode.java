@@ -33,6 +33,12 @@ public class RootGraphicsNode extends CompositeGraphicsNode {
 
     List treeGraphicsNodeChangeListeners = null;
 
+    /**
+     * The rasterized layers of the nodes of this tree, created when a
+     * node of this tree first uses it.
+     */
+    protected LayerCache layerCache;
+
    /**
      * Constructs a new empty <code>RootGraphicsNode</code>.
      */
@@ -46,6 +52,28 @@ public class RootGraphicsNode extends CompositeGraphicsNode {
         return this;
     }
 
+    /**
+     * Returns the cache of the rasterized layers of the nodes of this
+     * tree.  The cache is created, and listens to the changes of this
+     * tree, from the first call on.
+     */
+    public LayerCache getLayerCache() {
+        if (layerCache == null) {
+            layerCache = new LayerCache();
+            addTreeGraphicsNodeChangeListener(layerCache);
+        }
+        return layerCache;
+    }
+
+    /**
+     * Drops the layer of the given node, if any.
+     */
+    void removeLayer(GraphicsNode node) {
+        if (layerCache != null) {
+            layerCache.remove(node);
+        }
+    }
+
     public List getTreeGraphicsNodeChangeListeners() {
         if (treeGraphicsNodeChangeListeners == null) {
             treeGraphicsNodeChangeListeners = new LinkedList();
@@ -25,6 +25,8 @@ import java.awt.Stroke;
 import java.awt.geom.Rectangle2D;
 import java.awt.geom.Point2D;
 
+import org.apache.batik.ext.awt.geom.CompactPath;
+
 /**
  * A shape painter that can be used to draw the outline of a shape.
  *
@@ -122,7 +124,7 @@ public class StrokeShapePainter implements ShapePainter {
             return null;
 
         if (strokedShape == null)
-            strokedShape = stroke.createStrokedShape(shape);
+            strokedShape = createStrokedShape();
 
         return strokedShape;
     }
@@ -156,7 +158,7 @@ public class StrokeShapePainter implements ShapePainter {
             return null;
 
         if (strokedShape == null)
-            strokedShape = stroke.createStrokedShape(shape);
+            strokedShape = createStrokedShape();
 
         return strokedShape;
     }
@@ -206,4 +208,15 @@ public class StrokeShapePainter implements ShapePainter {
     public Shape getShape(){
         return shape;
     }
+
+    /**
+     * Computes the outline of the shape.  A {@link CompactPath} may return
+     * the outline it kept for an equal stroke.
+     */
+    protected Shape createStrokedShape() {
+        if (shape instanceof CompactPath) {
+            return ((CompactPath) shape).createStrokedShape(stroke);
+        }
+        return stroke.createStrokedShape(shape);
+    }
 }
@@ -357,6 +357,14 @@ public class BackgroundRable8Bit
         return false;
     }
 
+    /**
+     * Returns -1 since the background depends on the whole tree
+     * before the node, so its renderings are never reused.
+     */
+    public long getRenderingStamp() {
+        return -1;
+    }
+
     /**
      * Creates a RenderedImage that represented a rendering of this image
      * using a given RenderContext.  This is the most general way to obtain a
@@ -34,6 +34,7 @@ import org.apache.batik.ext.awt.image.renderable.Filter;
 import org.apache.batik.ext.awt.image.renderable.PaintRable;
 import org.apache.batik.ext.awt.image.rendered.CachableRed;
 import org.apache.batik.ext.awt.image.rendered.TranslateRed;
+import org.apache.batik.gvt.AbstractGraphicsNode;
 import org.apache.batik.gvt.GraphicsNode;
 
 /**
@@ -72,6 +73,7 @@ public class GraphicsNodeRable8Bit
      * if it should use paint.  
      */
     public void setUsePrimitivePaint(boolean usePrimitivePaint) {
+        touch();
         this.usePrimitivePaint = usePrimitivePaint;
     }
 
@@ -95,13 +97,14 @@ public class GraphicsNodeRable8Bit
             throw new IllegalArgumentException();
         }
 
+        touch();
         this.node = node;
     }
 
     /**
      * Clear any cached Red.
      */
-    public void clearCache() {
+    public synchronized void clearCache() {
         cachedRed     = null;
         cachedUsr2dev = null;
         cachedGn2dev  = null;
@@ -188,6 +191,19 @@ public class GraphicsNodeRable8Bit
         return false;
     }
 
+    /**
+     * Returns a stamp that also changes when the rendered
+     * <code>GraphicsNode</code> or its descendants change.
+     */
+    public long getRenderingStamp() {
+        if (!(node instanceof AbstractGraphicsNode))
+            return -1;
+        long s = super.getRenderingStamp();
+        if (s < 0)
+            return -1;
+        return Math.max(s, ((AbstractGraphicsNode)node).getChangeStamp());
+    }
+
     /**
      * Should perform the equivilent action as 
      * createRendering followed by drawing the RenderedImage to 
@@ -240,7 +256,8 @@ public class GraphicsNodeRable8Bit
      * @param renderContext the RenderContext to use to produce the rendering.
      * @return a RenderedImage containing the rendered data.
      */
-    public RenderedImage createRendering(RenderContext renderContext){
+    public synchronized RenderedImage createRendering
+        (RenderContext renderContext){
         // Get user space to device space transform
         AffineTransform usr2dev = renderContext.getTransform();
 
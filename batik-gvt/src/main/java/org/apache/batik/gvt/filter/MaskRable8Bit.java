@@ -32,6 +32,7 @@ import org.apache.batik.ext.awt.image.renderable.PadRable8Bit;
 import org.apache.batik.ext.awt.image.rendered.CachableRed;
 import org.apache.batik.ext.awt.image.rendered.MultiplyAlphaRed;
 import org.apache.batik.ext.awt.image.rendered.RenderedImageCachableRed;
+import org.apache.batik.gvt.AbstractGraphicsNode;
 import org.apache.batik.gvt.GraphicsNode;
 
 /**
@@ -118,6 +119,19 @@ public class MaskRable8Bit
         return mask;
     }
 
+    /**
+     * Returns a stamp that also changes when the mask node or its
+     * descendants change.
+     */
+    public long getRenderingStamp() {
+        if (!(mask instanceof AbstractGraphicsNode))
+            return -1;
+        long s = super.getRenderingStamp();
+        if (s < 0)
+            return -1;
+        return Math.max(s, ((AbstractGraphicsNode)mask).getChangeStamp());
+    }
+
     /**
      * Pass-through: returns the source's bounds
      */
@@ -390,7 +390,7 @@ public class StaticRenderer implements ImageRenderer {
 
         // Ensure only one thread works on baseRaster at a time...
         synchronized (syncRaster) {
-            cr.copyData(copyRaster);
+            renderRaster(cr, copyRaster);
         }
 
         if (!HaltingThread.hasBeenHalted()) {
@@ -409,6 +409,19 @@ public class StaticRenderer implements ImageRenderer {
         }
     }
 
+    /**
+     * Computes the content of <code>wr</code> from <code>cr</code>.
+     * This is called by <code>repaint</code> while holding the lock on
+     * the working base raster, subclasses may override it to change
+     * how the pixels are produced.
+     *
+     * @param cr the image to render.
+     * @param wr the raster to fill, in the coordinate system of cr.
+     */
+    protected void renderRaster(CachableRed cr, WritableRaster wr) {
+        cr.copyData(wr);
+    }
+
     /**
      * Flush any cached image data.
      */
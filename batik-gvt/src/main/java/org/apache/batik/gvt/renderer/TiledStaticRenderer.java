@@ -0,0 +1,199 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.gvt.renderer;
+
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.batik.ext.awt.image.rendered.CachableRed;
+import org.apache.batik.ext.awt.image.rendered.LRUCache;
+import org.apache.batik.ext.awt.image.rendered.TileCache;
+import org.apache.batik.util.ParallelTasks;
+
+/**
+ * A StaticRenderer that splits the area to repaint in tiles and
+ * computes them concurrently on an <code>ExecutorService</code>.
+ *
+ * Each tile is rendered through its own child raster (and so its own
+ * Graphics2D, clipped to the tile) and the tiles are aligned on the
+ * tile grid of the root image, so no two tasks compute the same tile
+ * of the root cache.  Since the GVT tree is painted from several
+ * threads at once it must not be modified while a repaint is in
+ * progress, this renderer is meant for static documents.
+ *
+ * @version $Id$
+ */
+public class TiledStaticRenderer extends StaticRenderer {
+
+    /**
+     * The default size of the rendered tiles.
+     */
+    public static final int DEFAULT_TILE_SIZE = 256;
+
+    /**
+     * The executor the tiles are rendered on.
+     */
+    protected ExecutorService executor;
+
+    /**
+     * The requested size of the rendered tiles.
+     */
+    protected int tileSize;
+
+    /**
+     * Creates a new TiledStaticRenderer.
+     * @param executor the executor to render the tiles on.
+     * @param tileSize the requested tile size in pixels, rounded up to
+     *        a multiple of the root image tile size.
+     */
+    public TiledStaticRenderer(ExecutorService executor, int tileSize) {
+        super();
+        setExecutor(executor);
+        setTileSize(tileSize);
+    }
+
+    /**
+     * Creates a new TiledStaticRenderer.
+     * @param rh Hints for rendering.
+     * @param at Starting user to device coordinate system transform.
+     * @param executor the executor to render the tiles on.
+     * @param tileSize the requested tile size in pixels.
+     */
+    public TiledStaticRenderer(RenderingHints rh,
+                               AffineTransform at,
+                               ExecutorService executor,
+                               int tileSize) {
+        super(rh, at);
+        setExecutor(executor);
+        setTileSize(tileSize);
+    }
+
+    /**
+     * Returns the executor the tiles are rendered on.
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the executor the tiles are rendered on.
+     */
+    public void setExecutor(ExecutorService executor) {
+        if (executor == null)
+            throw new IllegalArgumentException("executor is null");
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the requested size of the rendered tiles.
+     */
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Sets the requested size of the rendered tiles.  Values smaller
+     * than one select the default tile size.
+     */
+    public void setTileSize(int tileSize) {
+        if (tileSize < 1)
+            tileSize = DEFAULT_TILE_SIZE;
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Renders <code>wr</code> tile by tile on the executor and the
+     * calling thread, and waits for all the tiles to be completed.
+     * No task writes to <code>wr</code> once this method has returned,
+     * even when it completes abruptly.
+     * @throws InterruptedRenderingException if the calling thread is
+     *         interrupted before all the tiles are rendered, the
+     *         remaining tiles are then skipped.
+     */
+    protected void renderRaster(final CachableRed cr, WritableRaster wr) {
+        Rectangle r = wr.getBounds();
+        SampleModel sm = cr.getSampleModel();
+        int crtw = sm.getWidth();
+        int crth = sm.getHeight();
+        int tw = ((tileSize + crtw - 1) / crtw) * crtw;
+        int th = ((tileSize + crth - 1) / crth) * crth;
+
+        // Start on the first tile boundary at or before r.
+        int gx = cr.getTileGridXOffset();
+        int gy = cr.getTileGridYOffset();
+        int x0 = gx + floorDiv(r.x - gx, tw) * tw;
+        int y0 = gy + floorDiv(r.y - gy, th) * th;
+
+        List rects = new ArrayList();
+        for (int y = y0; y < r.y + r.height; y += th) {
+            for (int x = x0; x < r.x + r.width; x += tw) {
+                Rectangle t = r.intersection(new Rectangle(x, y, tw, th));
+                if (!t.isEmpty())
+                    rects.add(t);
+            }
+        }
+
+        if (rects.size() < 2) {
+            cr.copyData(wr);
+            return;
+        }
+
+        // The tile stores created by the tasks must use the same cache
+        // as the ones created on this thread.
+        final LRUCache cache = TileCache.getCache();
+        final Thread caller = Thread.currentThread();
+        Runnable[] tasks = new Runnable[rects.size()];
+        for (int i = 0; i < tasks.length; i++) {
+            Rectangle t = (Rectangle) rects.get(i);
+            final WritableRaster child = wr.createWritableChild
+                (t.x, t.y, t.width, t.height, t.x, t.y, null);
+            tasks[i] = new Runnable() {
+                    public void run() {
+                        if (caller.isInterrupted())
+                            return;
+                        LRUCache prev = TileCache.setCache(cache);
+                        try {
+                            cr.copyData(child);
+                        } finally {
+                            TileCache.setCache(prev);
+                        }
+                    }
+                };
+        }
+        ParallelTasks.run(executor, tasks);
+
+        if (caller.isInterrupted()) {
+            // The raster is only partly rendered, it must not be used.
+            throw new InterruptedRenderingException();
+        }
+    }
+
+    private static int floorDiv(int a, int b) {
+        int q = a / b;
+        if ((a % b != 0) && ((a < 0) != (b < 0)))
+            q--;
+        return q;
+    }
+}
@@ -27,7 +27,6 @@ import java.util.MissingResourceException;
 import org.apache.batik.i18n.LocalizableSupport;
 import org.apache.batik.util.io.NormalizingReader;
 import org.apache.batik.util.io.StreamNormalizingReader;
-import org.apache.batik.util.io.StringNormalizingReader;
 
 /**
  * This class is the superclass of all parsers. It provides localization
@@ -57,10 +56,27 @@ public abstract class AbstractParser implements Parser {
                                AbstractParser.class.getClassLoader());
 
     /**
-     * The normalizing reader.
+     * The normalizing reader.  It is null while a string is parsed, so
+     * the characters must be read with {@link #read()}.
      */
     protected NormalizingReader reader;
 
+    /**
+     * The characters of the string being parsed, or null when parsing
+     * from a reader.
+     */
+    protected char[] chars;
+
+    /**
+     * The index of the next character in {@link #chars}.
+     */
+    protected int position;
+
+    /**
+     * The number of characters in {@link #chars}.
+     */
+    protected int length;
+
     /**
      * The current character.
      */
@@ -118,6 +134,7 @@ public abstract class AbstractParser implements Parser {
     public void parse(Reader r) throws ParseException {
         try {
             reader = new StreamNormalizingReader(r);
+            length = 0;
             doParse();
         } catch (IOException e) {
             errorHandler.error
@@ -133,6 +150,7 @@ public abstract class AbstractParser implements Parser {
     public void parse(InputStream is, String enc) throws ParseException {
         try {
             reader = new StreamNormalizingReader(is, enc);
+            length = 0;
             doParse();
         } catch (IOException e) {
             errorHandler.error
@@ -142,17 +160,76 @@ public abstract class AbstractParser implements Parser {
     }
 
     /**
-     * Parses the given string.
+     * Parses the given string.  The characters are scanned directly from
+     * an array rather than through a {@link NormalizingReader}.
      */
     public void parse(String s) throws ParseException {
         try {
-            reader = new StringNormalizingReader(s);
+            reader = null;
+            chars = s.toCharArray();
+            position = 0;
+            length = chars.length;
             doParse();
         } catch (IOException e) {
             errorHandler.error
                 (new ParseException
                  (createErrorMessage("io.exception", null), e));
+        } finally {
+            chars = null;
+            length = 0;
+        }
+    }
+
+    /**
+     * Reads the next character, with the line breaks normalized to '\n'
+     * as {@link NormalizingReader} does.
+     * @return The character, or -1 at the end of the input.
+     */
+    protected int read() throws IOException {
+        if (position < length) {
+            int c = chars[position++];
+            if (c != 13) {
+                return c;
+            }
+            if (position < length && chars[position] == 10) {
+                position++;
+            }
+            return 10;
+        }
+        return (chars == null) ? reader.read() : -1;
+    }
+
+    /**
+     * Returns the current line of the input.
+     */
+    protected int getLine() {
+        if (chars == null) {
+            return reader.getLine();
+        }
+        int line = 1;
+        for (int i = 0; i < position; i++) {
+            switch (chars[i]) {
+            case 13:
+                if (i + 1 < position && chars[i + 1] == 10) {
+                    i++;
+                }
+            case 10:
+                line++;
+            }
+        }
+        return line;
+    }
+
+    /**
+     * Returns the current column of the input.
+     */
+    protected int getColumn() {
+        if (chars == null) {
+            return reader.getColumn();
         }
+        // Like StringNormalizingReader, which only resets the column at
+        // line breaks.
+        return 0;
     }
 
     /**
@@ -170,8 +247,8 @@ public abstract class AbstractParser implements Parser {
     protected void reportError(String key, Object[] args)
         throws ParseException {
         errorHandler.error(new ParseException(createErrorMessage(key, args),
-                                              reader.getLine(),
-                                              reader.getColumn()));
+                                              getLine(),
+                                              getColumn()));
     }
 
     /**
@@ -234,7 +311,7 @@ public abstract class AbstractParser implements Parser {
             case 0x0D:
             case 0x0A:
             }
-            current = reader.read();
+            current = read();
         }
     }
 
@@ -242,6 +319,34 @@ public abstract class AbstractParser implements Parser {
      * Skips the whitespaces and an optional comma.
      */
     protected void skipCommaSpaces() throws IOException {
+        if (chars != null) {
+            // Scan the array directly.  The line breaks are skipped as
+            // spaces, so they do not need to be normalized.
+            char[] cs = chars;
+            int len = length;
+            int p = position;
+            int c = current;
+            boolean comma = false;
+            for (;;) {
+                switch (c) {
+                case ',':
+                    if (comma) {
+                        break;
+                    }
+                    comma = true;
+                case 0x20:
+                case 0x9:
+                case 0xD:
+                case 0xA:
+                    c = (p < len) ? cs[p++] : -1;
+                    continue;
+                }
+                break;
+            }
+            position = p;
+            current = c;
+            return;
+        }
         wsp1: for (;;) {
             switch (current) {
             default:
@@ -251,11 +356,11 @@ public abstract class AbstractParser implements Parser {
             case 0xD:
             case 0xA:
             }
-            current = reader.read();
+            current = read();
         }
         if (current == ',') {
             wsp2: for (;;) {
-                switch (current = reader.read()) {
+                switch (current = read()) {
                 default:
                     break wsp2;
                 case 0x20:
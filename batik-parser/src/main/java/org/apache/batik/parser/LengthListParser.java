@@ -64,7 +64,7 @@ public class LengthListParser extends LengthParser {
     protected void doParse() throws ParseException, IOException {
         ((LengthListHandler)lengthHandler).startLengthList();
 
-        current = reader.read();
+        current = read();
         skipSpaces();
 
         try {
@@ -66,7 +66,7 @@ public class LengthParser extends AbstractParser {
     protected void doParse() throws ParseException, IOException {
         lengthHandler.startLength();
 
-        current = reader.read();
+        current = read();
         skipSpaces();
 
         parseLength();
@@ -99,7 +99,7 @@ public class LengthParser extends AbstractParser {
         case '-':
             mantPos = false;
         case '+':
-            current = reader.read();
+            current = read();
         }
 
         m1: switch (current) {
@@ -113,7 +113,7 @@ public class LengthParser extends AbstractParser {
         case '0':
             mantRead = true;
             l: for (;;) {
-                current = reader.read();
+                current = read();
                 switch (current) {
                 case '1': case '2': case '3': case '4':
                 case '5': case '6': case '7': case '8': case '9':
@@ -134,7 +134,7 @@ public class LengthParser extends AbstractParser {
                 } else {
                     expAdj++;
                 }
-                current = reader.read();
+                current = read();
                 switch (current) {
                 default:
                     break l;
@@ -145,7 +145,7 @@ public class LengthParser extends AbstractParser {
         }
 
         if (current == '.') {
-            current = reader.read();
+            current = read();
             m2: switch (current) {
             default:
             case 'e': case 'E':
@@ -158,7 +158,7 @@ public class LengthParser extends AbstractParser {
             case '0':
                 if (mantDig == 0) {
                     l: for (;;) {
-                        current = reader.read();
+                        current = read();
                         expAdj--;
                         switch (current) {
                         case '1': case '2': case '3': case '4':
@@ -178,7 +178,7 @@ public class LengthParser extends AbstractParser {
                         mant = mant * 10 + (current - '0');
                         expAdj--;
                     }
-                    current = reader.read();
+                    current = read();
                     switch (current) {
                     default:
                         break l;
@@ -194,7 +194,7 @@ public class LengthParser extends AbstractParser {
         case 'e':
             le = true;
         case 'E':
-            current = reader.read();
+            current = read();
             switch (current) {
             default:
                 reportUnexpectedCharacterError( current );
@@ -216,7 +216,7 @@ public class LengthParser extends AbstractParser {
             case '-':
                 expPos = false;
             case '+':
-                current = reader.read();
+                current = read();
                 switch (current) {
                 default:
                     reportUnexpectedCharacterError( current );
@@ -231,7 +231,7 @@ public class LengthParser extends AbstractParser {
             en: switch (current) {
             case '0':
                 l: for (;;) {
-                    current = reader.read();
+                    current = read();
                     switch (current) {
                     case '1': case '2': case '3': case '4':
                     case '5': case '6': case '7': case '8': case '9':
@@ -249,7 +249,7 @@ public class LengthParser extends AbstractParser {
                         expDig++;
                         exp = exp * 10 + (current - '0');
                     }
-                    current = reader.read();
+                    current = read();
                     switch (current) {
                     default:
                         break l;
@@ -274,25 +274,25 @@ public class LengthParser extends AbstractParser {
         switch (unitState) {
         case 1:
             lengthHandler.em();
-            current = reader.read();
+            current = read();
             return;
         case 2:
             lengthHandler.ex();
-            current = reader.read();
+            current = read();
             return;
         }
 
         switch (current) {
         case 'e':
-            current = reader.read();
+            current = read();
             switch (current) {
             case 'm':
                 lengthHandler.em();
-                current = reader.read();
+                current = read();
                 break;
             case 'x':
                 lengthHandler.ex();
-                current = reader.read();
+                current = read();
                 break;
             default:
                 reportUnexpectedCharacterError( current );
@@ -300,19 +300,19 @@ public class LengthParser extends AbstractParser {
             break;
 
         case 'p':
-            current = reader.read();
+            current = read();
             switch (current) {
             case 'c':
                 lengthHandler.pc();
-                current = reader.read();
+                current = read();
                 break;
             case 't':
                 lengthHandler.pt();
-                current = reader.read();
+                current = read();
                 break;
             case 'x':
                 lengthHandler.px();
-                current = reader.read();
+                current = read();
                 break;
             default:
                 reportUnexpectedCharacterError( current );
@@ -320,35 +320,35 @@ public class LengthParser extends AbstractParser {
             break;
 
         case 'i':
-            current = reader.read();
+            current = read();
             if (current != 'n') {
                 reportCharacterExpectedError( 'n', current );
                 break;
             }
             lengthHandler.in();
-            current = reader.read();
+            current = read();
             break;
         case 'c':
-            current = reader.read();
+            current = read();
             if (current != 'm') {
                 reportCharacterExpectedError( 'm',current );
                 break;
             }
             lengthHandler.cm();
-            current = reader.read();
+            current = read();
             break;
         case 'm':
-            current = reader.read();
+            current = read();
             if (current != 'm') {
                 reportCharacterExpectedError( 'm',current );
                 break;
             }
             lengthHandler.mm();
-            current = reader.read();
+            current = read();
             break;
         case '%':
             lengthHandler.percentage();
-            current = reader.read();
+            current = read();
             break;
         }
     }
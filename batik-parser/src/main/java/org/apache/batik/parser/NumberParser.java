@@ -32,6 +32,13 @@ public abstract class NumberParser extends AbstractParser {
      * Parses the content of the buffer and converts it to a float.
      */
     protected float parseFloat() throws ParseException, IOException {
+        if (chars != null) {
+            float f = scanFloat();
+            if (f == f) {
+                return f;
+            }
+        }
+
         int     mant     = 0;
         int     mantDig  = 0;
         boolean mantPos  = true;
@@ -47,7 +54,7 @@ public abstract class NumberParser extends AbstractParser {
             mantPos = false;
             // fallthrough
         case '+':
-            current = reader.read();
+            current = read();
         }
 
         m1: switch (current) {
@@ -61,7 +68,7 @@ public abstract class NumberParser extends AbstractParser {
         case '0':
             mantRead = true;
             l: for (;;) {
-                current = reader.read();
+                current = read();
                 switch (current) {
                 case '1': case '2': case '3': case '4':
                 case '5': case '6': case '7': case '8': case '9':
@@ -84,7 +91,7 @@ public abstract class NumberParser extends AbstractParser {
                 } else {
                     expAdj++;
                 }
-                current = reader.read();
+                current = read();
                 switch (current) {
                 default:
                     break l;
@@ -95,7 +102,7 @@ public abstract class NumberParser extends AbstractParser {
         }
 
         if (current == '.') {
-            current = reader.read();
+            current = read();
             m2: switch (current) {
             default:
             case 'e': case 'E':
@@ -108,7 +115,7 @@ public abstract class NumberParser extends AbstractParser {
             case '0':
                 if (mantDig == 0) {
                     l: for (;;) {
-                        current = reader.read();
+                        current = read();
                         expAdj--;
                         switch (current) {
                         case '1': case '2': case '3': case '4':
@@ -131,7 +138,7 @@ public abstract class NumberParser extends AbstractParser {
                         mant = mant * 10 + (current - '0');
                         expAdj--;
                     }
-                    current = reader.read();
+                    current = read();
                     switch (current) {
                     default:
                         break l;
@@ -144,7 +151,7 @@ public abstract class NumberParser extends AbstractParser {
 
         switch (current) {
         case 'e': case 'E':
-            current = reader.read();
+            current = read();
             switch (current) {
             default:
                 reportUnexpectedCharacterError( current );
@@ -152,7 +159,7 @@ public abstract class NumberParser extends AbstractParser {
             case '-':
                 expPos = false;
             case '+':
-                current = reader.read();
+                current = read();
                 switch (current) {
                 default:
                     reportUnexpectedCharacterError( current );
@@ -167,7 +174,7 @@ public abstract class NumberParser extends AbstractParser {
             en: switch (current) {
             case '0':
                 l: for (;;) {
-                    current = reader.read();
+                    current = read();
                     switch (current) {
                     case '1': case '2': case '3': case '4':
                     case '5': case '6': case '7': case '8': case '9':
@@ -185,7 +192,7 @@ public abstract class NumberParser extends AbstractParser {
                         expDig++;
                         exp = exp * 10 + (current - '0');
                     }
-                    current = reader.read();
+                    current = read();
                     switch (current) {
                     default:
                         break l;
@@ -208,6 +215,117 @@ public abstract class NumberParser extends AbstractParser {
         return buildFloat(mant, exp);
     }
 
+    /**
+     * Scans a float directly from the characters of the string being
+     * parsed, with the same result as the general case of {@link
+     * #parseFloat()}.  The digits are read from local variables rather
+     * than one {@link #read()} at a time.
+     * @return The number, or NaN, without consuming any character, when
+     *         the input is not a well formed number; the general case
+     *         then reports the error.
+     */
+    protected float scanFloat() throws IOException {
+        char[] cs = chars;
+        int len = length;
+        int p = position - 1;
+        int c = current;
+        if (p < 0 || c != cs[p]) {
+            // The current character is a normalized line break or the end.
+            return Float.NaN;
+        }
+
+        int mant = 0;
+        int mantDig = 0;
+        boolean mantPos = true;
+        boolean mantRead = false;
+        int expAdj = 0;
+
+        if (c == '-' || c == '+') {
+            mantPos = c == '+';
+            c = (++p < len) ? cs[p] : -1;
+        }
+        if ((c < '0' || c > '9') && c != '.') {
+            return Float.NaN;
+        }
+
+        while (c == '0') {
+            mantRead = true;
+            c = (++p < len) ? cs[p] : -1;
+        }
+        while (c >= '0' && c <= '9') {
+            mantRead = true;
+            if (mantDig < 9) {
+                mantDig++;
+                mant = mant * 10 + (c - '0');
+            } else {
+                expAdj++;
+            }
+            c = (++p < len) ? cs[p] : -1;
+        }
+
+        if (c == '.') {
+            c = (++p < len) ? cs[p] : -1;
+            if (c >= '0' && c <= '9') {
+                if (mantDig == 0) {
+                    while (c == '0') {
+                        expAdj--;
+                        c = (++p < len) ? cs[p] : -1;
+                    }
+                    if ((c < '1' || c > '9') && !mantRead) {
+                        // Only zeros: the general case stops here.
+                        return Float.NaN;
+                    }
+                }
+                while (c >= '0' && c <= '9') {
+                    if (mantDig < 9) {
+                        mantDig++;
+                        mant = mant * 10 + (c - '0');
+                        expAdj--;
+                    }
+                    c = (++p < len) ? cs[p] : -1;
+                }
+            } else if (!mantRead) {
+                return Float.NaN;
+            }
+        }
+
+        int exp = 0;
+        if (c == 'e' || c == 'E') {
+            boolean expPos = true;
+            c = (++p < len) ? cs[p] : -1;
+            if (c == '-' || c == '+') {
+                expPos = c == '+';
+                c = (++p < len) ? cs[p] : -1;
+            }
+            if (c < '0' || c > '9') {
+                return Float.NaN;
+            }
+            while (c == '0') {
+                c = (++p < len) ? cs[p] : -1;
+            }
+            int expDig = 0;
+            while (c >= '0' && c <= '9') {
+                if (expDig < 3) {
+                    expDig++;
+                    exp = exp * 10 + (c - '0');
+                }
+                c = (++p < len) ? cs[p] : -1;
+            }
+            if (!expPos) {
+                exp = -exp;
+            }
+        }
+
+        position = p;
+        current = read();
+
+        exp += expAdj;
+        if (!mantPos) {
+            mant = -mant;
+        }
+        return buildFloat(mant, exp);
+    }
+
     /**
      * Computes a float from mantissa and exponent.
      */
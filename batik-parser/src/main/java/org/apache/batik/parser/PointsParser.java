@@ -74,7 +74,7 @@ public class PointsParser extends NumberParser {
     protected void doParse() throws ParseException, IOException {
         pointsHandler.startPoints();
 
-        current = reader.read();
+        current = read();
         skipSpaces();
 
         loop: for (;;) {
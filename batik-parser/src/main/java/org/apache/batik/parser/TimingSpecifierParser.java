@@ -66,7 +66,7 @@ public class TimingSpecifierParser extends TimingParser {
      * Parses a timing specifier.
      */
     protected void doParse() throws ParseException, IOException {
-        current = reader.read();
+        current = read();
         Object[] spec = parseTimingSpecifier();
         skipSpaces();
         if (current != -1) {
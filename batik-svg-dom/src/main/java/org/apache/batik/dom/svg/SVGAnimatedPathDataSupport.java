@@ -183,4 +183,117 @@ public abstract class SVGAnimatedPathDataSupport {
         }
         h.endPath();
     }
+
+    /**
+     * Uses the given {@link PathHandler} to handle the path segments stored
+     * in the given arrays, as produced by a
+     * {@link org.apache.batik.parser.PathArrayProducer}.
+     * @param commands The path commands, one of the PATHSEG_* constants
+     *                 of {@link SVGPathSeg}.
+     * @param parameters The path parameters, with the arc flags stored as
+     *                   0 or 1.
+     */
+    public static void handlePathData(short[] commands, float[] parameters,
+                                      PathHandler h) {
+        int j = 0;
+        h.startPath();
+        for (int i = 0; i < commands.length; i++) {
+            switch (commands[i]) {
+                case SVGPathSeg.PATHSEG_CLOSEPATH:
+                    h.closePath();
+                    break;
+                case SVGPathSeg.PATHSEG_MOVETO_ABS:
+                    h.movetoAbs(parameters[j], parameters[j + 1]);
+                    j += 2;
+                    break;
+                case SVGPathSeg.PATHSEG_MOVETO_REL:
+                    h.movetoRel(parameters[j], parameters[j + 1]);
+                    j += 2;
+                    break;
+                case SVGPathSeg.PATHSEG_LINETO_ABS:
+                    h.linetoAbs(parameters[j], parameters[j + 1]);
+                    j += 2;
+                    break;
+                case SVGPathSeg.PATHSEG_LINETO_REL:
+                    h.linetoRel(parameters[j], parameters[j + 1]);
+                    j += 2;
+                    break;
+                case SVGPathSeg.PATHSEG_CURVETO_CUBIC_ABS:
+                    h.curvetoCubicAbs
+                        (parameters[j], parameters[j + 1],
+                         parameters[j + 2], parameters[j + 3],
+                         parameters[j + 4], parameters[j + 5]);
+                    j += 6;
+                    break;
+                case SVGPathSeg.PATHSEG_CURVETO_CUBIC_REL:
+                    h.curvetoCubicRel
+                        (parameters[j], parameters[j + 1],
+                         parameters[j + 2], parameters[j + 3],
+                         parameters[j + 4], parameters[j + 5]);
+                    j += 6;
+                    break;
+                case SVGPathSeg.PATHSEG_CURVETO_QUADRATIC_ABS:
+                    h.curvetoQuadraticAbs
+                        (parameters[j], parameters[j + 1],
+                         parameters[j + 2], parameters[j + 3]);
+                    j += 4;
+                    break;
+                case SVGPathSeg.PATHSEG_CURVETO_QUADRATIC_REL:
+                    h.curvetoQuadraticRel
+                        (parameters[j], parameters[j + 1],
+                         parameters[j + 2], parameters[j + 3]);
+                    j += 4;
+                    break;
+                case SVGPathSeg.PATHSEG_ARC_ABS:
+                    h.arcAbs
+                        (parameters[j], parameters[j + 1], parameters[j + 2],
+                         parameters[j + 3] != 0, parameters[j + 4] != 0,
+                         parameters[j + 5], parameters[j + 6]);
+                    j += 7;
+                    break;
+                case SVGPathSeg.PATHSEG_ARC_REL:
+                    h.arcRel
+                        (parameters[j], parameters[j + 1], parameters[j + 2],
+                         parameters[j + 3] != 0, parameters[j + 4] != 0,
+                         parameters[j + 5], parameters[j + 6]);
+                    j += 7;
+                    break;
+                case SVGPathSeg.PATHSEG_LINETO_HORIZONTAL_ABS:
+                    h.linetoHorizontalAbs(parameters[j++]);
+                    break;
+                case SVGPathSeg.PATHSEG_LINETO_HORIZONTAL_REL:
+                    h.linetoHorizontalRel(parameters[j++]);
+                    break;
+                case SVGPathSeg.PATHSEG_LINETO_VERTICAL_ABS:
+                    h.linetoVerticalAbs(parameters[j++]);
+                    break;
+                case SVGPathSeg.PATHSEG_LINETO_VERTICAL_REL:
+                    h.linetoVerticalRel(parameters[j++]);
+                    break;
+                case SVGPathSeg.PATHSEG_CURVETO_CUBIC_SMOOTH_ABS:
+                    h.curvetoCubicSmoothAbs
+                        (parameters[j], parameters[j + 1],
+                         parameters[j + 2], parameters[j + 3]);
+                    j += 4;
+                    break;
+                case SVGPathSeg.PATHSEG_CURVETO_CUBIC_SMOOTH_REL:
+                    h.curvetoCubicSmoothRel
+                        (parameters[j], parameters[j + 1],
+                         parameters[j + 2], parameters[j + 3]);
+                    j += 4;
+                    break;
+                case SVGPathSeg.PATHSEG_CURVETO_QUADRATIC_SMOOTH_ABS:
+                    h.curvetoQuadraticSmoothAbs
+                        (parameters[j], parameters[j + 1]);
+                    j += 2;
+                    break;
+                case SVGPathSeg.PATHSEG_CURVETO_QUADRATIC_SMOOTH_REL:
+                    h.curvetoQuadraticSmoothRel
+                        (parameters[j], parameters[j + 1]);
+                    j += 2;
+                    break;
+            }
+        }
+        h.endPath();
+    }
 }
@@ -44,7 +44,7 @@ import org.apache.batik.util.ApplicationSecurityEnforcer;
  * @author <a href="mailto:vhardy@apache.org">Vincent Hardy</a>
  * @version $Id$
  */
-public class Main implements SVGConverterController {
+public class Main implements SVGConverterTimingController {
     /**
      * URL for Squiggle's security policy file
      */
@@ -510,6 +510,15 @@ public class Main implements SVGConverterController {
     public static String CL_OPTION_SECURITY_OFF_DESCRIPTION
         = Messages.get("Main.cl.option.security.off.description", "No description");
 
+    /**
+     * Option to specify the number of files converted at once
+     */
+    public static String CL_OPTION_THREADS
+        = Messages.get("Main.cl.option.threads", "-threads");
+
+    public static String CL_OPTION_THREADS_DESCRIPTION
+        = Messages.get("Main.cl.option.threads.description", "No description");
+
     /**
      * Static map containing all the option handlers able to analyze the
      * various options.
@@ -829,6 +838,22 @@ public class Main implements SVGConverterController {
                               return CL_OPTION_SECURITY_OFF_DESCRIPTION;
                           }
                       });
+
+        optionMap.put(CL_OPTION_THREADS,
+                      new FloatOptionHandler(){
+                              public void handleOption(float optionValue,
+                                                       SVGConverter c){
+                                  if (optionValue < 1 ||
+                                      optionValue != (int)optionValue)
+                                      throw new IllegalArgumentException();
+
+                                  c.setThreadCount((int)optionValue);
+                              }
+
+                              public String getOptionDescription(){
+                                  return CL_OPTION_THREADS_DESCRIPTION;
+                              }
+                          });
     }
 
     /**
@@ -837,6 +862,13 @@ public class Main implements SVGConverterController {
      */
     protected List args;
 
+    /**
+     * Whether several files are converted at once, in which case
+     * each message is printed on a single line, with the time the
+     * conversion took.
+     */
+    protected boolean batch;
+
     public Main(String[] args){
         this.args = new ArrayList();
         for (String arg : args) {
@@ -926,6 +958,8 @@ public class Main implements SVGConverterController {
 
         validateConverterConfig(c);
 
+        batch = c.getThreadCount() > 1;
+
         if (expandedSources== null || expandedSources.length < 1){
             System.out.println(USAGE);
             System.out.flush();
@@ -939,6 +973,7 @@ public class Main implements SVGConverterController {
             error(ERROR_WHILE_CONVERTING_FILES,
                   new Object[] { e.getMessage() });
         } finally {
+            c.shutdown();
             System.out.flush();
             securityEnforcer.enforceSecurity(false);
         }
@@ -1006,6 +1041,9 @@ public class Main implements SVGConverterController {
     public static final String MESSAGE_CONVERSION_SUCCESS
         = "Main.message.conversion.success";
 
+    public static final String MESSAGE_CONVERSION_SUCCESS_TIME
+        = "Main.message.conversion.success.time";
+
     public boolean proceedWithComputedTask(Transcoder transcoder,
                                            Map hints,
                                            List sources,
@@ -1017,25 +1055,47 @@ public class Main implements SVGConverterController {
 
     public boolean proceedWithSourceTranscoding(SVGConverterSource source,
                                                 File dest){
-        System.out.print(Messages.formatMessage(MESSAGE_ABOUT_TO_TRANSCODE_SOURCE,
-                                                new Object[]{source.toString(),
-                                                             dest.toString()}));
+        if (!batch) {
+            printAboutToTranscode(source, dest);
+        }
         return true;
     }
 
-    public boolean proceedOnSourceTranscodingFailure(SVGConverterSource source,
-                                                     File dest,
-                                                     String errorCode){
+    public synchronized boolean proceedOnSourceTranscodingFailure
+        (SVGConverterSource source, File dest, String errorCode){
+        if (batch) {
+            printAboutToTranscode(source, dest);
+        }
         System.out.println(Messages.formatMessage(MESSAGE_CONVERSION_FAILED,
                                                   new Object[]{errorCode}));
 
         return true;
     }
 
+    public synchronized void onSourceTranscodingTime(SVGConverterSource source,
+                                                     File dest,
+                                                     long time){
+        if (batch) {
+            printAboutToTranscode(source, dest);
+            System.out.println
+                (Messages.formatMessage(MESSAGE_CONVERSION_SUCCESS_TIME,
+                                        new Object[]{"" + time}));
+        }
+    }
+
     public void onSourceTranscodingSuccess(SVGConverterSource source,
                                            File dest){
-        System.out.println(Messages.formatMessage(MESSAGE_CONVERSION_SUCCESS,
-                                                  null));
+        // In batch mode the success is reported with the transcoding time.
+        if (!batch) {
+            System.out.println(Messages.formatMessage(MESSAGE_CONVERSION_SUCCESS,
+                                                      null));
+        }
     }
-}
 
+    protected void printAboutToTranscode(SVGConverterSource source,
+                                         File dest){
+        System.out.print(Messages.formatMessage(MESSAGE_ABOUT_TO_TRANSCODE_SOURCE,
+                                                new Object[]{source.toString(),
+                                                             dest.toString()}));
+    }
+}
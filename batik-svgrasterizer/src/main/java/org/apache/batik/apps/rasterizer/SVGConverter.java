@@ -32,6 +32,15 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.batik.transcoder.Transcoder;
 import org.apache.batik.transcoder.TranscoderInput;
@@ -92,6 +101,16 @@ import org.apache.batik.util.ParsedURL;
  *     to use when processing the SVG documents.</li>
  * </ul>
  *
+ * <hr>
+ *
+ * The sources are converted one after the other unless a thread count
+ * greater than one is set with <code>setThreadCount</code>. In that case
+ * up to that many sources are converted at once by worker threads, each
+ * one using its own transcoder. The worker threads and their transcoders
+ * are kept between calls to <code>execute</code>, so a converter can be
+ * used as a long lived batch service. The <code>shutdown</code> method
+ * releases them.
+ *
  * @version $Id$
  * @author <a href="mailto:Henri.Ruini@nokia.com">Henri Ruini</a>
  * @author <a href="mailto:vhardy@apache.org">Vincent Hardy</a>
@@ -280,6 +299,21 @@ public class SVGConverter {
     /** Contents of <code>fileset</code> elements. */
     protected List files = new ArrayList();
 
+    /** Maximum number of sources converted at once. */
+    protected int threadCount = 1;
+
+    /** Runs the conversions when threadCount is greater than one. */
+    protected ExecutorService executor;
+
+    /** Idle transcoders, ready to be reused for the next sources. */
+    protected List transcoderPool = new ArrayList();
+
+    /** The destination type of the pooled transcoders. */
+    protected DestinationType transcoderPoolType;
+
+    /** The hints set on the pooled transcoders. */
+    protected Map transcoderPoolHints;
+
     /**
      * Controls some aspects of the converter's operation,
      *  such as whether or not it should proceed in some
@@ -649,6 +683,39 @@ public class SVGConverter {
         return securityOff;
     }
 
+    /**
+     * Sets the maximum number of sources converted at once. When it is
+     * greater than one, the controller is invoked from several threads
+     * and must be thread safe.
+     */
+    public void setThreadCount(int threadCount){
+        if (threadCount < 1){
+            throw new IllegalArgumentException();
+        }
+        if (threadCount != this.threadCount){
+            shutdownExecutor();
+        }
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Returns the maximum number of sources converted at once.
+     */
+    public int getThreadCount(){
+        return threadCount;
+    }
+
+    /**
+     * Releases the worker threads and the transcoders kept for the
+     * next conversions.
+     */
+    public void shutdown(){
+        shutdownExecutor();
+        synchronized (transcoderPool) {
+            transcoderPool.clear();
+        }
+    }
+
     /**
      * Returns true if f is a File. <code>f</code> is found to be a file if
      * it exists and is a file. If it does not exist, it is declared
@@ -686,35 +753,198 @@ public class SVGConverter {
             dstFiles = computeDstFiles(sources);
         }
 
-        // Now, get the transcoder to use for the operation
-        Transcoder transcoder = destinationType.getTranscoder();
-        if(transcoder == null) {
-            throw new SVGConverterException(ERROR_CANNOT_ACCESS_TRANSCODER,
-                                             new Object[]{destinationType.toString()},
-                                             true /* fatal error */);
-        }
-
         // Now, compute the set of transcoding hints to use
         Map hints = computeTranscodingHints();
-        transcoder.setTranscodingHints(hints);
+
+        // Now, get the transcoder to use for the operation
+        Transcoder transcoder = getTranscoder(hints);
 
         // Notify listener that task has been computed
         if(!controller.proceedWithComputedTask(transcoder,
                                                hints,
                                                sources,
                                                dstFiles)){
+            releaseTranscoder(transcoder);
+            return;
+        }
+
+        if (threadCount > 1 && sources.size() > 1) {
+            releaseTranscoder(transcoder);
+            transcodeConcurrently(sources, dstFiles, hints);
             return;
         }
 
         // Convert files one by one
-        for(int i = 0 ; i < sources.size() ; i++) {
-            // Get the file from the vector.
-            SVGConverterSource currentFile
-                = (SVGConverterSource)sources.get(i);
-            File outputFile  = (File)dstFiles.get(i);
-
-            createOutputDir(outputFile);
-            transcode(currentFile, outputFile, transcoder);
+        try {
+            for(int i = 0 ; i < sources.size() ; i++) {
+                // Get the file from the vector.
+                SVGConverterSource currentFile
+                    = (SVGConverterSource)sources.get(i);
+                File outputFile  = (File)dstFiles.get(i);
+
+                createOutputDir(outputFile);
+                transcode(currentFile, outputFile, transcoder);
+            }
+        } finally {
+            releaseTranscoder(transcoder);
+        }
+    }
+
+    /**
+     * Converts the sources on the worker threads, at most
+     * <code>threadCount</code> at a time, and waits for all of them.
+     * If the controller decides to stop on an error the sources not
+     * started yet are skipped, the ones being converted are completed
+     * and then the error is thrown.
+     */
+    protected void transcodeConcurrently(List sources,
+                                         List dstFiles,
+                                         final Map hints)
+        throws SVGConverterException {
+        CompletionService cs = new ExecutorCompletionService(getExecutor());
+        List futures = new ArrayList(sources.size());
+        final AtomicBoolean stopped = new AtomicBoolean();
+        try {
+            for(int i = 0 ; i < sources.size() ; i++) {
+                final SVGConverterSource currentFile
+                    = (SVGConverterSource)sources.get(i);
+                final File outputFile  = (File)dstFiles.get(i);
+
+                // Output directories are created here so that two
+                // workers never race on the same directory.
+                createOutputDir(outputFile);
+                futures.add(cs.submit(new Callable() {
+                        public Object call() throws Exception {
+                            if (stopped.get()) {
+                                return null;
+                            }
+                            Transcoder t = getTranscoder(hints);
+                            try {
+                                transcode(currentFile, outputFile, t);
+                            } finally {
+                                releaseTranscoder(t);
+                            }
+                            return null;
+                        }
+                    }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                cs.take().get();
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ee) {
+            Throwable t = ee.getCause();
+            if (t instanceof SVGConverterException)
+                throw (SVGConverterException) t;
+            if (t instanceof RuntimeException)
+                throw (RuntimeException) t;
+            if (t instanceof Error)
+                throw (Error) t;
+            throw new RuntimeException(t);
+        } finally {
+            // Skip the sources not started yet, and wait for the ones
+            // being converted so none is still running on return.
+            stopped.set(true);
+            waitFor(futures);
+        }
+    }
+
+    /**
+     * Waits until the given tasks are completed, whatever their outcome.
+     * An interruption of the waiting thread is restored on return.
+     */
+    protected void waitFor(List futures) {
+        boolean interrupted = false;
+        for (Object future : futures) {
+            while (true) {
+                try {
+                    ((Future) future).get();
+                    break;
+                } catch (InterruptedException ie) {
+                    interrupted = true;
+                } catch (ExecutionException ee) {
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns a transcoder for the current destination type, set up
+     * with the given hints. Transcoders released with
+     * <code>releaseTranscoder</code> are reused when possible.
+     */
+    protected Transcoder getTranscoder(Map hints)
+        throws SVGConverterException {
+        Transcoder transcoder = null;
+        synchronized (transcoderPool) {
+            // Hints are only ever added to a transcoder, so one set up
+            // for another configuration cannot be reused.
+            if (transcoderPoolType != destinationType
+                    || !hints.equals(transcoderPoolHints)) {
+                transcoderPool.clear();
+                transcoderPoolType = destinationType;
+                transcoderPoolHints = hints;
+            }
+            int n = transcoderPool.size();
+            if (n > 0) {
+                transcoder = (Transcoder)transcoderPool.remove(n - 1);
+            }
+        }
+        if (transcoder == null) {
+            transcoder = destinationType.getTranscoder();
+        }
+        if(transcoder == null) {
+            throw new SVGConverterException(ERROR_CANNOT_ACCESS_TRANSCODER,
+                                             new Object[]{destinationType.toString()},
+                                             true /* fatal error */);
+        }
+        transcoder.setTranscodingHints(hints);
+        return transcoder;
+    }
+
+    /**
+     * Makes a transcoder obtained from <code>getTranscoder</code>
+     * available for the next sources.
+     */
+    protected void releaseTranscoder(Transcoder transcoder) {
+        synchronized (transcoderPool) {
+            if (transcoderPoolType == destinationType
+                    && transcoderPool.size() < threadCount) {
+                transcoderPool.add(transcoder);
+            }
+        }
+    }
+
+    /**
+     * Returns the executor running the conversions, creating it if
+     * needed. Its threads are daemon threads so an unused converter
+     * does not prevent the VM from exiting.
+     */
+    protected synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool
+                (threadCount, new ThreadFactory() {
+                        int count;
+                        public synchronized Thread newThread(Runnable r) {
+                            Thread t = new Thread
+                                (r, "SVGConverter-" + (++count));
+                            t.setDaemon(true);
+                            return t;
+                        }
+                    });
+        }
+        return executor;
+    }
+
+    protected synchronized void shutdownExecutor() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
         }
     }
 
@@ -997,8 +1227,10 @@ public class SVGConverter {
 
         // Transcode now
         boolean success = false;
+        long time = System.currentTimeMillis();
         try {
             transcoder.transcode(input, output);
+            time = System.currentTimeMillis() - time;
             success = true;
         } catch(Exception te) {
             te.printStackTrace();
@@ -1028,6 +1260,10 @@ public class SVGConverter {
         }
 
         if (success){
+            if (controller instanceof SVGConverterTimingController) {
+                ((SVGConverterTimingController)controller)
+                    .onSourceTranscodingTime(inputFile, outputFile, time);
+            }
             controller.onSourceTranscodingSuccess(inputFile, outputFile);
         }
     }
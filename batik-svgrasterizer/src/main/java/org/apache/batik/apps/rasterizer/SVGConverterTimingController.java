@@ -0,0 +1,45 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.apps.rasterizer;
+
+import java.io.File;
+
+/**
+ * Extension of the <code>SVGConverterController</code> interface for
+ * controllers which want to know how long each source took to
+ * transcode.
+ *
+ * When the <code>SVGConverter</code> converts several sources at once
+ * (see {@link SVGConverter#setThreadCount}), the controller methods
+ * are invoked from the worker threads and must be thread safe.
+ *
+ * @version $Id$
+ */
+public interface SVGConverterTimingController extends SVGConverterController {
+    /**
+     * Invoked when the rasterizer successfully transcoded the
+     * input source, just before
+     * {@link SVGConverterController#onSourceTranscodingSuccess}.
+     *
+     * @param time the time spent transcoding the source, in milliseconds.
+     */
+    void onSourceTranscodingTime(SVGConverterSource source,
+                                 File dest,
+                                 long time);
+}
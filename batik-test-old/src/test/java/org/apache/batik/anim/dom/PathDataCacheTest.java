@@ -0,0 +1,89 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.anim.dom;
+
+import java.util.Arrays;
+
+import org.apache.batik.dom.svg.LiveAttributeException;
+import org.apache.batik.dom.svg.SVGAnimatedPathDataSupport;
+import org.apache.batik.parser.PathArrayProducer;
+import org.apache.batik.test.AbstractTest;
+import org.apache.batik.util.SVGConstants;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.svg.SVGPathSegList;
+
+/**
+ * Checks that the path data parsed once by {@link SVGOMAnimatedPathData}
+ * stays consistent with the attribute value and the path segment lists.
+ *
+ * @version $Id$
+ */
+public class PathDataCacheTest extends AbstractTest {
+
+    public boolean runImplBasic() throws Exception {
+        Document doc = SVGDOMImplementation.getDOMImplementation()
+            .createDocument(SVGConstants.SVG_NAMESPACE_URI,
+                            SVGConstants.SVG_SVG_TAG, null);
+        SVGOMPathElement pe = (SVGOMPathElement) doc.createElementNS
+            (SVGConstants.SVG_NAMESPACE_URI, SVGConstants.SVG_PATH_TAG);
+        doc.getDocumentElement().appendChild(pe);
+        SVGOMAnimatedPathData pd = pe.getAnimatedPathData();
+
+        pe.setAttributeNS(null, SVGConstants.SVG_D_ATTRIBUTE,
+                          "M10 20l5 5H3v4c1 2 3 4 5 6s1 2 3 4"
+                          + "q1 2 3 4t5 6a5 5 30 1 0 7 8z");
+        pd.check();
+        assertSame(pd, pe.getPathSegList());
+
+        pe.setAttributeNS(null, SVGConstants.SVG_D_ATTRIBUTE, "M1 2L3 4");
+        assertSame(pd, pe.getPathSegList());
+
+        pe.getPathSegList().appendItem
+            (pe.createSVGPathSegLinetoHorizontalRel(7));
+        assertSame(pd, pe.getPathSegList());
+
+        pe.setAttributeNS(null, SVGConstants.SVG_D_ATTRIBUTE, "M1 2L");
+        try {
+            pd.check();
+            return false;
+        } catch (LiveAttributeException e) {
+        }
+        pe.setAttributeNS(null, SVGConstants.SVG_D_ATTRIBUTE, "M1 2Z");
+        pd.check();
+        assertSame(pd, pe.getPathSegList());
+        return true;
+    }
+
+    /**
+     * Checks that the path data handled from the parsed attribute value
+     * is the same as the one handled from the given path segment list.
+     */
+    protected void assertSame(SVGOMAnimatedPathData pd, SVGPathSegList l)
+            throws Exception {
+        PathArrayProducer cached = new PathArrayProducer();
+        pd.handleAnimatedPathData(cached);
+        PathArrayProducer listed = new PathArrayProducer();
+        SVGAnimatedPathDataSupport.handlePathSegList(l, listed);
+        assertTrue(Arrays.equals(cached.getPathCommands(),
+                                 listed.getPathCommands()));
+        assertTrue(Arrays.equals(cached.getPathParameters(),
+                                 listed.getPathParameters()));
+    }
+}
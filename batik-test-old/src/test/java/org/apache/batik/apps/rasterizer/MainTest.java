@@ -21,7 +21,9 @@ package org.apache.batik.apps.rasterizer;
 
 import java.awt.Color;
 import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.PrintStream;
 import java.util.StringTokenizer;
 import java.util.List;
 
@@ -449,6 +451,19 @@ public class MainTest extends DefaultTestSuite {
         addTest(t);
         t.setId("MainConfigTest.indexed");
 
+        t = new MainConfigTest("-threads 4"){
+                public TestReport validate(SVGConverter c){
+                    if(c.getThreadCount() == 4){
+                        return reportSuccess();
+                    } else {
+                        return reportError("-threads", "4",
+                                           "" + c.getThreadCount());
+                    }
+                }
+            };
+        addTest(t);
+        t.setId("MainConfigTest.threads");
+
         t = new MainConfigErrorTest("-d", "hello.svg -d");
         addTest(t);
         t.setId("MainConfigErrorTest.output");
@@ -513,6 +528,10 @@ public class MainTest extends DefaultTestSuite {
         addTest(t);
         t.setId("MainConfigErrorTest.allowedScriptTypes");
 
+        t = new MainConfigErrorTest("-threads", "hello.svg -threads");
+        addTest(t);
+        t.setId("MainConfigErrorTest.threads");
+
         t = new MainIllegalArgTest("-m", "-m images/jpeq");
         addTest(t);
         t.setId("MainIllegalArgTest.mediaType");
@@ -549,6 +568,19 @@ public class MainTest extends DefaultTestSuite {
         addTest(t);
         t.setId("MainIllegalArgTest.q");
 
+        t = new MainIllegalArgTest("threads", "-threads 0");
+        addTest(t);
+        t.setId("MainIllegalArgTest.threads");
+
+        t = new MainMessageTest(false, "Converting a.svg to a.png ... ... success");
+        addTest(t);
+        t.setId("MainMessageTest.serial");
+
+        t = new MainMessageTest
+            (true, "Converting a.svg to a.png ... ... success (12 ms)");
+        addTest(t);
+        t.setId("MainMessageTest.batch");
+
     }
 
 }
@@ -764,3 +796,36 @@ abstract class MainConfigTest extends AbstractTest {
 
 }
 
+/**
+ * Checks the message printed for a successful conversion: the time
+ * it took is only printed when several files are converted at once.
+ */
+class MainMessageTest extends AbstractTest {
+    boolean batch;
+    String expected;
+
+    public MainMessageTest(boolean batch, String expected){
+        this.batch = batch;
+        this.expected = expected;
+    }
+
+    public boolean runImplBasic() throws Exception {
+        Main main = new Main(new String[0]);
+        main.batch = batch;
+        SVGConverterSource source = new SVGConverterFileSource(new File("a.svg"));
+        File dest = new File("a.png");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream stdout = System.out;
+        System.setOut(new PrintStream(out, true));
+        try {
+            main.proceedWithSourceTranscoding(source, dest);
+            main.onSourceTranscodingTime(source, dest, 12);
+            main.onSourceTranscodingSuccess(source, dest);
+        } finally {
+            System.setOut(stdout);
+        }
+        assertEquals(expected, out.toString().trim());
+        return true;
+    }
+}
@@ -396,6 +396,10 @@ public class SVGConverterTest extends DefaultTestSuite {
         addTest(t);
         t.setId("ConfigErrorTest(SVGConverter.ERROR_WHILE_RASTERIZING_FILE");
 
+        t = new ConcurrentErrorTest();
+        addTest(t);
+        t.setId("ConcurrentErrorTest");
+
         //
         // Test that files are created as expected and are producing the
         // expected result.
@@ -1055,6 +1059,71 @@ class ConfigErrorTest extends AbstractTest implements SVGConverterController{
     }
 }
 
+/**
+ * Checks that when the controller stops a concurrent conversion on an
+ * error, the error is thrown from the execute method only once all the
+ * conversions in progress are completed.
+ */
+class ConcurrentErrorTest extends ConfigErrorTest {
+    public static final String ERROR_CONVERSIONS_STILL_RUNNING
+        = "ConcurrentErrorTest.error.conversions.still.running";
+
+    public static final String ENTRY_KEY_RUNNING_CONVERSIONS
+        = "ConcurrentErrorTest.entry.key.running.conversions";
+
+    /** The number of conversions started and not completed yet. */
+    int running;
+
+    public ConcurrentErrorTest(){
+        super(SVGConverter.ERROR_WHILE_RASTERIZING_FILE);
+    }
+
+    public TestReport runImpl() throws Exception {
+        TestReport report = super.runImpl();
+        if (!report.hasPassed()){
+            return report;
+        }
+        synchronized (this) {
+            if (running != 0){
+                report = reportError(ERROR_CONVERSIONS_STILL_RUNNING);
+                report.addDescriptionEntry(ENTRY_KEY_RUNNING_CONVERSIONS,
+                                           "" + running);
+            }
+        }
+        return report;
+    }
+
+    protected void configure(SVGConverter c){
+        c.setThreadCount(4);
+        c.setSources(new String[]{
+            "test-resources/org/apache/batik/apps/rasterizer/invalidSVG.svg",
+            "samples/anne.svg",
+            "samples/batikFX.svg",
+            "samples/moonPhases.svg",
+            "samples/sunRise.svg" });
+        c.setDst(new File("test-reports/concurrent"));
+    }
+
+    public synchronized boolean proceedWithSourceTranscoding
+        (SVGConverterSource source, File dest) {
+        running++;
+        dest.deleteOnExit();
+        return true;
+    }
+
+    public synchronized boolean proceedOnSourceTranscodingFailure
+        (SVGConverterSource source, File dest, String errorCode){
+        running--;
+        foundErrorCode = errorCode;
+        return false;
+    }
+
+    public synchronized void onSourceTranscodingSuccess(SVGConverterSource source,
+                                                        File dest){
+        running--;
+    }
+}
+
 /**
  * This test checks that a file is indeed created and that it is identical to
  * an expected reference.
@@ -0,0 +1,95 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.bridge;
+
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.File;
+
+import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
+import org.apache.batik.gvt.GraphicsNode;
+import org.apache.batik.test.AbstractTest;
+import org.apache.batik.util.XMLResourceDescriptor;
+import org.w3c.dom.Document;
+
+/**
+ * Checks that the frames painted incrementally by a FrameUpdater are
+ * the ones painted from scratch, and that nothing is repainted once
+ * the animations are frozen.
+ *
+ * @version $Id$
+ */
+public class FrameUpdaterTest extends AbstractTest {
+
+    public static final String FILE =
+        "test-resources/org/apache/batik/bridge/frameUpdater.svg";
+
+    public static final int WIDTH = 400;
+    public static final int HEIGHT = 300;
+
+    public boolean runImplBasic() throws Exception {
+        String uri = new File(FILE).toURI().toString();
+        FrameUpdater updater = createFrameUpdater(uri);
+        try {
+            assertTrue(!updater.setupRenderer(new AffineTransform(),
+                                              WIDTH, HEIGHT).isEmpty());
+            float[] times = { 0.5f, 1f, 2.5f };
+            for (float time : times) {
+                assertTrue(!updater.setCurrentTime(time).isEmpty());
+
+                FrameUpdater ref = createFrameUpdater(uri);
+                ref.getBridgeContext().getAnimationEngine()
+                    .setCurrentTime(time);
+                ref.setupRenderer(new AffineTransform(), WIDTH, HEIGHT);
+                assertEquals(0, countDifferences(ref.getOffScreen(),
+                                                 updater.getOffScreen()));
+                ref.dispose();
+            }
+            // Both animations are frozen.
+            assertTrue(updater.setCurrentTime(3f).isEmpty());
+        } finally {
+            updater.dispose();
+        }
+        return true;
+    }
+
+    protected FrameUpdater createFrameUpdater(String uri) throws Exception {
+        String parser = XMLResourceDescriptor.getXMLParserClassName();
+        Document doc = new SAXSVGDocumentFactory(parser).createDocument(uri);
+        BridgeContext ctx = new BridgeContext(new UserAgentAdapter());
+        ctx.setDynamicState(BridgeContext.DYNAMIC);
+        GraphicsNode gn = new GVTBuilder().build(ctx, doc);
+        BaseScriptingEnvironment se = new BaseScriptingEnvironment(ctx);
+        se.loadScripts();
+        se.dispatchSVGLoadEvent();
+        return new FrameUpdater(ctx, gn);
+    }
+
+    protected static int countDifferences(BufferedImage a, BufferedImage b) {
+        int n = 0;
+        for (int y = 0; y < a.getHeight(); y++) {
+            for (int x = 0; x < a.getWidth(); x++) {
+                if (a.getRGB(x, y) != b.getRGB(x, y)) {
+                    n++;
+                }
+            }
+        }
+        return n;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.css.engine;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
+import org.apache.batik.anim.dom.SVGOMDocument;
+import org.apache.batik.bridge.BridgeContext;
+import org.apache.batik.bridge.GVTBuilder;
+import org.apache.batik.bridge.UserAgentAdapter;
+import org.apache.batik.css.engine.sac.ExtendedSelector;
+import org.apache.batik.test.AbstractTest;
+import org.apache.batik.util.XMLResourceDescriptor;
+import org.w3c.css.sac.SelectorList;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Checks that the rules found through the {@link RuleIndex} of the
+ * style sheets are the ones found by evaluating all their rules, in the
+ * same order, and that the index follows the changes of a style sheet.
+ *
+ * @version $Id$
+ */
+public class RuleIndexTest extends AbstractTest {
+
+    public static final String FILE =
+        "test-resources/org/apache/batik/css/engine/ruleIndex.svg";
+
+    public boolean runImplBasic() throws Exception {
+        String uri = new File(FILE).toURI().toString();
+        String parser = XMLResourceDescriptor.getXMLParserClassName();
+        Document doc = new SAXSVGDocumentFactory(parser).createDocument(uri);
+        BridgeContext ctx = new BridgeContext(new UserAgentAdapter());
+        try {
+            new GVTBuilder().build(ctx, doc);
+            CSSEngine eng = ((SVGOMDocument)doc).getCSSEngine();
+
+            List sheets = new ArrayList();
+            for (Object snode : eng.getStyleSheetNodes()) {
+                sheets.add(((CSSStyleSheetNode)snode).getCSSStyleSheet());
+            }
+            assertEquals(2, sheets.size());
+
+            NodeList elts = doc.getElementsByTagNameNS("*", "*");
+            int matched = 0;
+            for (int i = 0; i < elts.getLength(); i++) {
+                Element elt = (Element)elts.item(i);
+                List indexed = new ArrayList();
+                List scanned = new ArrayList();
+                for (Object ss : sheets) {
+                    eng.addMatchingRules(indexed, (StyleSheet)ss, elt, null);
+                    addAllMatchingRules(eng, scanned, (StyleSheet)ss, elt);
+                }
+                assertEquals(scanned, indexed);
+                matched += indexed.size();
+            }
+            assertTrue(matched > 0);
+
+            // The index is rebuilt when the sheet changes.
+            StyleSheet first = (StyleSheet)sheets.get(0);
+            StyleSheet second = (StyleSheet)sheets.get(1);
+            Element a = doc.getElementById("a");
+            first.getRuleIndex();
+            for (int i = 0; i < second.getSize(); i++) {
+                first.append(second.getRule(i));
+            }
+            List indexed = new ArrayList();
+            List scanned = new ArrayList();
+            eng.addMatchingRules(indexed, first, a, null);
+            addAllMatchingRules(eng, scanned, first, a);
+            assertEquals(scanned, indexed);
+            assertTrue(indexed.contains(second.getRule(0)));
+
+            first.clear();
+            indexed.clear();
+            eng.addMatchingRules(indexed, first, a, null);
+            assertEquals(0, indexed.size());
+        } finally {
+            ctx.dispose();
+        }
+        return true;
+    }
+
+    /**
+     * Adds the rules of the given style sheet matching the element to
+     * the list, evaluating all the rules of the sheet.
+     */
+    protected static void addAllMatchingRules(CSSEngine eng,
+                                              List rules,
+                                              StyleSheet ss,
+                                              Element elt) {
+        int len = ss.getSize();
+        for (int i = 0; i < len; i++) {
+            Rule r = ss.getRule(i);
+            switch (r.getType()) {
+            case StyleRule.TYPE:
+                SelectorList sl = ((StyleRule)r).getSelectorList();
+                for (int j = 0; j < sl.getLength(); j++) {
+                    ExtendedSelector s = (ExtendedSelector)sl.item(j);
+                    if (s.match(elt, null)) {
+                        rules.add(r);
+                    }
+                }
+                break;
+
+            case MediaRule.TYPE:
+            case ImportRule.TYPE:
+                MediaRule mr = (MediaRule)r;
+                if (eng.mediaMatch(mr.getMediaList())) {
+                    addAllMatchingRules(eng, rules, mr, elt);
+                }
+                break;
+            }
+        }
+    }
+}
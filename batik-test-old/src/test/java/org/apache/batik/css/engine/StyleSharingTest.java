@@ -0,0 +1,168 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.css.engine;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
+import org.apache.batik.anim.dom.SVGDOMImplementation;
+import org.apache.batik.anim.dom.SVGOMDocument;
+import org.apache.batik.bridge.BridgeContext;
+import org.apache.batik.bridge.UserAgentAdapter;
+import org.apache.batik.test.AbstractTest;
+import org.apache.batik.util.SVGConstants;
+import org.apache.batik.util.XMLResourceDescriptor;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Checks which sibling elements share their computed style map, and
+ * that the sharing is turned off by positional selectors and in
+ * dynamic documents.
+ *
+ * @version $Id$
+ */
+public class StyleSharingTest extends AbstractTest {
+
+    public static final String FILE =
+        "test-resources/org/apache/batik/css/engine/styleSharing.svg";
+
+    public boolean runImplBasic() throws Exception {
+        SVGOMDocument doc = createDocument(false, null);
+        assertSharing(doc, "shared", new boolean[] { true, true });
+        assertSharing(doc, "class", new boolean[] { false });
+        assertSharing(doc, "id", new boolean[] { false, false });
+        assertSharing(doc, "presentation", new boolean[] { false });
+        assertSharing(doc, "selector", new boolean[] { false, true });
+        assertSharing(doc, "viewport", new boolean[] { false });
+
+        doc = createDocument(false, null);
+        Element[] elts = getChildElements(doc, "override");
+        setOverrideFill(doc, (CSSStylableElement)elts[1],
+                        SVGConstants.CSS_BLUE_VALUE);
+        assertSharing(doc, "override", new boolean[] { false });
+        assertEquals("rgb(255, 0, 0)", getFill(doc, elts[0]));
+        assertEquals("rgb(0, 0, 255)", getFill(doc, elts[1]));
+
+        doc = createDocument(false, "rect:first-child { stroke: red }");
+        assertSharing(doc, "shared", new boolean[] { false, false });
+
+        doc = createDocument(false, "rect + rect { stroke: red }");
+        assertSharing(doc, "shared", new boolean[] { false, false });
+
+        doc = createDocument(true, null);
+        assertSharing(doc, "shared", new boolean[] { false, false });
+        return true;
+    }
+
+    /**
+     * Parses the test document and creates its CSS engine.  The given
+     * rule, if any, is added to the style sheet of the document.
+     */
+    protected SVGOMDocument createDocument(boolean dynamic, String rule)
+            throws Exception {
+        String uri = new File(FILE).toURI().toString();
+        String parser = XMLResourceDescriptor.getXMLParserClassName();
+        SVGOMDocument doc = (SVGOMDocument)
+            new SAXSVGDocumentFactory(parser).createDocument(uri);
+        if (rule != null) {
+            Element style = (Element)doc.getElementsByTagNameNS
+                (SVGConstants.SVG_NAMESPACE_URI,
+                 SVGConstants.SVG_STYLE_TAG).item(0);
+            style.appendChild(doc.createTextNode(rule));
+        }
+        BridgeContext ctx = new BridgeContext(new UserAgentAdapter());
+        ctx.setDynamic(dynamic);
+        SVGDOMImplementation impl =
+            (SVGDOMImplementation)doc.getImplementation();
+        doc.setCSSEngine(impl.createCSSEngine(doc, ctx));
+        return doc;
+    }
+
+    /**
+     * Computes the style of the children of the given group, in order,
+     * and checks whether each one shares the style map of the preceding
+     * child.
+     */
+    protected void assertSharing(SVGOMDocument doc, String id,
+                                 boolean[] shared) throws Exception {
+        Element[] elts = getChildElements(doc, id);
+        assertEquals(shared.length + 1, elts.length);
+        StyleMap prev = computeStyle(doc, elts[0]);
+        for (int i = 0; i < shared.length; i++) {
+            StyleMap sm = computeStyle(doc, elts[i + 1]);
+            String name = id + " " + (i + 1) + " shared: ";
+            assertEquals(name + shared[i], name + (sm == prev));
+            prev = sm;
+        }
+    }
+
+    /**
+     * Returns the computed style map of the given element.
+     */
+    protected StyleMap computeStyle(SVGOMDocument doc, Element e) {
+        CSSEngine eng = doc.getCSSEngine();
+        CSSStylableElement elt = (CSSStylableElement)e;
+        eng.getComputedStyle(elt, null, SVGCSSEngine.FILL_INDEX);
+        return elt.getComputedStyleMap(null);
+    }
+
+    /**
+     * Sets the fill of the override style of the given element.  The
+     * override style of a static document is only changed through its
+     * declaration, as the engine does not listen to the DOM.
+     */
+    protected void setOverrideFill(SVGOMDocument doc,
+                                   CSSStylableElement elt,
+                                   String fill) {
+        CSSEngine eng = doc.getCSSEngine();
+        int idx = eng.getPropertyIndex(SVGConstants.CSS_FILL_PROPERTY);
+        StyleDeclaration sd =
+            elt.getOverrideStyleDeclarationProvider().getStyleDeclaration();
+        sd.append(eng.parsePropertyValue
+                      (elt, SVGConstants.CSS_FILL_PROPERTY, fill),
+                  idx, false);
+    }
+
+    /**
+     * Returns the computed fill of the given element.
+     */
+    protected String getFill(SVGOMDocument doc, Element e) {
+        return doc.getCSSEngine().getComputedStyle
+            ((CSSStylableElement)e, null, SVGCSSEngine.FILL_INDEX)
+            .getCssText();
+    }
+
+    /**
+     * Returns the child elements of the element of the given id.
+     */
+    protected Element[] getChildElements(SVGOMDocument doc, String id) {
+        List l = new ArrayList();
+        for (Node n = doc.getElementById(id).getFirstChild();
+             n != null;
+             n = n.getNextSibling()) {
+            if (n.getNodeType() == Node.ELEMENT_NODE) {
+                l.add(n);
+            }
+        }
+        return (Element[])l.toArray(new Element[l.size()]);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.dom;
+
+import org.apache.batik.util.XMLConstants;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.events.Event;
+import org.w3c.dom.events.EventListener;
+import org.w3c.dom.events.EventTarget;
+import org.w3c.dom.events.MutationEvent;
+
+/**
+ * Tests the compact storage of the attributes.
+ *
+ * @version $Id$
+ */
+public class CompactAttributesTest extends DOM3Test {
+    public boolean runImplBasic() throws Exception {
+        Document doc = newSVGDoc();
+        ((AbstractDocument) doc).setCompactAttributes(true);
+        Element g = doc.createElementNS(SVG_NAMESPACE_URI, "g");
+        doc.getDocumentElement().appendChild(g);
+        g.setAttributeNS(null, "id", "n1");
+        g.setAttributeNS(null, "fill", "red");
+        g.setAttributeNS(XMLConstants.XLINK_NAMESPACE_URI, "xlink:href", "#a");
+        if (!(g.getAttributes() instanceof AbstractElement.CompactNamedNodeMap)
+                || doc.getElementById("n1") != g
+                || !g.getAttributeNS(null, "fill").equals("red")
+                || !g.getAttributeNS(XMLConstants.XLINK_NAMESPACE_URI,
+                                     "href").equals("#a")
+                || g.hasAttributeNS(null, "href")) {
+            return false;
+        }
+
+        // Updating a prefixed attribute must not add another one.
+        g.setAttributeNS(XMLConstants.XLINK_NAMESPACE_URI, "xlink:href", "#b");
+        if (g.getAttributes().getLength() != 3) {
+            return false;
+        }
+
+        // The nodes are created on demand and then kept.
+        Attr fill = g.getAttributeNodeNS(null, "fill");
+        if (fill != g.getAttributeNodeNS(null, "fill")
+                || fill.getOwnerElement() != g
+                || g.getAttributes().item(1) != fill
+                || !((Attr) g.getAttributes().item(2)).getValue().equals("#b")) {
+            return false;
+        }
+
+        // Mutation events get the node of the attribute.
+        final Attr[] related = new Attr[1];
+        ((EventTarget) g).addEventListener("DOMAttrModified",
+            new EventListener() {
+                public void handleEvent(Event evt) {
+                    related[0] = (Attr) ((MutationEvent) evt).getRelatedNode();
+                }
+            }, false);
+        g.setAttributeNS(null, "stroke", "blue");
+        if (related[0] != g.getAttributeNodeNS(null, "stroke")) {
+            return false;
+        }
+        fill.setValue("green");
+        if (related[0] != fill || !g.getAttributeNS(null, "fill").equals("green")) {
+            return false;
+        }
+
+        Element c = (Element) g.cloneNode(false);
+        g.removeAttributeNS(null, "id");
+        return related[0].getNodeName().equals("id")
+            && doc.getElementById("n1") == null
+            && !g.hasAttributeNS(null, "id")
+            && g.getAttributes().getLength() == 3
+            && c.getAttributeNS(null, "id").equals("n1")
+            && c.getAttributeNS(null, "stroke").equals("blue");
+    }
+}
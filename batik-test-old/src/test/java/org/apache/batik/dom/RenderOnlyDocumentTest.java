@@ -0,0 +1,68 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.dom;
+
+import java.io.StringReader;
+
+import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
+import org.apache.batik.util.XMLResourceDescriptor;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.events.Event;
+import org.w3c.dom.events.EventListener;
+import org.w3c.dom.events.EventTarget;
+
+/**
+ * Tests the render-only documents.
+ *
+ * @version $Id$
+ */
+public class RenderOnlyDocumentTest extends DOM3Test {
+    public boolean runImplBasic() throws Exception {
+        SAXSVGDocumentFactory f = new SAXSVGDocumentFactory
+            (XMLResourceDescriptor.getXMLParserClassName());
+        f.setRenderOnly(true);
+        Document doc = f.createDocument
+            ("http://example.org/doc.svg",
+             new StringReader("<svg xmlns='" + SVG_NAMESPACE_URI + "'>"
+                              + "<rect id='r' width='10' height='20'/></svg>"));
+        AbstractDocument ad = (AbstractDocument) doc;
+        if (!ad.isRenderOnly() || !ad.getCompactAttributes()) {
+            return false;
+        }
+
+        // Mutation events are never dispatched.
+        final int[] count = new int[1];
+        Element r = doc.getElementById("r");
+        ((EventTarget) r).addEventListener("DOMAttrModified",
+            new EventListener() {
+                public void handleEvent(Event evt) {
+                    count[0]++;
+                }
+            }, false);
+        r.setAttributeNS(null, "width", "30");
+        r.setAttributeNS(null, "id", "s");
+        return count[0] == 0
+            && !ad.getEventsEnabled()
+            && r.getAttributeNS(null, "width").equals("30")
+            && doc.getElementById("s") == r
+            && doc.getElementById("r") == null;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.dom;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
+import org.apache.batik.anim.dom.XMLScannerSVGDocumentFactory;
+import org.apache.batik.dom.util.DOMUtilities;
+import org.apache.batik.dom.util.SAXDocumentFactory;
+import org.apache.batik.util.XMLResourceDescriptor;
+
+import org.w3c.dom.Document;
+
+/**
+ * Checks that the documents built by an XMLScannerSVGDocumentFactory
+ * are the same as the ones built through SAX, and that the malformed
+ * documents rejected through SAX are rejected too.
+ *
+ * @version $Id$
+ */
+public class XMLScannerDocumentFactoryTest extends DOM3Test {
+
+    /**
+     * The parsed document.
+     */
+    protected static final String DOCUMENT =
+        "<?xml version='1.0' standalone='no'?>\n"
+        + "<!-- before -->\n"
+        + "<?target data?>\n"
+        + "<!DOCTYPE svg [\n"
+        + "  <!ENTITY e \"<g id='e' class='&amp;'>&#65;&f;</g>\">\n"
+        + "  <!ENTITY f \"f&#x9;f\">\n"
+        + "  <!ATTLIST rect a CDATA 'def' b (x|y) #IMPLIED>\n"
+        + "]>\n"
+        + "<svg xmlns='http://www.w3.org/2000/svg'"
+        + " xmlns:xlink='http://www.w3.org/1999/xlink'>"
+        + "t&lt;&#x263A;&e;<![CDATA[<&>]]>&f;\u00e9"
+        + "<rect b='  x ' width='1&#10;0' xlink:title='&f;'/>"
+        + "<!-- inside --><?pi?></svg>\n"
+        + "<!-- after -->\n";
+
+    /**
+     * The text of the UTF-8 encoded document, made of characters encoded
+     * on one to four bytes.
+     */
+    protected static final String UTF8_TEXT =
+        "A\u00e9\u263a\u20ac\u4e2d\ud83d\ude00\ud800\udc00\udbff\udfff";
+
+    /**
+     * The start of the svg start tags.
+     */
+    protected static final String SVG =
+        "<svg xmlns='http://www.w3.org/2000/svg'";
+
+    /**
+     * Malformed documents.
+     */
+    protected static final String[] MALFORMED = {
+        "",
+        SVG + "/>" + SVG + "/>",
+        SVG + ">",
+        SVG + "></g>",
+        SVG + " a='1' a='2'/>",
+        SVG + " xmlns:x='u' x:a='1' xmlns:y='u' y:a='2'/>",
+        SVG + " x:a='1'/>",
+        SVG + " a=1/>",
+        SVG + ">a]]>b</svg>",
+        SVG + ">&#0;</svg>",
+        SVG + ">&#x;</svg>",
+        SVG + ">&e;</svg>",
+        SVG + "><1/></svg>",
+        SVG + "><!-- a -- b --></svg>",
+        "<!DOCTYPE svg [<!ENTITY e '<g>'>]>" + SVG + ">&e;</svg>"
+    };
+
+    public boolean runImplBasic() throws Exception {
+        SAXDocumentFactory sax = new SAXSVGDocumentFactory
+            (XMLResourceDescriptor.getXMLParserClassName());
+        SAXDocumentFactory scanner = new XMLScannerSVGDocumentFactory();
+        assertEquals(parse(sax), parse(scanner));
+
+        // Characters encoded on 2, 3 and 4 bytes, with and without BOM.
+        byte[] utf8 =
+            (SVG + ">" + UTF8_TEXT + "</svg>").getBytes("UTF-8");
+        assertEquals(UTF8_TEXT, parseText(scanner, utf8));
+        ByteArrayOutputStream bom = new ByteArrayOutputStream();
+        bom.write(new byte[] { (byte)0xef, (byte)0xbb, (byte)0xbf });
+        bom.write(utf8);
+        assertEquals(UTF8_TEXT, parseText(scanner, bom.toByteArray()));
+
+        for (int i = 0; i < MALFORMED.length; i++) {
+            String doc = MALFORMED[i];
+            assertEquals(doc + " rejected by SAX",
+                         doc + (getError(sax, doc) != null
+                                ? " rejected by SAX" : " parsed by SAX"));
+            String m = getError(scanner, doc);
+            assertEquals(doc + " rejected", doc + (m != null
+                                                   ? " rejected" : " parsed"));
+            // The messages are formatted from the resources.
+            assertTrue(m.indexOf("line 1") != -1);
+        }
+        String m = getError(scanner, MALFORMED[5]);
+        assertTrue(m.indexOf("\"a\"") != -1 && m.indexOf("\"u\"") != -1);
+        m = getError(scanner, MALFORMED[8]);
+        assertTrue(m.indexOf("]]>") != -1);
+        return true;
+    }
+
+    /**
+     * Parses the test document and returns its serialized form.
+     */
+    protected String parse(SAXDocumentFactory f) throws Exception {
+        Document doc = f.createDocument("http://example.org/doc.svg",
+                                        new StringReader(DOCUMENT));
+        StringWriter w = new StringWriter();
+        DOMUtilities.writeDocument(doc, w);
+        return w.toString();
+    }
+
+    /**
+     * Parses the given encoded document and returns the text of its
+     * document element.
+     */
+    protected String parseText(SAXDocumentFactory f, byte[] doc)
+        throws Exception {
+        return f.createDocument("http://example.org/doc.svg",
+                                new ByteArrayInputStream(doc))
+            .getDocumentElement().getTextContent();
+    }
+
+    /**
+     * Parses the given document and returns the error message, or null
+     * if the document was parsed.
+     */
+    protected String getError(SAXDocumentFactory f, String doc) {
+        try {
+            f.createDocument("http://example.org/doc.svg",
+                             new StringReader(doc));
+        } catch (IOException e) {
+            return e.getMessage();
+        }
+        return null;
+    }
+}
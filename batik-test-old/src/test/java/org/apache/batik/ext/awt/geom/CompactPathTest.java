@@ -0,0 +1,103 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.ext.awt.geom;
+
+import java.awt.BasicStroke;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+
+import org.apache.batik.test.AbstractTest;
+
+/**
+ * Checks that a {@link CompactPath} describes the same path as the
+ * {@link ExtendedGeneralPath} it was built from.
+ *
+ * @version $Id$
+ */
+public class CompactPathTest extends AbstractTest {
+
+    public boolean runImplBasic() throws Exception {
+        ExtendedGeneralPath p = new ExtendedGeneralPath();
+        p.moveTo(10, 10);
+        p.moveTo(20, 10);
+        p.lineTo(40, 15);
+        p.quadTo(60, 0, 70, 30);
+        p.curveTo(80, 40, 60, 70, 40, 60);
+        p.arcTo(15, 10, 30, true, false, 20, 30);
+        p.closePath();
+        p.moveTo(5, 5);
+        CompactPath cp = new CompactPath(p, true);
+
+        assertEquals(p.getBounds2D(), cp.getBounds2D());
+        assertEquals(p.getBounds(), cp.getBounds());
+        AffineTransform at = AffineTransform.getRotateInstance(0.3, 4, 7);
+        assertSame(p.getPathIterator(null), cp.getPathIterator(null));
+        assertSame(p.getPathIterator(at), cp.getPathIterator(at));
+        assertSame(p.getPathIterator(at, 0.5), cp.getPathIterator(at, 0.5));
+        assertSame(p.createTransformedShape(at).getPathIterator(null),
+                   cp.createTransformedShape(at).getPathIterator(null));
+
+        ExtendedPathIterator epi = p.getExtendedPathIterator();
+        ExtendedPathIterator cepi = cp.getExtendedPathIterator();
+        float[] a = new float[7];
+        float[] b = new float[7];
+        while (!epi.isDone()) {
+            assertTrue(!cepi.isDone());
+            assertEquals(epi.currentSegment(a), cepi.currentSegment(b));
+            assertTrue(java.util.Arrays.equals(a, b));
+            epi.next();
+            cepi.next();
+        }
+        assertTrue(cepi.isDone());
+
+        for (int x = 0; x < 90; x += 3) {
+            for (int y = 0; y < 90; y += 3) {
+                assertTrue(p.contains(x, y) == cp.contains(x, y));
+                assertTrue(p.intersects(x, y, 4, 2)
+                           == cp.intersects(x, y, 4, 2));
+                assertTrue(p.contains(x, y, 4, 2) == cp.contains(x, y, 4, 2));
+            }
+        }
+
+        BasicStroke s = new BasicStroke(3);
+        Shape outline = cp.createStrokedShape(s);
+        assertTrue(outline == cp.createStrokedShape(new BasicStroke(3)));
+        assertTrue(outline != cp.createStrokedShape(new BasicStroke(4)));
+        return true;
+    }
+
+    /**
+     * Checks that the two iterators return the same segments.
+     */
+    protected void assertSame(PathIterator a, PathIterator b)
+            throws Exception {
+        assertEquals(a.getWindingRule(), b.getWindingRule());
+        double[] ca = new double[6];
+        double[] cb = new double[6];
+        while (!a.isDone()) {
+            assertTrue(!b.isDone());
+            assertEquals(a.currentSegment(ca), b.currentSegment(cb));
+            assertTrue(java.util.Arrays.equals(ca, cb));
+            a.next();
+            b.next();
+        }
+        assertTrue(b.isDone());
+    }
+}
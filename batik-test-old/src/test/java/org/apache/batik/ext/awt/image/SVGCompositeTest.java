@@ -0,0 +1,115 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.ext.awt.image;
+
+import java.awt.CompositeContext;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.WritableRaster;
+import java.util.Random;
+
+import org.apache.batik.test.AbstractTest;
+
+/**
+ * Checks that the packed integer contexts of {@link SVGComposite},
+ * which skip transparent and opaque pixels, compose like the generic
+ * contexts.
+ *
+ * @version $Id$
+ */
+public class SVGCompositeTest extends AbstractTest {
+
+    public boolean runImplBasic() throws Exception {
+        BufferedImage src = image(1);
+        BufferedImage dst = image(2);
+        ColorModel cm = src.getColorModel();
+
+        check(CompositeRule.OVER,
+              new SVGComposite.OverCompositeContext(cm, cm), src, dst);
+        check(CompositeRule.IN,
+              new SVGComposite.InCompositeContext(cm, cm), src, dst);
+        check(CompositeRule.OUT,
+              new SVGComposite.OutCompositeContext(cm, cm), src, dst);
+        check(CompositeRule.ATOP,
+              new SVGComposite.AtopCompositeContext(cm, cm), src, dst);
+        check(CompositeRule.XOR,
+              new SVGComposite.XorCompositeContext(cm, cm), src, dst);
+        check(CompositeRule.MULTIPLY,
+              new SVGComposite.MultiplyCompositeContext(cm, cm), src, dst);
+        check(CompositeRule.SCREEN,
+              new SVGComposite.ScreenCompositeContext(cm, cm), src, dst);
+        check(CompositeRule.DARKEN,
+              new SVGComposite.DarkenCompositeContext(cm, cm), src, dst);
+        check(CompositeRule.LIGHTEN,
+              new SVGComposite.LightenCompositeContext(cm, cm), src, dst);
+        return true;
+    }
+
+    /**
+     * Composes the images with the packed context of the rule and
+     * with the given generic context and compares the results.
+     */
+    protected void check(CompositeRule rule, CompositeContext generic,
+                         BufferedImage src, BufferedImage dst)
+        throws Exception {
+        ColorModel cm = src.getColorModel();
+        CompositeContext packed
+            = new SVGComposite(rule).createContext(cm, cm, null);
+        assertTrue(packed.getClass().getName().endsWith("_INT_PACK"));
+
+        WritableRaster expected = dst.getRaster().createCompatibleWritableRaster();
+        WritableRaster actual = dst.getRaster().createCompatibleWritableRaster();
+        generic.compose(src.getRaster(), dst.getRaster(), expected);
+        packed.compose(src.getRaster(), dst.getRaster(), actual);
+
+        int w = expected.getWidth();
+        int h = expected.getHeight();
+        int[] e = expected.getPixels(0, 0, w, h, (int[]) null);
+        int[] a = actual.getPixels(0, 0, w, h, (int[]) null);
+        for (int i = 0; i < e.length; i++) {
+            assertTrue(Math.abs(e[i] - a[i]) <= 1);
+        }
+    }
+
+    /**
+     * Returns a premultiplied image where transparent and opaque
+     * pixels are frequent.
+     */
+    protected BufferedImage image(long seed) {
+        Random r = new Random(seed);
+        BufferedImage bi = new BufferedImage
+            (64, 64, BufferedImage.TYPE_INT_ARGB_PRE);
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 64; x++) {
+                int a;
+                switch (r.nextInt(3)) {
+                case 0:  a = 0;   break;
+                case 1:  a = 255; break;
+                default: a = r.nextInt(256);
+                }
+                int p = a << 24;
+                for (int s = 0; s < 24; s += 8) {
+                    p |= r.nextInt(a + 1) << s;
+                }
+                bi.getRaster().setDataElements(x, y, new int[] { p });
+            }
+        }
+        return bi;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.ext.awt.image.codec.png;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.batik.test.AbstractTest;
+import org.apache.batik.test.TestReport;
+
+/**
+ * Checks that an image encoded in parallel bands, with the default
+ * settings and with the fast settings, decodes to the original image.
+ *
+ * @version $Id$
+ */
+public class ParallelPNGEncoderTest extends AbstractTest {
+
+    public TestReport runImpl() throws Exception {
+        // Large enough to be split in several bands.
+        BufferedImage image =
+            new BufferedImage(400, 600, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D ig = image.createGraphics();
+        ig.setPaint(new GradientPaint(0, 0, new Color(128, 0, 0, 64),
+                                      300, 200, Color.orange, true));
+        ig.fillRect(0, 0, 400, 600);
+        ig.setPaint(Color.blue);
+        for (int i = 0; i < 20; i++) {
+            ig.fill(new Ellipse2D.Double(i * 17, i * 29, 60, 40));
+        }
+        ig.dispose();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int i = 0; i < 2; i++) {
+                PNGEncodeParam params =
+                    PNGEncodeParam.getDefaultEncodeParam(image);
+                params.setExecutor(executor);
+                if (i == 1) {
+                    params.setFilter(PNGEncodeParam.PNG_FILTER_SUB);
+                    params.setCompressionLevel(1);
+                }
+
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                try {
+                    new PNGImageEncoder(bos, params).encode(image);
+                } catch (Exception e) {
+                    return reportException
+                        (PNGEncoderTest.ERROR_CANNOT_ENCODE_IMAGE, e);
+                }
+
+                RenderedImage decoded;
+                try {
+                    PNGImageDecoder decoder = new PNGImageDecoder
+                        (new ByteArrayInputStream(bos.toByteArray()),
+                         new PNGDecodeParam());
+                    decoded = decoder.decodeAsRenderedImage(0);
+                } catch (Exception e) {
+                    return reportException
+                        (PNGEncoderTest.ERROR_CANNOT_DECODE_IMAGE, e);
+                }
+
+                BufferedImage decodedImage = new BufferedImage
+                    (decoded.getWidth(), decoded.getHeight(),
+                     BufferedImage.TYPE_INT_ARGB);
+                ig = decodedImage.createGraphics();
+                ig.drawRenderedImage(decoded, new AffineTransform());
+                ig.dispose();
+
+                if (!PNGEncoderTest.checkIdentical(image, decodedImage)) {
+                    return reportError
+                        (PNGEncoderTest.ERROR_DECODED_DOES_NOT_MATCH_ENCODED);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return reportSuccess();
+    }
+}
@@ -0,0 +1,152 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.ext.awt.image.rendered;
+
+import java.awt.Point;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+
+import org.apache.batik.ext.awt.image.GraphicsUtil;
+import org.apache.batik.test.AbstractTest;
+
+/**
+ * Checks the byte budget, the eviction order and the counters of the
+ * {@link ConcurrentTileCache}.
+ *
+ * @version $Id$
+ */
+public class ConcurrentTileCacheTest extends AbstractTest {
+
+    /**
+     * The number of bytes of the tiles used by this test.
+     */
+    static final int TILE_BYTES = 4 * 64 * 64;
+
+    public boolean runImplBasic() throws Exception {
+        checkBudget();
+        checkLRU();
+        checkCounters();
+        return true;
+    }
+
+    /**
+     * Checks that the budget is shared by all the shards, so the cache
+     * keeps as many tiles as fit in it.
+     */
+    protected void checkBudget() throws Exception {
+        ConcurrentTileCache cache = new ConcurrentTileCache
+            (10L * TILE_BYTES, ConcurrentTileCache.DEFAULT_SHARD_COUNT);
+        TileLRUMember[] members = new TileLRUMember[20];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = new TileLRUMember(createTile());
+            cache.add(members[i]);
+            assertTrue(cache.getUsedBytes() <= cache.getMaxBytes());
+        }
+        assertEquals(10, cache.getTileCount());
+        assertEquals(10 * TILE_BYTES, (int)cache.getUsedBytes());
+        assertEquals(10, (int)cache.getEvictionCount());
+
+        // The most recent member is never evicted.
+        assertTrue(members[members.length - 1].lruGet() != null);
+
+        // Lowering the budget evicts members right away.
+        cache.setMaxBytes(4L * TILE_BYTES);
+        assertEquals(4, cache.getTileCount());
+        assertEquals(4 * TILE_BYTES, (int)cache.getUsedBytes());
+        assertEquals(16, (int)cache.getEvictionCount());
+
+        int kept = 0;
+        for (int i = 0; i < members.length; i++) {
+            if (members[i].lruGet() != null) {
+                cache.remove(members[i]);
+                kept++;
+            }
+        }
+        assertEquals(4, kept);
+        assertEquals(0, cache.getTileCount());
+        assertEquals(0, (int)cache.getUsedBytes());
+
+        // A member larger than the budget is kept until the next one.
+        cache.setMaxBytes(TILE_BYTES / 2);
+        TileLRUMember big = new TileLRUMember(createTile());
+        cache.add(big);
+        assertEquals(1, cache.getTileCount());
+        cache.add(new TileLRUMember(createTile()));
+        assertEquals(1, cache.getTileCount());
+        assertNull(big.lruGet());
+
+        cache.flush();
+        assertEquals(0, cache.getTileCount());
+        assertEquals(0, (int)cache.getUsedBytes());
+    }
+
+    /**
+     * Checks that a single shard evicts its least recently used member.
+     */
+    protected void checkLRU() throws Exception {
+        ConcurrentTileCache cache = new ConcurrentTileCache(2L * TILE_BYTES, 1);
+        TileLRUMember a = new TileLRUMember(createTile());
+        TileLRUMember b = new TileLRUMember(createTile());
+        TileLRUMember c = new TileLRUMember(createTile());
+        cache.add(a);
+        cache.add(b);
+        cache.touch(a);
+        cache.add(c);
+        assertTrue(a.lruGet() != null);
+        assertNull(b.lruGet());
+        assertTrue(c.lruGet() != null);
+        assertEquals(1, (int)cache.getEvictionCount());
+    }
+
+    /**
+     * Checks the hit and miss counters of a cache used by a tile grid.
+     */
+    protected void checkCounters() throws Exception {
+        ConcurrentTileCache cache = new ConcurrentTileCache(4L * TILE_BYTES);
+        TileGenerator gen = new TileGenerator() {
+                public Raster genTile(int x, int y) {
+                    return createTile(x, y);
+                }
+            };
+        TileGrid grid = new TileGrid(0, 0, 2, 2, gen, cache);
+        grid.getTile(0, 0);
+        grid.getTile(1, 0);
+        grid.getTile(0, 0);
+        grid.getTile(0, 0);
+        assertEquals(2, (int)cache.getMissCount());
+        assertEquals(2, (int)cache.getHitCount());
+        assertEquals(2, cache.getTileCount());
+
+        cache.resetStatistics();
+        assertEquals(0, (int)cache.getMissCount());
+        assertEquals(0, (int)cache.getHitCount());
+        assertEquals(0, (int)cache.getEvictionCount());
+    }
+
+    static Raster createTile() {
+        return createTile(0, 0);
+    }
+
+    static Raster createTile(int x, int y) {
+        ColorModel cm = GraphicsUtil.sRGB_Unpre;
+        SampleModel sm = cm.createCompatibleSampleModel(64, 64);
+        return Raster.createWritableRaster(sm, new Point(x * 64, y * 64));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.ext.awt.image.rendered;
+
+import java.awt.Rectangle;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.batik.ext.awt.image.GraphicsUtil;
+import org.apache.batik.test.AbstractTest;
+
+/**
+ * Checks that the tiles of an {@link AbstractTiledRed} computed on an
+ * executor have the right content, and that each of them is computed
+ * only once even when it is requested by several threads at once.
+ *
+ * @version $Id$
+ */
+public class ParallelTilesTest extends AbstractTest {
+
+    public boolean runImplBasic() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CountingRed red = new CountingRed();
+            red.setExecutor(executor);
+            Rectangle r = new Rectangle(10, 20, 400, 300);
+            Raster data = red.getData(r);
+            for (int y = r.y; y < r.y + r.height; y += 7) {
+                for (int x = r.x; x < r.x + r.width; x += 5) {
+                    assertEquals(CountingRed.value(x, y),
+                                 data.getSample(x, y, 0));
+                }
+            }
+            assertEquals(12, red.count.get());
+
+            // The tiles are now taken from the tile store.
+            red.getData(r);
+            assertEquals(12, red.count.get());
+
+            final CountingRed shared = new CountingRed();
+            Thread[] threads = new Thread[4];
+            for (int i = 0; i < threads.length; i++) {
+                threads[i] = new Thread() {
+                        public void run() {
+                            shared.getTile(1, 1);
+                        }
+                    };
+                threads[i].start();
+            }
+            for (int i = 0; i < threads.length; i++) {
+                threads[i].join();
+            }
+            assertEquals(1, shared.count.get());
+        } finally {
+            executor.shutdown();
+        }
+        return true;
+    }
+
+    /**
+     * A slow tiled image counting the regions it computes.
+     */
+    static class CountingRed extends AbstractTiledRed {
+
+        final AtomicInteger count = new AtomicInteger();
+
+        CountingRed() {
+            ColorModel cm = GraphicsUtil.sRGB_Unpre;
+            init((CachableRed)null, new Rectangle(0, 0, 512, 512), cm,
+                 cm.createCompatibleSampleModel(128, 128), 0, 0, null);
+        }
+
+        static int value(int x, int y) {
+            return (x * 7 + y * 13) & 0xFF;
+        }
+
+        public void genRect(WritableRaster wr) {
+            count.incrementAndGet();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ie) {
+            }
+            for (int y = wr.getMinY(); y < wr.getMinY() + wr.getHeight(); y++) {
+                for (int x = wr.getMinX(); x < wr.getMinX() + wr.getWidth(); x++) {
+                    wr.setSample(x, y, 0, value(x, y));
+                }
+            }
+        }
+    }
+}
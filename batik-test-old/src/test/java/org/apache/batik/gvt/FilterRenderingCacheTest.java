@@ -0,0 +1,115 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.gvt;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderContext;
+
+import org.apache.batik.ext.awt.image.GraphicsUtil;
+import org.apache.batik.ext.awt.image.renderable.GaussianBlurRable8Bit;
+import org.apache.batik.gvt.filter.GraphicsNodeRable8Bit;
+import org.apache.batik.test.AbstractTest;
+
+/**
+ * Checks that the rendering of a filter is reused while nothing it is
+ * computed from changes, and computed again after a change of the
+ * filtered nodes or of the filter itself.  A dynamic source is never
+ * reused.
+ *
+ * @version $Id$
+ */
+public class FilterRenderingCacheTest extends AbstractTest {
+
+    public boolean runImplBasic() throws Exception {
+        RootGraphicsNode root = new RootGraphicsNode();
+        CompositeGraphicsNode c = new CompositeGraphicsNode();
+        root.add(c);
+        ShapeNode s = new ShapeNode();
+        s.setShape(new Rectangle2D.Double(20, 20, 100, 100));
+        s.setShapePainter(painter(s, Color.red));
+        c.add(s);
+        GaussianBlurRable8Bit blur = new GaussianBlurRable8Bit
+            (c.getGraphicsNodeRable(true), 2, 2);
+        c.setFilter(blur);
+
+        RenderContext rc = new RenderContext
+            (AffineTransform.getScaleInstance(1.5, 1.5),
+             new Rectangle2D.Double(30, 30, 20, 20));
+        RenderedImage ri = blur.createCachedRendering(rc);
+        assertTrue(ri == blur.createCachedRendering(rc));
+        // Any area of interest in the filter region is covered.
+        rc.setAreaOfInterest(new Rectangle2D.Double(60, 60, 40, 40));
+        assertTrue(ri == blur.createCachedRendering(rc));
+        rc.setTransform(AffineTransform.getScaleInstance(2, 2));
+        assertTrue(ri != blur.createCachedRendering(rc));
+
+        assertTrue(near(Color.red, paint(root).getRGB(105, 105)));
+        assertTrue(near(Color.red, paint(root).getRGB(105, 105)));
+
+        // A change of a filtered node is seen.
+        s.setShapePainter(painter(s, Color.blue));
+        assertTrue(near(Color.blue, paint(root).getRGB(105, 105)));
+
+        // So is a change of the filter.
+        blur.setStdDeviationX(60);
+        assertTrue(!near(Color.blue, paint(root).getRGB(105, 105)));
+
+        GraphicsNodeRable8Bit dynamic = new GraphicsNodeRable8Bit(c) {
+                public boolean isDynamic() {
+                    return true;
+                }
+            };
+        assertTrue(dynamic.getRenderingStamp() == -1);
+        return true;
+    }
+
+    private ShapePainter painter(ShapeNode s, Color c) {
+        FillShapePainter p = new FillShapePainter(s.getShape());
+        p.setPaint(c);
+        return p;
+    }
+
+    /**
+     * Whether the pixel only differs from the color by rounding errors.
+     */
+    private boolean near(Color c, int p) {
+        int q = c.getRGB();
+        for (int s = 0; s < 32; s += 8) {
+            if (Math.abs(((p >> s) & 0xff) - ((q >> s) & 0xff)) > 8) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private BufferedImage paint(GraphicsNode n) {
+        BufferedImage img = new BufferedImage(200, 200,
+                                              BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = GraphicsUtil.createGraphics(img);
+        g.scale(1.5, 1.5);
+        n.paint(g);
+        g.dispose();
+        return img;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.gvt;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.apache.batik.ext.awt.image.GraphicsUtil;
+import org.apache.batik.test.AbstractTest;
+
+/**
+ * Checks that a node painted from its cached layer looks like the node
+ * painted directly, and that the layer follows the changes of the node.
+ * A tree only listens to its changes for the layer cache once one of
+ * its nodes uses it.
+ *
+ * @version $Id$
+ */
+public class LayerCacheTest extends AbstractTest {
+
+    public boolean runImplBasic() throws Exception {
+        Random r = new Random(3);
+        RootGraphicsNode root = new RootGraphicsNode();
+        CompositeGraphicsNode c = new CompositeGraphicsNode();
+        root.add(c);
+        for (int i = 0; i < 50; i++) {
+            ShapeNode s = new ShapeNode();
+            s.setShape(new Ellipse2D.Double(r.nextDouble() * 100,
+                                            r.nextDouble() * 100, 15, 15));
+            FillShapePainter p = new FillShapePainter(s.getShape());
+            p.setPaint(new Color(r.nextInt(), true));
+            s.setShapePainter(p);
+            c.add(s);
+        }
+        c.setComposite(AlphaComposite.getInstance
+                       (AlphaComposite.SRC_OVER, 0.6f));
+        paint(root, 4);
+        assertTrue(root.layerCache == null);
+        assertEquals(0, root.getTreeGraphicsNodeChangeListeners().size());
+
+        c.setLayerCacheEnabled(true);
+        LayerCache cache = root.layerCache;
+        assertTrue(cache != null);
+        assertTrue(root.getTreeGraphicsNodeChangeListeners().contains(cache));
+        BufferedImage layered = paint(root, 4);
+        assertTrue(cache.getSize() > 0);
+        long size = cache.getSize();
+        // Panning by whole pixels reuses the layer.
+        BufferedImage panned = paint(root, 9);
+        assertEquals(size, cache.getSize());
+        c.setLayerCacheEnabled(false);
+        assertEquals(0, (int) cache.getSize());
+        assertTrue(similar(paint(root, 4), layered));
+        assertTrue(similar(paint(root, 9), panned));
+
+        // A change of a child drops the layer.
+        c.setLayerCacheEnabled(true);
+        paint(root, 4);
+        ((ShapeNode) c.get(0)).setShape(new Rectangle2D.Double(0, 0, 50, 50));
+        assertEquals(0, (int) cache.getSize());
+        layered = paint(root, 4);
+        c.setLayerCacheEnabled(false);
+        assertTrue(similar(paint(root, 4), layered));
+
+        // Layers over the budget are not kept.
+        cache.setBudget(1024);
+        c.setLayerCacheEnabled(true);
+        layered = paint(root, 4);
+        assertEquals(0, (int) cache.getSize());
+        c.setLayerCacheEnabled(false);
+        assertTrue(similar(paint(root, 4), layered));
+
+        // A node enabled before it is added to a tree still sees its
+        // changes.
+        RootGraphicsNode root2 = new RootGraphicsNode();
+        root.remove(c);
+        c.setLayerCacheEnabled(true);
+        root2.add(c);
+        paint(root2, 4);
+        assertTrue(root2.getLayerCache().getSize() > 0);
+        ((ShapeNode) c.get(0)).setShape(new Rectangle2D.Double(0, 0, 5, 5));
+        assertEquals(0, (int) root2.getLayerCache().getSize());
+        return true;
+    }
+
+    private BufferedImage paint(GraphicsNode n, int tx) {
+        BufferedImage img = new BufferedImage(200, 200,
+                                              BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = GraphicsUtil.createGraphics(img);
+        g.setColor(Color.white);
+        g.fillRect(0, 0, 200, 200);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                           RenderingHints.VALUE_ANTIALIAS_ON);
+        g.translate(tx, 3);
+        g.scale(1.5, 1.5);
+        n.paint(g);
+        g.dispose();
+        return img;
+    }
+
+    /**
+     * Whether the images only differ by rounding errors.
+     */
+    private boolean similar(BufferedImage a, BufferedImage b) {
+        for (int y = 0; y < a.getHeight(); y++) {
+            for (int x = 0; x < a.getWidth(); x++) {
+                int p = a.getRGB(x, y);
+                int q = b.getRGB(x, y);
+                for (int s = 0; s < 32; s += 8) {
+                    if (Math.abs(((p >> s) & 0xff) - ((q >> s) & 0xff)) > 4) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+}
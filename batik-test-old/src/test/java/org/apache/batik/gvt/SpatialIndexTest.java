@@ -0,0 +1,118 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.gvt;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.batik.test.AbstractTest;
+
+/**
+ * Checks that painting and hit testing a {@link CompositeGraphicsNode}
+ * through its spatial index gives the same results as scanning all the
+ * children.
+ *
+ * @version $Id$
+ */
+public class SpatialIndexTest extends AbstractTest {
+
+    public boolean runImplBasic() throws Exception {
+        Random r = new Random(7);
+        CompositeGraphicsNode c = new CompositeGraphicsNode();
+        int n = CompositeGraphicsNode.SPATIAL_INDEX_THRESHOLD * 4;
+        for (int i = 0; i < n; i++) {
+            ShapeNode s = new ShapeNode();
+            double x = r.nextDouble() * 200;
+            double y = r.nextDouble() * 200;
+            double d = (i % 10 == 0) ? 0 : 2 + r.nextDouble() * 20;
+            s.setShape(new Ellipse2D.Double(x, y, d, d));
+            FillShapePainter p = new FillShapePainter(s.getShape());
+            p.setPaint(new Color(r.nextInt()));
+            s.setShapePainter(p);
+            if (i % 3 == 0) {
+                s.setTransform(AffineTransform.getRotateInstance
+                               (r.nextDouble(), 100, 100));
+            }
+            c.add(s);
+        }
+
+        Point2D[] points = new Point2D[2000];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new Point2D.Double(r.nextDouble() * 220 - 10,
+                                           r.nextDouble() * 220 - 10);
+        }
+
+        c.setSpatialIndexEnabled(false);
+        GraphicsNode[] hits = hitAll(c, points);
+        int[] pixels = paint(c);
+
+        c.setSpatialIndexEnabled(true);
+        // The index is built on the second query.
+        hitAll(c, points);
+        assertTrue(Arrays.equals(hits, hitAll(c, points)));
+        paint(c);
+        assertTrue(Arrays.equals(pixels, paint(c)));
+
+        // The index follows the changes of the children.
+        ((ShapeNode) c.get(5)).setShape(new Rectangle2D.Double(0, 0, 200, 200));
+        c.remove(7);
+        c.setSpatialIndexEnabled(false);
+        hits = hitAll(c, points);
+        pixels = paint(c);
+        c.setSpatialIndexEnabled(true);
+        hitAll(c, points);
+        assertTrue(Arrays.equals(hits, hitAll(c, points)));
+        paint(c);
+        assertTrue(Arrays.equals(pixels, paint(c)));
+        return true;
+    }
+
+    private GraphicsNode[] hitAll(GraphicsNode n, Point2D[] points) {
+        GraphicsNode[] hits = new GraphicsNode[points.length];
+        for (int i = 0; i < points.length; i++) {
+            hits[i] = n.nodeHitAt(points[i]);
+        }
+        return hits;
+    }
+
+    /**
+     * Paints the node tile by tile and returns the pixels.
+     */
+    private int[] paint(GraphicsNode n) {
+        BufferedImage img = new BufferedImage(200, 200,
+                                              BufferedImage.TYPE_INT_ARGB);
+        for (int ty = 0; ty < 200; ty += 50) {
+            for (int tx = 0; tx < 200; tx += 50) {
+                Graphics2D g = img.createGraphics();
+                g.clip(new Rectangle(tx, ty, 50, 50));
+                n.paint(g);
+                g.dispose();
+            }
+        }
+        return img.getRGB(0, 0, 200, 200, null, 0, 200);
+    }
+}
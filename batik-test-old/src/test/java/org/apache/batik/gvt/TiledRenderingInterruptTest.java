@@ -0,0 +1,132 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.gvt;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.batik.gvt.renderer.InterruptedRenderingException;
+import org.apache.batik.gvt.renderer.TiledStaticRenderer;
+import org.apache.batik.test.AbstractTest;
+
+/**
+ * Checks that a TiledStaticRenderer whose thread is interrupted during
+ * a repaint skips the remaining tiles, fails the repaint, and only
+ * returns once no tile is being rendered anymore.
+ *
+ * @version $Id$
+ */
+public class TiledRenderingInterruptTest extends AbstractTest {
+
+    /** The thread running the repaint. */
+    protected Thread caller;
+
+    /** The number of tiles being painted. */
+    protected int running;
+
+    /** The number of tiles painted. */
+    protected int painted;
+
+    /** Whether the repaint has returned. */
+    protected boolean returned;
+
+    /** Whether a tile was painted after the repaint returned. */
+    protected boolean paintedAfterReturn;
+
+    public boolean runImplBasic() throws Exception {
+        RootGraphicsNode root = new RootGraphicsNode();
+        ShapeNode s = new ShapeNode();
+        Rectangle2D r = new Rectangle2D.Double(0, 0, 512, 512);
+        s.setShape(r);
+        FillShapePainter p = new FillShapePainter(r) {
+                public void paint(Graphics2D g2d) {
+                    started();
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                    }
+                    super.paint(g2d);
+                    finished();
+                }
+            };
+        p.setPaint(Color.red);
+        s.setShapePainter(p);
+        root.add(s);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            TiledStaticRenderer renderer
+                = new TiledStaticRenderer(executor, 1);
+            renderer.setTree(root);
+            renderer.updateOffScreen(512, 512);
+            caller = Thread.currentThread();
+            boolean failed = false;
+            try {
+                renderer.repaint(r);
+            } catch (InterruptedRenderingException ex) {
+                failed = true;
+            }
+            int runningAtReturn;
+            synchronized (this) {
+                returned = true;
+                runningAtReturn = running;
+            }
+            // Clears the interrupted status of this thread.
+            assertTrue(Thread.interrupted());
+            assertTrue(failed);
+            assertEquals(0, runningAtReturn);
+
+            // Give the pool a chance to run any late tile.
+            Thread.sleep(200);
+            synchronized (this) {
+                assertTrue(!paintedAfterReturn);
+                // Tiles after the interruption were skipped.
+                assertTrue(painted < 16);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return true;
+    }
+
+    /**
+     * Called when a tile starts to be painted, the first tile
+     * interrupts the thread running the repaint.
+     */
+    protected synchronized void started() {
+        if (returned)
+            paintedAfterReturn = true;
+        if (painted++ == 0)
+            caller.interrupt();
+        running++;
+    }
+
+    /**
+     * Called when a tile has been painted.
+     */
+    protected synchronized void finished() {
+        if (returned)
+            paintedAfterReturn = true;
+        running--;
+    }
+}
@@ -42,10 +42,19 @@ public class PathParserFailureTest extends AbstractTest {
 
     public TestReport runImpl() throws Exception {
         PathParser pp = new PathParser();
+        boolean failed = false;
         try {
             pp.parse(new StringReader(sourcePath));
         } catch (Exception e) {
-            return reportSuccess();
+            failed = true;
+        }
+        if (failed) {
+            // The string, scanned directly, must fail as well.
+            try {
+                pp.parse(sourcePath);
+            } catch (Exception e) {
+                return reportSuccess();
+            }
         }
         DefaultTestReport report = new DefaultTestReport(this);
         report.setErrorCode("parse.without.error");
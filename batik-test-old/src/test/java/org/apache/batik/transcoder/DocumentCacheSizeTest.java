@@ -0,0 +1,74 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.transcoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import org.apache.batik.test.AbstractTest;
+import org.apache.batik.transcoder.image.PNGTranscoder;
+
+/**
+ * Checks that the size of a document cache entry is estimated from its
+ * document rather than from its input, and that the estimate is used
+ * to keep the cache within its byte budget.
+ *
+ * @version $Id$
+ */
+public class DocumentCacheSizeTest extends AbstractTest {
+
+    public boolean runImplBasic() throws Exception {
+        File file = new File("samples/anne.svg");
+        SVGDocumentCache cache = new SVGDocumentCache();
+        transcode(cache, file);
+        assertEquals(1, cache.size());
+
+        // The DOM and GVT trees of anne.svg take more than ten times
+        // the size of its input.
+        long used = cache.getUsedBytes();
+        assertTrue(used > 10 * file.length());
+
+        // Checking the entry out and back in keeps its size.
+        transcode(cache, file);
+        assertEquals(1, cache.size());
+        assertTrue(cache.getUsedBytes() == used);
+        assertTrue(cache.getHitCount() == 1);
+
+        // A budget the entry does not fit in, though its input does.
+        cache = new SVGDocumentCache(SVGDocumentCache.DEFAULT_MAX_ENTRIES,
+                                     2 * file.length());
+        transcode(cache, file);
+        transcode(cache, new File("samples/batikFX.svg"));
+        assertEquals(1, cache.size());
+        assertTrue(cache.getUsedBytes() > cache.getMaxBytes());
+        return true;
+    }
+
+    /**
+     * Transcodes the given file to PNG through the given cache.
+     */
+    protected void transcode(SVGDocumentCache cache, File file)
+        throws Exception {
+        PNGTranscoder t = new PNGTranscoder();
+        t.addTranscodingHint(SVGAbstractTranscoder.KEY_DOCUMENT_CACHE, cache);
+        t.addTranscodingHint(SVGAbstractTranscoder.KEY_WIDTH, new Float(50));
+        t.transcode(new TranscoderInput(file.toURI().toString()),
+                    new TranscoderOutput(new ByteArrayOutputStream()));
+    }
+}
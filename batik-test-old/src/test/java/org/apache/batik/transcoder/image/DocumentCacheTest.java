@@ -0,0 +1,78 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.transcoder.image;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+
+import org.apache.batik.transcoder.SVGAbstractTranscoder;
+import org.apache.batik.transcoder.SVGDocumentCache;
+import org.apache.batik.transcoder.TranscoderException;
+import org.apache.batik.transcoder.TranscoderOutput;
+
+/**
+ * Test the ImageTranscoder with the KEY_DOCUMENT_CACHE transcoding hint.
+ * All the tests share the same cache, so the documents transcoded more
+ * than once are rendered from the cached document and GVT tree.  The
+ * reference image is the same document transcoded without the cache.
+ *
+ * @version $Id$
+ */
+public class DocumentCacheTest extends DimensionTest {
+
+    /** The cache shared by all the tests. */
+    protected static SVGDocumentCache cache = new SVGDocumentCache();
+
+    /**
+     * Constructs a new <code>DocumentCacheTest</code>.
+     *
+     * @param inputURI the URI of the input image
+     * @param width the image width
+     * @param height the image height
+     */
+    public DocumentCacheTest(String inputURI,
+                             Float width,
+                             Float height) {
+        super(inputURI, null, width, height);
+    }
+
+    /**
+     * Creates a Map that contains additional transcoding hints.
+     */
+    protected Map createTranscodingHints() {
+        Map hints = super.createTranscodingHints();
+        hints.put(SVGAbstractTranscoder.KEY_DOCUMENT_CACHE, cache);
+        return hints;
+    }
+
+    /**
+     * Returns the image produced without the document cache.
+     */
+    protected byte [] getReferenceImageData() {
+        try {
+            PNGTranscoder t = new PNGTranscoder();
+            t.setTranscodingHints(super.createTranscodingHints());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            t.transcode(createTranscoderInput(), new TranscoderOutput(out));
+            return out.toByteArray();
+        } catch (TranscoderException ex) {
+            return null;
+        }
+    }
+}
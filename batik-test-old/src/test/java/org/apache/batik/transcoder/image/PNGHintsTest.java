@@ -0,0 +1,61 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.transcoder.image;
+
+import org.apache.batik.test.AbstractTest;
+import org.apache.batik.transcoder.TranscodingHints;
+
+/**
+ * Checks that the PNG filter and compression level hints only accept
+ * values in their range, so a bad value is rejected when the hint is
+ * set rather than failing the transcoding.
+ *
+ * @version $Id$
+ */
+public class PNGHintsTest extends AbstractTest {
+
+    public boolean runImplBasic() throws Exception {
+        assertRange(PNGTranscoder.KEY_FILTER, 0, 4);
+        assertRange(PNGTranscoder.KEY_COMPRESSION_LEVEL, 0, 9);
+        assertTrue(!PNGTranscoder.KEY_FILTER.isCompatibleValue("1"));
+
+        PNGTranscoder t = new PNGTranscoder();
+        boolean rejected = false;
+        try {
+            t.addTranscodingHint(PNGTranscoder.KEY_COMPRESSION_LEVEL,
+                                 new Integer(10));
+        } catch (IllegalArgumentException ex) {
+            rejected = true;
+        }
+        assertTrue(rejected);
+        return true;
+    }
+
+    /**
+     * Checks that <code>key</code> accepts the integers from
+     * <code>min</code> to <code>max</code> and only those.
+     */
+    protected void assertRange(TranscodingHints.Key key, int min, int max)
+        throws Exception {
+        for (int i = min - 1; i <= max + 1; i++) {
+            assertEquals("" + i + ":" + (i >= min && i <= max),
+                         "" + i + ":" + key.isCompatibleValue(new Integer(i)));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.transcoder.image;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.batik.ext.awt.image.renderable.GaussianBlurRable8Bit;
+import org.apache.batik.test.TestReport;
+import org.apache.batik.transcoder.TranscoderException;
+import org.apache.batik.transcoder.TranscoderOutput;
+
+/**
+ * Test that the Gaussian blur computed in strips on an executor gives
+ * the same image as the blur computed on the rendering thread.  The
+ * reference image is the same document transcoded without executor.
+ *
+ * @version $Id$
+ */
+public class ParallelBlurTest extends DimensionTest {
+
+    /**
+     * Constructs a new <code>ParallelBlurTest</code>.
+     *
+     * @param inputURI the URI of the input image
+     * @param width the image width
+     * @param height the image height
+     */
+    public ParallelBlurTest(String inputURI,
+                            Float width,
+                            Float height) {
+        super(inputURI, null, width, height);
+    }
+
+    /**
+     * Runs this test with an executor installed as the default executor
+     * of the blur filters.
+     */
+    public TestReport runImpl() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        GaussianBlurRable8Bit.setDefaultExecutor(executor);
+        try {
+            return super.runImpl();
+        } finally {
+            GaussianBlurRable8Bit.setDefaultExecutor(null);
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Returns the image produced with the blur computed on the
+     * rendering thread.
+     */
+    protected byte [] getReferenceImageData() {
+        Executor executor = GaussianBlurRable8Bit.getDefaultExecutor();
+        GaussianBlurRable8Bit.setDefaultExecutor(null);
+        try {
+            PNGTranscoder t = new PNGTranscoder();
+            t.setTranscodingHints(createTranscodingHints());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            t.transcode(createTranscoderInput(), new TranscoderOutput(out));
+            return out.toByteArray();
+        } catch (TranscoderException ex) {
+            return null;
+        } finally {
+            GaussianBlurRable8Bit.setDefaultExecutor(executor);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.transcoder.image;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import org.apache.batik.test.TestReport;
+import org.apache.batik.transcoder.Transcoder;
+import org.apache.batik.transcoder.TranscoderException;
+import org.apache.batik.transcoder.TranscoderOutput;
+
+/**
+ * Test that the image rendered and encoded band by band gives the same
+ * image as the one rendered in one piece.  The reference image is the
+ * same document transcoded without KEY_STREAMING_BAND_HEIGHT.
+ *
+ * When an output MIME type is given, the images are encoded in that
+ * format, so the bands go through the streaming write adapter of the
+ * transcoder, and the decoded pixels are compared.
+ *
+ * @version $Id$
+ */
+public class StreamingTest extends DimensionTest {
+
+    /**
+     * The height of the bands.
+     */
+    protected Integer bandHeight;
+
+    /**
+     * The MIME type of the encoded images, or null to compare the
+     * rendered images.
+     */
+    protected String mimeType;
+
+    /**
+     * Constructs a new <code>StreamingTest</code>.
+     *
+     * @param inputURI the URI of the input image
+     * @param width the image width
+     * @param bandHeight the height of the bands
+     */
+    public StreamingTest(String inputURI,
+                         Float width,
+                         Integer bandHeight) {
+        this(inputURI, width, bandHeight, null);
+    }
+
+    /**
+     * Constructs a new <code>StreamingTest</code> comparing encoded images.
+     *
+     * @param inputURI the URI of the input image
+     * @param width the image width
+     * @param bandHeight the height of the bands
+     * @param mimeType the MIME type of the encoded images, image/png or
+     *        image/tiff
+     */
+    public StreamingTest(String inputURI,
+                         Float width,
+                         Integer bandHeight,
+                         String mimeType) {
+        super(inputURI, null, width, new Float(-1));
+        this.bandHeight = bandHeight;
+        this.mimeType = mimeType;
+    }
+
+    /**
+     * Runs this test, encoding the images when a MIME type is given.
+     */
+    public TestReport runImpl() throws Exception {
+        if (mimeType == null) {
+            return super.runImpl();
+        }
+        // TIFF images are written through Image I/O, which only has a
+        // TIFF writer from Java 9 or with the JAI Image I/O tools.
+        if (!ImageIO.getImageWritersByMIMEType(mimeType).hasNext()) {
+            return reportSuccess();
+        }
+
+        BufferedImage streamed = getImage(new ByteArrayInputStream
+            (encode(createTranscodingHints())));
+        BufferedImage whole = getImage(new ByteArrayInputStream
+            (encode(super.createTranscodingHints())));
+
+        int w = whole.getWidth();
+        int h = whole.getHeight();
+        if ((streamed.getWidth() != w) || (streamed.getHeight() != h)) {
+            return reportError(ERROR_IMAGE_DIFFER);
+        }
+        int[] ref = whole.getRGB(0, 0, w, h, null, 0, w);
+        int[] cmp = streamed.getRGB(0, 0, w, h, null, 0, w);
+        for (int i = 0; i < ref.length; i++) {
+            if (ref[i] != cmp[i]) {
+                return reportError(ERROR_IMAGE_DIFFER);
+            }
+        }
+        return reportSuccess();
+    }
+
+    /**
+     * Transcodes the input image with the given hints and returns the
+     * encoded image.
+     */
+    protected byte [] encode(Map hints) throws TranscoderException {
+        Transcoder t;
+        if ("image/tiff".equals(mimeType)) {
+            t = new TIFFTranscoder();
+        } else {
+            t = new PNGTranscoder();
+        }
+        t.setTranscodingHints(hints);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        t.transcode(createTranscoderInput(), new TranscoderOutput(out));
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns the hints of the image produced band by band.
+     */
+    protected Map createTranscodingHints() {
+        Map hints = super.createTranscodingHints();
+        hints.put(ImageTranscoder.KEY_STREAMING_BAND_HEIGHT, bandHeight);
+        return hints;
+    }
+
+    /**
+     * Returns the image produced in one piece.
+     */
+    protected byte [] getReferenceImageData() {
+        try {
+            PNGTranscoder t = new PNGTranscoder();
+            Map hints = super.createTranscodingHints();
+            t.setTranscodingHints(hints);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            t.transcode(createTranscoderInput(), new TranscoderOutput(out));
+            return out.toByteArray();
+        } catch (TranscoderException ex) {
+            return null;
+        }
+    }
+}
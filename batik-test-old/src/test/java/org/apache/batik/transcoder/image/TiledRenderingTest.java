@@ -0,0 +1,105 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.transcoder.image;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.batik.test.TestReport;
+import org.apache.batik.transcoder.TranscoderException;
+import org.apache.batik.transcoder.TranscoderOutput;
+
+/**
+ * Test that an image rendered tile by tile on an executor is the same
+ * as the image rendered on the transcoding thread.  The reference
+ * image is the same document transcoded without executor.  The
+ * antialiasing of shapes depends on the origin of the rendered
+ * region, so the documents tested should only use edges on the
+ * pixel grid.
+ *
+ * @version $Id$
+ */
+public class TiledRenderingTest extends DimensionTest {
+
+    /** The size of the rendered tiles. */
+    protected Integer tileSize;
+
+    /** The executor the tiles are rendered on. */
+    protected ExecutorService executor;
+
+    /**
+     * Constructs a new <code>TiledRenderingTest</code>.
+     *
+     * @param inputURI the URI of the input image
+     * @param width the image width
+     * @param tileSize the size of the rendered tiles
+     */
+    public TiledRenderingTest(String inputURI,
+                              Float width,
+                              Integer tileSize) {
+        super(inputURI, null, width, new Float(-1));
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Runs this test with an executor to render the tiles on.
+     */
+    public TestReport runImpl() throws Exception {
+        executor = Executors.newFixedThreadPool(4);
+        try {
+            return super.runImpl();
+        } finally {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * Creates a Map that contains additional transcoding hints.
+     */
+    protected Map createTranscodingHints() {
+        Map hints = super.createTranscodingHints();
+        if (executor != null) {
+            hints.put(ImageTranscoder.KEY_RENDERING_EXECUTOR, executor);
+            hints.put(ImageTranscoder.KEY_RENDERING_TILE_SIZE, tileSize);
+        }
+        return hints;
+    }
+
+    /**
+     * Returns the image rendered on the transcoding thread.
+     */
+    protected byte [] getReferenceImageData() {
+        ExecutorService ex = executor;
+        executor = null;
+        try {
+            PNGTranscoder t = new PNGTranscoder();
+            t.setTranscodingHints(createTranscodingHints());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            t.transcode(createTranscoderInput(), new TranscoderOutput(out));
+            return out.toByteArray();
+        } catch (TranscoderException e) {
+            return null;
+        } finally {
+            executor = ex;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.transcoder.image;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import org.apache.batik.test.AbstractTest;
+import org.apache.batik.transcoder.SVGAbstractTranscoder;
+import org.apache.batik.transcoder.TranscoderInput;
+import org.apache.batik.transcoder.TranscoderOutput;
+import org.apache.batik.transcoder.TranscodingListener;
+import org.apache.batik.transcoder.TranscodingStatistics;
+
+/**
+ * Test that the KEY_TRANSCODING_LISTENER transcoding hint reports each
+ * stage of a PNG transcoding once, and counts the GVT nodes and glyphs
+ * of the document.  The tiles computed are counted for each transcoding,
+ * even when several transcodings run at the same time.  When the image
+ * is rendered band by band, the rendering of the bands is reported
+ * with the render stage.
+ *
+ * @version $Id$
+ */
+public class TranscodingListenerTest extends AbstractTest {
+
+    /** The URI of the input image. */
+    protected String inputURI;
+
+    /**
+     * Constructs a new <code>TranscodingListenerTest</code>.
+     *
+     * @param inputURI the URI of the input image, it must contain text
+     */
+    public TranscodingListenerTest(String inputURI) {
+        this.inputURI = inputURI;
+    }
+
+    public boolean runImplBasic() throws Exception {
+        TranscodingStatistics stats = transcode(0);
+        if (!checkStages(stats))
+            return false;
+        if ((stats.getCounter
+             (TranscodingListener.COUNTER_GRAPHICS_NODES) == 0)
+            || (stats.getCounter(TranscodingListener.COUNTER_TEXT_NODES) == 0)
+            || (stats.getCounter(TranscodingListener.COUNTER_GLYPHS) == 0))
+            return false;
+
+        // Most of the rendering happens while the bands are encoded, it
+        // must not be reported as encoding.
+        TranscodingStatistics streamed = transcode(32);
+        if (!checkStages(streamed))
+            return false;
+        long render = stats.getStageTime(TranscodingListener.STAGE_RENDER);
+        assertTrue(streamed.getStageTime(TranscodingListener.STAGE_RENDER)
+                   > render / 10);
+
+        // The same document transcoded on several threads at once must
+        // compute the same number of tiles each time.
+        long tiles = stats.getCounter
+            (TranscodingListener.COUNTER_TILES_COMPUTED);
+        final TranscodingStatistics[] concurrent = new TranscodingStatistics[4];
+        final Exception[] errors = new Exception[concurrent.length];
+        Thread[] threads = new Thread[concurrent.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int n = i;
+            threads[i] = new Thread() {
+                    public void run() {
+                        try {
+                            concurrent[n] = transcode(0);
+                        } catch (Exception ex) {
+                            errors[n] = ex;
+                        }
+                    }
+                };
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+            if (errors[i] != null)
+                throw errors[i];
+        }
+        for (int i = 0; i < concurrent.length; i++) {
+            assertEquals(new Long(tiles), new Long(concurrent[i].getCounter
+                         (TranscodingListener.COUNTER_TILES_COMPUTED)));
+        }
+        return true;
+    }
+
+    /**
+     * Whether each stage was reported once, with a positive time.
+     */
+    protected boolean checkStages(TranscodingStatistics stats) {
+        String[] stages = { TranscodingListener.STAGE_PARSE,
+                            TranscodingListener.STAGE_BUILD,
+                            TranscodingListener.STAGE_RENDER,
+                            TranscodingListener.STAGE_ENCODE };
+        for (int i = 0; i < stages.length; i++) {
+            if (stats.getStageCount(stages[i]) != 1)
+                return false;
+            if (stats.getStageTime(stages[i]) <= 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Transcodes the input image to PNG and returns the statistics
+     * reported to the listener.
+     * @param bandHeight the height of the bands the image is rendered
+     *        in, or 0 to render it at once
+     */
+    protected TranscodingStatistics transcode(int bandHeight)
+        throws Exception {
+        TranscodingStatistics stats = new TranscodingStatistics();
+        PNGTranscoder t = new PNGTranscoder();
+        t.addTranscodingHint(SVGAbstractTranscoder.KEY_TRANSCODING_LISTENER,
+                             stats);
+        if (bandHeight > 0)
+            t.addTranscodingHint(ImageTranscoder.KEY_STREAMING_BAND_HEIGHT,
+                                 new Integer(bandHeight));
+        String uri = new File(inputURI).toURI().toString();
+        t.transcode(new TranscoderInput(uri),
+                    new TranscoderOutput(new ByteArrayOutputStream()));
+        return stats;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.batik.test.AbstractTest;
+
+/**
+ * Checks that a local file read through ParsedURL.openMappedStream
+ * gives the same bytes as through ParsedURL.openStream.
+ *
+ * @version $Id$
+ */
+public class MappedFileInputStreamTest extends AbstractTest {
+
+    /**
+     * The file to read.
+     */
+    protected static final String FILE = "samples/anne.svg";
+
+    public boolean runImplBasic() throws Exception {
+        ParsedURL purl = new ParsedURL(new File(FILE).toURI().toString());
+        byte[] expected = read(purl.openStream());
+        InputStream is = purl.openMappedStream(null);
+        try {
+            if (!is.markSupported()) {
+                return false;
+            }
+            is.mark(0);
+            if (is.skip(10) != 10 || is.read() != (expected[10] & 0xff)) {
+                return false;
+            }
+            is.reset();
+        } catch (IOException e) {
+            is.close();
+            throw e;
+        }
+        byte[] actual = read(is);
+        if (actual.length != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (actual[i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads and closes the given stream.
+     */
+    protected byte[] read(InputStream is) throws IOException {
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            byte[] buf = new byte[1000];
+            int n;
+            while ((n = is.read(buf)) != -1) {
+                bos.write(buf, 0, n);
+            }
+            return bos.toByteArray();
+        } finally {
+            is.close();
+        }
+    }
+}
@@ -22,6 +22,18 @@ import java.awt.Dimension;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Dimension2D;
 import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.StringTokenizer;
@@ -38,6 +50,8 @@ import org.apache.batik.bridge.NoLoadScriptSecurity;
 import org.apache.batik.bridge.RelaxedScriptSecurity;
 import org.apache.batik.bridge.SVGUtilities;
 import org.apache.batik.bridge.ScriptSecurity;
+import org.apache.batik.bridge.StrokingTextPainter;
+import org.apache.batik.bridge.TextNode;
 import org.apache.batik.bridge.UserAgent;
 import org.apache.batik.bridge.UserAgentAdapter;
 import org.apache.batik.bridge.ViewBox;
@@ -47,11 +61,15 @@ import org.apache.batik.dom.util.DocumentFactory;
 import org.apache.batik.gvt.CanvasGraphicsNode;
 import org.apache.batik.gvt.CompositeGraphicsNode;
 import org.apache.batik.gvt.GraphicsNode;
+import org.apache.batik.gvt.ShapeNode;
 import org.apache.batik.transcoder.keys.BooleanKey;
 import org.apache.batik.transcoder.keys.FloatKey;
 import org.apache.batik.transcoder.keys.LengthKey;
 import org.apache.batik.transcoder.keys.Rectangle2DKey;
+import org.apache.batik.transcoder.keys.SVGDocumentCacheKey;
 import org.apache.batik.transcoder.keys.StringKey;
+import org.apache.batik.transcoder.keys.TranscodingListenerKey;
+import org.apache.batik.util.MimeTypeConstants;
 import org.apache.batik.util.ParsedURL;
 import org.apache.batik.util.SVGConstants;
 import org.w3c.dom.DOMImplementation;
@@ -67,6 +85,10 @@ import org.w3c.dom.svg.SVGSVGElement;
  * <ul>
  *   <li><code>KEY_WIDTH, KEY_HEIGHT</code> can be used to specify how to scale the
  *       SVG image</li>
+ *   <li><code>KEY_DOCUMENT_CACHE</code> can be used to reuse the parsed
+ *       documents and their GVT trees across transcodes</li>
+ *   <li><code>KEY_TRANSCODING_LISTENER</code> can be used to get the
+ *       duration of each stage of the transcoding</li>
  * </ul>
  *
  * @author <a href="mailto:Thierry.Kormann@sophia.inria.fr">Thierry Kormann</a>
@@ -113,6 +135,29 @@ public abstract class SVGAbstractTranscoder extends XMLAbstractTranscoder {
     /** The user agent dedicated to an SVG Transcoder. */
     protected UserAgent userAgent;
 
+    /**
+     * The document cache entry used by the current transcode, if any.
+     */
+    protected SVGDocumentCache.Entry cacheEntry;
+
+    /**
+     * The listener notified of the stages of the current transcode, if any.
+     */
+    protected TranscodingListener transcodingListener;
+
+    /**
+     * The URI of the document of the current transcode, if any.
+     */
+    protected String transcodingURI;
+
+    /**
+     * The stage in progress, its start time and the number of bytes
+     * allocated by the transcoding thread when it started.
+     */
+    protected String stage;
+    protected long stageStartTime;
+    protected long stageStartAllocatedBytes;
+
     protected SVGAbstractTranscoder() {
         userAgent = createUserAgent();
 
@@ -147,17 +192,366 @@ public abstract class SVGAbstractTranscoder extends XMLAbstractTranscoder {
      */
     protected DocumentFactory createDocumentFactory(DOMImplementation domImpl,
                                                     String parserClassname) {
-        return new SAXSVGDocumentFactory(parserClassname);
+        SAXSVGDocumentFactory f = new SAXSVGDocumentFactory(parserClassname);
+        f.setRenderOnly(Boolean.TRUE.equals(hints.get(KEY_RENDER_ONLY)) &&
+                        !Boolean.TRUE.equals(hints.get(KEY_EXECUTE_ONLOAD)));
+        f.setMappedFileInput
+            (Boolean.TRUE.equals(hints.get(KEY_MAPPED_FILE_INPUT)));
+        return f;
     }
 
     public void transcode(TranscoderInput input, TranscoderOutput output)
             throws TranscoderException {
 
-        super.transcode(input, output);
+        transcodingListener =
+            (TranscodingListener)hints.get(KEY_TRANSCODING_LISTENER);
+        transcodingURI = input.getURI();
+        try {
+            if (input.getDocument() == null)
+                beginStage(TranscodingListener.STAGE_PARSE);
+
+            SVGDocumentCache cache =
+                (SVGDocumentCache)hints.get(KEY_DOCUMENT_CACHE);
+            if ((cache != null) && isCacheable(input)) {
+                byte[] data = null;
+                try {
+                    data = readInput(input);
+                } catch (IOException ex) {
+                    // Let the regular path report the error.
+                }
+                if (data != null) {
+                    transcode(cache, data, input.getURI(), output);
+                    return;
+                }
+            }
+
+            super.transcode(input, output);
+
+            if (ctx != null)
+                ctx.dispose();
+        } finally {
+            stage = null;
+            transcodingListener = null;
+            transcodingURI = null;
+        }
+    }
+
+    /**
+     * Starts the given stage of the transcoding, after completing the
+     * stage in progress if any.  Does nothing when no listener is
+     * registered.
+     */
+    protected void beginStage(String name) {
+        if (transcodingListener == null)
+            return;
+        endStage();
+        stage = name;
+        stageStartAllocatedBytes = AllocationCounter.getAllocatedBytes();
+        stageStartTime = System.nanoTime();
+    }
+
+    /**
+     * Completes the stage in progress, if any, and reports it to the
+     * listener.
+     */
+    protected void endStage() {
+        if (stage == null)
+            return;
+        long time = System.nanoTime() - stageStartTime;
+        long allocated = AllocationCounter.getAllocatedBytes();
+        if ((allocated < 0) || (stageStartAllocatedBytes < 0))
+            allocated = -1;
+        else
+            allocated -= stageStartAllocatedBytes;
+        String name = stage;
+        stage = null;
+        transcodingListener.stageCompleted(this, transcodingURI, name,
+                                           time, allocated);
+    }
+
+    /**
+     * Completes the stage in progress, if any, and reports it to the
+     * listener followed by the given stage, whose work was interleaved
+     * with it.  The time and bytes of the given stage are taken out of
+     * the stage in progress.
+     * @param name the name of the interleaved stage
+     * @param time the time spent in the interleaved stage, in nanoseconds
+     * @param allocatedBytes the bytes allocated by the interleaved stage
+     *        on the transcoding thread, or -1 if not measured
+     */
+    protected void endStage(String name, long time, long allocatedBytes) {
+        if (stage == null)
+            return;
+        stageStartTime += time;
+        if ((allocatedBytes < 0) || (stageStartAllocatedBytes < 0)) {
+            allocatedBytes = -1;
+            stageStartAllocatedBytes = -1;
+        } else {
+            stageStartAllocatedBytes += allocatedBytes;
+        }
+        endStage();
+        transcodingListener.stageCompleted(this, transcodingURI, name,
+                                           time, allocatedBytes);
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the current
+     * thread, or -1 if it is not measured.  Returns -1 when no
+     * listener is registered.
+     */
+    protected long getAllocatedBytes() {
+        if (transcodingListener == null)
+            return -1;
+        return AllocationCounter.getAllocatedBytes();
+    }
+
+    /**
+     * Reports an amount of work to the listener, if any.
+     */
+    protected void countWork(String counter, long count) {
+        if (transcodingListener != null)
+            transcodingListener.workCounted(this, transcodingURI,
+                                            counter, count);
+    }
+
+    /**
+     * Reports the number of nodes of the given GVT tree, by kind.
+     */
+    protected void countGraphicsNodes(GraphicsNode gvtRoot) {
+        if ((transcodingListener == null) || (gvtRoot == null))
+            return;
+        long[] counts = new long[4];
+        countGraphicsNodes(gvtRoot, counts);
+        countWork(TranscodingListener.COUNTER_GRAPHICS_NODES, counts[0]);
+        countWork(TranscodingListener.COUNTER_SHAPE_NODES,    counts[1]);
+        countWork(TranscodingListener.COUNTER_TEXT_NODES,     counts[2]);
+        countWork(TranscodingListener.COUNTER_FILTERED_NODES, counts[3]);
+    }
+
+    private static void countGraphicsNodes(GraphicsNode gn, long[] counts) {
+        counts[0]++;
+        if (gn instanceof ShapeNode)
+            counts[1]++;
+        else if (gn instanceof TextNode)
+            counts[2]++;
+        if (gn.getFilter() != null)
+            counts[3]++;
+        if (gn instanceof CompositeGraphicsNode) {
+            Iterator i = ((CompositeGraphicsNode)gn).iterator();
+            while (i.hasNext())
+                countGraphicsNodes((GraphicsNode)i.next(), counts);
+        }
+    }
+
+    /**
+     * Reports the number of glyphs laid out for the text nodes of the
+     * given GVT tree.  The text of a node is laid out the first time it
+     * is painted or its bounds are computed.
+     */
+    protected void countGlyphs(GraphicsNode gvtRoot) {
+        if ((transcodingListener == null) || (gvtRoot == null))
+            return;
+        countWork(TranscodingListener.COUNTER_GLYPHS, countGlyphs0(gvtRoot));
+    }
+
+    private static long countGlyphs0(GraphicsNode gn) {
+        long n = 0;
+        if (gn instanceof TextNode) {
+            List runs = ((TextNode)gn).getTextRuns();
+            if (runs != null) {
+                for (Object run : runs) {
+                    if (run instanceof StrokingTextPainter.TextRun)
+                        n += ((StrokingTextPainter.TextRun)run)
+                            .getLayout().getGlyphCount();
+                }
+            }
+        } else if (gn instanceof CompositeGraphicsNode) {
+            Iterator i = ((CompositeGraphicsNode)gn).iterator();
+            while (i.hasNext())
+                n += countGlyphs0((GraphicsNode)i.next());
+        }
+        return n;
+    }
+
+    /**
+     * Measures the bytes allocated by a thread, when the virtual machine
+     * supports it.  Loaded the first time a listener is used.
+     */
+    private static class AllocationCounter {
+
+        private static Object threadBean;
+        private static Method allocatedBytes;
+
+        static {
+            try {
+                Class c = Class.forName("com.sun.management.ThreadMXBean");
+                Object bean = ManagementFactory.getThreadMXBean();
+                if (c.isInstance(bean)) {
+                    Object supported = c.getMethod
+                        ("isThreadAllocatedMemorySupported", new Class[0])
+                        .invoke(bean, new Object[0]);
+                    Object enabled = c.getMethod
+                        ("isThreadAllocatedMemoryEnabled", new Class[0])
+                        .invoke(bean, new Object[0]);
+                    if (Boolean.TRUE.equals(supported) &&
+                        Boolean.TRUE.equals(enabled)) {
+                        allocatedBytes = c.getMethod
+                            ("getThreadAllocatedBytes",
+                             new Class[] { Long.TYPE });
+                        threadBean = bean;
+                    }
+                }
+            } catch (Exception ex) {
+                // Not supported by this virtual machine.
+            } catch (LinkageError err) {
+                // Not supported by this virtual machine.
+            }
+        }
+
+        /**
+         * Returns the number of bytes allocated by the current thread,
+         * or -1 if it is not measured.
+         */
+        static long getAllocatedBytes() {
+            if (allocatedBytes == null)
+                return -1;
+            try {
+                Object[] args = { new Long(Thread.currentThread().getId()) };
+                return ((Long)allocatedBytes.invoke(threadBean, args))
+                    .longValue();
+            } catch (Exception ex) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Transcodes the given input bytes, reusing the document and the
+     * GVT tree from the cache when possible.
+     */
+    protected void transcode(SVGDocumentCache cache,
+                             byte[] data,
+                             String uri,
+                             TranscoderOutput output)
+            throws TranscoderException {
+
+        Object key = createDocumentCacheKey(data, uri);
+        SVGDocumentCache.Entry entry = cache.checkOut(key);
+        TranscoderInput input;
+        if (entry != null) {
+            input = new TranscoderInput(entry.getDocument());
+        } else {
+            entry = cache.createEntry(key, data.length);
+            input = new TranscoderInput(new ByteArrayInputStream(data));
+        }
+        input.setURI(uri);
+
+        boolean success = false;
+        cacheEntry = entry;
+        try {
+            super.transcode(input, output);
+            success = (entry.root != null);
+        } finally {
+            cacheEntry = null;
+            if (success) {
+                cache.checkIn(entry);
+            } else {
+                entry.disposeTree();
+            }
+        }
+    }
+
+    /**
+     * Returns true if the given input can be transcoded through the
+     * document cache.  Only static documents read from a byte stream or
+     * a URI are cached.
+     */
+    protected boolean isCacheable(TranscoderInput input) {
+        if ((input.getDocument() != null) ||
+            (input.getXMLReader() != null) ||
+            (input.getReader() != null))
+            return false;
+        if ((input.getInputStream() == null) && (input.getURI() == null))
+            return false;
+        Object onload = hints.get(KEY_EXECUTE_ONLOAD);
+        return (onload == null) || !((Boolean)onload).booleanValue();
+    }
+
+    /**
+     * Reads all the bytes of the given input.
+     */
+    protected byte[] readInput(TranscoderInput input) throws IOException {
+        InputStream is = input.getInputStream();
+        boolean close = false;
+        if (is == null) {
+            ParsedURL purl = new ParsedURL(input.getURI());
+            is = Boolean.TRUE.equals(hints.get(KEY_MAPPED_FILE_INPUT))
+                ? purl.openMappedStream
+                    (MimeTypeConstants.MIME_TYPES_SVG_LIST.iterator())
+                : purl.openStream
+                    (MimeTypeConstants.MIME_TYPES_SVG_LIST.iterator());
+            close = true;
+        }
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = is.read(buf)) != -1) {
+                bos.write(buf, 0, n);
+            }
+            return bos.toByteArray();
+        } finally {
+            if (close)
+                is.close();
+        }
+    }
+
+    /**
+     * Returns the key of a document in the document cache.  It is made
+     * of a digest of the input bytes, the document URI and the values
+     * of the hints which are used while the document is parsed and its
+     * GVT tree is built.  Subclasses which add such hints should add
+     * their values to the returned list.
+     */
+    protected List createDocumentCacheKey(byte[] data, String uri) {
+        String digest;
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            digest = new BigInteger(1, md.digest(data)).toString(16);
+        } catch (NoSuchAlgorithmException ex) {
+            digest = Integer.toHexString(Arrays.hashCode(data));
+        }
+        List key = new ArrayList();
+        key.add(digest);
+        key.add(new Integer(data.length));
+        key.add(uri);
+        key.add(hints.get(KEY_XML_PARSER_CLASSNAME));
+        key.add(hints.get(KEY_XML_PARSER_VALIDATING));
+        key.add(hints.get(KEY_RENDER_ONLY));
+        key.add(hints.get(KEY_DOCUMENT_ELEMENT_NAMESPACE_URI));
+        key.add(hints.get(KEY_DOCUMENT_ELEMENT));
+        key.add(hints.get(KEY_DOM_IMPLEMENTATION));
+        key.add(hints.get(KEY_LANGUAGE));
+        key.add(hints.get(KEY_MEDIA));
+        key.add(hints.get(KEY_DEFAULT_FONT_FAMILY));
+        key.add(hints.get(KEY_ALTERNATE_STYLESHEET));
+        key.add(hints.get(KEY_USER_STYLESHEET_URI));
+        key.add(hints.get(KEY_PIXEL_UNIT_TO_MILLIMETER));
+        return key;
+    }
 
-        if (ctx != null)
-            ctx.dispose();
+    /**
+     * Returns true if the GVT tree of the given document depends on the
+     * size of the viewport, that is if the root element has no width or
+     * height, or one given in percentages.
+     */
+    protected boolean isViewportDependent(SVGSVGElement root) {
+        String w = root.getAttributeNS(null, SVGConstants.SVG_WIDTH_ATTRIBUTE);
+        String h = root.getAttributeNS(null, SVGConstants.SVG_HEIGHT_ATTRIBUTE);
+        return (w.length() == 0) || (h.length() == 0)
+            || (w.indexOf('%') != -1) || (h.indexOf('%') != -1);
     }
+
     /**
      * Transcodes the specified Document as an image in the specified output.
      *
@@ -171,6 +565,8 @@ public abstract class SVGAbstractTranscoder extends XMLAbstractTranscoder {
                              TranscoderOutput output)
             throws TranscoderException {
 
+        beginStage(TranscodingListener.STAGE_BUILD);
+
         if ((document != null) &&
             !(document.getImplementation() instanceof SVGDOMImplementation)) {
             DOMImplementation impl;
@@ -191,40 +587,65 @@ public abstract class SVGAbstractTranscoder extends XMLAbstractTranscoder {
 
         SVGOMDocument svgDoc = (SVGOMDocument)document;
         SVGSVGElement root = svgDoc.getRootElement();
-        ctx = createBridgeContext(svgDoc);
-
-        // build the GVT tree
-        builder = new GVTBuilder();
-        // flag that indicates if the document is dynamic
-        boolean isDynamic =
-            hints.containsKey(KEY_EXECUTE_ONLOAD) &&
-                    (Boolean) hints.get(KEY_EXECUTE_ONLOAD);
 
+        // A cached GVT tree can be reused if it was built for the same
+        // viewport or does not depend on it.
+        SVGDocumentCache.Entry entry = cacheEntry;
         GraphicsNode gvtRoot;
-        try {
-            if (isDynamic)
-                ctx.setDynamicState(BridgeContext.DYNAMIC);
-
-            gvtRoot = builder.build(ctx, svgDoc);
-
-            // dispatch an 'onload' event if needed
-            if (ctx.isDynamic()) {
-                BaseScriptingEnvironment se;
-                se = new BaseScriptingEnvironment(ctx);
-                se.loadScripts();
-                se.dispatchSVGLoadEvent();
-                if (hints.containsKey(KEY_SNAPSHOT_TIME)) {
-                    float t =
-                            (Float) hints.get(KEY_SNAPSHOT_TIME);
-                    ctx.getAnimationEngine().setCurrentTime(t);
-                } else if (ctx.isSVG12()) {
-                    float t = SVGUtilities.convertSnapshotTime(root, null);
-                    ctx.getAnimationEngine().setCurrentTime(t);
+        if ((entry != null) && (entry.document == svgDoc)
+                && (entry.root != null)
+                && ((entry.width == width && entry.height == height)
+                    || !isViewportDependent(root))) {
+            ctx = entry.ctx;
+            gvtRoot = entry.root;
+        } else {
+            if (entry != null)
+                entry.disposeTree();
+
+            ctx = createBridgeContext(svgDoc);
+
+            // build the GVT tree
+            builder = new GVTBuilder();
+            // flag that indicates if the document is dynamic
+            boolean isDynamic =
+                hints.containsKey(KEY_EXECUTE_ONLOAD) &&
+                        (Boolean) hints.get(KEY_EXECUTE_ONLOAD);
+
+            try {
+                if (isDynamic)
+                    ctx.setDynamicState(BridgeContext.DYNAMIC);
+
+                gvtRoot = builder.build(ctx, svgDoc);
+
+                // dispatch an 'onload' event if needed
+                if (ctx.isDynamic()) {
+                    BaseScriptingEnvironment se;
+                    se = new BaseScriptingEnvironment(ctx);
+                    se.loadScripts();
+                    se.dispatchSVGLoadEvent();
+                    if (hints.containsKey(KEY_SNAPSHOT_TIME)) {
+                        float t =
+                                (Float) hints.get(KEY_SNAPSHOT_TIME);
+                        ctx.getAnimationEngine().setCurrentTime(t);
+                    } else if (ctx.isSVG12()) {
+                        float t = SVGUtilities.convertSnapshotTime(root, null);
+                        ctx.getAnimationEngine().setCurrentTime(t);
+                    }
                 }
+            } catch (BridgeException ex) {
+                throw new TranscoderException(ex);
+            }
+
+            if (entry != null) {
+                entry.document = svgDoc;
+                entry.ctx = ctx;
+                entry.root = gvtRoot;
+                entry.width = width;
+                entry.height = height;
             }
-        } catch (BridgeException ex) {
-            throw new TranscoderException(ex);
         }
+        endStage();
+        countGraphicsNodes(gvtRoot);
 
         // get the 'width' and 'height' attributes of the SVG document
         float docWidth = (float)ctx.getDocumentSize().getWidth();
@@ -801,6 +1222,68 @@ public abstract class SVGAbstractTranscoder extends XMLAbstractTranscoder {
     public static final TranscodingHints.Key KEY_SNAPSHOT_TIME
         = new FloatKey();
 
+    /**
+     * The render-only document key.
+     * <table summary="" border="0" cellspacing="0" cellpadding="1">
+     *   <tr>
+     *     <th valign="top" align="right">Key:</th>
+     *     <td valign="top">KEY_RENDER_ONLY</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Value:</th>
+     *     <td valign="top">Boolean</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Default:</th>
+     *     <td valign="top">false</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Required:</th>
+     *     <td valign="top">No</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Description:</th>
+     *     <td valign="top">Specify if the documents read by the transcoder
+     *       are only loaded to be rendered: they are then created without
+     *       the mutation event and animation bookkeeping.  Does not apply
+     *       if {@link #KEY_EXECUTE_ONLOAD} is set to <code>true</code>.</td>
+     *   </tr>
+     * </table>
+     */
+    public static final TranscodingHints.Key KEY_RENDER_ONLY
+        = new BooleanKey();
+
+    /**
+     * The mapped file input key.
+     * <table summary="" border="0" cellspacing="0" cellpadding="1">
+     *   <tr>
+     *     <th valign="top" align="right">Key:</th>
+     *     <td valign="top">KEY_MAPPED_FILE_INPUT</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Value:</th>
+     *     <td valign="top">Boolean</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Default:</th>
+     *     <td valign="top">false</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Required:</th>
+     *     <td valign="top">No</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Description:</th>
+     *     <td valign="top">Specify if the documents given to the
+     *       transcoder as local file URIs are read through memory
+     *       mappings instead of URL connections, which is faster for
+     *       very large files.</td>
+     *   </tr>
+     * </table>
+     */
+    public static final TranscodingHints.Key KEY_MAPPED_FILE_INPUT
+        = new BooleanKey();
+
     /**
      * The set of supported script languages (i.e., the set of possible
      * values for the &lt;script&gt; tag's type attribute).
@@ -876,6 +1359,74 @@ public abstract class SVGAbstractTranscoder extends XMLAbstractTranscoder {
     public static final TranscodingHints.Key KEY_CONSTRAIN_SCRIPT_ORIGIN
         = new BooleanKey();
 
+    /**
+     * The cache of parsed documents and GVT trees to use.
+     *
+     * <table summary="" border="0" cellspacing="0" cellpadding="1">
+     *   <tr>
+     *     <th valign="top" align="right">Key:</th>
+     *     <td valign="top">KEY_DOCUMENT_CACHE</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Value:</th>
+     *     <td valign="top">SVGDocumentCache</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Default:</th>
+     *     <td valign="top">null</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Required:</th>
+     *     <td valign="top">No</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Description:</th>
+     *     <td valign="top">When set, static documents read from a byte
+     *       stream or a URI are looked up in the cache before being parsed,
+     *       and the parsed document and its GVT tree are kept in the cache
+     *       for the next transcodes of the same input with the same
+     *       parsing and styling hints. Documents executing their onload
+     *       scripts are never cached.</td>
+     *   </tr>
+     * </table>
+     */
+    public static final TranscodingHints.Key KEY_DOCUMENT_CACHE
+        = new SVGDocumentCacheKey();
+
+    /**
+     * The listener notified of the stages of the transcoding.
+     *
+     * <table summary="" border="0" cellspacing="0" cellpadding="1">
+     *   <tr>
+     *     <th valign="top" align="right">Key:</th>
+     *     <td valign="top">KEY_TRANSCODING_LISTENER</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Value:</th>
+     *     <td valign="top">TranscodingListener</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Default:</th>
+     *     <td valign="top">null</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Required:</th>
+     *     <td valign="top">No</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Description:</th>
+     *     <td valign="top">When set, the listener is given the duration
+     *       and the allocations of the parse, build, render and encode
+     *       stages of each transcode, and counters of the work done such
+     *       as the number of GVT nodes, glyphs and computed tiles. A
+     *       {@link TranscodingStatistics} can be used to accumulate them
+     *       and expose them through JMX.</td>
+     *   </tr>
+     * </table>
+     */
+    public static final TranscodingHints.Key KEY_TRANSCODING_LISTENER
+        = new TranscodingListenerKey();
+
 
     /**
      * A user agent implementation for <code>PrintTranscoder</code>.
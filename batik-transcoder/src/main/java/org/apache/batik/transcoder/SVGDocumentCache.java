@@ -0,0 +1,307 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.transcoder;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.batik.anim.dom.SVGOMDocument;
+import org.apache.batik.bridge.BridgeContext;
+import org.apache.batik.gvt.GraphicsNode;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * A cache of parsed SVG documents and of the GVT trees built from them,
+ * for transcoders which convert the same documents again and again
+ * (for example at different sizes).  An instance is enabled by setting
+ * it as the value of the {@link SVGAbstractTranscoder#KEY_DOCUMENT_CACHE}
+ * hint and may be shared by several transcoders.
+ *
+ * The entries are keyed on a digest of the input bytes, the document URI
+ * and the hints which affect the parsing and the building of the GVT
+ * tree.  A document and its GVT tree are never used by two transcodes at
+ * the same time: an entry is checked out of the cache for the duration
+ * of a transcode and checked back in afterwards, a concurrent transcode
+ * of the same input simply builds its own copy.
+ *
+ * The least recently used entries are dropped when there are more than
+ * <code>maxEntries</code> of them or when their estimated total size
+ * exceeds <code>maxBytes</code>.  An entry keeps the DOM tree, the CSS
+ * engine, the bridge context and the GVT tree, which take far more
+ * memory than the input: the size of an entry is estimated from the
+ * number of nodes of its document, see {@link #estimateSize}.
+ *
+ * @version $Id$
+ */
+public class SVGDocumentCache {
+
+    /**
+     * The default maximum number of entries.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 64;
+
+    /**
+     * The default maximum estimated total size of the entries, in bytes.
+     */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * The estimated memory kept per node of a cached document (elements,
+     * attributes and text), with its share of the CSS engine, bridge
+     * context and GVT tree.  Measured between 0.8 and 2 KB on the
+     * samples, the text heavy documents being the largest.
+     */
+    public static final long NODE_BYTES = 1024;
+
+    /**
+     * A cached document with the bridge context and GVT tree built for it.
+     */
+    public static class Entry {
+
+        protected Object key;
+
+        /**
+         * The size of the input, then the estimated size of the entry
+         * once it has been checked in.
+         */
+        protected long size;
+        protected boolean sizeEstimated;
+
+        protected SVGOMDocument document;
+        protected BridgeContext ctx;
+        protected GraphicsNode root;
+
+        /**
+         * The viewport the GVT tree was built for.
+         */
+        protected float width, height;
+
+        protected Entry(Object key, long size) {
+            this.key = key;
+            this.size = size;
+        }
+
+        public Object getKey() {
+            return key;
+        }
+
+        public SVGOMDocument getDocument() {
+            return document;
+        }
+
+        public GraphicsNode getRoot() {
+            return root;
+        }
+
+        /**
+         * Returns the estimated size of the entry in bytes, or the size
+         * of its input before it has been checked in.
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Releases the bridge context and the GVT tree.
+         */
+        public void disposeTree() {
+            if (ctx != null)
+                ctx.dispose();
+            ctx = null;
+            root = null;
+        }
+    }
+
+    protected Map entries = new LinkedHashMap(16, 0.75f, true);
+    protected int maxEntries;
+    protected long maxBytes;
+    protected long usedBytes;
+
+    protected long hits;
+    protected long misses;
+
+    /**
+     * Creates a new cache with the default limits.
+     */
+    public SVGDocumentCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Creates a new cache.
+     * @param maxEntries the maximum number of documents to keep.
+     * @param maxBytes the maximum estimated total size of the documents
+     *        to keep, with their GVT trees.
+     */
+    public SVGDocumentCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Creates an empty entry for the given key, to be filled by a
+     * transcode and then checked in.
+     * @param size the size of the input of the document.
+     */
+    public Entry createEntry(Object key, long size) {
+        return new Entry(key, size);
+    }
+
+    /**
+     * Removes the entry for <code>key</code> from the cache and returns
+     * it, or returns null if there is none.
+     */
+    public Entry checkOut(Object key) {
+        synchronized (this) {
+            Entry e = (Entry)entries.remove(key);
+            if (e == null) {
+                misses++;
+                return null;
+            }
+            usedBytes -= e.size;
+            hits++;
+            return e;
+        }
+    }
+
+    /**
+     * Puts back an entry in the cache.  If an entry with the same key
+     * has been checked in meanwhile, <code>e</code> is discarded.
+     */
+    public void checkIn(Entry e) {
+        if (!e.sizeEstimated) {
+            e.size = estimateSize(e);
+            e.sizeEstimated = true;
+        }
+        List evicted = new ArrayList();
+        synchronized (this) {
+            if (entries.containsKey(e.key)) {
+                evicted.add(e);
+            } else {
+                entries.put(e.key, e);
+                usedBytes += e.size;
+            }
+            Iterator i = entries.values().iterator();
+            while ((entries.size() > maxEntries || usedBytes > maxBytes)
+                   && i.hasNext()) {
+                Entry old = (Entry)i.next();
+                if (old == e)
+                    break;
+                i.remove();
+                usedBytes -= old.size;
+                evicted.add(old);
+            }
+        }
+        disposeAll(evicted);
+    }
+
+    /**
+     * Returns the estimated memory kept by an entry: the size of its
+     * input plus {@link #NODE_BYTES} per node of its document.  Called
+     * the first time the entry is checked in.
+     */
+    protected long estimateSize(Entry e) {
+        if (e.document == null)
+            return e.size;
+        return e.size + NODE_BYTES * countNodes(e.document);
+    }
+
+    /**
+     * Returns the number of nodes of the given subtree, attributes
+     * included.
+     */
+    protected static long countNodes(Node n) {
+        long count = 1;
+        NamedNodeMap attrs = n.getAttributes();
+        if (attrs != null)
+            count += attrs.getLength();
+        for (Node c = n.getFirstChild(); c != null; c = c.getNextSibling()) {
+            count += countNodes(c);
+        }
+        return count;
+    }
+
+    /**
+     * Drops all the entries.
+     */
+    public void clear() {
+        List evicted;
+        synchronized (this) {
+            evicted = new ArrayList(entries.values());
+            entries.clear();
+            usedBytes = 0;
+        }
+        disposeAll(evicted);
+    }
+
+    protected void disposeAll(List l) {
+        for (Object o : l) {
+            ((Entry)o).disposeTree();
+        }
+    }
+
+    public synchronized int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public synchronized void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the number of documents in the cache.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the estimated total size of the cached documents.
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Returns the number of transcodes that found their document in
+     * the cache.
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of transcodes that had to parse their document.
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+}
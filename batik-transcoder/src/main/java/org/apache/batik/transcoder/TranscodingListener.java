@@ -0,0 +1,117 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.transcoder;
+
+/**
+ * Interface for the objects notified of the progress of a transcoding,
+ * registered with the <code>KEY_TRANSCODING_LISTENER</code> hint of
+ * {@link SVGAbstractTranscoder}.
+ *
+ * The transcoding is split in stages, each one reported with its
+ * duration once completed.  The work done during the transcoding is
+ * reported as named counters.  The methods are called on the thread
+ * running the transcoding, so a listener shared by several transcoders
+ * must be thread safe.
+ *
+ * @version $Id$
+ */
+public interface TranscodingListener {
+
+    /**
+     * The stage reading and parsing the input into a DOM tree.
+     */
+    String STAGE_PARSE = "parse";
+
+    /**
+     * The stage building the GVT tree, this includes the CSS cascade
+     * and the execution of the onload scripts.
+     */
+    String STAGE_BUILD = "build";
+
+    /**
+     * The stage painting the GVT tree, this includes the computation of
+     * the filters and the text layout.  When the image is rendered band
+     * by band, the bands are painted while the image is encoded and the
+     * time spent painting them is reported with this stage.
+     */
+    String STAGE_RENDER = "render";
+
+    /**
+     * The stage writing the rendered image to the output.
+     */
+    String STAGE_ENCODE = "encode";
+
+    /**
+     * The number of nodes of the GVT tree.
+     */
+    String COUNTER_GRAPHICS_NODES = "graphicsNodes";
+
+    /**
+     * The number of shape nodes of the GVT tree.
+     */
+    String COUNTER_SHAPE_NODES = "shapeNodes";
+
+    /**
+     * The number of text nodes of the GVT tree.
+     */
+    String COUNTER_TEXT_NODES = "textNodes";
+
+    /**
+     * The number of nodes of the GVT tree with a filter.
+     */
+    String COUNTER_FILTERED_NODES = "filteredNodes";
+
+    /**
+     * The number of glyphs laid out.
+     */
+    String COUNTER_GLYPHS = "glyphs";
+
+    /**
+     * The number of tiles computed because they were not in the tile
+     * cache.  Only the tiles of the images created while rendering are
+     * counted, so the tiles computed by the other renderings sharing
+     * the cache are not included.
+     */
+    String COUNTER_TILES_COMPUTED = "tilesComputed";
+
+    /**
+     * Called when a stage of the transcoding is completed.
+     * @param transcoder the transcoder.
+     * @param uri the URI of the transcoded document, may be null.
+     * @param stage the name of the stage.
+     * @param time the duration of the stage in nanoseconds.
+     * @param allocatedBytes the number of bytes allocated by the
+     *        transcoding thread during the stage, or -1 if the virtual
+     *        machine does not measure it.  The bytes allocated by the
+     *        threads rendering tiles for the transcoder, when a
+     *        rendering executor is set, are not included.
+     */
+    void stageCompleted(Transcoder transcoder, String uri, String stage,
+                        long time, long allocatedBytes);
+
+    /**
+     * Called to report an amount of work done during the transcoding.
+     * @param transcoder the transcoder.
+     * @param uri the URI of the transcoded document, may be null.
+     * @param counter the name of the counter.
+     * @param count the amount of work.
+     */
+    void workCounted(Transcoder transcoder, String uri, String counter,
+                     long count);
+}
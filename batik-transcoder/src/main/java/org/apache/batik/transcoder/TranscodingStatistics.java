@@ -0,0 +1,156 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.transcoder;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A {@link TranscodingListener} that accumulates the durations of the
+ * stages and the counters of all the transcodings it is notified of.
+ *
+ * An instance can be shared by several transcoders, possibly running
+ * concurrently, and registered with a JMX MBeanServer through the
+ * {@link TranscodingStatisticsMBean} interface to be watched by the
+ * usual monitoring tools.
+ *
+ * @version $Id$
+ */
+public class TranscodingStatistics
+    implements TranscodingListener, TranscodingStatisticsMBean {
+
+    /**
+     * The statistics of one stage.
+     */
+    protected static class Stage {
+        protected long count;
+        protected long time;
+        protected long maxTime;
+        protected long allocatedBytes;
+    }
+
+    /**
+     * The stages, by name.
+     */
+    protected Map stages = new TreeMap();
+
+    /**
+     * The counter totals (long[1]), by name.
+     */
+    protected Map counters = new TreeMap();
+
+    public synchronized void stageCompleted(Transcoder transcoder,
+                                            String uri,
+                                            String stage,
+                                            long time,
+                                            long allocatedBytes) {
+        Stage s = (Stage)stages.get(stage);
+        if (s == null) {
+            s = new Stage();
+            stages.put(stage, s);
+        }
+        s.count++;
+        s.time += time;
+        if (time > s.maxTime)
+            s.maxTime = time;
+        if ((allocatedBytes < 0) || (s.allocatedBytes < 0))
+            s.allocatedBytes = -1;
+        else
+            s.allocatedBytes += allocatedBytes;
+    }
+
+    public synchronized void workCounted(Transcoder transcoder,
+                                         String uri,
+                                         String counter,
+                                         long count) {
+        long[] c = (long[])counters.get(counter);
+        if (c == null) {
+            c = new long[1];
+            counters.put(counter, c);
+        }
+        c[0] += count;
+    }
+
+    public synchronized String[] getStages() {
+        return (String[])stages.keySet().toArray(new String[stages.size()]);
+    }
+
+    public synchronized long getStageCount(String stage) {
+        Stage s = (Stage)stages.get(stage);
+        return (s == null) ? 0 : s.count;
+    }
+
+    public synchronized long getStageTime(String stage) {
+        Stage s = (Stage)stages.get(stage);
+        return (s == null) ? 0 : s.time;
+    }
+
+    public synchronized long getStageMaxTime(String stage) {
+        Stage s = (Stage)stages.get(stage);
+        return (s == null) ? 0 : s.maxTime;
+    }
+
+    public synchronized long getStageAllocatedBytes(String stage) {
+        Stage s = (Stage)stages.get(stage);
+        return (s == null) ? 0 : s.allocatedBytes;
+    }
+
+    public synchronized String[] getCounters() {
+        return (String[])counters.keySet().toArray
+            (new String[counters.size()]);
+    }
+
+    public synchronized long getCounter(String counter) {
+        long[] c = (long[])counters.get(counter);
+        return (c == null) ? 0 : c[0];
+    }
+
+    public synchronized void reset() {
+        stages.clear();
+        counters.clear();
+    }
+
+    /**
+     * Returns a summary of the statistics, one stage or counter per line.
+     */
+    public synchronized String toString() {
+        StringBuffer sb = new StringBuffer();
+        Iterator i = stages.entrySet().iterator();
+        while (i.hasNext()) {
+            Map.Entry e = (Map.Entry)i.next();
+            Stage s = (Stage)e.getValue();
+            sb.append(e.getKey());
+            sb.append(": count=").append(s.count);
+            sb.append(" time=").append(s.time / 1000000).append("ms");
+            sb.append(" max=").append(s.maxTime / 1000000).append("ms");
+            if (s.allocatedBytes >= 0)
+                sb.append(" allocated=").append(s.allocatedBytes);
+            sb.append('\n');
+        }
+        i = counters.entrySet().iterator();
+        while (i.hasNext()) {
+            Map.Entry e = (Map.Entry)i.next();
+            sb.append(e.getKey());
+            sb.append(": ").append(((long[])e.getValue())[0]);
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.transcoder;
+
+/**
+ * Management interface of the {@link TranscodingStatistics}, so the
+ * statistics can be registered as a standard JMX MBean.
+ *
+ * @version $Id$
+ */
+public interface TranscodingStatisticsMBean {
+
+    /**
+     * Returns the names of the stages completed at least once.
+     */
+    String[] getStages();
+
+    /**
+     * Returns the number of times the given stage was completed.
+     */
+    long getStageCount(String stage);
+
+    /**
+     * Returns the total duration of the given stage, in nanoseconds.
+     */
+    long getStageTime(String stage);
+
+    /**
+     * Returns the longest duration of the given stage, in nanoseconds.
+     */
+    long getStageMaxTime(String stage);
+
+    /**
+     * Returns the total number of bytes allocated during the given
+     * stage, or -1 if it is not measured.
+     */
+    long getStageAllocatedBytes(String stage);
+
+    /**
+     * Returns the names of the counters reported at least once.
+     */
+    String[] getCounters();
+
+    /**
+     * Returns the total of the given counter.
+     */
+    long getCounter(String counter);
+
+    /**
+     * Resets all the statistics.
+     */
+    void reset();
+}
@@ -21,22 +21,38 @@ package org.apache.batik.transcoder.image;
 import java.awt.AlphaComposite;
 import java.awt.Graphics2D;
 import java.awt.Paint;
+import java.awt.Rectangle;
 import java.awt.Shape;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
 import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.batik.ext.awt.image.GraphicsUtil;
+import org.apache.batik.ext.awt.image.rendered.AbstractRed;
+import org.apache.batik.ext.awt.image.rendered.CachableRed;
+import org.apache.batik.ext.awt.image.rendered.CountingTileCache;
+import org.apache.batik.ext.awt.image.rendered.LRUCache;
+import org.apache.batik.ext.awt.image.rendered.TileCache;
+import org.apache.batik.gvt.GraphicsNode;
 import org.apache.batik.gvt.renderer.ConcreteImageRendererFactory;
 import org.apache.batik.gvt.renderer.ImageRenderer;
 import org.apache.batik.gvt.renderer.ImageRendererFactory;
+import org.apache.batik.gvt.renderer.TiledStaticRenderer;
 import org.apache.batik.transcoder.SVGAbstractTranscoder;
 import org.apache.batik.transcoder.TranscoderException;
 import org.apache.batik.transcoder.TranscoderOutput;
 import org.apache.batik.transcoder.TranscodingHints;
+import org.apache.batik.transcoder.TranscodingListener;
 import org.apache.batik.transcoder.keys.BooleanKey;
+import org.apache.batik.transcoder.keys.ExecutorServiceKey;
+import org.apache.batik.transcoder.keys.IntegerKey;
 import org.apache.batik.transcoder.keys.PaintKey;
 import org.w3c.dom.Document;
 
@@ -64,6 +80,17 @@ import org.w3c.dom.Document;
  * stylesheet, and <code>KEY_MM_PER_PIXEL</code> to specify the number of
  * millimeters in each pixel .
  *
+ * <p><code>KEY_RENDERING_EXECUTOR</code> and
+ * <code>KEY_RENDERING_TILE_SIZE</code> can be used to render the image
+ * tile by tile on several threads.
+ *
+ * <p><code>KEY_STREAMING_BAND_HEIGHT</code> can be used to render and
+ * encode very large images band by band, so that the whole image is
+ * never held in memory by formats that support it.
+ *
+ * <p><code>KEY_TRANSCODING_LISTENER</code> can be used to get the
+ * duration of the parse, build, render and encode stages.
+ *
  * @author <a href="mailto:Thierry.Kormann@sophia.inria.fr">Thierry Kormann</a>
  * @version $Id$
  */
@@ -91,6 +118,18 @@ public abstract class ImageTranscoder extends SVGAbstractTranscoder {
         // Sets up root, curTxf & curAoi
         super.transcode(document, uri, output);
 
+        beginStage(TranscodingListener.STAGE_RENDER);
+        GraphicsNode gvtRoot = (transcodingListener != null) ? root : null;
+
+        // Counts the tiles computed by this rendering only, the tiles
+        // are still kept in the cache of the current thread.
+        CountingTileCache tileCounter = null;
+        LRUCache prevCache = null;
+        if (transcodingListener != null) {
+            tileCounter = new CountingTileCache(TileCache.getCache());
+            prevCache = TileCache.setCache(tileCounter);
+        }
+
         // prepare the image to be painted
         int w = (int)(width+0.5);
         int h = (int)(height+0.5);
@@ -104,18 +143,185 @@ public abstract class ImageTranscoder extends SVGAbstractTranscoder {
         renderer.setTree(this.root);
         this.root = null; // We're done with it...
 
+        int bandHeight = 0;
+        if (hints.containsKey(KEY_STREAMING_BAND_HEIGHT)) {
+            bandHeight = (Integer) hints.get(KEY_STREAMING_BAND_HEIGHT);
+        }
+
         try {
-            // now we are sure that the aoi is the image size
-            Shape raoi = new Rectangle2D.Float(0, 0, width, height);
-            // Warning: the renderer's AOI must be in user space
-            renderer.repaint(curTxf.createInverse().
-                             createTransformedShape(raoi));
-            BufferedImage rend = renderer.getOffScreen();
-            renderer = null; // We're done with it...
+            if ((bandHeight > 0) && (bandHeight < h)) {
+                // The bands are rendered while they are encoded, their
+                // rendering is reported with the render stage.
+                BandImage img = new BandImage(renderer, w, h, bandHeight);
+                long start = System.nanoTime();
+                long allocated = getAllocatedBytes();
+                writeRenderedImage(img, output);
+                long time = System.nanoTime() - start - img.renderTime;
+                if ((allocated >= 0) && (img.renderAllocatedBytes >= 0))
+                    allocated = getAllocatedBytes() - allocated
+                        - img.renderAllocatedBytes;
+                else
+                    allocated = -1;
+                endStage(TranscodingListener.STAGE_ENCODE, time, allocated);
+            } else {
+                // now we are sure that the aoi is the image size
+                Shape raoi = new Rectangle2D.Float(0, 0, width, height);
+                // Warning: the renderer's AOI must be in user space
+                renderer.repaint(curTxf.createInverse().
+                                 createTransformedShape(raoi));
+                BufferedImage rend = renderer.getOffScreen();
+                renderer = null; // We're done with it...
+
+                BufferedImage dest = createImage(w, h);
+
+                Graphics2D g2d = GraphicsUtil.createGraphics(dest);
+                if (hints.containsKey(KEY_BACKGROUND_COLOR)) {
+                    Paint bgcolor = (Paint)hints.get(KEY_BACKGROUND_COLOR);
+                    g2d.setComposite(AlphaComposite.SrcOver);
+                    g2d.setPaint(bgcolor);
+                    g2d.fillRect(0, 0, w, h);
+                }
+                if (rend != null) { // might be null if the svg document is empty
+                    g2d.drawRenderedImage(rend, new AffineTransform());
+                }
+                g2d.dispose();
+                rend = null; // We're done with it...
+
+                beginStage(TranscodingListener.STAGE_ENCODE);
+                writeImage(dest, output);
+                endStage();
+            }
+        } catch (Exception ex) {
+            throw new TranscoderException(ex);
+        } finally {
+            if (tileCounter != null)
+                TileCache.setCache(prevCache);
+        }
+
+        countGlyphs(gvtRoot);
+        if (tileCounter != null)
+            countWork(TranscodingListener.COUNTER_TILES_COMPUTED,
+                      tileCounter.getMissCount());
+    }
 
-            BufferedImage dest = createImage(w, h);
+    /**
+     * Writes an image rendered band by band to the specified output.
+     * The bands are rendered on demand, in the order they are requested
+     * from <code>img</code>, and are tiles of the image.
+     *
+     * This implementation copies <code>img</code> to an image created
+     * with <code>createImage</code> and calls <code>writeImage</code>,
+     * subclasses override it to encode the bands as they come.
+     *
+     * @param img the image to write
+     * @param output the output where to store the image
+     * @throws TranscoderException if an error occured while storing the image
+     */
+    protected void writeRenderedImage(RenderedImage img,
+                                      TranscoderOutput output)
+        throws TranscoderException {
+        BufferedImage dest = createImage(img.getWidth(), img.getHeight());
+        img.copyData(dest.getRaster());
+        writeImage(dest, output);
+    }
+
+    /**
+     * Called on each band of an image rendered band by band, once it
+     * has been painted and before it is encoded.  This implementation
+     * does nothing.
+     * @param band the band, an image created with <code>createImage</code>
+     */
+    protected void processBand(BufferedImage band) {
+    }
 
-            Graphics2D g2d = GraphicsUtil.createGraphics(dest);
+    /**
+     * An image whose horizontal bands are rendered on demand, so only
+     * the bands being encoded are held in memory.  The bands are
+     * rendered by a single renderer, the image must be accessed from
+     * one thread at a time.
+     */
+    protected class BandImage extends AbstractRed {
+
+        /**
+         * The renderer the bands are rendered with.
+         */
+        protected ImageRenderer renderer;
+
+        /**
+         * The time spent rendering the bands so far, in nanoseconds.
+         */
+        protected long renderTime;
+
+        /**
+         * The bytes allocated while rendering the bands so far, or -1
+         * if they are not measured.
+         */
+        protected long renderAllocatedBytes;
+
+        /**
+         * Creates a new BandImage.
+         * @param renderer the renderer the GVT tree is set on
+         * @param width the image width in pixels
+         * @param height the image height in pixels
+         * @param bandHeight the height of the bands, which are the
+         *        tiles of this image
+         */
+        public BandImage(ImageRenderer renderer,
+                         int width, int height, int bandHeight) {
+            this.renderer = renderer;
+            BufferedImage bi = createImage(1, 1);
+            SampleModel sm = bi.getSampleModel().createCompatibleSampleModel
+                (width, bandHeight);
+            init((CachableRed)null, new Rectangle(0, 0, width, height),
+                 bi.getColorModel(), sm, 0, 0, null);
+        }
+
+        public WritableRaster copyData(WritableRaster wr) {
+            Rectangle r = wr.getBounds().intersection(getBounds());
+            if (r.isEmpty())
+                return wr;
+
+            int bandHeight = getTileHeight();
+            int y = r.y;
+            while (y < r.y + r.height) {
+                // Stay within one band so the renderer buffers keep
+                // the size of a band.
+                int next = (getYTile(y) + 1) * bandHeight;
+                int bh = Math.min(next, r.y + r.height) - y;
+                long start = System.nanoTime();
+                long allocated = getAllocatedBytes();
+                BufferedImage band = renderBand(r.x, y, r.width, bh);
+                renderTime += System.nanoTime() - start;
+                if ((allocated >= 0) && (renderAllocatedBytes >= 0))
+                    renderAllocatedBytes += getAllocatedBytes() - allocated;
+                else
+                    renderAllocatedBytes = -1;
+                wr.setDataElements(r.x, y, band.getRaster());
+                y += bh;
+            }
+            return wr;
+        }
+
+        /**
+         * Returns the specified area of the image.
+         */
+        protected BufferedImage renderBand(int x, int y, int w, int h) {
+            // Move the band to the origin of the offscreen.
+            AffineTransform at = AffineTransform.getTranslateInstance(-x, -y);
+            at.concatenate(curTxf);
+            renderer.updateOffScreen(w, h);
+            renderer.setTransform(at);
+            try {
+                Shape raoi = new Rectangle2D.Float(0, 0, w, h);
+                renderer.repaint(at.createInverse().
+                                 createTransformedShape(raoi));
+            } catch (NoninvertibleTransformException ex) {
+                throw new IllegalStateException(ex.getMessage());
+            }
+            BufferedImage rend = renderer.getOffScreen();
+
+            BufferedImage band = createImage(w, h);
+            Graphics2D g2d = GraphicsUtil.createGraphics(band);
             if (hints.containsKey(KEY_BACKGROUND_COLOR)) {
                 Paint bgcolor = (Paint)hints.get(KEY_BACKGROUND_COLOR);
                 g2d.setComposite(AlphaComposite.SrcOver);
@@ -126,10 +332,8 @@ public abstract class ImageTranscoder extends SVGAbstractTranscoder {
                 g2d.drawRenderedImage(rend, new AffineTransform());
             }
             g2d.dispose();
-            rend = null; // We're done with it...
-            writeImage(dest, output);
-        } catch (Exception ex) {
-            throw new TranscoderException(ex);
+            processBand(band);
+            return band;
         }
     }
 
@@ -137,6 +341,15 @@ public abstract class ImageTranscoder extends SVGAbstractTranscoder {
      * Method so subclasses can modify the Renderer used to render document.
      */
     protected ImageRenderer createRenderer() {
+        if (hints.containsKey(KEY_RENDERING_EXECUTOR)) {
+            ExecutorService executor
+                = (ExecutorService)hints.get(KEY_RENDERING_EXECUTOR);
+            int tileSize = TiledStaticRenderer.DEFAULT_TILE_SIZE;
+            if (hints.containsKey(KEY_RENDERING_TILE_SIZE)) {
+                tileSize = (Integer) hints.get(KEY_RENDERING_TILE_SIZE);
+            }
+            return new TiledStaticRenderer(executor, tileSize);
+        }
         ImageRendererFactory rendFactory = new ConcreteImageRendererFactory();
         // ImageRenderer renderer = rendFactory.createDynamicImageRenderer();
         return rendFactory.createStaticImageRenderer();
@@ -275,4 +488,110 @@ public abstract class ImageTranscoder extends SVGAbstractTranscoder {
      */
     public static final TranscodingHints.Key KEY_FORCE_TRANSPARENT_WHITE
         = new BooleanKey();
+
+    /**
+     * The rendering executor key.
+     *
+     * <table summary="" border="0" cellspacing="0" cellpadding="1">
+     *   <tr>
+     *     <th valign="top" align="right">Key:</th>
+     *     <td valign="top">KEY_RENDERING_EXECUTOR</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Value:</th>
+     *     <td valign="top">ExecutorService</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Default:</th>
+     *     <td valign="top">null</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Required:</th>
+     *     <td valign="top">No</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Description:</th>
+     *     <td valign="top">When specified, the image is split in tiles
+     *       of <code>KEY_RENDERING_TILE_SIZE</code> pixels which are
+     *       rendered concurrently on this executor.  When not specified
+     *       the whole image is rendered on the transcoding thread.
+     *       <br>
+     *       The executor is not shut down by the transcoder so it can
+     *       be shared between transcoders.  Only static documents
+     *       should be rendered this way.</td>
+     *   </tr>
+     * </table>
+     */
+    public static final TranscodingHints.Key KEY_RENDERING_EXECUTOR
+        = new ExecutorServiceKey();
+
+    /**
+     * The rendering tile size key.
+     *
+     * <table summary="" border="0" cellspacing="0" cellpadding="1">
+     *   <tr>
+     *     <th valign="top" align="right">Key:</th>
+     *     <td valign="top">KEY_RENDERING_TILE_SIZE</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Value:</th>
+     *     <td valign="top">Integer</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Default:</th>
+     *     <td valign="top">256</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Required:</th>
+     *     <td valign="top">No</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Description:</th>
+     *     <td valign="top">The size, in pixels, of the tiles rendered
+     *       concurrently when <code>KEY_RENDERING_EXECUTOR</code> is
+     *       specified.  It is rounded up to a multiple of the renderer's
+     *       internal tile size.</td>
+     *   </tr>
+     * </table>
+     */
+    public static final TranscodingHints.Key KEY_RENDERING_TILE_SIZE
+        = new IntegerKey();
+
+    /**
+     * The streaming band height key.
+     *
+     * <table summary="" border="0" cellspacing="0" cellpadding="1">
+     *   <tr>
+     *     <th valign="top" align="right">Key:</th>
+     *     <td valign="top">KEY_STREAMING_BAND_HEIGHT</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Value:</th>
+     *     <td valign="top">Integer</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Default:</th>
+     *     <td valign="top">none/the whole image is rendered at once</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Required:</th>
+     *     <td valign="top">No</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Description:</th>
+     *     <td valign="top">When specified, the image is rendered in
+     *       horizontal bands of this number of rows, each band being
+     *       rendered when the encoder asks for it.  The PNG and TIFF
+     *       transcoders encode the bands as they come so the memory
+     *       used is proportional to the band height instead of the
+     *       image height; other formats still build the whole image.
+     *       The render stage reported to a
+     *       <code>KEY_TRANSCODING_LISTENER</code> then only covers the
+     *       set up of the renderer, the bands being rendered during
+     *       the encode stage.</td>
+     *   </tr>
+     * </table>
+     */
+    public static final TranscodingHints.Key KEY_STREAMING_BAND_HEIGHT
+        = new IntegerKey();
 }
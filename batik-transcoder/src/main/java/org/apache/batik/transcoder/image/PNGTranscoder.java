@@ -19,6 +19,7 @@
 package org.apache.batik.transcoder.image;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
 import java.awt.image.SinglePixelPackedSampleModel;
 import java.io.OutputStream;
 
@@ -27,6 +28,8 @@ import org.apache.batik.transcoder.TranscoderException;
 import org.apache.batik.transcoder.TranscoderOutput;
 import org.apache.batik.transcoder.TranscodingHints;
 import org.apache.batik.transcoder.image.resources.Messages;
+import org.apache.batik.transcoder.keys.BooleanKey;
+import org.apache.batik.transcoder.keys.ExecutorServiceKey;
 import org.apache.batik.transcoder.keys.FloatKey;
 import org.apache.batik.transcoder.keys.IntegerKey;
 
@@ -93,20 +96,66 @@ public class PNGTranscoder extends ImageTranscoder {
         // This is a trick so that viewers which do not support the alpha
         // channel will see a white background (and not a black one).
         //
-        boolean forceTransparentWhite = false;
+        if (isForceTransparentWhite()) {
+            SinglePixelPackedSampleModel sppsm;
+            sppsm = (SinglePixelPackedSampleModel)img.getSampleModel();
+            forceTransparentWhite(img, sppsm);
+        }
 
-        if (hints.containsKey(PNGTranscoder.KEY_FORCE_TRANSPARENT_WHITE)) {
-            forceTransparentWhite =
-                    (Boolean) hints.get
-                            (PNGTranscoder.KEY_FORCE_TRANSPARENT_WHITE);
+        getWriteAdapter().writeImage(this, img, output);
+    }
+
+    /**
+     * Writes an image rendered band by band to the specified output.
+     * The bands are encoded as they are rendered when the write adapter
+     * is a <code>StreamingWriteAdapter</code>.
+     * @param img the image to write
+     * @param output the output where to store the image
+     * @throws TranscoderException if an error occured while storing the image
+     */
+    protected void writeRenderedImage(RenderedImage img,
+                                      TranscoderOutput output)
+            throws TranscoderException {
+
+        OutputStream ostream = output.getOutputStream();
+        if (ostream == null) {
+            throw new TranscoderException(
+                Messages.formatMessage("png.badoutput", null));
         }
 
-        if (forceTransparentWhite) {
+        WriteAdapter adapter = getWriteAdapter();
+        if (adapter instanceof StreamingWriteAdapter) {
+            ((StreamingWriteAdapter)adapter).writeRenderedImage
+                (this, img, output);
+        } else {
+            // The bands are already processed, don't use writeImage.
+            BufferedImage dest = createImage(img.getWidth(), img.getHeight());
+            img.copyData(dest.getRaster());
+            adapter.writeImage(this, dest, output);
+        }
+    }
+
+    /**
+     * Forces the transparent pixels of a band to white when
+     * <code>KEY_FORCE_TRANSPARENT_WHITE</code> is set.
+     */
+    protected void processBand(BufferedImage band) {
+        if (isForceTransparentWhite()) {
             SinglePixelPackedSampleModel sppsm;
-            sppsm = (SinglePixelPackedSampleModel)img.getSampleModel();
-            forceTransparentWhite(img, sppsm);
+            sppsm = (SinglePixelPackedSampleModel)band.getSampleModel();
+            forceTransparentWhite(band, sppsm);
+        }
+    }
+
+    private boolean isForceTransparentWhite() {
+        if (hints.containsKey(PNGTranscoder.KEY_FORCE_TRANSPARENT_WHITE)) {
+            return (Boolean) hints.get
+                (PNGTranscoder.KEY_FORCE_TRANSPARENT_WHITE);
         }
+        return false;
+    }
 
+    private WriteAdapter getWriteAdapter() throws TranscoderException {
         WriteAdapter adapter = getWriteAdapter(
                 "org.apache.batik.ext.awt.image.codec.png.PNGTranscoderInternalCodecWriteAdapter");
         if (adapter == null) {
@@ -117,7 +166,7 @@ public class PNGTranscoder extends ImageTranscoder {
             throw new TranscoderException(
                     "Could not write PNG file because no WriteAdapter is availble");
         }
-        adapter.writeImage(this, img, output);
+        return adapter;
     }
     
     // --------------------------------------------------------------------
@@ -143,6 +192,27 @@ public class PNGTranscoder extends ImageTranscoder {
                 TranscoderOutput output) throws TranscoderException;
 
     }
+
+    /**
+     * A <code>WriteAdapter</code> that can encode an image while its
+     * bands are rendered.
+     *
+     * @version $Id$
+     */
+    public interface StreamingWriteAdapter extends WriteAdapter {
+
+        /**
+         * Writes the specified image to the specified output, fetching
+         * its data one row of tiles at a time.
+         * @param transcoder the calling PNGTranscoder
+         * @param img the image to write
+         * @param output the output where to store the image
+         * @throws TranscoderException if an error occured while storing the image
+         */
+        void writeRenderedImage(PNGTranscoder transcoder, RenderedImage img,
+                TranscoderOutput output) throws TranscoderException;
+
+    }
     
 
     // --------------------------------------------------------------------
@@ -220,4 +290,155 @@ public class PNGTranscoder extends ImageTranscoder {
      */
     public static final TranscodingHints.Key KEY_INDEXED
         = new IntegerKey();
+
+    /**
+     * The zlib compression level key.
+     *
+     * <table summary="" border="0" cellspacing="0" cellpadding="1">
+     *   <tr>
+     *     <th valign="top" align="right">Key:</th>
+     *     <td valign="top">KEY_COMPRESSION_LEVEL</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Value:</th>
+     *     <td valign="top">Integer</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Default:</th>
+     *     <td valign="top">9</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Required:</th>
+     *     <td valign="top">No</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Description:</th>
+     *     <td valign="top">The compression level of the image data, from 0
+     *       (no compression) to 9 (best compression).  Low levels
+     *       produce larger files much faster.</td>
+     *   </tr>
+     * </table>
+     */
+    public static final TranscodingHints.Key KEY_COMPRESSION_LEVEL
+        = new IntegerRangeKey(0, 9);
+
+    /**
+     * The row filter key.
+     *
+     * <table summary="" border="0" cellspacing="0" cellpadding="1">
+     *   <tr>
+     *     <th valign="top" align="right">Key:</th>
+     *     <td valign="top">KEY_FILTER</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Value:</th>
+     *     <td valign="top">Integer</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Default:</th>
+     *     <td valign="top">none/best filter of each row</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Required:</th>
+     *     <td valign="top">No</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Description:</th>
+     *     <td valign="top">The PNG filter type applied to every row, one of
+     *       the <code>PNGEncodeParam.PNG_FILTER_*</code> constants
+     *       (0 to 4).  By default every filter type is tried on each
+     *       row and the best one is kept, which is several times
+     *       slower.</td>
+     *   </tr>
+     * </table>
+     */
+    public static final TranscodingHints.Key KEY_FILTER
+        = new IntegerRangeKey(0, 4);
+
+    /**
+     * The fast encoding key.
+     *
+     * <table summary="" border="0" cellspacing="0" cellpadding="1">
+     *   <tr>
+     *     <th valign="top" align="right">Key:</th>
+     *     <td valign="top">KEY_FAST_ENCODING</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Value:</th>
+     *     <td valign="top">Boolean</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Default:</th>
+     *     <td valign="top">false</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Required:</th>
+     *     <td valign="top">No</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Description:</th>
+     *     <td valign="top">Selects the fast encoding mode meant for latency
+     *       sensitive uses: the rows are all filtered with the 'sub'
+     *       filter and compressed with the level 1, unless
+     *       <code>KEY_FILTER</code> or <code>KEY_COMPRESSION_LEVEL</code>
+     *       are specified.</td>
+     *   </tr>
+     * </table>
+     */
+    public static final TranscodingHints.Key KEY_FAST_ENCODING
+        = new BooleanKey();
+
+    /**
+     * The encoding executor key.
+     *
+     * <table summary="" border="0" cellspacing="0" cellpadding="1">
+     *   <tr>
+     *     <th valign="top" align="right">Key:</th>
+     *     <td valign="top">KEY_ENCODING_EXECUTOR</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Value:</th>
+     *     <td valign="top">ExecutorService</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Default:</th>
+     *     <td valign="top">null</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Required:</th>
+     *     <td valign="top">No</td>
+     *   </tr>
+     *   <tr>
+     *     <th valign="top" align="right">Description:</th>
+     *     <td valign="top">When specified, the rows of the image
+     *       are split in bands which are filtered and compressed
+     *       concurrently on this executor, then joined into a single
+     *       compressed stream.  The executor is not shut down by the
+     *       transcoder so it can be shared between transcoders.</td>
+     *   </tr>
+     * </table>
+     */
+    public static final TranscodingHints.Key KEY_ENCODING_EXECUTOR
+        = new ExecutorServiceKey();
+
+    /**
+     * A transcoding Key represented as an int within a range.
+     */
+    private static class IntegerRangeKey extends TranscodingHints.Key {
+        private int min, max;
+
+        IntegerRangeKey(int min, int max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        public boolean isCompatibleValue(Object v) {
+            if (v instanceof Integer) {
+                int i = (Integer) v;
+                return (i >= min && i <= max);
+            } else {
+                return false;
+            }
+        }
+    }
 }
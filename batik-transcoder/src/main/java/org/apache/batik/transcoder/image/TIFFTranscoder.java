@@ -20,6 +20,7 @@
 package org.apache.batik.transcoder.image;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
 import java.awt.image.SinglePixelPackedSampleModel;
 
 import org.apache.batik.bridge.UserAgent;
@@ -86,20 +87,60 @@ public class TIFFTranscoder extends ImageTranscoder {
         // This is a trick so that viewers which do not support the alpha
         // channel will see a white background (and not a black one).
         //
-        boolean forceTransparentWhite = false;
+        if (isForceTransparentWhite()) {
+            SinglePixelPackedSampleModel sppsm;
+            sppsm = (SinglePixelPackedSampleModel)img.getSampleModel();
+            forceTransparentWhite(img, sppsm);
+        }
 
-        if (hints.containsKey(PNGTranscoder.KEY_FORCE_TRANSPARENT_WHITE)) {
-            forceTransparentWhite =
-                    (Boolean) hints.get
-                            (PNGTranscoder.KEY_FORCE_TRANSPARENT_WHITE);
+        getWriteAdapter().writeImage(this, img, output);
+    }
+
+    /**
+     * Writes an image rendered band by band to the specified output.
+     * The bands are encoded as they are rendered when the write adapter
+     * is a <code>StreamingWriteAdapter</code>.
+     * @param img the image to write
+     * @param output the output where to store the image
+     * @throws TranscoderException if an error occured while storing the image
+     */
+    protected void writeRenderedImage(RenderedImage img,
+                                      TranscoderOutput output)
+            throws TranscoderException {
+
+        WriteAdapter adapter = getWriteAdapter();
+        if (adapter instanceof StreamingWriteAdapter) {
+            ((StreamingWriteAdapter)adapter).writeRenderedImage
+                (this, img, output);
+        } else {
+            // The bands are already processed, don't use writeImage.
+            BufferedImage dest = createImage(img.getWidth(), img.getHeight());
+            img.copyData(dest.getRaster());
+            adapter.writeImage(this, dest, output);
         }
+    }
 
-        if (forceTransparentWhite) {
+    /**
+     * Forces the transparent pixels of a band to white when
+     * <code>KEY_FORCE_TRANSPARENT_WHITE</code> is set.
+     */
+    protected void processBand(BufferedImage band) {
+        if (isForceTransparentWhite()) {
             SinglePixelPackedSampleModel sppsm;
-            sppsm = (SinglePixelPackedSampleModel)img.getSampleModel();
-            forceTransparentWhite(img, sppsm);
+            sppsm = (SinglePixelPackedSampleModel)band.getSampleModel();
+            forceTransparentWhite(band, sppsm);
         }
+    }
+
+    private boolean isForceTransparentWhite() {
+        if (hints.containsKey(PNGTranscoder.KEY_FORCE_TRANSPARENT_WHITE)) {
+            return (Boolean) hints.get
+                (PNGTranscoder.KEY_FORCE_TRANSPARENT_WHITE);
+        }
+        return false;
+    }
 
+    private WriteAdapter getWriteAdapter() throws TranscoderException {
         WriteAdapter adapter = getWriteAdapter(
                 "org.apache.batik.ext.awt.image.codec.tiff.TIFFTranscoderInternalCodecWriteAdapter");
         if (adapter == null) {
@@ -110,7 +151,7 @@ public class TIFFTranscoder extends ImageTranscoder {
             throw new TranscoderException(
                     "Could not write TIFF file because no WriteAdapter is availble");
         }
-        adapter.writeImage(this, img, output);
+        return adapter;
     }
     
     // --------------------------------------------------------------------
@@ -136,6 +177,27 @@ public class TIFFTranscoder extends ImageTranscoder {
                 TranscoderOutput output) throws TranscoderException;
 
     }
+
+    /**
+     * A <code>WriteAdapter</code> that can encode an image while its
+     * bands are rendered.
+     *
+     * @version $Id$
+     */
+    public interface StreamingWriteAdapter extends WriteAdapter {
+
+        /**
+         * Writes the specified image to the specified output, fetching
+         * its data one row of tiles at a time.
+         * @param transcoder the calling TIFFTranscoder
+         * @param img the image to write
+         * @param output the output where to store the image
+         * @throws TranscoderException if an error occured while storing the image
+         */
+        void writeRenderedImage(TIFFTranscoder transcoder, RenderedImage img,
+                TranscoderOutput output) throws TranscoderException;
+
+    }
     
 
     // --------------------------------------------------------------------
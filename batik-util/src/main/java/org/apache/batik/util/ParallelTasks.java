@@ -0,0 +1,107 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs a set of independent tasks on an <code>Executor</code> and
+ * waits for all of them to complete.
+ *
+ * The calling thread takes part in the work: the tasks are claimed one
+ * at a time by the caller and by the helpers submitted to the executor,
+ * so the tasks still complete when the executor is saturated, rejects
+ * the helpers, or is the one running the caller (nested use from a
+ * task of the same pool can not deadlock).
+ *
+ * @version $Id$
+ */
+public final class ParallelTasks {
+
+    /**
+     * Do not authorize creation of instances of that class.
+     */
+    private ParallelTasks() {
+    }
+
+    /**
+     * Runs <code>tasks</code> on <code>executor</code> and the calling
+     * thread, and returns once all of them are completed.  If a task
+     * fails the remaining ones are still run, then the first
+     * RuntimeException or Error thrown is rethrown.
+     * @param executor the executor to run the tasks on, if null the
+     *        tasks are run on the calling thread.
+     * @param tasks the tasks to run.
+     */
+    public static void run(Executor executor, final Runnable[] tasks) {
+        final AtomicInteger next = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(tasks.length);
+        final AtomicReference failure = new AtomicReference();
+
+        Runnable worker = new Runnable() {
+                public void run() {
+                    int i;
+                    while ((i = next.getAndIncrement()) < tasks.length) {
+                        try {
+                            tasks[i].run();
+                        } catch (Throwable t) {
+                            failure.compareAndSet(null, t);
+                        } finally {
+                            done.countDown();
+                        }
+                    }
+                }
+            };
+
+        if (executor != null) {
+            for (int i = 1; i < tasks.length; i++) {
+                try {
+                    executor.execute(worker);
+                } catch (RejectedExecutionException ree) {
+                    break;
+                }
+            }
+        }
+        worker.run();
+
+        // Every task is claimed at this point, so we only wait for the
+        // ones still running on other threads.
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException ie) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+
+        Throwable t = (Throwable)failure.get();
+        if (t instanceof RuntimeException)
+            throw (RuntimeException)t;
+        if (t instanceof Error)
+            throw (Error)t;
+    }
+}
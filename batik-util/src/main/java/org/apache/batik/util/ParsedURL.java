@@ -440,6 +440,20 @@ public class ParsedURL {
         return data.openStream(userAgent, mimeTypes);
     }
 
+    /**
+     * Attempt to open the stream checking for common compression
+     * types, and automatically decompressing them if found.  Local
+     * files are read through memory mappings.
+     * @param mimeTypes The expected mime types of the content
+     *        in the returned InputStream (mapped to Http accept
+     *        header among other possabilities).  The elements of
+     *        the iterator must be strings.
+     */
+    public InputStream openMappedStream(Iterator mimeTypes)
+        throws IOException {
+        return data.openMappedStream(userAgent, mimeTypes);
+    }
+
     /**
      * Attempt to open the stream, does no checking for compression
      * types.
@@ -19,10 +19,13 @@
 package org.apache.batik.util;
 
 import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.Iterator;
@@ -32,6 +35,8 @@ import java.util.zip.GZIPInputStream;
 import java.util.zip.InflaterInputStream;
 import java.util.zip.ZipException;
 
+import org.apache.batik.util.io.MappedFileInputStream;
+
 /**
  * Holds the data for more URLs.
  *
@@ -482,6 +487,49 @@ loop2:          while (i < len) {
         return checkGZIP(raw);
     }
 
+    /**
+     * Open the stream checking for common compression types, like
+     * openStream.  When this URL denotes a local file, the file is read
+     * through memory mappings instead of a URL connection.
+     * @param userAgent The user agent opening the stream (may be null).
+     * @param mimeTypes The expected mime types of the content
+     *        in the returned InputStream (mapped to Http accept
+     *        header among other possability).  The elements of
+     *        the iterator must be strings (may be null)
+     */
+    public InputStream openMappedStream(String userAgent, Iterator mimeTypes)
+        throws IOException {
+        File f = getLocalFile();
+        if (f == null) {
+            return openStream(userAgent, mimeTypes);
+        }
+        hasBeenOpened = true;
+        return checkGZIP(new MappedFileInputStream(f));
+    }
+
+    /**
+     * Returns the local file denoted by this URL, or null if this URL
+     * is not a file URL or does not denote a regular file.
+     */
+    protected File getLocalFile() {
+        if (!"file".equals(protocol) || path == null ||
+            (host != null && host.length() != 0)) {
+            return null;
+        }
+        String p;
+        try {
+            // Decodes the escaped characters.
+            p = new URI("file:" + path).getPath();
+        } catch (URISyntaxException e) {
+            p = path;
+        }
+        if (p == null) {
+            return null;
+        }
+        File f = new File(p);
+        return f.isFile() ? f : null;
+    }
+
     /**
      * Open the stream and returns it.  No checks are made to see
      * if the stream is compressed or encoded in any way.
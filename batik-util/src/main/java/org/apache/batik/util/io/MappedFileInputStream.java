@@ -0,0 +1,215 @@
+/*
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+package org.apache.batik.util.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class represents an input stream reading a local file through
+ * memory mappings of its content.  The bytes are copied straight from
+ * the mapped pages to the buffers of the readers, without read system
+ * calls nor intermediate buffering.  Large files are mapped through
+ * successive windows.
+ *
+ * @version $Id$
+ */
+public class MappedFileInputStream extends InputStream {
+
+    /**
+     * The maximum size of a mapped window.
+     */
+    protected static final int WINDOW_SIZE = 1 << 26;
+
+    /**
+     * The channel of the file.
+     */
+    protected FileChannel channel;
+
+    /**
+     * The size of the file.
+     */
+    protected long size;
+
+    /**
+     * The offset in the file of the current window.
+     */
+    protected long windowStart;
+
+    /**
+     * The current window.
+     */
+    protected ByteBuffer buffer;
+
+    /**
+     * The marked position in the file.
+     */
+    protected long mark;
+
+    /**
+     * Creates a new MappedFileInputStream.
+     * @param f The file to read.
+     */
+    public MappedFileInputStream(File f) throws IOException {
+        channel = new RandomAccessFile(f, "r").getChannel();
+        try {
+            size = channel.size();
+            map(0);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps the window starting at the given offset.
+     */
+    protected void map(long pos) throws IOException {
+        windowStart = pos;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, pos,
+                             Math.min(WINDOW_SIZE, size - pos));
+    }
+
+    /**
+     * Returns the current position in the file.
+     */
+    protected long getPosition() {
+        return windowStart + buffer.position();
+    }
+
+    /**
+     * Moves to the given position in the file.
+     */
+    protected void setPosition(long pos) throws IOException {
+        if (pos >= windowStart && pos <= windowStart + buffer.limit()) {
+            buffer.position((int)(pos - windowStart));
+        } else {
+            map(pos);
+        }
+    }
+
+    /**
+     * Makes sure some bytes are available in the current window.
+     * @return false if the end of the file was reached.
+     */
+    protected boolean fill() throws IOException {
+        if (channel == null) {
+            throw new IOException("Stream closed");
+        }
+        if (buffer.hasRemaining()) {
+            return true;
+        }
+        long pos = windowStart + buffer.limit();
+        if (pos >= size) {
+            return false;
+        }
+        map(pos);
+        return true;
+    }
+
+    /**
+     * Reads the next byte of data.
+     */
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer.get() & 0xff;
+    }
+
+    /**
+     * Reads up to len bytes of data into an array of bytes.
+     */
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, buffer.remaining());
+        buffer.get(b, off, n);
+        return n;
+    }
+
+    /**
+     * Skips over n bytes of data.
+     */
+    public long skip(long n) throws IOException {
+        if (n <= 0 || !fill()) {
+            return 0;
+        }
+        long pos = getPosition();
+        long npos = Math.min(size, pos + n);
+        setPosition(npos);
+        return npos - pos;
+    }
+
+    /**
+     * Returns the number of bytes which can be read without blocking.
+     */
+    public int available() throws IOException {
+        if (channel == null) {
+            return 0;
+        }
+        return (int)Math.min(Integer.MAX_VALUE, size - getPosition());
+    }
+
+    /**
+     * Marks the current position.  The read limit is ignored.
+     */
+    public void mark(int readlimit) {
+        if (channel != null) {
+            mark = getPosition();
+        }
+    }
+
+    /**
+     * Repositions this stream to the marked position.
+     */
+    public void reset() throws IOException {
+        if (channel == null) {
+            throw new IOException("Stream closed");
+        }
+        setPosition(mark);
+    }
+
+    /**
+     * Returns true: the mark and reset methods are supported.
+     */
+    public boolean markSupported() {
+        return true;
+    }
+
+    /**
+     * Closes the stream.  The mapped windows are released when they are
+     * garbage collected.
+     */
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            buffer = null;
+        }
+    }
+}
@@ -235,6 +235,20 @@ public class XMLScanner implements Localizable {
         }
     }
 
+    /**
+     * Creates a new XML scanner.
+     * @param r The normalizing reader to scan.
+     */
+    public XMLScanner(NormalizingReader r) throws XMLException {
+        context = DOCUMENT_START_CONTEXT;
+        try {
+            reader = r;
+            current = nextChar();
+        } catch (IOException e) {
+            throw new XMLException(e);
+        }
+    }
+
     /**
      * Creates a new XML scanner.
      * @param s The string to parse.
@@ -499,13 +513,16 @@ public class XMLScanner implements Localizable {
                 break;
 
             case ENTITY_VALUE_CONTEXT:
-                return nextInEntityValue();
+                type = nextInEntityValue();
+                break;
 
             case NOTATION_TYPE_CONTEXT:
-                return nextInNotationType();
+                type = nextInNotationType();
+                break;
 
             case ENUMERATION_CONTEXT:
-                return nextInEnumeration();
+                type = nextInEnumeration();
+                break;
 
             default:
                 throw new IllegalArgumentException("unexpected ctx:" + ctx );
@@ -1873,13 +1890,13 @@ public class XMLScanner implements Localizable {
             return readReference();
 
         case '%':
-            int t = nextChar();
+            nextChar();
             readName(LexicalUnits.PARAMETER_ENTITY_REFERENCE);
             if (current != ';') {
                 throw createXMLException("invalid.parameter.entity");
             }
             nextChar();
-            return t;
+            return LexicalUnits.PARAMETER_ENTITY_REFERENCE;
 
         default:
             while (current != -1 &&
@@ -93,6 +93,16 @@ public class XMLStreamNormalizingReader extends StreamNormalizingReader {
                 }
                 break;
 
+            case 0x00EF:
+                if ((buf[1] & 0x00FF) == 0x00BB &&
+                    (buf[2] & 0x00FF) == 0x00BF) {
+                    // Skip the UTF-8 byte order mark.
+                    pbis.skip(3);
+                    charDecoder = createCharDecoder(pbis, "UTF-8");
+                    return;
+                }
+                break;
+
             case 0x00FE:
                 if ((buf[1] & 0x00FF) == 0x00FF) {
                     charDecoder = createCharDecoder(pbis, "UTF-16");